@@ -2,7 +2,8 @@ package com.example.trading.controller;
 
 import com.example.trading.model.AlertRule;
 import com.example.trading.repository.AlertRuleRepository;
-import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.service.AlertEvaluationService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,29 +24,27 @@ import java.util.Map;
 public class AlertController {
 
     private final AlertRuleRepository alertRules;
-    private final UserRepository users;
+    private final AlertEvaluationService alertEngine;
 
-    public AlertController(AlertRuleRepository alertRules, UserRepository users) {
+    public AlertController(AlertRuleRepository alertRules, AlertEvaluationService alertEngine) {
         this.alertRules = alertRules;
-        this.users = users;
+        this.alertEngine = alertEngine;
     }
 
     @GetMapping
-    public ResponseEntity<?> list(java.security.Principal principal,
+    public ResponseEntity<?> list(AuthenticatedUser user,
                                   @RequestParam(required = false) String symbol) {
-        var user = resolveUser(principal);
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
         if (symbol == null || symbol.isBlank()) {
-            return ResponseEntity.ok(alertRules.findByUserIdOrderByCreatedAtDesc(user.getId()));
+            return ResponseEntity.ok(alertRules.findByUserIdOrderByCreatedAtDesc(user.id()));
         }
 
-        return ResponseEntity.ok(alertRules.findByUserIdAndSymbolOrderByCreatedAtDesc(user.getId(), normalizeSymbol(symbol)));
+        return ResponseEntity.ok(alertRules.findByUserIdAndSymbolOrderByCreatedAtDesc(user.id(), normalizeSymbol(symbol)));
     }
 
     @PostMapping
-    public ResponseEntity<?> create(java.security.Principal principal, @RequestBody Map<String, Object> body) {
-        var user = resolveUser(principal);
+    public ResponseEntity<?> create(AuthenticatedUser user, @RequestBody Map<String, Object> body) {
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
         Object rawSymbol = body.get("symbol");
@@ -72,27 +71,24 @@ public class AlertController {
             return ResponseEntity.badRequest().body("targetPrice must be > 0");
         }
 
-        AlertRule alert = new AlertRule(user.getId(), normalizeSymbol(symbolInput), conditionType, targetPrice);
-        return ResponseEntity.ok(alertRules.save(alert));
+        AlertRule alert = new AlertRule(user.id(), normalizeSymbol(symbolInput), conditionType, targetPrice);
+        AlertRule saved = alertRules.save(alert);
+        alertEngine.register(saved);
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(java.security.Principal principal, @PathVariable Long id) {
-        var user = resolveUser(principal);
+    public ResponseEntity<?> delete(AuthenticatedUser user, @PathVariable Long id) {
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
-        var alert = alertRules.findByIdAndUserId(id, user.getId()).orElse(null);
+        var alert = alertRules.findByIdAndUserId(id, user.id()).orElse(null);
         if (alert == null) return ResponseEntity.status(404).body("alert not found");
 
         alertRules.delete(alert);
+        alertEngine.unregister(alert);
         return ResponseEntity.ok(Map.of("deleted", true, "id", id));
     }
 
-    private com.example.trading.model.User resolveUser(java.security.Principal principal) {
-        if (principal == null) return null;
-        return users.findByUsername(principal.getName()).orElse(null);
-    }
-
     private String normalizeSymbol(String symbol) {
         return symbol.trim().toUpperCase(Locale.ROOT);
     }
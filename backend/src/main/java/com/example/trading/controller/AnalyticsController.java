@@ -1,6 +1,7 @@
 package com.example.trading.controller;
 
-import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.service.OrderProjector;
 import com.example.trading.service.PortfolioAnalyticsService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,33 +13,27 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/analytics")
 public class AnalyticsController {
 
-    private final UserRepository users;
     private final PortfolioAnalyticsService analytics;
+    private final OrderProjector orderProjector;
 
-    public AnalyticsController(UserRepository users, PortfolioAnalyticsService analytics) {
-        this.users = users;
+    public AnalyticsController(PortfolioAnalyticsService analytics, OrderProjector orderProjector) {
         this.analytics = analytics;
+        this.orderProjector = orderProjector;
     }
 
     @GetMapping("/portfolio-summary")
-    public ResponseEntity<?> portfolioSummary(java.security.Principal principal) {
-        var user = resolveUser(principal);
+    public ResponseEntity<?> portfolioSummary(AuthenticatedUser user) {
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
-        return ResponseEntity.ok(analytics.getPortfolioSummary(user.getId()));
+        orderProjector.awaitUser(user.id());
+        return ResponseEntity.ok(analytics.getPortfolioSummary(user.id()));
     }
 
     @GetMapping("/performance")
-    public ResponseEntity<?> performance(java.security.Principal principal,
+    public ResponseEntity<?> performance(AuthenticatedUser user,
                                          @RequestParam(defaultValue = "1M") String range) {
-        var user = resolveUser(principal);
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
-        return ResponseEntity.ok(analytics.getPerformanceSeries(user.getId(), range));
-    }
-
-    private com.example.trading.model.User resolveUser(java.security.Principal principal) {
-        if (principal == null) return null;
-        return users.findByUsername(principal.getName()).orElse(null);
+        return ResponseEntity.ok(analytics.getPerformanceSeries(user.id(), range));
     }
 }
@@ -4,6 +4,7 @@ import com.example.trading.model.User;
 import com.example.trading.repository.UserRepository;
 import com.example.trading.security.JwtUtil;
 import com.example.trading.service.AuditLogService;
+import com.example.trading.service.AuthSessionCache;
 import com.example.trading.service.TwoFactorService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -24,13 +25,16 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final AuditLogService auditLogService;
     private final TwoFactorService twoFactorService;
+    private final AuthSessionCache authSessionCache;
 
-    public AuthController(UserRepository users, PasswordEncoder encoder, JwtUtil jwtUtil, AuditLogService auditLogService, TwoFactorService twoFactorService) {
+    public AuthController(UserRepository users, PasswordEncoder encoder, JwtUtil jwtUtil, AuditLogService auditLogService,
+                          TwoFactorService twoFactorService, AuthSessionCache authSessionCache) {
         this.users = users;
         this.encoder = encoder;
         this.jwtUtil = jwtUtil;
         this.auditLogService = auditLogService;
         this.twoFactorService = twoFactorService;
+        this.authSessionCache = authSessionCache;
     }
 
     @PostMapping("/register")
@@ -63,7 +67,7 @@ public class AuthController {
         }
 
         auditLogService.record(user.getUsername(), "AUTH_LOGIN", "USER", user.getUsername(), "User login succeeded");
-        Map<String,String> result = Collections.singletonMap("token", jwtUtil.generateToken(user.getUsername(), user.getTokenVersion()));
+        Map<String,String> result = Collections.singletonMap("token", jwtUtil.generateToken(user.getUsername(), user.getTokenVersion(), user.getId()));
         return ResponseEntity.ok(result);
     }
 
@@ -133,6 +137,7 @@ public class AuthController {
         var user = userOpt.get();
         user.setTokenVersion(user.getTokenVersion() + 1);
         users.save(user);
+        authSessionCache.invalidateUser(user.getUsername());
 
         auditLogService.record(user.getUsername(), "AUTH_SESSIONS_REVOKE", "USER", user.getUsername(), "All sessions revoked");
         return ResponseEntity.ok(Map.of("revoked", true));
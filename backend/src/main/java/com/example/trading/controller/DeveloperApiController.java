@@ -3,7 +3,7 @@ package com.example.trading.controller;
 import com.example.trading.model.ApiKey;
 import com.example.trading.model.PlanTier;
 import com.example.trading.repository.ApiKeyRepository;
-import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,21 +21,18 @@ import java.util.UUID;
 @RequestMapping("/api/dev")
 public class DeveloperApiController {
 
-    private final UserRepository users;
     private final ApiKeyRepository apiKeys;
     private final PasswordEncoder encoder;
 
-    public DeveloperApiController(UserRepository users, ApiKeyRepository apiKeys, PasswordEncoder encoder) {
-        this.users = users;
+    public DeveloperApiController(ApiKeyRepository apiKeys, PasswordEncoder encoder) {
         this.apiKeys = apiKeys;
         this.encoder = encoder;
     }
 
     @PostMapping("/keys")
-    public ResponseEntity<?> createKey(java.security.Principal principal, @RequestBody(required = false) Map<String, Object> body) {
-        var user = resolveUser(principal);
+    public ResponseEntity<?> createKey(AuthenticatedUser user, @RequestBody(required = false) Map<String, Object> body) {
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
-        if (user.getPlanTier() != PlanTier.PREMIUM) return ResponseEntity.status(403).body("upgrade required: PREMIUM");
+        if (user.planTier() != PlanTier.PREMIUM) return ResponseEntity.status(403).body("upgrade required: PREMIUM");
 
         String rawName = body == null ? null : (body.get("name") instanceof String s ? s : null);
         String name = (rawName == null || rawName.isBlank()) ? "Default Key" : rawName.trim();
@@ -45,7 +42,7 @@ public class DeveloperApiController {
         String last4 = rawKey.substring(rawKey.length() - 4);
 
         ApiKey saved = apiKeys.save(new ApiKey(
-            user.getId(),
+            user.id(),
             name,
             prefix,
             last4,
@@ -64,12 +61,11 @@ public class DeveloperApiController {
     }
 
     @GetMapping("/usage")
-    public ResponseEntity<?> usage(java.security.Principal principal) {
-        var user = resolveUser(principal);
+    public ResponseEntity<?> usage(AuthenticatedUser user) {
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
-        if (user.getPlanTier() != PlanTier.PREMIUM) return ResponseEntity.status(403).body("upgrade required: PREMIUM");
+        if (user.planTier() != PlanTier.PREMIUM) return ResponseEntity.status(403).body("upgrade required: PREMIUM");
 
-        List<ApiKey> keys = apiKeys.findByUserIdOrderByCreatedAtDesc(user.getId());
+        List<ApiKey> keys = apiKeys.findByUserIdOrderByCreatedAtDesc(user.id());
 
         long totalRequests = keys.stream().mapToLong(ApiKey::getTotalRequests).sum();
         int requestsToday = keys.stream().mapToInt(ApiKey::getRequestsToday).sum();
@@ -101,11 +97,6 @@ public class DeveloperApiController {
         return item;
     }
 
-    private com.example.trading.model.User resolveUser(java.security.Principal principal) {
-        if (principal == null) return null;
-        return users.findByUsername(principal.getName()).orElse(null);
-    }
-
     private String generateRawKey() {
         String token = UUID.randomUUID().toString().replace("-", "");
         return "trd_" + token;
@@ -2,6 +2,7 @@ package com.example.trading.controller;
 
 import com.example.trading.model.Stock;
 import com.example.trading.repository.StockRepository;
+import com.example.trading.service.HistoricalSeries;
 import com.example.trading.service.MultiProviderStockDataFetcher;
 import com.example.trading.service.QuoteResolutionService;
 import org.springframework.http.ResponseEntity;
@@ -35,8 +36,14 @@ public class MarketController {
     
     @GetMapping("/{symbol}/history")
     public ResponseEntity<?> getHistoricalData(@PathVariable String symbol, @RequestParam(defaultValue = "daily") String interval) {
-        List<MultiProviderStockDataFetcher.HistoricalData> data = fetcher.getHistoricalData(symbol, interval);
-        return ResponseEntity.ok(new HistoricalDataResponse(symbol, interval, data));
+        MultiProviderStockDataFetcher.CachedHistory history = fetcher.getHistory(symbol, interval);
+        return ResponseEntity.ok(new HistoricalDataResponse(
+            symbol,
+            interval,
+            history.series(),
+            history.ageMs(),
+            history.stale() ? "STALE" : "FRESH"
+        ));
     }
 
     /**
@@ -57,7 +64,9 @@ public class MarketController {
                 quote.high(),
                 quote.low(),
                 quote.date(),
-                quote.source()
+                quote.source(),
+                quote.ageMs(),
+                quote.freshness()
             ));
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error fetching price: " + e.getMessage());
@@ -67,7 +76,9 @@ public class MarketController {
     private record HistoricalDataResponse(
         String symbol,
         String interval,
-        List<MultiProviderStockDataFetcher.HistoricalData> data
+        HistoricalSeries data,
+        long ageMs,
+        String freshness
     ) {}
 
     private record LivePriceResponse(
@@ -76,6 +87,8 @@ public class MarketController {
         java.math.BigDecimal high,
         java.math.BigDecimal low,
         String date,
-        String source
+        String source,
+        Long ageMs,
+        String freshness
     ) {}
 }
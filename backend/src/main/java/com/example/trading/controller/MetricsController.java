@@ -1,7 +1,20 @@
 package com.example.trading.controller;
 
+import com.example.trading.service.AlertEvaluationService;
 import com.example.trading.service.ApiUsageTracker;
+import com.example.trading.service.AuthSessionCache;
+import com.example.trading.service.MatchingEngine;
+import com.example.trading.service.BoundedTtlCache;
+import com.example.trading.service.CacheWarmupService;
 import com.example.trading.service.MultiProviderStockDataFetcher;
+import com.example.trading.service.OrderProjector;
+import com.example.trading.service.ProviderHttpClient;
+import com.example.trading.service.ProviderQuotaPlanner;
+import com.example.trading.service.QuoteEventBus;
+import com.example.trading.service.QuoteStreamService;
+import com.example.trading.service.ScreenerResultCache;
+import com.example.trading.service.SharedRateLimiter;
+import com.example.trading.service.SimpleStockPriceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -10,6 +23,7 @@ import java.lang.management.ManagementFactory;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -29,12 +43,48 @@ public class MetricsController {
     @Autowired
     private MultiProviderStockDataFetcher stockDataFetcher;
 
+    @Autowired
+    private QuoteStreamService quoteStreamService;
+
+    @Autowired
+    private QuoteEventBus quoteEventBus;
+
+    @Autowired
+    private SimpleStockPriceService priceService;
+
+    @Autowired
+    private ScreenerResultCache screenerResultCache;
+
+    @Autowired
+    private AlertEvaluationService alertEvaluationService;
+
+    @Autowired
+    private ProviderHttpClient providerHttpClient;
+
+    @Autowired
+    private CacheWarmupService cacheWarmupService;
+
+    @Autowired
+    private ProviderQuotaPlanner quotaPlanner;
+
+    @Autowired(required = false)
+    private SharedRateLimiter sharedRateLimiter;
+
+    @Autowired
+    private AuthSessionCache authSessionCache;
+
+    @Autowired
+    private MatchingEngine matchingEngine;
+
+    @Autowired
+    private OrderProjector orderProjector;
+
     /**
-     * Get all API provider metrics
+     * Get all API provider metrics with today's quota plan and forecast per provider
      */
     @GetMapping("/usage")
-    public ResponseEntity<ConcurrentHashMap<String, ApiUsageTracker.ApiUsageDto>> getUsage() {
-        return ResponseEntity.ok(apiUsageTracker.getAllMetrics());
+    public ResponseEntity<Map<String, ProviderQuotaPlanner.ProviderUsage>> getUsage() {
+        return ResponseEntity.ok(quotaPlanner.usageWithForecast());
     }
 
     /**
@@ -90,6 +140,25 @@ public class MetricsController {
         ));
     }
 
+    /**
+     * Get quota planner admissions and denials per priority and the deferred refresh queue
+     */
+    @GetMapping("/quota-planner")
+    public ResponseEntity<ProviderQuotaPlanner.PlannerStats> getQuotaPlannerStats() {
+        return ResponseEntity.ok(quotaPlanner.getStats());
+    }
+
+    /**
+     * Get cluster-wide counter lease statistics (404 unless app.shared-counters.store is set)
+     */
+    @GetMapping("/shared-counters")
+    public ResponseEntity<SharedRateLimiter.SharedLimiterStats> getSharedCounterStats() {
+        if (sharedRateLimiter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(sharedRateLimiter.getStats());
+    }
+
     /**
      * Get circuit breaker status for external quote providers
      */
@@ -98,6 +167,115 @@ public class MetricsController {
         return ResponseEntity.ok(stockDataFetcher.getProviderCircuitBreakerStatus());
     }
 
+    /**
+     * Get per-provider HTTP request counts, failures and latency histograms
+     */
+    @GetMapping("/providers/http")
+    public ResponseEntity<Map<String, ProviderHttpClient.LatencyStats>> getProviderHttpStats() {
+        return ResponseEntity.ok(providerHttpClient.getLatencyStats());
+    }
+
+    /**
+     * Get single-flight history loader statistics (loader runs, coalesced waiters, load latency)
+     */
+    @GetMapping("/history-loader")
+    public ResponseEntity<MultiProviderStockDataFetcher.HistoryLoaderStats> getHistoryLoaderStats() {
+        return ResponseEntity.ok(stockDataFetcher.getHistoryLoaderStats());
+    }
+
+    /**
+     * Get estimated heap usage of the in-memory history cache per symbol|interval
+     */
+    @GetMapping("/history-cache")
+    public ResponseEntity<MultiProviderStockDataFetcher.HistoryCacheFootprint> getHistoryCacheFootprint() {
+        return ResponseEntity.ok(stockDataFetcher.getHistoryCacheFootprint());
+    }
+
+    /**
+     * Get the last /ws/quotes broadcast tick (sessions, distinct symbols and frames, tick duration)
+     */
+    @GetMapping("/quote-stream")
+    public ResponseEntity<QuoteStreamService.BroadcastStats> getQuoteStreamStats() {
+        return ResponseEntity.ok(quoteStreamService.getBroadcastStats());
+    }
+
+    /**
+     * Get per-session /ws/quotes stream mode and bandwidth saved by delta streaming
+     */
+    @GetMapping("/quote-stream/sessions")
+    public ResponseEntity<List<QuoteStreamService.SessionStreamStats>> getQuoteStreamSessions() {
+        return ResponseEntity.ok(quoteStreamService.getSessionStats());
+    }
+
+    /**
+     * Get /ws/quotes outbound buffer depth and sent/conflated/dropped/slow-consumer counters
+     */
+    @GetMapping("/quote-stream/outbound")
+    public ResponseEntity<QuoteStreamService.OutboundStats> getQuoteStreamOutboundStats() {
+        return ResponseEntity.ok(quoteStreamService.getOutboundStats());
+    }
+
+    /**
+     * Get progress of the current or last cache warm-up run and when the next one is scheduled
+     */
+    @GetMapping("/warmup")
+    public ResponseEntity<CacheWarmupService.WarmupProgress> getWarmupProgress() {
+        return ResponseEntity.ok(cacheWarmupService.getProgress());
+    }
+
+    /**
+     * Get live price cache size, hit rate, evictions, refresh-ahead and provider load-time statistics
+     */
+    @GetMapping("/price-cache")
+    public ResponseEntity<BoundedTtlCache.CacheStats> getPriceCacheStats() {
+        return ResponseEntity.ok(priceService.getCacheStats());
+    }
+
+    /**
+     * Get verified-token and user snapshot cache size and hit rate for bearer authentication
+     */
+    @GetMapping("/auth-cache")
+    public ResponseEntity<Map<String, BoundedTtlCache.CacheStats>> getAuthCacheStats() {
+        return ResponseEntity.ok(authSessionCache.getStats());
+    }
+
+    /**
+     * Get order book counts and matching totals
+     */
+    @GetMapping("/matching-engine")
+    public ResponseEntity<MatchingEngine.EngineStats> getMatchingEngineStats() {
+        return ResponseEntity.ok(matchingEngine.getStats());
+    }
+
+    /**
+     * Get how far the database's orders and positions are behind the order journal
+     */
+    @GetMapping("/order-projection")
+    public ResponseEntity<OrderProjector.ProjectionStats> getOrderProjectionStats() {
+        return ResponseEntity.ok(orderProjector.getStats());
+    }
+
+    /**
+     * Get quote update event counts and per-listener publish-to-handled latency
+     */
+    @GetMapping("/quote-events")
+    public ResponseEntity<Map<String, Object>> getQuoteEventStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("bus", quoteEventBus.getStats());
+        response.put("streamPushes", quoteStreamService.getEventPushes());
+        response.put("screenerCache", screenerResultCache.getStats());
+        response.put("alerts", alertEvaluationService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get alert engine index size, per-quote evaluation cost and fired/delivered counts
+     */
+    @GetMapping("/alerts")
+    public ResponseEntity<AlertEvaluationService.AlertEngineStats> getAlertEngineStats() {
+        return ResponseEntity.ok(alertEvaluationService.getStats());
+    }
+
     /**
      * Consolidated dashboard status for operations
      */
@@ -4,7 +4,8 @@ import com.example.trading.model.SavedScan;
 import com.example.trading.model.Stock;
 import com.example.trading.repository.SavedScanRepository;
 import com.example.trading.repository.StockRepository;
-import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.service.ScreenerResultCache;
 import com.example.trading.service.SimpleStockPriceService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,6 +21,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/screener")
@@ -27,35 +30,58 @@ public class ScreenerController {
 
     private final StockRepository stocks;
     private final SavedScanRepository savedScans;
-    private final UserRepository users;
     private final SimpleStockPriceService priceService;
+    private final ScreenerResultCache resultCache;
 
     public ScreenerController(StockRepository stocks,
                               SavedScanRepository savedScans,
-                              UserRepository users,
-                              SimpleStockPriceService priceService) {
+                              SimpleStockPriceService priceService,
+                              ScreenerResultCache resultCache) {
         this.stocks = stocks;
         this.savedScans = savedScans;
-        this.users = users;
         this.priceService = priceService;
+        this.resultCache = resultCache;
     }
 
     @GetMapping
-    public ResponseEntity<?> screen(java.security.Principal principal,
+    public ResponseEntity<?> screen(AuthenticatedUser user,
                                     @RequestParam(required = false) String query,
                                     @RequestParam(required = false) BigDecimal minPrice,
                                     @RequestParam(required = false) BigDecimal maxPrice,
                                     @RequestParam(defaultValue = "50") int limit) {
-        if (resolveUser(principal) == null) return ResponseEntity.status(401).body("unauthenticated");
+        if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
         int boundedLimit = Math.max(1, Math.min(limit, 200));
         String q = query == null ? "" : query.trim().toUpperCase(Locale.ROOT);
 
-        List<Map<String, Object>> results = stocks.findAll().stream()
+        ScreenerResultCache.Key cacheKey = ScreenerResultCache.key(q, minPrice, maxPrice, boundedLimit);
+        List<Map<String, Object>> results = resultCache.get(cacheKey);
+        if (results == null) {
+            results = runScreen(q, minPrice, maxPrice, boundedLimit, cacheKey);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("query", query == null ? "" : query);
+        response.put("minPrice", minPrice);
+        response.put("maxPrice", maxPrice);
+        response.put("count", results.size());
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
+    private List<Map<String, Object>> runScreen(String q, BigDecimal minPrice, BigDecimal maxPrice, int boundedLimit,
+                                                ScreenerResultCache.Key cacheKey) {
+        List<Stock> matches = stocks.findAll().stream()
             .filter(stock -> matchesQuery(stock, q))
+            .toList();
+        Map<String, SimpleStockPriceService.StockPrice> quotes = priceService.getCurrentPrices(
+            matches.stream().map(Stock::getSymbol).toList()
+        );
+
+        List<Map<String, Object>> results = matches.stream()
             .map(stock -> {
                 BigDecimal livePrice = stock.getPrice();
-                var quote = priceService.getCurrentPrice(stock.getSymbol());
+                var quote = quotes.get(priceService.normalizeSymbol(stock.getSymbol()));
                 if (quote != null && quote.price() != null) {
                     livePrice = quote.price();
                 }
@@ -70,18 +96,15 @@ public class ScreenerController {
             .limit(boundedLimit)
             .toList();
 
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("query", query == null ? "" : query);
-        response.put("minPrice", minPrice);
-        response.put("maxPrice", maxPrice);
-        response.put("count", results.size());
-        response.put("results", results);
-        return ResponseEntity.ok(response);
+        Set<String> matchedSymbols = matches.stream()
+            .map(stock -> priceService.normalizeSymbol(stock.getSymbol()))
+            .collect(Collectors.toSet());
+        resultCache.put(cacheKey, matchedSymbols, results);
+        return results;
     }
 
     @PostMapping("/saved")
-    public ResponseEntity<?> saveScan(java.security.Principal principal, @RequestBody Map<String, Object> body) {
-        var user = resolveUser(principal);
+    public ResponseEntity<?> saveScan(AuthenticatedUser user, @RequestBody Map<String, Object> body) {
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
         Object rawName = body.get("name");
@@ -104,7 +127,7 @@ public class ScreenerController {
         }
 
         SavedScan saved = savedScans.save(new SavedScan(
-            user.getId(),
+            user.id(),
             name.trim(),
             query,
             minPrice,
@@ -114,16 +137,10 @@ public class ScreenerController {
     }
 
     @GetMapping("/saved")
-    public ResponseEntity<?> listSaved(java.security.Principal principal) {
-        var user = resolveUser(principal);
+    public ResponseEntity<?> listSaved(AuthenticatedUser user) {
         if (user == null) return ResponseEntity.status(401).body("unauthenticated");
 
-        return ResponseEntity.ok(savedScans.findByUserIdOrderByUpdatedAtDesc(user.getId()));
-    }
-
-    private com.example.trading.model.User resolveUser(java.security.Principal principal) {
-        if (principal == null) return null;
-        return users.findByUsername(principal.getName()).orElse(null);
+        return ResponseEntity.ok(savedScans.findByUserIdOrderByUpdatedAtDesc(user.id()));
     }
 
     private boolean matchesQuery(Stock stock, String query) {
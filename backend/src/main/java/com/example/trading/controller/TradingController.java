@@ -1,100 +1,127 @@
 package com.example.trading.controller;
 
-import com.example.trading.model.Order;
-import com.example.trading.model.Portfolio;
-import com.example.trading.model.Stock;
 import com.example.trading.model.User;
 import com.example.trading.model.Watchlist;
 import com.example.trading.repository.OrderRepository;
 import com.example.trading.repository.PortfolioRepository;
-import com.example.trading.repository.StockRepository;
 import com.example.trading.repository.UserRepository;
 import com.example.trading.repository.WatchlistRepository;
 import com.example.trading.repository.WatchlistShareRepository;
+import com.example.trading.security.AuthenticatedUser;
 import com.example.trading.service.AuditLogService;
+import com.example.trading.service.OrderExecutionService;
+import com.example.trading.service.OrderProjector;
 import com.example.trading.service.SimpleStockPriceService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api")
 public class TradingController {
 
     private final UserRepository users;
-    private final StockRepository stocks;
     private final OrderRepository orders;
     private final PortfolioRepository portfolios;
     private final WatchlistRepository watchlists;
     private final WatchlistShareRepository watchlistShares;
     private final AuditLogService auditLogService;
     private final SimpleStockPriceService priceService;
+    private final OrderExecutionService orderExecution;
+    private final OrderProjector orderProjector;
 
-    public TradingController(UserRepository users, StockRepository stocks, OrderRepository orders, PortfolioRepository portfolios, WatchlistRepository watchlists, WatchlistShareRepository watchlistShares, AuditLogService auditLogService, SimpleStockPriceService priceService) {
+    public TradingController(UserRepository users, OrderRepository orders, PortfolioRepository portfolios, WatchlistRepository watchlists, WatchlistShareRepository watchlistShares, AuditLogService auditLogService, SimpleStockPriceService priceService, OrderExecutionService orderExecution, OrderProjector orderProjector) {
         this.users = users;
-        this.stocks = stocks;
         this.orders = orders;
         this.portfolios = portfolios;
         this.watchlists = watchlists;
         this.watchlistShares = watchlistShares;
         this.auditLogService = auditLogService;
         this.priceService = priceService;
+        this.orderExecution = orderExecution;
+        this.orderProjector = orderProjector;
     }
 
-    // create order; user is identified from JWT (principal name)
+    // create order; user is the one JwtFilter authenticated
     @PostMapping("/orders")
-    public ResponseEntity<?> createOrder(java.security.Principal principal, @RequestBody Map<String,Object> body) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
-        String symbol = (String) body.get("symbol");
-        int qty = ((Number) body.get("quantity")).intValue();
-        String side = (String) body.get("side");
-        Stock s = stocks.findBySymbol(symbol).orElse(null);
-        BigDecimal price = s != null ? s.getPrice() : BigDecimal.ZERO;
-
-        Order o = new Order(u.getId(), symbol, qty, price, side, "FILLED");
-        orders.save(o);
-        auditLogService.record(u.getUsername(), "ORDER_CREATE", "ORDER", String.valueOf(o.getId()), side + " " + qty + " " + symbol);
-
-        // naive portfolio update
-        List<Portfolio> pList = portfolios.findByUserId(u.getId());
-        Portfolio p = pList.stream().filter(x -> x.getSymbol().equals(symbol)).findFirst().orElse(null);
-        if (p == null) {
-            if (side.equalsIgnoreCase("BUY")) {
-                portfolios.save(new Portfolio(u.getId(), symbol, qty, price));
-            }
-        } else {
-            int newQty = p.getQuantity() + (side.equalsIgnoreCase("BUY") ? qty : -qty);
-            portfolios.delete(p);
-            if (newQty > 0) {
-                portfolios.save(new Portfolio(u.getId(), symbol, newQty, p.getAvgPrice()));
-            }
+    public ResponseEntity<?> createOrder(AuthenticatedUser u, @RequestBody Map<String,Object> body) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
+        if (!(body.get("symbol") instanceof String symbol) || symbol.isBlank()) {
+            return ResponseEntity.badRequest().body("symbol is required");
         }
+        if (!(body.get("quantity") instanceof Number quantity)) {
+            return ResponseEntity.badRequest().body("quantity is required");
+        }
+        String side = body.get("side") instanceof String s ? s : null;
+        String type = body.get("type") instanceof String t ? t : null;
+        BigDecimal limitPrice = body.get("limitPrice") instanceof Number n ? new BigDecimal(n.toString()) : null;
+
+        try {
+            return ResponseEntity.ok(orderExecution.submit(u, symbol, quantity.intValue(), side, type, limitPrice));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            return engineUnavailable(ex);
+        }
+    }
+
+    /**
+     * Cancel a resting limit order
+     */
+    @DeleteMapping("/orders/{id}")
+    public ResponseEntity<?> cancelOrder(AuthenticatedUser u, @PathVariable Long id) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
+        try {
+            return ResponseEntity.ok(orderExecution.cancel(u, id));
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.status(404).body(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(409).body(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            return engineUnavailable(ex);
+        }
+    }
 
-        return ResponseEntity.ok(o);
+    /**
+     * The matching engine timed out, failed or was interrupted: nothing is wrong with the request
+     */
+    private static ResponseEntity<?> engineUnavailable(IllegalStateException ex) {
+        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").body(ex.getMessage());
+    }
+
+    /**
+     * Best price levels of a symbol's order book
+     */
+    @GetMapping("/orders/book/{symbol}")
+    public ResponseEntity<?> orderBook(AuthenticatedUser u, @PathVariable String symbol,
+                                       @RequestParam(defaultValue = "10") int levels) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
+        try {
+            return ResponseEntity.ok(orderExecution.depth(symbol, Math.max(1, Math.min(levels, 100))));
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.status(404).body(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            return engineUnavailable(ex);
+        }
     }
 
     @GetMapping("/orders")
-    public ResponseEntity<?> listOrders(java.security.Principal principal) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
-        return ResponseEntity.ok(orders.findByUserId(u.getId()));
+    public ResponseEntity<?> listOrders(AuthenticatedUser u) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
+        orderProjector.awaitUser(u.id());
+        return ResponseEntity.ok(orders.findByUserId(u.id()));
     }
 
     @GetMapping("/portfolio")
-    public ResponseEntity<?> portfolio(java.security.Principal principal) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
-        return ResponseEntity.ok(portfolios.findByUserId(u.getId()));
+    public ResponseEntity<?> portfolio(AuthenticatedUser u) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
+        orderProjector.awaitUser(u.id());
+        return ResponseEntity.ok(portfolios.findByUserId(u.id()));
     }
 
     // ===== WATCHLIST ENDPOINTS =====
@@ -103,13 +130,10 @@ public class TradingController {
      * Get all watchlists for the authenticated user
      */
     @GetMapping("/watchlists")
-    public ResponseEntity<?> getWatchlists(java.security.Principal principal) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> getWatchlists(AuthenticatedUser u) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
         
-        List<Watchlist> userWatchlists = watchlists.findByUserId(u.getId());
+        List<Watchlist> userWatchlists = watchlists.findByUserId(u.id());
         return ResponseEntity.ok(userWatchlists);
     }
 
@@ -118,14 +142,11 @@ public class TradingController {
      * Request body: {"name": "watchlist name"}
      */
     @PostMapping("/watchlists")
-    public ResponseEntity<?> createWatchlist(java.security.Principal principal, @RequestBody Map<String, Object> body) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> createWatchlist(AuthenticatedUser u, @RequestBody Map<String, Object> body) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
         
         // Check max 20 watchlists per user
-        long count = watchlists.countByUserId(u.getId());
+        long count = watchlists.countByUserId(u.id());
         if (count >= 20) {
             return ResponseEntity.status(400).body("Maximum 20 watchlists allowed per user");
         }
@@ -135,9 +156,9 @@ public class TradingController {
             return ResponseEntity.status(400).body("Watchlist name is required");
         }
         
-        Watchlist w = new Watchlist(u.getId(), name.trim());
+        Watchlist w = new Watchlist(u.id(), name.trim());
         Watchlist saved = watchlists.save(w);
-        auditLogService.record(u.getUsername(), "WATCHLIST_CREATE", "WATCHLIST", String.valueOf(saved.getId()), saved.getName());
+        auditLogService.record(u.username(), "WATCHLIST_CREATE", "WATCHLIST", String.valueOf(saved.getId()), saved.getName());
         return ResponseEntity.ok(saved);
     }
 
@@ -145,15 +166,12 @@ public class TradingController {
      * Get a specific watchlist
      */
     @GetMapping("/watchlists/{id}")
-    public ResponseEntity<?> getWatchlist(java.security.Principal principal, @PathVariable Long id) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> getWatchlist(AuthenticatedUser u, @PathVariable Long id) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
         
-        Watchlist w = watchlists.findByIdAndUserId(id, u.getId()).orElse(null);
+        Watchlist w = watchlists.findByIdAndUserId(id, u.id()).orElse(null);
         if (w == null) {
-            boolean canReadShared = watchlistShares.findByWatchlistIdAndSharedWithUserId(id, u.getId()).isPresent();
+            boolean canReadShared = watchlistShares.findByWatchlistIdAndSharedWithUserId(id, u.id()).isPresent();
             if (!canReadShared) return ResponseEntity.status(404).body("Watchlist not found");
             w = watchlists.findById(id).orElse(null);
             if (w == null) return ResponseEntity.status(404).body("Watchlist not found");
@@ -166,13 +184,10 @@ public class TradingController {
      * Request body: {"username":"target_user"}
      */
     @PostMapping("/watchlists/{id}/share")
-    public ResponseEntity<?> shareWatchlist(java.security.Principal principal, @PathVariable Long id, @RequestBody Map<String, Object> body) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User owner = users.findByUsername(username).orElse(null);
-        if (owner == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> shareWatchlist(AuthenticatedUser owner, @PathVariable Long id, @RequestBody Map<String, Object> body) {
+        if (owner == null) return ResponseEntity.status(401).body("unauthenticated");
 
-        Watchlist w = watchlists.findByIdAndUserId(id, owner.getId()).orElse(null);
+        Watchlist w = watchlists.findByIdAndUserId(id, owner.id()).orElse(null);
         if (w == null) return ResponseEntity.status(404).body("Watchlist not found");
 
         Object rawTarget = body.get("username");
@@ -182,14 +197,14 @@ public class TradingController {
 
         User target = users.findByUsername(targetUsername.trim()).orElse(null);
         if (target == null) return ResponseEntity.status(404).body("target user not found");
-        if (target.getId().equals(owner.getId())) return ResponseEntity.status(400).body("cannot share with self");
+        if (target.getId().equals(owner.id())) return ResponseEntity.status(400).body("cannot share with self");
 
-        if (watchlistShares.findByWatchlistIdAndOwnerUserIdAndSharedWithUserId(id, owner.getId(), target.getId()).isPresent()) {
+        if (watchlistShares.findByWatchlistIdAndOwnerUserIdAndSharedWithUserId(id, owner.id(), target.getId()).isPresent()) {
             return ResponseEntity.status(400).body("already shared");
         }
 
-        var share = watchlistShares.save(new com.example.trading.model.WatchlistShare(id, owner.getId(), target.getId()));
-        auditLogService.record(owner.getUsername(), "WATCHLIST_SHARE_CREATE", "WATCHLIST", String.valueOf(id), "shared with " + target.getUsername());
+        var share = watchlistShares.save(new com.example.trading.model.WatchlistShare(id, owner.id(), target.getId()));
+        auditLogService.record(owner.username(), "WATCHLIST_SHARE_CREATE", "WATCHLIST", String.valueOf(id), "shared with " + target.getUsername());
         return ResponseEntity.ok(Map.of(
             "watchlistId", id,
             "sharedWith", target.getUsername(),
@@ -202,13 +217,10 @@ public class TradingController {
      * List watchlists shared with the current user
      */
     @GetMapping("/watchlists/shared")
-    public ResponseEntity<?> getSharedWatchlists(java.security.Principal principal) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> getSharedWatchlists(AuthenticatedUser u) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
 
-        List<Watchlist> shared = watchlistShares.findBySharedWithUserId(u.getId()).stream()
+        List<Watchlist> shared = watchlistShares.findBySharedWithUserId(u.id()).stream()
             .map(share -> watchlists.findById(share.getWatchlistId()).orElse(null))
             .filter(java.util.Objects::nonNull)
             .toList();
@@ -219,23 +231,20 @@ public class TradingController {
      * Revoke a watchlist share by target username
      */
     @DeleteMapping("/watchlists/{id}/share/{targetUsername}")
-    public ResponseEntity<?> revokeWatchlistShare(java.security.Principal principal, @PathVariable Long id, @PathVariable String targetUsername) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User owner = users.findByUsername(username).orElse(null);
-        if (owner == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> revokeWatchlistShare(AuthenticatedUser owner, @PathVariable Long id, @PathVariable String targetUsername) {
+        if (owner == null) return ResponseEntity.status(401).body("unauthenticated");
 
-        Watchlist w = watchlists.findByIdAndUserId(id, owner.getId()).orElse(null);
+        Watchlist w = watchlists.findByIdAndUserId(id, owner.id()).orElse(null);
         if (w == null) return ResponseEntity.status(404).body("Watchlist not found");
 
         User target = users.findByUsername(targetUsername).orElse(null);
         if (target == null) return ResponseEntity.status(404).body("target user not found");
 
-        var share = watchlistShares.findByWatchlistIdAndOwnerUserIdAndSharedWithUserId(id, owner.getId(), target.getId()).orElse(null);
+        var share = watchlistShares.findByWatchlistIdAndOwnerUserIdAndSharedWithUserId(id, owner.id(), target.getId()).orElse(null);
         if (share == null) return ResponseEntity.status(404).body("share not found");
 
         watchlistShares.delete(share);
-        auditLogService.record(owner.getUsername(), "WATCHLIST_SHARE_REVOKE", "WATCHLIST", String.valueOf(id), "revoked for " + target.getUsername());
+        auditLogService.record(owner.username(), "WATCHLIST_SHARE_REVOKE", "WATCHLIST", String.valueOf(id), "revoked for " + target.getUsername());
         return ResponseEntity.ok(Map.of("deleted", true));
     }
 
@@ -244,13 +253,10 @@ public class TradingController {
      * Request body: {"name": "new name"}
      */
     @PutMapping("/watchlists/{id}")
-    public ResponseEntity<?> updateWatchlist(java.security.Principal principal, @PathVariable Long id, @RequestBody Map<String, Object> body) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> updateWatchlist(AuthenticatedUser u, @PathVariable Long id, @RequestBody Map<String, Object> body) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
         
-        Watchlist w = watchlists.findByIdAndUserId(id, u.getId()).orElse(null);
+        Watchlist w = watchlists.findByIdAndUserId(id, u.id()).orElse(null);
         if (w == null) return ResponseEntity.status(404).body("Watchlist not found");
         
         String newName = (String) body.get("name");
@@ -268,13 +274,10 @@ public class TradingController {
      * Request body: {"symbol": "AAPL"}
      */
     @PostMapping("/watchlists/{id}/symbols")
-    public ResponseEntity<?> addSymbolToWatchlist(java.security.Principal principal, @PathVariable Long id, @RequestBody Map<String, Object> body) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> addSymbolToWatchlist(AuthenticatedUser u, @PathVariable Long id, @RequestBody Map<String, Object> body) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
         
-        Watchlist w = watchlists.findByIdAndUserId(id, u.getId()).orElse(null);
+        Watchlist w = watchlists.findByIdAndUserId(id, u.id()).orElse(null);
         if (w == null) return ResponseEntity.status(404).body("Watchlist not found");
         
         Object rawSymbol = body.get("symbol");
@@ -309,13 +312,10 @@ public class TradingController {
      * Remove a symbol from watchlist
      */
     @DeleteMapping("/watchlists/{id}/symbols/{symbol}")
-    public ResponseEntity<?> removeSymbolFromWatchlist(java.security.Principal principal, @PathVariable Long id, @PathVariable String symbol) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> removeSymbolFromWatchlist(AuthenticatedUser u, @PathVariable Long id, @PathVariable String symbol) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
         
-        Watchlist w = watchlists.findByIdAndUserId(id, u.getId()).orElse(null);
+        Watchlist w = watchlists.findByIdAndUserId(id, u.id()).orElse(null);
         if (w == null) return ResponseEntity.status(404).body("Watchlist not found");
         
         w.removeSymbol(symbol.toUpperCase());
@@ -327,13 +327,10 @@ public class TradingController {
      * Delete a watchlist
      */
     @DeleteMapping("/watchlists/{id}")
-    public ResponseEntity<?> deleteWatchlist(java.security.Principal principal, @PathVariable Long id) {
-        if (principal == null) return ResponseEntity.status(401).body("unauthenticated");
-        String username = principal.getName();
-        User u = users.findByUsername(username).orElse(null);
-        if (u == null) return ResponseEntity.status(401).body("unknown user");
+    public ResponseEntity<?> deleteWatchlist(AuthenticatedUser u, @PathVariable Long id) {
+        if (u == null) return ResponseEntity.status(401).body("unauthenticated");
         
-        Watchlist w = watchlists.findByIdAndUserId(id, u.getId()).orElse(null);
+        Watchlist w = watchlists.findByIdAndUserId(id, u.id()).orElse(null);
         if (w == null) return ResponseEntity.status(404).body("Watchlist not found");
         
         watchlists.delete(w);
@@ -0,0 +1,115 @@
+package com.example.trading.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One persisted OHLC bar per symbol, interval and date.
+ * Source of truth for incremental history refreshes: only bars after the last stored date
+ * are requested from providers and merged in.
+ */
+@Entity
+@Table(name = "historical_bar",
+    uniqueConstraints = @UniqueConstraint(name = "uk_bar_symbol_interval_date", columnNames = {"symbol", "time_interval", "bar_date"}),
+    indexes = @Index(name = "idx_bar_symbol_interval_date", columnList = "symbol,time_interval,bar_date"))
+public class HistoricalBar {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 10)
+    private String symbol;
+
+    @Column(nullable = false, length = 20, name = "time_interval")
+    private String interval;
+
+    @Column(nullable = false, name = "bar_date")
+    private LocalDate barDate;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal open;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal high;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal low;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal close;
+
+    @Column(nullable = false)
+    private String provider;
+
+    @Column(nullable = false, name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public HistoricalBar() {}
+
+    public HistoricalBar(String symbol, String interval, LocalDate barDate, String provider) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.barDate = barDate;
+        this.provider = provider;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getInterval() {
+        return interval;
+    }
+
+    public LocalDate getBarDate() {
+        return barDate;
+    }
+
+    public BigDecimal getOpen() {
+        return open;
+    }
+
+    public BigDecimal getHigh() {
+        return high;
+    }
+
+    public BigDecimal getLow() {
+        return low;
+    }
+
+    public BigDecimal getClose() {
+        return close;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setPrices(BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close) {
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+    }
+
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+}
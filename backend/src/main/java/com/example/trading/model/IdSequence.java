@@ -0,0 +1,33 @@
+package com.example.trading.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Next unleased value of a named id sequence shared by every replica. Replicas take blocks of it
+ * as local leases, so a value is never handed out twice.
+ */
+@Entity
+@Table(name = "id_sequence")
+public class IdSequence {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, name = "next_value")
+    private long nextValue;
+
+    public IdSequence() {}
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNextValue() {
+        return nextValue;
+    }
+
+    public void setNextValue(long nextValue) {
+        this.nextValue = nextValue;
+    }
+}
@@ -1,35 +1,60 @@
 package com.example.trading.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+/**
+ * An order as projected from the matching engine's journal by OrderProjector. Ids are handed out by
+ * the engine, so a row is inserted with the id the order had from the start.
+ */
 @Entity(name = "stock_order")
-public class Order {
+public class Order implements Persistable<Long> {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private Long userId;
     private String symbol;
     private int quantity;
-    private BigDecimal price;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal price; // average fill price; null until something filled
     private String side; // BUY or SELL
-    private String status; // PENDING, FILLED
+    private String status; // PENDING, PARTIALLY_FILLED, FILLED, CANCELLED
+    private String type; // MARKET or LIMIT; null on orders placed before limit orders existed
+    @Column(precision = 19, scale = 4)
+    private BigDecimal limitPrice;
+    private Integer filledQuantity;
+    private Long journalSeq; // last journal record applied to this row
+    @Transient
+    private boolean isNew = true;
 
     public Order() {}
 
-    public Order(Long userId, String symbol, int quantity, BigDecimal price, String side, String status) {
+    /**
+     * A new order, PENDING until fills are recorded.
+     *
+     * @param limitPrice null for market orders
+     */
+    public Order(Long id, Long userId, String symbol, int quantity, String side, String type, BigDecimal limitPrice) {
+        this.id = id;
         this.userId = userId;
         this.symbol = symbol;
         this.quantity = quantity;
-        this.price = price;
         this.side = side;
-        this.status = status;
+        this.type = type;
+        this.limitPrice = limitPrice;
+        this.status = "PENDING";
+        this.filledQuantity = 0;
     }
 
+    @Override
     public Long getId() { return id; }
     public Long getUserId() { return userId; }
     public String getSymbol() { return symbol; }
@@ -37,4 +62,52 @@ public class Order {
     public BigDecimal getPrice() { return price; }
     public String getSide() { return side; }
     public String getStatus() { return status; }
+    public String getType() { return type == null ? "MARKET" : type; }
+    public BigDecimal getLimitPrice() { return limitPrice; }
+    @JsonIgnore
+    public long getJournalSeq() { return journalSeq == null ? 0 : journalSeq; }
+    public void setJournalSeq(long journalSeq) { this.journalSeq = journalSeq; }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markStored() { isNew = false; }
+
+    public int getFilledQuantity() {
+        if (filledQuantity == null) {
+            return "FILLED".equals(status) ? quantity : 0;
+        }
+        return filledQuantity;
+    }
+
+    public boolean isOpen() {
+        return "PENDING".equals(status) || "PARTIALLY_FILLED".equals(status);
+    }
+
+    /**
+     * Count {@code qty} more shares filled at {@code fillPrice}; the price becomes the average fill
+     * price. A cancelled order keeps its status unless this completes it.
+     */
+    public void recordFill(int qty, BigDecimal fillPrice) {
+        int filled = getFilledQuantity();
+        BigDecimal notional = (price == null ? BigDecimal.ZERO : price.multiply(BigDecimal.valueOf(filled)))
+            .add(fillPrice.multiply(BigDecimal.valueOf(qty)));
+        filledQuantity = filled + qty;
+        price = notional.divide(BigDecimal.valueOf(filledQuantity), 4, RoundingMode.HALF_UP);
+        if (filledQuantity >= quantity) {
+            status = "FILLED";
+        } else if (!"CANCELLED".equals(status)) {
+            status = "PARTIALLY_FILLED";
+        }
+    }
+
+    /**
+     * Stop the order: FILLED if nothing is left, otherwise CANCELLED with the rest unfilled.
+     */
+    public void close() {
+        status = getFilledQuantity() >= quantity ? "FILLED" : "CANCELLED";
+    }
 }
@@ -1,21 +1,35 @@
 package com.example.trading.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+/**
+ * One position per user and symbol. Changed only by OrderProjector, which records the last journal
+ * record it applied so sells can be checked against the fills it has not applied yet. A sold-out
+ * position stays at quantity 0 for the same reason.
+ */
 @Entity
+@Table(name = "portfolio",
+    uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_user_symbol", columnNames = {"user_id", "symbol"}))
 public class Portfolio {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+    @Column(name = "user_id")
     private Long userId;
     private String symbol;
     private int quantity;
+    @Column(precision = 19, scale = 4)
     private BigDecimal avgPrice;
+    private Long journalSeq;
 
     public Portfolio() {}
 
@@ -31,4 +45,24 @@ public class Portfolio {
     public String getSymbol() { return symbol; }
     public int getQuantity() { return quantity; }
     public BigDecimal getAvgPrice() { return avgPrice; }
+    public long getJournalSeq() { return journalSeq == null ? 0 : journalSeq; }
+    public void setJournalSeq(long journalSeq) { this.journalSeq = journalSeq; }
+
+    /**
+     * Add {@code qty} shares bought at {@code price}; the average price becomes the
+     * quantity-weighted average of the held and the bought shares.
+     */
+    public void buy(int qty, BigDecimal price) {
+        BigDecimal held = avgPrice.multiply(BigDecimal.valueOf(quantity));
+        BigDecimal bought = price.multiply(BigDecimal.valueOf(qty));
+        quantity += qty;
+        avgPrice = held.add(bought).divide(BigDecimal.valueOf(quantity), 4, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Remove {@code qty} shares; selling does not change the average price of the rest.
+     */
+    public void sell(int qty) {
+        quantity -= qty;
+    }
 }
@@ -0,0 +1,41 @@
+package com.example.trading.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Cluster-wide request count for one rate-limit key in one fixed time window. Replicas reserve
+ * blocks of this count as local token leases; rows are purged once the window and the one after it
+ * have passed.
+ */
+@Entity
+@Table(name = "shared_counter", indexes = @Index(name = "idx_shared_counter_expires", columnList = "expires_at"))
+public class SharedCounter {
+
+    @Id
+    @Column(length = 120)
+    private String id;
+
+    @Column(nullable = false)
+    private int used;
+
+    @Column(nullable = false, name = "expires_at")
+    private long expiresAt;
+
+    public SharedCounter() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public int getUsed() {
+        return used;
+    }
+
+    public void setUsed(int used) {
+        this.used = used;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
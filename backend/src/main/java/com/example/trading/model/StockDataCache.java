@@ -6,6 +6,9 @@ import java.time.LocalDateTime;
 /**
  * Entity for caching stock historical data with 60-minute TTL.
  * Stores OHLC data to reduce API calls and costs.
+ *
+ * New rows carry a versioned, compressed binary {@code payload}; the legacy JSON {@code data}
+ * column is only read for rows written before the binary format and is cleared once migrated.
  */
 @Entity
 @Table(name = "stock_data_cache", indexes = {
@@ -24,8 +27,11 @@ public class StockDataCache {
     @Column(nullable = false, length = 20, name = "time_interval")
     private String interval;
 
-    @Column(nullable = false, columnDefinition = "LONGTEXT")
-    private String data; // JSON data containing OHLC records
+    @Column(columnDefinition = "LONGTEXT")
+    private String data; // Legacy JSON OHLC records (pre-binary rows only)
+
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] payload; // Versioned compressed binary OHLC series
 
     @Column(nullable = false)
     private String provider; // Which API provided this data
@@ -44,10 +50,10 @@ public class StockDataCache {
 
     public StockDataCache() {}
 
-    public StockDataCache(String symbol, String interval, String data, String provider) {
+    public StockDataCache(String symbol, String interval, byte[] payload, String provider) {
         this.symbol = symbol;
         this.interval = interval;
-        this.data = data;
+        this.payload = payload;
         this.provider = provider;
         onCreate();
     }
@@ -84,6 +90,14 @@ public class StockDataCache {
         this.data = data;
     }
 
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
     public String getProvider() {
         return provider;
     }
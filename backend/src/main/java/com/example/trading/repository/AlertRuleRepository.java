@@ -2,7 +2,12 @@ package com.example.trading.repository;
 
 import com.example.trading.model.AlertRule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +15,19 @@ public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
     List<AlertRule> findByUserIdOrderByCreatedAtDesc(Long userId);
     List<AlertRule> findByUserIdAndSymbolOrderByCreatedAtDesc(Long userId, String symbol);
     Optional<AlertRule> findByIdAndUserId(Long id, Long userId);
+    List<AlertRule> findByActiveTrue();
+
+    /**
+     * Number of active rules per symbol
+     */
+    @Query("SELECT a.symbol AS symbol, COUNT(a) AS total FROM AlertRule a WHERE a.active = true GROUP BY a.symbol")
+    List<SymbolCount> countActiveRulesBySymbol();
+
+    /**
+     * Mark fired rules inactive; rules already inactive or deleted are skipped
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AlertRule a SET a.active = false, a.updatedAt = CURRENT_TIMESTAMP WHERE a.id IN :ids AND a.active = true")
+    int deactivateAll(@Param("ids") Collection<Long> ids);
 }
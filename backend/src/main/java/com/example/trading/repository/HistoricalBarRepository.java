@@ -0,0 +1,37 @@
+package com.example.trading.repository;
+
+import com.example.trading.model.HistoricalBar;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HistoricalBarRepository extends JpaRepository<HistoricalBar, Long> {
+
+    /**
+     * Date of the newest stored bar for a symbol and interval
+     */
+    @Query("SELECT MAX(b.barDate) FROM HistoricalBar b WHERE b.symbol = :symbol AND b.interval = :interval")
+    Optional<LocalDate> findLatestBarDate(@Param("symbol") String symbol, @Param("interval") String interval);
+
+    /**
+     * Newest-first bars for a symbol and interval
+     */
+    List<HistoricalBar> findBySymbolAndIntervalOrderByBarDateDesc(String symbol, String interval, Pageable pageable);
+
+    /**
+     * Bars on or after a date (the merge window of an incremental refresh)
+     */
+    List<HistoricalBar> findBySymbolAndIntervalAndBarDateGreaterThanEqual(String symbol, String interval, LocalDate since);
+
+    @Modifying
+    @Query("DELETE FROM HistoricalBar b WHERE b.symbol = :symbol AND b.interval = :interval")
+    int deleteBySymbolAndInterval(@Param("symbol") String symbol, @Param("interval") String interval);
+}
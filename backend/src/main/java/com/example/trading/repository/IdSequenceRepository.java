@@ -0,0 +1,30 @@
+package com.example.trading.repository;
+
+import com.example.trading.model.IdSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IdSequenceRepository extends JpaRepository<IdSequence, String> {
+
+    /**
+     * Create the sequence at {@code nextValue} unless another replica already has
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO id_sequence (name, next_value) VALUES (:name, :nextValue)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("nextValue") long nextValue);
+
+    /**
+     * Sequence row locked until the end of the transaction (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM IdSequence s WHERE s.name = :name")
+    Optional<IdSequence> findForUpdate(@Param("name") String name);
+}
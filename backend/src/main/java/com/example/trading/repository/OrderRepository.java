@@ -2,11 +2,31 @@ package com.example.trading.repository;
 
 import com.example.trading.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
+
+    Optional<Order> findByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT COALESCE(MAX(o.id), 0) FROM stock_order o")
+    long maxId();
+
+    /**
+     * Sequence number of the last journal record projected into this table: every record changes its
+     * own order's row
+     */
+    @Query("SELECT COALESCE(MAX(o.journalSeq), 0) FROM stock_order o")
+    long lastProjectedSeq();
+
+    /**
+     * Limit orders that rest in the book, oldest first, so restoring them keeps time priority
+     */
+    @Query("SELECT o FROM stock_order o WHERE o.type = 'LIMIT' AND o.status IN ('PENDING', 'PARTIALLY_FILLED') ORDER BY o.id")
+    List<Order> findResting();
 }
@@ -2,9 +2,27 @@ package com.example.trading.repository;
 
 import com.example.trading.model.Portfolio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
-    List<Portfolio> findByUserId(Long userId);
+    /**
+     * Positions the user holds shares in; sold-out positions keep their row at zero
+     */
+    @Query("SELECT p FROM Portfolio p WHERE p.userId = :userId AND p.quantity > 0")
+    List<Portfolio> findByUserId(@Param("userId") Long userId);
+
+    Optional<Portfolio> findByUserIdAndSymbol(Long userId, String symbol);
+
+    List<Portfolio> findBySymbolAndUserIdIn(String symbol, Collection<Long> userIds);
+
+    /**
+     * Number of open positions (users holding shares) per symbol
+     */
+    @Query("SELECT p.symbol AS symbol, COUNT(p) AS total FROM Portfolio p WHERE p.quantity > 0 GROUP BY p.symbol")
+    List<SymbolCount> countHoldersBySymbol();
 }
@@ -0,0 +1,36 @@
+package com.example.trading.repository;
+
+import com.example.trading.model.SharedCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface SharedCounterRepository extends JpaRepository<SharedCounter, String> {
+
+    /**
+     * Create the counter row at zero unless another replica already has
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO shared_counter (id, used, expires_at) VALUES (:id, 0, :expiresAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("expiresAt") long expiresAt);
+
+    /**
+     * Counter row locked until the end of the transaction (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM SharedCounter c WHERE c.id = :id")
+    Optional<SharedCounter> findForUpdate(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SharedCounter c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -28,6 +29,12 @@ public interface StockDataCacheRepository extends JpaRepository<StockDataCache,
      */
     void deleteBySymbolAndInterval(String symbol, String interval);
 
+    /**
+     * Valid entries still stored as legacy JSON (awaiting binary migration)
+     */
+    @Query("SELECT s FROM StockDataCache s WHERE s.payload IS NULL AND s.data IS NOT NULL AND s.expiresAt > CURRENT_TIMESTAMP")
+    List<StockDataCache> findValidLegacyJsonEntries();
+
     /**
      * Count valid cache entries
      */
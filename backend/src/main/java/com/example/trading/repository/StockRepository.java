@@ -2,9 +2,17 @@ package com.example.trading.repository;
 
 import com.example.trading.model.Stock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface StockRepository extends JpaRepository<Stock, Long> {
     Optional<Stock> findBySymbol(String symbol);
+
+    List<Stock> findBySymbolIn(Collection<String> symbols);
+
+    @Query("SELECT s.symbol FROM Stock s")
+    List<String> findAllSymbols();
 }
@@ -0,0 +1,10 @@
+package com.example.trading.repository;
+
+/**
+ * Projection for per-symbol aggregate queries (watchers, holders, active alerts)
+ */
+public interface SymbolCount {
+    String getSymbol();
+
+    Long getTotal();
+}
@@ -15,4 +15,10 @@ public interface WatchlistRepository extends JpaRepository<Watchlist, Long> {
     
     @Query("SELECT COUNT(w) FROM Watchlist w WHERE w.userId = :userId")
     long countByUserId(@Param("userId") Long userId);
+
+    /**
+     * Number of watchlists containing each symbol
+     */
+    @Query("SELECT s AS symbol, COUNT(w) AS total FROM Watchlist w JOIN w.symbols s GROUP BY s")
+    List<SymbolCount> countWatchlistsBySymbol();
 }
@@ -0,0 +1,30 @@
+package com.example.trading.security;
+
+import com.example.trading.model.PlanTier;
+import com.example.trading.model.User;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Immutable snapshot of the user a request is authenticated as, taken when the user was loaded for
+ * token verification. Safe to cache and share across threads, unlike the {@link User} entity.
+ *
+ * {@link JwtFilter} sets it as the authentication principal, and handlers receive it by declaring a
+ * parameter of this type (see {@link AuthenticatedUserArgumentResolver}). It deliberately does not
+ * implement {@link java.security.Principal}, which Spring MVC would resolve to the raw
+ * Authentication instead.
+ */
+public record AuthenticatedUser(Long id, String username, PlanTier planTier, int tokenVersion)
+        implements AuthenticatedPrincipal {
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPlanTier(), user.getTokenVersion());
+    }
+
+    /**
+     * The username, so {@code Principal.getName()} keeps working for handlers that take a Principal.
+     */
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -4,7 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import com.example.trading.repository.UserRepository;
+import com.example.trading.service.AuthSessionCache;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,29 +17,25 @@ import java.util.List;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
-    private final UserRepository users;
+    private static final List<SimpleGrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
 
-    public JwtFilter(JwtUtil jwtUtil, UserRepository users) {
-        this.jwtUtil = jwtUtil;
-        this.users = users;
+    private final AuthSessionCache authSessionCache;
+
+    public JwtFilter(AuthSessionCache authSessionCache) {
+        this.authSessionCache = authSessionCache;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String auth = request.getHeader("Authorization");
         if (auth != null && auth.startsWith("Bearer ")) {
-            String token = auth.substring(7);
-            if (jwtUtil.validate(token)) {
-                String username = jwtUtil.getUsername(token);
-                if (username != null) {
-                    int tokenVersion = jwtUtil.getTokenVersion(token);
-                    var userOpt = users.findByUsername(username);
-                    if (userOpt.isPresent() && userOpt.get().getTokenVersion() == tokenVersion) {
-                        UsernamePasswordAuthenticationToken a = new UsernamePasswordAuthenticationToken(username, null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
-                        SecurityContextHolder.getContext().setAuthentication(a);
-                    }
-                }
+            // Verified claims and the user's token version come from AuthSessionCache, so a repeat
+            // token costs neither a signature check nor a user query. The snapshot itself is the
+            // principal, which handlers receive through AuthenticatedUserArgumentResolver.
+            AuthenticatedUser user = authSessionCache.authenticate(auth.substring(7));
+            if (user != null) {
+                UsernamePasswordAuthenticationToken a = new UsernamePasswordAuthenticationToken(user, null, USER_AUTHORITIES);
+                SecurityContextHolder.getContext().setAuthentication(a);
             }
         }
         filterChain.doFilter(request, response);
@@ -12,10 +12,12 @@ import java.util.Date;
 public class JwtUtil {
 
     private final SecretKey key;
+    private final JwtParser parser;
 
     public JwtUtil(@Value("${jwt.secret}") String secret) {
         // Use the configured secret; ensure it's long enough in production
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(key).build();
     }
 
     public String generateToken(String username) {
@@ -23,39 +25,69 @@ public class JwtUtil {
     }
 
     public String generateToken(String username, int tokenVersion) {
+        return generateToken(username, tokenVersion, null);
+    }
+
+    /**
+     * @param userId recorded as the {@code uid} claim, so a token cannot be taken for a later account
+     *               that reuses the username
+     */
+    public String generateToken(String username, int tokenVersion, Long userId) {
         long now = System.currentTimeMillis();
         return Jwts.builder()
                 .subject(username)
                 .claim("tv", tokenVersion)
+                .claim("uid", userId)
                 .issuedAt(new Date(now))
                 .expiration(new Date(now + 1000L * 60 * 60 * 24 * 7)) // 7 days
                 .signWith(key)
                 .compact();
     }
 
-    public String getUsername(String token) {
+    /**
+     * Verify the signature and expiry once and read every claim the backend uses.
+     *
+     * @return the claims, or null when the token is invalid, expired or has no subject
+     */
+    public TokenClaims parse(String token) {
         try {
-            return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject();
-        } catch (JwtException e) {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getSubject() == null) {
+                return null;
+            }
+            Integer version = claims.get("tv", Integer.class);
+            Number userId = claims.get("uid", Number.class);
+            Date expiration = claims.getExpiration();
+            return new TokenClaims(
+                claims.getSubject(),
+                userId == null ? null : userId.longValue(),
+                version == null ? 0 : version,
+                expiration == null ? Long.MAX_VALUE : expiration.getTime()
+            );
+        } catch (JwtException | IllegalArgumentException e) {
             return null;
         }
     }
 
+    public String getUsername(String token) {
+        TokenClaims claims = parse(token);
+        return claims == null ? null : claims.username();
+    }
+
     public boolean validate(String token) {
-        try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
-        }
+        return parse(token) != null;
     }
 
     public int getTokenVersion(String token) {
-        try {
-            Integer version = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().get("tv", Integer.class);
-            return version == null ? 0 : version;
-        } catch (JwtException e) {
-            return 0;
-        }
+        TokenClaims claims = parse(token);
+        return claims == null ? 0 : claims.tokenVersion();
     }
+
+    /**
+     * Claims of a verified token.
+     *
+     * @param userId the {@code uid} claim; null for tokens issued before it was added
+     * @param expiresAtMs epoch millis of the {@code exp} claim
+     */
+    public record TokenClaims(String username, Long userId, int tokenVersion, long expiresAtMs) {}
 }
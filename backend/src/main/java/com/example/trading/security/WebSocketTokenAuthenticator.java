@@ -0,0 +1,26 @@
+package com.example.trading.security;
+
+import com.example.trading.service.AuthSessionCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the JWT a browser sends in a WebSocket {@code auth} message, since browsers cannot set an
+ * Authorization header on the upgrade request. Goes through the same {@link AuthSessionCache} as
+ * {@link JwtFilter}, so revoked sessions cannot bind a socket either.
+ */
+@Component
+public class WebSocketTokenAuthenticator {
+
+    private final AuthSessionCache authSessionCache;
+
+    public WebSocketTokenAuthenticator(AuthSessionCache authSessionCache) {
+        this.authSessionCache = authSessionCache;
+    }
+
+    /**
+     * @return the authenticated user, or null when the token is missing, invalid or revoked
+     */
+    public AuthenticatedUser authenticate(String token) {
+        return authSessionCache.authenticate(token);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.trading.service;
+
+import com.example.trading.model.AlertRule;
+import com.example.trading.model.User;
+import com.example.trading.repository.AlertRuleRepository;
+import com.example.trading.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming alert engine. Active rules are held in an {@link AlertThresholdIndex}, so each
+ * {@link QuoteUpdated} costs a binary search per side plus the rules it actually crosses, independent
+ * of how many rules exist. A rule fires once: it leaves the index, is marked inactive, is pushed to the
+ * owner's authenticated /ws/quotes sessions and is recorded in the audit log.
+ *
+ * Only the index lookup runs on the quote event dispatcher. Delivery and the database writes for fired
+ * rules go to one worker thread with a queue of {@code app.alerts.fired-queue-size} batches, so a burst
+ * of alerts or a slow database does not hold up quote pushes. When that queue is full the dispatcher
+ * handles the batch itself rather than lose it.
+ *
+ * The index is loaded from the database at startup and kept in step by {@link #register} and
+ * {@link #unregister}, which AlertController calls on create and delete.
+ */
+@Service
+public class AlertEvaluationService {
+
+    private final AlertRuleRepository alertRules;
+    private final UserRepository users;
+    private final AuditLogService auditLogService;
+    private final QuoteStreamService quoteStreamService;
+    private final ThreadPoolExecutor ownedFiredHandler;
+    private final Executor firedHandler;
+    private final AlertThresholdIndex index = new AlertThresholdIndex();
+    private final LongAdder quotesEvaluated = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+    private final LongAdder triggered = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder handledOnDispatcher = new LongAdder();
+
+    @Autowired
+    public AlertEvaluationService(AlertRuleRepository alertRules,
+                                  UserRepository users,
+                                  AuditLogService auditLogService,
+                                  QuoteStreamService quoteStreamService,
+                                  QuoteEventBus quoteEventBus,
+                                  @Value("${app.alerts.fired-queue-size:1000}") int firedQueueSize) {
+        this(alertRules, users, auditLogService, quoteStreamService, quoteEventBus, null, firedQueueSize);
+    }
+
+    /**
+     * @param firedHandler executor that delivers and persists fired rules; null creates one bounded worker
+     */
+    AlertEvaluationService(AlertRuleRepository alertRules,
+                           UserRepository users,
+                           AuditLogService auditLogService,
+                           QuoteStreamService quoteStreamService,
+                           QuoteEventBus quoteEventBus,
+                           Executor firedHandler,
+                           int firedQueueSize) {
+        this.alertRules = alertRules;
+        this.users = users;
+        this.auditLogService = auditLogService;
+        this.quoteStreamService = quoteStreamService;
+        this.ownedFiredHandler = firedHandler == null ? newFiredHandler(firedQueueSize, handledOnDispatcher) : null;
+        this.firedHandler = firedHandler == null ? ownedFiredHandler : firedHandler;
+        if (quoteEventBus != null) {
+            quoteEventBus.subscribe("alert-evaluation", this::onQuoteUpdated);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (ownedFiredHandler != null) {
+            ownedFiredHandler.shutdown();
+        }
+    }
+
+    @PostConstruct
+    void loadActiveRules() {
+        for (AlertRule rule : alertRules.findByActiveTrue()) {
+            register(rule);
+        }
+        System.out.println("🔔 Indexed " + index.size() + " active alert rules across " + index.symbols() + " symbols");
+    }
+
+    public void register(AlertRule rule) {
+        if (rule.getId() != null && rule.isActive()) {
+            index.add(toIndexed(rule));
+        }
+    }
+
+    public void unregister(AlertRule rule) {
+        if (rule.getId() != null) {
+            index.remove(toIndexed(rule));
+        }
+    }
+
+    void onQuoteUpdated(QuoteUpdated event) {
+        BigDecimal price = event.quote() == null ? null : event.quote().price();
+        if (price == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<AlertThresholdIndex.IndexedRule> fired = index.fire(event.symbol(), HistoricalSeries.toScaled(price));
+        evaluationNanos.add(System.nanoTime() - started);
+        quotesEvaluated.increment();
+        if (!fired.isEmpty()) {
+            triggered.add(fired.size());
+            firedHandler.execute(() -> handleFired(fired, price));
+        }
+    }
+
+    private static ThreadPoolExecutor newFiredHandler(int queueSize, LongAdder handledOnDispatcher) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "alert-delivery");
+                thread.setDaemon(true);
+                return thread;
+            },
+            (task, executor) -> {
+                if (!executor.isShutdown()) {
+                    handledOnDispatcher.increment();
+                    task.run();
+                }
+            });
+    }
+
+    /**
+     * Deliver first so the user sees the alert with the quote that caused it, then persist.
+     */
+    private void handleFired(List<AlertThresholdIndex.IndexedRule> fired, BigDecimal price) {
+        String triggeredAt = Instant.now().toString();
+        for (AlertThresholdIndex.IndexedRule rule : fired) {
+            delivered.add(quoteStreamService.sendToUser(rule.userId(), alertMessage(rule, price, triggeredAt)));
+        }
+
+        try {
+            alertRules.deactivateAll(fired.stream().map(AlertThresholdIndex.IndexedRule::ruleId).toList());
+
+            Set<Long> userIds = new LinkedHashSet<>();
+            fired.forEach(rule -> userIds.add(rule.userId()));
+            Map<Long, String> usernames = new HashMap<>();
+            for (User user : users.findAllById(userIds)) {
+                usernames.put(user.getId(), user.getUsername());
+            }
+            for (AlertThresholdIndex.IndexedRule rule : fired) {
+                String username = usernames.get(rule.userId());
+                if (username != null) {
+                    auditLogService.record(username, "ALERT_TRIGGERED", "ALERT_RULE", String.valueOf(rule.ruleId()),
+                        rule.symbol() + " " + condition(rule) + " " + target(rule).toPlainString() + " at " + price.toPlainString());
+                }
+            }
+        } catch (Exception ex) {
+            System.err.println("❌ Failed to persist " + fired.size() + " fired alerts: " + ex.getMessage());
+        }
+    }
+
+    public AlertEngineStats getStats() {
+        long quotes = quotesEvaluated.sum();
+        return new AlertEngineStats(
+            index.size(),
+            index.symbols(),
+            quotes,
+            quotes == 0 ? 0.0 : evaluationNanos.sum() / (double) quotes / 1_000.0,
+            triggered.sum(),
+            delivered.sum(),
+            ownedFiredHandler == null ? 0 : ownedFiredHandler.getQueue().size(),
+            handledOnDispatcher.sum()
+        );
+    }
+
+    private static Map<String, Object> alertMessage(AlertThresholdIndex.IndexedRule rule, BigDecimal price, String triggeredAt) {
+        Map<String, Object> alert = new LinkedHashMap<>();
+        alert.put("id", rule.ruleId());
+        alert.put("symbol", rule.symbol());
+        alert.put("conditionType", condition(rule));
+        alert.put("targetPrice", target(rule));
+        alert.put("price", price);
+        alert.put("triggeredAt", triggeredAt);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "alert");
+        message.put("alert", alert);
+        return message;
+    }
+
+    private static AlertThresholdIndex.IndexedRule toIndexed(AlertRule rule) {
+        return new AlertThresholdIndex.IndexedRule(
+            rule.getId(),
+            rule.getUserId() == null ? 0L : rule.getUserId(),
+            rule.getSymbol(),
+            !"BELOW".equals(rule.getConditionType()),
+            HistoricalSeries.toScaled(rule.getTargetPrice())
+        );
+    }
+
+    private static String condition(AlertThresholdIndex.IndexedRule rule) {
+        return rule.above() ? "ABOVE" : "BELOW";
+    }
+
+    private static BigDecimal target(AlertThresholdIndex.IndexedRule rule) {
+        return BigDecimal.valueOf(rule.threshold(), HistoricalSeries.PRICE_SCALE).stripTrailingZeros();
+    }
+
+    /**
+     * @param avgEvaluationMicros index lookup time per quote update, excluding delivery and persistence
+     * @param queuedFired         batches of fired rules waiting for delivery and persistence
+     * @param handledOnDispatcher batches the dispatcher handled itself because that queue was full
+     */
+    public record AlertEngineStats(int indexedRules, int symbols, long quotesEvaluated, double avgEvaluationMicros,
+                                   long triggered, long delivered, int queuedFired, long handledOnDispatcher) {}
+}
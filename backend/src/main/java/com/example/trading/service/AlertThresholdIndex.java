@@ -0,0 +1,160 @@
+package com.example.trading.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active alert rules per symbol, held in two books sorted by threshold so a quote only touches the
+ * rules it crosses. With both books ascending, ABOVE rules fire as a prefix (threshold &lt;= price) and
+ * BELOW rules as a suffix (threshold &gt;= price); locating the cut is a binary search and firing removes
+ * the crossed run in one array copy. Thresholds are fixed-point longs with
+ * {@link HistoricalSeries#PRICE_SCALE} decimals.
+ */
+final class AlertThresholdIndex {
+
+    private final Map<String, SymbolBook> books = new ConcurrentHashMap<>();
+
+    void add(IndexedRule rule) {
+        books.computeIfAbsent(rule.symbol(), key -> new SymbolBook()).add(rule);
+    }
+
+    boolean remove(IndexedRule rule) {
+        SymbolBook book = books.get(rule.symbol());
+        return book != null && book.remove(rule);
+    }
+
+    /**
+     * Remove and return every rule for {@code symbol} that {@code scaledPrice} crosses.
+     */
+    List<IndexedRule> fire(String symbol, long scaledPrice) {
+        SymbolBook book = books.get(symbol);
+        return book == null ? List.of() : book.fire(scaledPrice);
+    }
+
+    int size() {
+        int size = 0;
+        for (SymbolBook book : books.values()) {
+            size += book.size();
+        }
+        return size;
+    }
+
+    int symbols() {
+        return books.size();
+    }
+
+    record IndexedRule(long ruleId, long userId, String symbol, boolean above, long threshold) {}
+
+    private static final class SymbolBook {
+        private final Side above = new Side();
+        private final Side below = new Side();
+
+        synchronized void add(IndexedRule rule) {
+            (rule.above() ? above : below).insert(rule);
+        }
+
+        synchronized boolean remove(IndexedRule rule) {
+            return (rule.above() ? above : below).remove(rule);
+        }
+
+        synchronized List<IndexedRule> fire(long price) {
+            List<IndexedRule> fired = new ArrayList<>();
+            above.removeUpTo(price, fired);
+            below.removeFrom(price, fired);
+            return fired;
+        }
+
+        synchronized int size() {
+            return above.size + below.size;
+        }
+    }
+
+    /**
+     * Rules sorted ascending by threshold, in parallel arrays so the binary search stays on primitives.
+     */
+    private static final class Side {
+        private long[] thresholds = new long[4];
+        private IndexedRule[] rules = new IndexedRule[4];
+        private int size;
+
+        void insert(IndexedRule rule) {
+            if (size == thresholds.length) {
+                thresholds = Arrays.copyOf(thresholds, size * 2);
+                rules = Arrays.copyOf(rules, size * 2);
+            }
+            int at = firstAbove(rule.threshold());
+            System.arraycopy(thresholds, at, thresholds, at + 1, size - at);
+            System.arraycopy(rules, at, rules, at + 1, size - at);
+            thresholds[at] = rule.threshold();
+            rules[at] = rule;
+            size++;
+        }
+
+        boolean remove(IndexedRule rule) {
+            for (int i = firstAtLeast(rule.threshold()); i < size && thresholds[i] == rule.threshold(); i++) {
+                if (rules[i].ruleId() == rule.ruleId()) {
+                    System.arraycopy(thresholds, i + 1, thresholds, i, size - i - 1);
+                    System.arraycopy(rules, i + 1, rules, i, size - i - 1);
+                    rules[--size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Fires ABOVE rules: every threshold &lt;= price. */
+        void removeUpTo(long price, List<IndexedRule> fired) {
+            int count = firstAbove(price);
+            if (count == 0) {
+                return;
+            }
+            fired.addAll(Arrays.asList(rules).subList(0, count));
+            System.arraycopy(thresholds, count, thresholds, 0, size - count);
+            System.arraycopy(rules, count, rules, 0, size - count);
+            Arrays.fill(rules, size - count, size, null);
+            size -= count;
+        }
+
+        /** Fires BELOW rules: every threshold &gt;= price. */
+        void removeFrom(long price, List<IndexedRule> fired) {
+            int from = firstAtLeast(price);
+            if (from == size) {
+                return;
+            }
+            fired.addAll(Arrays.asList(rules).subList(from, size));
+            Arrays.fill(rules, from, size, null);
+            size = from;
+        }
+
+        private int firstAbove(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (thresholds[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int firstAtLeast(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (thresholds[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
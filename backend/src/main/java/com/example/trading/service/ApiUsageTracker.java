@@ -1,70 +1,65 @@
 package com.example.trading.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 /**
  * Service to track API usage and rate limits across all providers.
- * Maintains in-memory counters for the current day.
+ * Maintains in-memory counters for the current day, or cluster-wide ones through a
+ * {@link SharedRateLimiter} when {@code app.shared-counters.store} is set.
  */
 @Service
 public class ApiUsageTracker {
 
+    private static final long DAY_NANOS = TimeUnit.DAYS.toNanos(1);
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Daily quota in fixed 24-hour windows from startup; per-minute limit over a sliding minute.
+     * Both are lock-free, so concurrent provider calls do not serialize on the counters.
+     */
     private static final class ProviderMetrics {
-        int dailyRequestCount = 0;
-        int dailyLimit;
-        LocalDateTime lastResetTime = LocalDateTime.now();
-        long minuteRequestCount = 0;
-        int minuteLimit;
-        LocalDateTime lastMinuteResetTime = LocalDateTime.now();
-        boolean rateLimited = false;
-
-        ProviderMetrics(int dailyLimit, int minuteLimit) {
+        final int dailyLimit;
+        final int minuteLimit;
+        final SlidingWindowCounter daily;
+        final SlidingWindowCounter minute;
+
+        ProviderMetrics(int dailyLimit, int minuteLimit, LongSupplier nanoClock) {
             this.dailyLimit = dailyLimit;
             this.minuteLimit = minuteLimit;
+            this.daily = new SlidingWindowCounter(DAY_NANOS, nanoClock);
+            this.minute = new SlidingWindowCounter(MINUTE_NANOS, nanoClock);
         }
 
-        synchronized boolean incrementDaily() {
-            // Reset if new day
-            if (ChronoUnit.DAYS.between(lastResetTime, LocalDateTime.now()) >= 1) {
-                dailyRequestCount = 0;
-                lastResetTime = LocalDateTime.now();
-                rateLimited = false;
-            }
-            
-            if (dailyRequestCount >= dailyLimit) {
-                rateLimited = true;
-                return false;
-            }
-            
-            dailyRequestCount++;
-            return true;
+        boolean incrementDaily() {
+            return daily.tryAcquireFixed(dailyLimit);
         }
 
-        synchronized boolean canMakeMinuteRequest() {
-            // Reset if past minute
-            if (ChronoUnit.MINUTES.between(lastMinuteResetTime, LocalDateTime.now()) >= 1) {
-                minuteRequestCount = 0;
-                lastMinuteResetTime = LocalDateTime.now();
-            }
-            
-            if (minuteRequestCount >= minuteLimit) {
-                return false;
-            }
-            
-            minuteRequestCount++;
-            return true;
+        boolean canMakeMinuteRequest() {
+            return minute.tryAcquireSliding(minuteLimit);
         }
 
-        synchronized ApiUsageDto getMetrics() {
+        void reset() {
+            daily.reset();
+            minute.reset();
+        }
+
+        ApiUsageDto getMetrics() {
+            return toDto(daily.fixedCount(), minute.slidingCount());
+        }
+
+        ApiUsageDto toDto(int dailyRequestCount, int minuteRequestCount) {
             return new ApiUsageDto(
                 dailyRequestCount,
                 dailyLimit,
-                (long) minuteRequestCount,
+                minuteRequestCount,
                 minuteLimit,
-                rateLimited,
+                dailyRequestCount >= dailyLimit,
                 dailyLimit > 0 ? (dailyRequestCount * 100.0 / dailyLimit) : 0,
                 minuteLimit > 0 ? (minuteRequestCount * 100.0 / minuteLimit) : 0
             );
@@ -72,28 +67,47 @@ public class ApiUsageTracker {
     }
 
     private final ConcurrentHashMap<String, ProviderMetrics> providers = new ConcurrentHashMap<>();
+    private SharedRateLimiter sharedRateLimiter;
 
     public ApiUsageTracker() {
+        this(System::nanoTime);
+    }
+
+    ApiUsageTracker(LongSupplier nanoClock) {
         // Alpha Vantage: 25 requests/day, 5 per minute
-        providers.put("ALPHA_VANTAGE", new ProviderMetrics(25, 5));
+        providers.put("ALPHA_VANTAGE", new ProviderMetrics(25, 5, nanoClock));
         // Finnhub: 500 requests/day, 60 per minute
-        providers.put("FINNHUB", new ProviderMetrics(500, 60));
+        providers.put("FINNHUB", new ProviderMetrics(500, 60, nanoClock));
         // Twelve Data: 800 requests/day, 60 per minute
-        providers.put("TWELVEDATA", new ProviderMetrics(800, 60));
+        providers.put("TWELVEDATA", new ProviderMetrics(800, 60, nanoClock));
         // Massive: 1000 requests/day, 100 per minute (assumed high volume)
-        providers.put("MASSIVE", new ProviderMetrics(1000, 100));
+        providers.put("MASSIVE", new ProviderMetrics(1000, 100, nanoClock));
+    }
+
+    /**
+     * With a shared limiter the daily quota is counted per UTC day and the minute limit per sliding
+     * minute across all replicas; the local counters are then unused.
+     */
+    @Autowired(required = false)
+    public void setSharedRateLimiter(SharedRateLimiter sharedRateLimiter) {
+        this.sharedRateLimiter = sharedRateLimiter;
     }
 
     /**
      * Record a request for a provider
      */
     public boolean recordRequest(String provider) {
-        ProviderMetrics metrics = providers.get(provider.toUpperCase());
+        String name = provider.toUpperCase();
+        ProviderMetrics metrics = providers.get(name);
         if (metrics == null) {
             System.out.println("⚠ Unknown provider: " + provider);
             return false;
         }
         
+        SharedRateLimiter shared = sharedRateLimiter;
+        if (shared != null) {
+            return shared.tryAcquire(dailyKey(name), metrics.dailyLimit, DAY_MS, false);
+        }
         return metrics.incrementDaily();
     }
 
@@ -101,8 +115,13 @@ public class ApiUsageTracker {
      * Check if provider can make a minute-level request
      */
     public boolean canMakeRequest(String provider) {
-        ProviderMetrics metrics = providers.get(provider.toUpperCase());
+        String name = provider.toUpperCase();
+        ProviderMetrics metrics = providers.get(name);
         if (metrics == null) return false;
+        SharedRateLimiter shared = sharedRateLimiter;
+        if (shared != null) {
+            return shared.tryAcquire(minuteKey(name), metrics.minuteLimit, MINUTE_MS, true);
+        }
         return metrics.canMakeMinuteRequest();
     }
 
@@ -110,11 +129,12 @@ public class ApiUsageTracker {
      * Get metrics for a specific provider
      */
     public ApiUsageDto getProviderMetrics(String provider) {
-        ProviderMetrics metrics = providers.get(provider.toUpperCase());
+        String name = provider.toUpperCase();
+        ProviderMetrics metrics = providers.get(name);
         if (metrics == null) {
             return new ApiUsageDto(0, 0, 0, 0, true, 0, 0);
         }
-        return metrics.getMetrics();
+        return metricsOf(name, metrics);
     }
 
     /**
@@ -122,21 +142,35 @@ public class ApiUsageTracker {
      */
     public ConcurrentHashMap<String, ApiUsageDto> getAllMetrics() {
         ConcurrentHashMap<String, ApiUsageDto> allMetrics = new ConcurrentHashMap<>();
-        providers.forEach((name, metrics) -> allMetrics.put(name, metrics.getMetrics()));
+        providers.forEach((name, metrics) -> allMetrics.put(name, metricsOf(name, metrics)));
         return allMetrics;
     }
 
+    private ApiUsageDto metricsOf(String name, ProviderMetrics metrics) {
+        SharedRateLimiter shared = sharedRateLimiter;
+        if (shared == null) {
+            return metrics.getMetrics();
+        }
+        return metrics.toDto(
+            shared.used(dailyKey(name), metrics.dailyLimit, DAY_MS, false),
+            shared.used(minuteKey(name), metrics.minuteLimit, MINUTE_MS, true));
+    }
+
+    private static String dailyKey(String provider) {
+        return "provider|" + provider + "|daily";
+    }
+
+    private static String minuteKey(String provider) {
+        return "provider|" + provider + "|minute";
+    }
+
     /**
-     * Reset metrics for a provider (for testing)
+     * Reset metrics for a provider (for testing; local counters only)
      */
     public void resetMetrics(String provider) {
         ProviderMetrics metrics = providers.get(provider.toUpperCase());
         if (metrics != null) {
-            metrics.dailyRequestCount = 0;
-            metrics.minuteRequestCount = 0;
-            metrics.rateLimited = false;
-            metrics.lastResetTime = LocalDateTime.now();
-            metrics.lastMinuteResetTime = LocalDateTime.now();
+            metrics.reset();
         }
     }
 
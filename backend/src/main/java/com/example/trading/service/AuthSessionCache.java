@@ -0,0 +1,117 @@
+package com.example.trading.service;
+
+import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.security.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Bearer token authentication without a signature check and a user query on every request.
+ *
+ * Verified tokens map to their claims in a bounded cache, so a token is parsed and its HMAC checked
+ * once per {@code app.auth.token-cache.ttl-seconds} (never past its own expiry). Users map to an
+ * {@link AuthenticatedUser} snapshot for {@code app.auth.user-cache.ttl-seconds}; the token version
+ * in the claims must match the snapshot's, and so must the user id for tokens that carry one.
+ * Anything that changes a user's token version or plan calls {@link #invalidateUser}, which takes
+ * effect immediately on this replica and within the user cache TTL on others.
+ */
+@Service
+public class AuthSessionCache {
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository users;
+    private final LongSupplier clock;
+    private final BoundedTtlCache<String, JwtUtil.TokenClaims> tokens;
+    private final BoundedTtlCache<String, AuthenticatedUser> usersByName;
+
+    @Autowired
+    public AuthSessionCache(JwtUtil jwtUtil, UserRepository users,
+                            @Value("${app.auth.token-cache.max-entries:10000}") int tokenCacheMaxEntries,
+                            @Value("${app.auth.token-cache.ttl-seconds:300}") long tokenCacheTtlSeconds,
+                            @Value("${app.auth.user-cache.max-entries:10000}") int userCacheMaxEntries,
+                            @Value("${app.auth.user-cache.ttl-seconds:30}") long userCacheTtlSeconds) {
+        this(jwtUtil, users, tokenCacheMaxEntries, TimeUnit.SECONDS.toMillis(tokenCacheTtlSeconds),
+            userCacheMaxEntries, TimeUnit.SECONDS.toMillis(userCacheTtlSeconds), System::currentTimeMillis);
+    }
+
+    AuthSessionCache(JwtUtil jwtUtil, UserRepository users, int tokenCacheMaxEntries, long tokenCacheTtlMs,
+                     int userCacheMaxEntries, long userCacheTtlMs, LongSupplier clock) {
+        this.jwtUtil = jwtUtil;
+        this.users = users;
+        this.clock = clock;
+        this.tokens = new BoundedTtlCache<>(tokenCacheMaxEntries, tokenCacheTtlMs, 0, null, null, clock);
+        this.usersByName = new BoundedTtlCache<>(userCacheMaxEntries, userCacheTtlMs, 0, null, null, clock);
+    }
+
+    /**
+     * @return the user {@code token} authenticates, or null when it is invalid, expired or revoked
+     */
+    public AuthenticatedUser authenticate(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        JwtUtil.TokenClaims claims = verifiedClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        AuthenticatedUser user = user(claims.username());
+        if (user != null && claims.userId() != null && !claims.userId().equals(user.id())) {
+            // The snapshot may be of an earlier account with the same name; the token decides
+            usersByName.invalidate(claims.username());
+            user = user(claims.username());
+        }
+        if (user == null || user.tokenVersion() != claims.tokenVersion()) {
+            return null;
+        }
+        return claims.userId() == null || claims.userId().equals(user.id()) ? user : null;
+    }
+
+    /**
+     * Forget the cached snapshot of {@code username}, e.g. after its sessions were revoked.
+     */
+    public void invalidateUser(String username) {
+        if (username != null) {
+            usersByName.invalidate(username);
+        }
+    }
+
+    public Map<String, BoundedTtlCache.CacheStats> getStats() {
+        Map<String, BoundedTtlCache.CacheStats> stats = new LinkedHashMap<>();
+        stats.put("tokens", tokens.stats());
+        stats.put("users", usersByName.stats());
+        return stats;
+    }
+
+    private JwtUtil.TokenClaims verifiedClaims(String token) {
+        JwtUtil.TokenClaims claims = tokens.get(token);
+        if (claims == null) {
+            claims = jwtUtil.parse(token);
+            if (claims == null) {
+                return null;
+            }
+            tokens.put(token, claims);
+        }
+        return claims.expiresAtMs() > clock.getAsLong() ? claims : null;
+    }
+
+    private AuthenticatedUser user(String username) {
+        AuthenticatedUser cached = usersByName.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        long started = System.nanoTime();
+        AuthenticatedUser loaded = users.findByUsername(username).map(AuthenticatedUser::from).orElse(null);
+        if (loaded != null) {
+            // Versioned by load start: an invalidation that lands meanwhile wins over this write
+            usersByName.put(username, loaded, started);
+        }
+        return loaded;
+    }
+}
@@ -12,9 +12,11 @@ import java.util.Map;
 public class BillingService {
 
     private final UserRepository users;
+    private final AuthSessionCache authSessionCache;
 
-    public BillingService(UserRepository users) {
+    public BillingService(UserRepository users, AuthSessionCache authSessionCache) {
         this.users = users;
+        this.authSessionCache = authSessionCache;
     }
 
     public boolean applyWebhookEvent(Map<String, Object> payload) {
@@ -76,6 +78,8 @@ public class BillingService {
         }
 
         users.save(user);
+        // The cached session snapshot carries the plan tier
+        authSessionCache.invalidateUser(user.getUsername());
         return true;
     }
 
@@ -0,0 +1,167 @@
+package com.example.trading.service;
+
+import org.springframework.web.socket.BinaryMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary encoding of /ws/quotes frames for clients that negotiate the {@value #SUBPROTOCOL} subprotocol.
+ * All integers are big-endian; prices are fixed-point longs with {@link HistoricalSeries#PRICE_SCALE} decimals.
+ * <pre>
+ *   dictionary frame: u8 type=0x01, u16 count, count x (u16 symbolId, u8 length, ASCII symbol)
+ *   quote frame:      u8 type (0x02 full, 0x03 snapshot, 0x04 delta), i64 epoch millis, u16 count,
+ *                     count x (u16 symbolId, u8 source (0 live, 1 reference), i64 price, i64 high, i64 low)
+ * </pre>
+ * Symbol ids are process-wide, so each quote is encoded once per tick and shared by every binary session.
+ * Only symbols that resolved to a quote get an id, and the ids of symbols nobody subscribes to any more
+ * are reclaimed, so the dictionary stays as small as the live subscriptions. A session learns an id from
+ * a dictionary frame sent ahead of the first quote that uses it, and again if the id changes.
+ */
+final class BinaryQuoteFrames {
+
+    static final String SUBPROTOCOL = "quotes.binary.v1";
+
+    static final byte TYPE_DICTIONARY = 0x01;
+    static final int QUOTE_BYTES = 2 + 1 + 3 * 8;
+    private static final int HEADER_BYTES = 1 + 8 + 2;
+    private static final int MAX_SYMBOL_IDS = 0xFFFF;
+
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    // Reclaimed ids are handed out oldest first, so a frame still queued with an old id is unlikely to meet its reuse
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private int nextId;
+    private boolean fullReported;
+
+    /**
+     * @return the symbol's id, or -1 when all {@value #MAX_SYMBOL_IDS} + 1 ids are taken
+     */
+    int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id != null ? id : assignId(symbol);
+    }
+
+    private synchronized int assignId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        if (!freeIds.isEmpty()) {
+            id = freeIds.removeFirst();
+        } else if (nextId <= MAX_SYMBOL_IDS) {
+            id = nextId++;
+        } else {
+            if (!fullReported) {
+                fullReported = true;
+                System.err.println("⚠️ Binary quote symbol dictionary is full; binary sessions miss quotes for new symbols");
+            }
+            return -1;
+        }
+        symbolIds.put(symbol, id);
+        return id;
+    }
+
+    /**
+     * Reclaim the ids of every symbol not in {@code subscribed}.
+     */
+    synchronized void retainOnly(Set<String> subscribed) {
+        symbolIds.entrySet().removeIf(entry -> {
+            if (subscribed.contains(entry.getKey())) {
+                return false;
+            }
+            freeIds.addLast(entry.getValue());
+            fullReported = false;
+            return true;
+        });
+    }
+
+    /**
+     * Dictionary entries for those {@code symbols} that have a fragment, with the id the fragment carries.
+     */
+    static BinaryMessage dictionary(Iterable<String> symbols, Map<String, byte[]> fragments) {
+        int count = 0;
+        int length = 1 + 2;
+        for (String symbol : symbols) {
+            if (fragments.containsKey(symbol)) {
+                length += 2 + 1 + symbol.length();
+                count++;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(TYPE_DICTIONARY);
+        buffer.putShort((short) count);
+        for (String symbol : symbols) {
+            byte[] fragment = fragments.get(symbol);
+            if (fragment != null) {
+                byte[] ascii = symbol.getBytes(StandardCharsets.US_ASCII);
+                buffer.putShort((short) fragmentId(fragment));
+                buffer.put((byte) ascii.length);
+                buffer.put(ascii);
+            }
+        }
+        return new BinaryMessage(buffer.array());
+    }
+
+    static int fragmentId(byte[] fragment) {
+        return ((fragment[0] & 0xFF) << 8) | (fragment[1] & 0xFF);
+    }
+
+    /**
+     * @return the encoded quote, or null when the symbol can get no id
+     */
+    byte[] encodeFragment(QuoteResolutionService.ResolvedQuote quote) {
+        int id = symbolId(quote.symbol());
+        if (id < 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(QUOTE_BYTES);
+        buffer.putShort((short) id);
+        buffer.put((byte) ("LIVE".equals(quote.source()) ? 0 : 1));
+        buffer.putLong(HistoricalSeries.toScaled(quote.price()));
+        buffer.putLong(HistoricalSeries.toScaled(quote.high()));
+        buffer.putLong(HistoricalSeries.toScaled(quote.low()));
+        return buffer.array();
+    }
+
+    static BinaryMessage assemble(QuoteFrames.Kind kind, Iterable<String> symbols, Map<String, byte[]> fragments) {
+        int count = 0;
+        for (String symbol : symbols) {
+            if (fragments.containsKey(symbol)) {
+                count++;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * QUOTE_BYTES);
+        buffer.put(typeOf(kind));
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putShort((short) count);
+        for (String symbol : symbols) {
+            byte[] fragment = fragments.get(symbol);
+            if (fragment != null) {
+                buffer.put(fragment);
+            }
+        }
+        return new BinaryMessage(buffer.array());
+    }
+
+    static int frameLength(Iterable<String> symbols, Map<String, byte[]> fragments) {
+        int count = 0;
+        for (String symbol : symbols) {
+            if (fragments.containsKey(symbol)) {
+                count++;
+            }
+        }
+        return HEADER_BYTES + count * QUOTE_BYTES;
+    }
+
+    private static byte typeOf(QuoteFrames.Kind kind) {
+        return switch (kind) {
+            case FULL -> 0x02;
+            case SNAPSHOT -> 0x03;
+            case DELTA -> 0x04;
+        };
+    }
+}
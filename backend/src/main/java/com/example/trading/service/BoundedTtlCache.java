@@ -0,0 +1,277 @@
+package com.example.trading.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded, TTL-expiring cache with refresh-ahead and stale-while-revalidate.
+ *
+ * Entries live in lock-striped access-ordered maps, so the bound is exact and each stripe evicts its
+ * least recently used entry when full, while lookups on different stripes never contend. A hit on an
+ * entry inside the last {@code refreshAheadMs} of its TTL hands the key to {@code refresher} once, on
+ * the refresh executor, so hot keys are reloaded before they expire instead of on a request thread.
+ * For {@code staleGraceMs} past the TTL an expired entry is still returned, with the same single
+ * background refresh, so a key that went cold for a while costs the caller nothing on its next hit.
+ *
+ * Writes are versioned: a write only replaces an entry whose version is not newer, so a slow load
+ * that started earlier cannot overwrite the result of a later one.
+ */
+public final class BoundedTtlCache<K, V> {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe<K, V>[] stripes;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final long refreshAheadMs;
+    private final long staleGraceMs;
+    private final Executor refreshExecutor;
+    private final Consumer<K> refresher;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder staleWritesRejected = new LongAdder();
+    private final LongAdder refreshAheads = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder staleRefreshes = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    BoundedTtlCache(int maxEntries, long ttlMs, long refreshAheadMs,
+                    Executor refreshExecutor, Consumer<K> refresher, LongSupplier clock) {
+        this(maxEntries, ttlMs, refreshAheadMs, 0, refreshExecutor, refresher, clock);
+    }
+
+    /**
+     * @param staleGraceMs how long past the TTL an entry is still served while it is refreshed;
+     *                     ignored without a refresher, since nothing would ever replace it
+     * @param refresher    reloads a key and writes it back; null disables refresh-ahead
+     * @param clock        epoch millis, injectable for tests
+     */
+    @SuppressWarnings("unchecked")
+    BoundedTtlCache(int maxEntries, long ttlMs, long refreshAheadMs, long staleGraceMs,
+                    Executor refreshExecutor, Consumer<K> refresher, LongSupplier clock) {
+        this.maxEntries = Math.max(STRIPES, maxEntries);
+        this.ttlMs = ttlMs;
+        this.refreshAheadMs = Math.min(refreshAheadMs, ttlMs);
+        this.staleGraceMs = refresher == null || refreshExecutor == null ? 0 : Math.max(0, staleGraceMs);
+        this.refreshExecutor = refreshExecutor;
+        this.refresher = refresher;
+        this.clock = clock;
+        int perStripe = (this.maxEntries + STRIPES - 1) / STRIPES;
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>(perStripe);
+        }
+    }
+
+    /**
+     * @return the cached value if it is fresh or within the stale grace window, else null
+     */
+    V get(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        Entry<V> entry;
+        synchronized (stripe) {
+            entry = stripe.map.get(key);
+        }
+        long now = clock.getAsLong();
+        if (entry == null || entry.value == null) {
+            misses.increment();
+            return null;
+        }
+        long age = now - entry.writtenAt;
+        if (age > ttlMs + staleGraceMs) {
+            // Left in place: the value still tells the next writer whether the price changed
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (age > ttlMs) {
+            staleHits.increment();
+            scheduleRefresh(key, entry, staleRefreshes);
+        } else if (age > ttlMs - refreshAheadMs) {
+            scheduleRefresh(key, entry, refreshAheads);
+        }
+        return entry.value;
+    }
+
+    V put(K key, V value) {
+        return put(key, value, System.nanoTime());
+    }
+
+    /**
+     * Store {@code value} unless the entry already holds a newer version.
+     *
+     * @param version {@link System#nanoTime()} taken when the load that produced {@code value} started
+     * @return the value this write replaced (possibly expired, null if none), or {@code value} itself
+     *         when a newer write had already landed and this one was dropped
+     */
+    V put(K key, V value, long version) {
+        Stripe<K, V> stripe = stripeFor(key);
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            Entry<V> previous = stripe.map.get(key);
+            if (previous != null && previous.version > version) {
+                staleWritesRejected.increment();
+                return value;
+            }
+            stripe.map.put(key, new Entry<>(value, now, version));
+            if (stripe.map.size() > stripe.capacity) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = stripe.map.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+            return previous == null ? null : previous.value;
+        }
+    }
+
+    /**
+     * Drop the value for {@code key} and reject writes from loads that started before now, so a load
+     * racing with the change that prompted the invalidation cannot put the old value back.
+     */
+    void invalidate(K key) {
+        put(key, null, System.nanoTime());
+    }
+
+    /**
+     * Age an entry past its TTL so the next lookup misses (tests).
+     */
+    void expire(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.map.computeIfPresent(key, (k, entry) -> new Entry<>(entry.value, Long.MIN_VALUE / 2, entry.version));
+        }
+    }
+
+    void clear() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.map.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.map.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Record one provider load, successful or not, for the load-time statistics.
+     */
+    void recordLoad(long nanos, boolean success) {
+        loads.increment();
+        loadNanos.add(nanos);
+        if (!success) {
+            loadFailures.increment();
+        }
+    }
+
+    CacheStats stats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        long loadCount = loads.sum();
+        return new CacheStats(
+            size(),
+            maxEntries,
+            ttlMs,
+            hitCount,
+            misses.sum(),
+            lookups == 0 ? 0.0 : 100.0 * hitCount / lookups,
+            evictions.sum(),
+            expirations.sum(),
+            staleWritesRejected.sum(),
+            refreshAheads.sum(),
+            staleGraceMs,
+            staleHits.sum(),
+            staleRefreshes.sum(),
+            loadCount,
+            loadFailures.sum(),
+            loadCount == 0 ? 0.0 : loadNanos.sum() / (double) loadCount / 1_000_000.0
+        );
+    }
+
+    private void scheduleRefresh(K key, Entry<V> entry, LongAdder scheduled) {
+        if (refresher == null || refreshExecutor == null || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresher.accept(key);
+                } finally {
+                    // A successful refresh replaced the entry; a failed one may be retried on a later hit
+                    entry.refreshing.set(false);
+                }
+            });
+            scheduled.increment();
+        } catch (RejectedExecutionException ex) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe<K, V> {
+        final int capacity;
+        final LinkedHashMap<K, Entry<V>> map;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(16, 0.75f, true);
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long writtenAt;
+        final long version;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(V value, long writtenAt, long version) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+            this.version = version;
+        }
+    }
+
+    public record CacheStats(
+        int size,
+        int maxEntries,
+        long ttlMs,
+        long hits,
+        long misses,
+        double hitRatePercent,
+        long evictions,
+        long expirations,
+        long staleWritesRejected,
+        long refreshAheads,
+        long staleGraceMs,
+        long staleHits,
+        long staleRefreshes,
+        long loads,
+        long loadFailures,
+        double avgLoadMs
+    ) {}
+}
@@ -0,0 +1,336 @@
+package com.example.trading.service;
+
+import com.example.trading.repository.AlertRuleRepository;
+import com.example.trading.repository.PortfolioRepository;
+import com.example.trading.repository.StockRepository;
+import com.example.trading.repository.SymbolCount;
+import com.example.trading.repository.WatchlistRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Preloads the live quote cache and the in-memory history cache with the symbols users care about,
+ * so the first requests after a deploy or before the open do not all hit a cold provider chain.
+ *
+ * Symbols come from open positions, active alert rules, watchlists and the Stock table, ranked by a
+ * weighted popularity score, which is also handed to the {@link ProviderQuotaPlanner}. Quotes are
+ * fetched in Yahoo batches; history loads go through the normal fetcher (database cache and stored bars
+ * first) as background work for the planner, and stop once the run has spent its share of the
+ * remaining daily provider quota, as counted by {@link ApiUsageTracker}.
+ *
+ * Runs once when the application is ready and then on {@code app.warmup.cron} in
+ * {@code app.warmup.zone}; progress of the current or last run is available from {@link #getProgress()}.
+ */
+@Service
+public class CacheWarmupService {
+
+    private static final int HOLDER_WEIGHT = 3;
+    private static final int ALERT_WEIGHT = 2;
+    private static final int WATCHLIST_WEIGHT = 1;
+    private static final int QUOTE_CHUNK_SIZE = 50;
+    private static final int TOP_SYMBOLS_REPORTED = 10;
+
+    private final WatchlistRepository watchlists;
+    private final PortfolioRepository portfolios;
+    private final AlertRuleRepository alertRules;
+    private final StockRepository stocks;
+    private final SimpleStockPriceService priceService;
+    private final MultiProviderStockDataFetcher stockDataFetcher;
+    private final ApiUsageTracker apiUsageTracker;
+    private final ProviderQuotaPlanner quotaPlanner;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.warmup.on-startup:true}")
+    private boolean onStartup = true;
+
+    @Value("${app.warmup.cron:0 0 9 * * MON-FRI}")
+    private String cron = "0 0 9 * * MON-FRI";
+
+    @Value("${app.warmup.zone:America/New_York}")
+    private String zone = "America/New_York";
+
+    @Value("${app.warmup.max-quote-symbols:200}")
+    private int maxQuoteSymbols = 200;
+
+    @Value("${app.warmup.max-history-symbols:25}")
+    private int maxHistorySymbols = 25;
+
+    @Value("${app.warmup.history-intervals:daily}")
+    private List<String> historyIntervals = List.of("daily");
+
+    @Value("${app.warmup.history-quota-percent:20}")
+    private double historyQuotaPercent = 20;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger quotesWarmed = new AtomicInteger();
+    private final AtomicInteger historyWarmed = new AtomicInteger();
+    private final AtomicInteger historySkipped = new AtomicInteger();
+    private volatile RunState run = RunState.idle();
+    private volatile Instant nextRunAt;
+
+    public CacheWarmupService(WatchlistRepository watchlists,
+                              PortfolioRepository portfolios,
+                              AlertRuleRepository alertRules,
+                              StockRepository stocks,
+                              SimpleStockPriceService priceService,
+                              MultiProviderStockDataFetcher stockDataFetcher,
+                              ApiUsageTracker apiUsageTracker,
+                              ProviderQuotaPlanner quotaPlanner) {
+        this.watchlists = watchlists;
+        this.portfolios = portfolios;
+        this.alertRules = alertRules;
+        this.stocks = stocks;
+        this.priceService = priceService;
+        this.stockDataFetcher = stockDataFetcher;
+        this.apiUsageTracker = apiUsageTracker;
+        this.quotaPlanner = quotaPlanner;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            System.out.println("🔥 Cache warm-up disabled");
+            return;
+        }
+        if (onStartup) {
+            scheduler.execute(() -> warmUp("startup"));
+        }
+        scheduleNext();
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Run a warm-up on the calling thread. Returns false without doing anything when one is already running.
+     */
+    public boolean warmUp(String trigger) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            runWarmup(trigger);
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("❌ Cache warm-up failed: " + e.getMessage());
+            run = run.finished("FAILED", e.getMessage());
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public WarmupProgress getProgress() {
+        RunState state = run;
+        return new WarmupProgress(
+            state.status(),
+            state.trigger(),
+            state.startedAt(),
+            state.finishedAt(),
+            state.rankedSymbols(),
+            state.topSymbols(),
+            state.quotesPlanned(),
+            quotesWarmed.get(),
+            state.historyPlanned(),
+            historyWarmed.get(),
+            historySkipped.get(),
+            state.providerRequestBudget(),
+            providerRequestsUsed(state),
+            state.error(),
+            nextRunAt
+        );
+    }
+
+    /**
+     * Symbols ranked by popularity: each open position counts {@value #HOLDER_WEIGHT}, each active alert
+     * rule {@value #ALERT_WEIGHT} and each watchlist {@value #WATCHLIST_WEIGHT}; symbols that only have a
+     * Stock row score zero and come last. Ties are broken alphabetically.
+     */
+    List<RankedSymbol> rankSymbols() {
+        Map<String, Long> scores = new HashMap<>();
+        addScores(scores, portfolios.countHoldersBySymbol(), HOLDER_WEIGHT);
+        addScores(scores, alertRules.countActiveRulesBySymbol(), ALERT_WEIGHT);
+        addScores(scores, watchlists.countWatchlistsBySymbol(), WATCHLIST_WEIGHT);
+        for (String symbol : stocks.findAllSymbols()) {
+            String normalized = priceService.normalizeSymbol(symbol);
+            if (priceService.isValidSymbol(normalized)) {
+                scores.putIfAbsent(normalized, 0L);
+            }
+        }
+
+        List<RankedSymbol> ranked = new ArrayList<>(scores.size());
+        scores.forEach((symbol, score) -> ranked.add(new RankedSymbol(symbol, score)));
+        ranked.sort(Comparator.comparingLong(RankedSymbol::score).reversed().thenComparing(RankedSymbol::symbol));
+        return ranked;
+    }
+
+    private void addScores(Map<String, Long> scores, List<SymbolCount> counts, int weight) {
+        for (SymbolCount count : counts) {
+            String symbol = priceService.normalizeSymbol(count.getSymbol());
+            if (priceService.isValidSymbol(symbol) && count.getTotal() != null) {
+                scores.merge(symbol, count.getTotal() * weight, Long::sum);
+            }
+        }
+    }
+
+    private void runWarmup(String trigger) {
+        long startedNanos = System.nanoTime();
+        quotesWarmed.set(0);
+        historyWarmed.set(0);
+        historySkipped.set(0);
+        run = RunState.started(trigger);
+        List<RankedSymbol> ranked = rankSymbols();
+        Map<String, Long> scores = new HashMap<>();
+        ranked.forEach(symbol -> scores.put(symbol.symbol(), symbol.score()));
+        quotaPlanner.updatePopularity(scores);
+        List<String> quoteSymbols = ranked.stream().limit(Math.max(0, maxQuoteSymbols)).map(RankedSymbol::symbol).toList();
+        List<String> historySymbols = ranked.stream().limit(Math.max(0, maxHistorySymbols)).map(RankedSymbol::symbol).toList();
+        List<String> providers = stockDataFetcher.getConfiguredProviders();
+        long usedAtStart = dailyRequests(providers, ApiUsageTracker.ApiUsageDto::dailyRequestCount);
+        long remaining = dailyRequests(providers, usage -> Math.max(0, usage.dailyLimit() - usage.dailyRequestCount()));
+        long budget = (long) Math.floor(remaining * historyQuotaPercent / 100.0);
+
+        run = new RunState("RUNNING", trigger, run.startedAt(), null, ranked.size(),
+            quoteSymbols.stream().limit(TOP_SYMBOLS_REPORTED).toList(), quoteSymbols.size(),
+            historySymbols.size() * historyIntervals.size(), budget, providers, usedAtStart, null);
+        System.out.println("🔥 Cache warm-up (" + trigger + "): " + ranked.size() + " symbols ranked, warming "
+            + quoteSymbols.size() + " quotes and " + historySymbols.size() + " histories, provider budget " + budget + " requests");
+
+        for (int from = 0; from < quoteSymbols.size(); from += QUOTE_CHUNK_SIZE) {
+            List<String> chunk = quoteSymbols.subList(from, Math.min(from + QUOTE_CHUNK_SIZE, quoteSymbols.size()));
+            quotesWarmed.addAndGet(priceService.prefetchPrices(chunk).size());
+        }
+
+        for (String symbol : historySymbols) {
+            for (String interval : historyIntervals) {
+                if (Thread.currentThread().isInterrupted()) {
+                    run = run.finished("CANCELLED", null);
+                    return;
+                }
+                if (providerRequestsUsed(run) >= budget) {
+                    // Out of warm-up budget: what is left loads on first request as usual
+                    historySkipped.incrementAndGet();
+                    continue;
+                }
+                if (stockDataFetcher.prefetchHistory(symbol, interval)) {
+                    historyWarmed.incrementAndGet();
+                }
+            }
+        }
+
+        run = run.finished("DONE", null);
+        System.out.println("🔥 Cache warm-up done in " + Duration.ofNanos(System.nanoTime() - startedNanos).toMillis() + " ms: "
+            + quotesWarmed.get() + "/" + quoteSymbols.size() + " quotes, " + historyWarmed.get() + " histories warmed, "
+            + historySkipped.get() + " skipped, " + providerRequestsUsed(run) + " provider requests used");
+    }
+
+    private void scheduleNext() {
+        if (cron == null || cron.isBlank() || "-".equals(cron.trim())) {
+            return;
+        }
+        try {
+            ZonedDateTime next = CronExpression.parse(cron).next(ZonedDateTime.now(ZoneId.of(zone)));
+            if (next == null) {
+                return;
+            }
+            nextRunAt = next.toInstant();
+            long delayMs = Math.max(0, Duration.between(Instant.now(), nextRunAt).toMillis());
+            scheduler.schedule(() -> {
+                try {
+                    warmUp("schedule");
+                } finally {
+                    scheduleNext();
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ Invalid cache warm-up schedule '" + cron + "' (" + zone + "): " + e.getMessage());
+        }
+    }
+
+    private long providerRequestsUsed(RunState state) {
+        if (state.providers().isEmpty()) {
+            return 0;
+        }
+        // Counters reset at the provider's daily rollover, which must not look like negative usage
+        return Math.max(0, dailyRequests(state.providers(), ApiUsageTracker.ApiUsageDto::dailyRequestCount) - state.usedAtStart());
+    }
+
+    private long dailyRequests(List<String> providers, ToLongFunction<ApiUsageTracker.ApiUsageDto> field) {
+        long total = 0;
+        for (String provider : providers) {
+            total += field.applyAsLong(apiUsageTracker.getProviderMetrics(provider));
+        }
+        return total;
+    }
+
+    record RankedSymbol(String symbol, long score) {}
+
+    private record RunState(String status, String trigger, Instant startedAt, Instant finishedAt, int rankedSymbols,
+                            List<String> topSymbols, int quotesPlanned, int historyPlanned, long providerRequestBudget,
+                            List<String> providers, long usedAtStart, String error) {
+        static RunState idle() {
+            return new RunState("IDLE", null, null, null, 0, List.of(), 0, 0, 0, List.of(), 0, null);
+        }
+
+        static RunState started(String trigger) {
+            return new RunState("RUNNING", trigger, Instant.now(), null, 0, List.of(), 0, 0, 0, List.of(), 0, null);
+        }
+
+        RunState finished(String finalStatus, String failure) {
+            return new RunState(finalStatus, trigger, startedAt, Instant.now(), rankedSymbols, topSymbols, quotesPlanned,
+                historyPlanned, providerRequestBudget, providers, usedAtStart, failure);
+        }
+    }
+
+    /**
+     * @param status IDLE before the first run, RUNNING, DONE, CANCELLED or FAILED
+     * @param trigger startup or schedule
+     * @param providerRequestsUsed history provider requests spent by this run (counted across all callers while it runs)
+     */
+    public record WarmupProgress(
+        String status,
+        String trigger,
+        Instant startedAt,
+        Instant finishedAt,
+        int rankedSymbols,
+        List<String> topSymbols,
+        int quotesPlanned,
+        int quotesWarmed,
+        int historyPlanned,
+        int historyWarmed,
+        int historySkipped,
+        long providerRequestBudget,
+        long providerRequestsUsed,
+        String error,
+        Instant nextRunAt
+    ) {}
+}
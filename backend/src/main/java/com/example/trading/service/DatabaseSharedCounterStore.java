@@ -0,0 +1,111 @@
+package com.example.trading.service;
+
+import com.example.trading.model.SharedCounter;
+import com.example.trading.repository.SharedCounterRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SharedCounterStore} in the application database ({@code app.shared-counters.store=database}),
+ * i.e. the MariaDB every replica already shares. One {@code shared_counter} row per key and window;
+ * a reservation locks the row ({@code SELECT ... FOR UPDATE}) for one short transaction. Replicas
+ * reserve in leases, so this runs once per lease rather than once per request.
+ */
+@Service
+@ConditionalOnProperty(name = "app.shared-counters.store", havingValue = "database")
+public class DatabaseSharedCounterStore implements SharedCounterStore {
+
+    // Keeps the primary key within the column; longer keys (e.g. long URIs) are stored as a hash
+    private static final int MAX_PLAIN_KEY_LENGTH = 96;
+
+    private final SharedCounterRepository counters;
+
+    @Value("${app.shared-counters.purge-interval-seconds:300}")
+    private long purgeIntervalSeconds = 300;
+
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shared-counter-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DatabaseSharedCounterStore(SharedCounterRepository counters) {
+        this.counters = counters;
+    }
+
+    @PostConstruct
+    void start() {
+        purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+        System.out.println("🔗 Rate limits and provider quotas are shared through the database");
+    }
+
+    @PreDestroy
+    void stop() {
+        purger.shutdownNow();
+    }
+
+    @Override
+    @Transactional
+    public Grant acquire(String key, long window, long windowMillis, int limit, int requested, double previousWeight) {
+        String id = rowId(key, window);
+        counters.insertIfAbsent(id, (window + 2) * windowMillis);
+        SharedCounter counter = counters.findForUpdate(id).orElseThrow();
+        double previous = previousCount(key, window, previousWeight);
+        int used = counter.getUsed();
+        int granted = Math.max(0, Math.min(requested, (int) Math.floor(limit - previous) - used));
+        if (granted > 0) {
+            counter.setUsed(used + granted);
+        }
+        return new Grant(granted, (int) Math.ceil(previous) + used + granted);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int used(String key, long window, double previousWeight) {
+        int current = counters.findById(rowId(key, window)).map(SharedCounter::getUsed).orElse(0);
+        return (int) Math.ceil(previousCount(key, window, previousWeight)) + current;
+    }
+
+    void purgeExpired() {
+        try {
+            int purged = counters.deleteExpired(System.currentTimeMillis());
+            if (purged > 0) {
+                System.out.println("🧹 Purged " + purged + " expired shared counters");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Shared counter purge failed: " + e.getMessage());
+        }
+    }
+
+    private double previousCount(String key, long window, double previousWeight) {
+        if (previousWeight <= 0) {
+            return 0;
+        }
+        return counters.findById(rowId(key, window - 1)).map(SharedCounter::getUsed).orElse(0) * previousWeight;
+    }
+
+    static String rowId(String key, long window) {
+        String stored = key.length() <= MAX_PLAIN_KEY_LENGTH ? key : "sha256:" + sha256(key);
+        return stored + "@" + window;
+    }
+
+    private static String sha256(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
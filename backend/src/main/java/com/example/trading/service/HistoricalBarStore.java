@@ -0,0 +1,147 @@
+package com.example.trading.service;
+
+import com.example.trading.model.HistoricalBar;
+import com.example.trading.repository.HistoricalBarRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persistent per-bar history (symbol, interval, date -> OHLC) backing incremental refreshes.
+ */
+@Service
+public class HistoricalBarStore {
+
+    private static final String INSERT_BAR = "INSERT INTO historical_bar "
+        + "(symbol, time_interval, bar_date, open, high, low, close, provider, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private final HistoricalBarRepository bars;
+    private final JdbcTemplate jdbcTemplate;
+
+    public HistoricalBarStore(HistoricalBarRepository bars, JdbcTemplate jdbcTemplate) {
+        this.bars = bars;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<LocalDate> latestBarDate(String symbol, String interval) {
+        return bars.findLatestBarDate(symbol, interval);
+    }
+
+    /**
+     * Replace every stored bar for the key with a freshly downloaded full series.
+     * A full series runs to thousands of bars, so they are written as JDBC batch inserts rather
+     * than one IDENTITY insert per entity (Hibernate cannot batch those).
+     */
+    @Transactional
+    public void replaceAll(String symbol, String interval, HistoricalSeries series, String provider) {
+        bars.deleteBySymbolAndInterval(symbol, interval);
+        bars.flush();
+
+        // Last row wins when a provider repeats a date, as it did when bars were saved as entities
+        Map<Long, Integer> rowByDay = new LinkedHashMap<>();
+        for (int i = 0; i < series.size(); i++) {
+            rowByDay.put(series.epochDay(i), i);
+        }
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_BAR, rowByDay.values(), INSERT_BATCH_SIZE, (statement, row) -> {
+            statement.setString(1, symbol);
+            statement.setString(2, interval);
+            statement.setDate(3, Date.valueOf(LocalDate.ofEpochDay(series.epochDay(row))));
+            statement.setBigDecimal(4, BigDecimal.valueOf(series.openScaled(row), HistoricalSeries.PRICE_SCALE));
+            statement.setBigDecimal(5, BigDecimal.valueOf(series.highScaled(row), HistoricalSeries.PRICE_SCALE));
+            statement.setBigDecimal(6, BigDecimal.valueOf(series.lowScaled(row), HistoricalSeries.PRICE_SCALE));
+            statement.setBigDecimal(7, BigDecimal.valueOf(series.closeScaled(row), HistoricalSeries.PRICE_SCALE));
+            statement.setString(8, provider);
+            statement.setTimestamp(9, updatedAt);
+        });
+    }
+
+    /**
+     * Upsert bars from an incremental fetch. Existing bars in the merge window are revised in place
+     * (the last stored bar may have been captured intraday), newer ones are inserted.
+     *
+     * @return number of bars inserted or updated
+     */
+    @Transactional
+    public int merge(String symbol, String interval, HistoricalSeries incoming, String provider) {
+        if (incoming.isEmpty()) {
+            return 0;
+        }
+
+        long oldestDay = Long.MAX_VALUE;
+        for (int i = 0; i < incoming.size(); i++) {
+            oldestDay = Math.min(oldestDay, incoming.epochDay(i));
+        }
+
+        Map<LocalDate, HistoricalBar> existing = new HashMap<>();
+        for (HistoricalBar bar : bars.findBySymbolAndIntervalAndBarDateGreaterThanEqual(symbol, interval, LocalDate.ofEpochDay(oldestDay))) {
+            existing.put(bar.getBarDate(), bar);
+        }
+
+        Map<LocalDate, HistoricalBar> changed = new LinkedHashMap<>();
+        for (int i = 0; i < incoming.size(); i++) {
+            LocalDate date = LocalDate.ofEpochDay(incoming.epochDay(i));
+            HistoricalBar bar = existing.get(date);
+            if (bar == null) {
+                bar = new HistoricalBar(symbol, interval, date, provider);
+                existing.put(date, bar);
+            } else if (sameRow(bar, incoming, i)) {
+                continue;
+            }
+            bar.setProvider(provider);
+            applyRow(bar, incoming, i);
+            changed.put(date, bar);
+        }
+        bars.saveAll(changed.values());
+        return changed.size();
+    }
+
+    /**
+     * Newest-first series of up to {@code maxPoints} stored bars.
+     */
+    @Transactional(readOnly = true)
+    public HistoricalSeries load(String symbol, String interval, int maxPoints) {
+        List<HistoricalBar> rows = new ArrayList<>(bars.findBySymbolAndIntervalOrderByBarDateDesc(symbol, interval, PageRequest.of(0, maxPoints)));
+        HistoricalSeries.Builder builder = HistoricalSeries.builder(rows.size());
+        for (HistoricalBar bar : rows) {
+            builder.add(
+                bar.getBarDate().toEpochDay(),
+                HistoricalSeries.toScaled(bar.getOpen()),
+                HistoricalSeries.toScaled(bar.getHigh()),
+                HistoricalSeries.toScaled(bar.getLow()),
+                HistoricalSeries.toScaled(bar.getClose())
+            );
+        }
+        return builder.build();
+    }
+
+    private void applyRow(HistoricalBar bar, HistoricalSeries series, int index) {
+        bar.setPrices(
+            BigDecimal.valueOf(series.openScaled(index), HistoricalSeries.PRICE_SCALE),
+            BigDecimal.valueOf(series.highScaled(index), HistoricalSeries.PRICE_SCALE),
+            BigDecimal.valueOf(series.lowScaled(index), HistoricalSeries.PRICE_SCALE),
+            BigDecimal.valueOf(series.closeScaled(index), HistoricalSeries.PRICE_SCALE)
+        );
+    }
+
+    private boolean sameRow(HistoricalBar bar, HistoricalSeries series, int index) {
+        return HistoricalSeries.toScaled(bar.getOpen()) == series.openScaled(index)
+            && HistoricalSeries.toScaled(bar.getHigh()) == series.highScaled(index)
+            && HistoricalSeries.toScaled(bar.getLow()) == series.lowScaled(index)
+            && HistoricalSeries.toScaled(bar.getClose()) == series.closeScaled(index);
+    }
+}
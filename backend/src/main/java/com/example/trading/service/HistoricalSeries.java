@@ -0,0 +1,318 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable columnar OHLC series backed by primitive arrays.
+ * Dates are stored as epoch days and prices as fixed-point longs with {@link #PRICE_SCALE} decimals,
+ * so a 5000-point series costs five arrays instead of tens of thousands of String/BigDecimal objects.
+ * One instance is shared read-only between the memory cache and the chart endpoint.
+ *
+ * Serializes to the same JSON shape as a list of {@link MultiProviderStockDataFetcher.HistoricalData}.
+ */
+@JsonSerialize(using = HistoricalSeries.JsonSeriesSerializer.class)
+public final class HistoricalSeries {
+
+    public static final int PRICE_SCALE = 4;
+    private static final long PRICE_FACTOR = 10_000L;
+    private static final HistoricalSeries EMPTY = new HistoricalSeries(new long[0], new long[0], new long[0], new long[0], new long[0]);
+
+    private final long[] epochDays;
+    private final long[] open;
+    private final long[] high;
+    private final long[] low;
+    private final long[] close;
+
+    private HistoricalSeries(long[] epochDays, long[] open, long[] high, long[] low, long[] close) {
+        this.epochDays = epochDays;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+    }
+
+    public static HistoricalSeries empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * Build a series from row records (legacy JSON cache payloads), skipping unparseable rows.
+     */
+    public static HistoricalSeries fromList(List<MultiProviderStockDataFetcher.HistoricalData> rows) {
+        Builder builder = builder(rows.size());
+        for (MultiProviderStockDataFetcher.HistoricalData row : rows) {
+            builder.add(row.timestamp(), row.open(), row.high(), row.low(), row.close());
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public boolean isEmpty() {
+        return epochDays.length == 0;
+    }
+
+    public long epochDay(int index) {
+        return epochDays[index];
+    }
+
+    public String timestamp(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]).toString();
+    }
+
+    public long openScaled(int index) {
+        return open[index];
+    }
+
+    public long highScaled(int index) {
+        return high[index];
+    }
+
+    public long lowScaled(int index) {
+        return low[index];
+    }
+
+    public long closeScaled(int index) {
+        return close[index];
+    }
+
+    public double open(int index) {
+        return toDouble(open[index]);
+    }
+
+    public double high(int index) {
+        return toDouble(high[index]);
+    }
+
+    public double low(int index) {
+        return toDouble(low[index]);
+    }
+
+    public double close(int index) {
+        return toDouble(close[index]);
+    }
+
+    /**
+     * Rows dated on or after {@code epochDay}, preserving order.
+     */
+    public HistoricalSeries onOrAfter(long epochDay) {
+        Builder builder = builder(size());
+        for (int i = 0; i < size(); i++) {
+            if (epochDays[i] >= epochDay) {
+                builder.add(epochDays[i], open[i], high[i], low[i], close[i]);
+            }
+        }
+        return builder.size() == size() ? this : builder.build();
+    }
+
+    /**
+     * Approximate retained heap size: five primitive arrays plus object headers.
+     */
+    public long estimatedHeapBytes() {
+        long arrayHeaderBytes = 16L;
+        return 32L + 5 * (arrayHeaderBytes + 8L * epochDays.length);
+    }
+
+    public List<MultiProviderStockDataFetcher.HistoricalData> toList() {
+        List<MultiProviderStockDataFetcher.HistoricalData> rows = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            rows.add(new MultiProviderStockDataFetcher.HistoricalData(
+                timestamp(i),
+                BigDecimal.valueOf(open[i], PRICE_SCALE),
+                BigDecimal.valueOf(high[i], PRICE_SCALE),
+                BigDecimal.valueOf(low[i], PRICE_SCALE),
+                BigDecimal.valueOf(close[i], PRICE_SCALE)
+            ));
+        }
+        return rows;
+    }
+
+    public static long toScaled(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    public static long toScaled(double price) {
+        return Math.round(price * PRICE_FACTOR);
+    }
+
+    private static double toDouble(long scaled) {
+        return scaled / (double) PRICE_FACTOR;
+    }
+
+    /**
+     * Parse a provider timestamp ("yyyy-MM-dd", "yyyy-MM-dd HH:mm:ss" or epoch seconds/millis) to an epoch day.
+     * Returns {@link Long#MIN_VALUE} when the value cannot be parsed.
+     */
+    static long parseEpochDay(String timestamp) {
+        if (timestamp == null || timestamp.isBlank()) {
+            return Long.MIN_VALUE;
+        }
+        String value = timestamp.trim();
+        try {
+            if (value.length() >= 10 && value.charAt(4) == '-') {
+                return LocalDate.parse(value.substring(0, 10)).toEpochDay();
+            }
+            long epoch = Long.parseLong(value);
+            Instant instant = epoch > 100_000_000_000L ? Instant.ofEpochMilli(epoch) : Instant.ofEpochSecond(epoch);
+            return instant.atOffset(ZoneOffset.UTC).toLocalDate().toEpochDay();
+        } catch (RuntimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Growable column builder. Not thread-safe; {@link #build()} trims the arrays into an immutable series.
+     */
+    public static final class Builder {
+        private long[] epochDays;
+        private long[] open;
+        private long[] high;
+        private long[] low;
+        private long[] close;
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            epochDays = new long[capacity];
+            open = new long[capacity];
+            high = new long[capacity];
+            low = new long[capacity];
+            close = new long[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Builder add(long epochDay, long openScaled, long highScaled, long lowScaled, long closeScaled) {
+            if (size == epochDays.length) {
+                int capacity = size * 2;
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                open = Arrays.copyOf(open, capacity);
+                high = Arrays.copyOf(high, capacity);
+                low = Arrays.copyOf(low, capacity);
+                close = Arrays.copyOf(close, capacity);
+            }
+            epochDays[size] = epochDay;
+            open[size] = openScaled;
+            high[size] = highScaled;
+            low[size] = lowScaled;
+            close[size] = closeScaled;
+            size++;
+            return this;
+        }
+
+        /**
+         * Add a row from provider values; rows with an unparseable timestamp or missing price are skipped.
+         */
+        public Builder add(String timestamp, BigDecimal openPrice, BigDecimal highPrice, BigDecimal lowPrice, BigDecimal closePrice) {
+            long epochDay = parseEpochDay(timestamp);
+            if (epochDay == Long.MIN_VALUE || openPrice == null || highPrice == null || lowPrice == null || closePrice == null) {
+                return this;
+            }
+            return add(epochDay, toScaled(openPrice), toScaled(highPrice), toScaled(lowPrice), toScaled(closePrice));
+        }
+
+        /**
+         * Sort rows by date, newest first when {@code newestFirst} is set.
+         */
+        public Builder sortByDate(boolean newestFirst) {
+            if (isSorted(newestFirst)) {
+                return this;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> newestFirst
+                ? Long.compare(epochDays[b], epochDays[a])
+                : Long.compare(epochDays[a], epochDays[b]));
+            epochDays = permute(epochDays, order);
+            open = permute(open, order);
+            high = permute(high, order);
+            low = permute(low, order);
+            close = permute(close, order);
+            return this;
+        }
+
+        /**
+         * Keep only the first {@code maxPoints} rows.
+         */
+        public Builder limit(int maxPoints) {
+            size = Math.min(size, maxPoints);
+            return this;
+        }
+
+        public HistoricalSeries build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new HistoricalSeries(
+                Arrays.copyOf(epochDays, size),
+                Arrays.copyOf(open, size),
+                Arrays.copyOf(high, size),
+                Arrays.copyOf(low, size),
+                Arrays.copyOf(close, size)
+            );
+        }
+
+        private boolean isSorted(boolean newestFirst) {
+            for (int i = 1; i < size; i++) {
+                int cmp = Long.compare(epochDays[i - 1], epochDays[i]);
+                if (newestFirst ? cmp < 0 : cmp > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long[] permute(long[] column, Integer[] order) {
+            long[] sorted = new long[column.length];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = column[order[i]];
+            }
+            return sorted;
+        }
+    }
+
+    static final class JsonSeriesSerializer extends StdSerializer<HistoricalSeries> {
+
+        JsonSeriesSerializer() {
+            super(HistoricalSeries.class);
+        }
+
+        @Override
+        public void serialize(HistoricalSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(series, series.size());
+            for (int i = 0; i < series.size(); i++) {
+                gen.writeStartObject();
+                gen.writeStringField("timestamp", series.timestamp(i));
+                gen.writeNumberField("open", series.open(i));
+                gen.writeNumberField("high", series.high(i));
+                gen.writeNumberField("low", series.low(i));
+                gen.writeNumberField("close", series.close(i));
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
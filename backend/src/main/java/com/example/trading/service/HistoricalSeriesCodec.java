@@ -0,0 +1,216 @@
+package com.example.trading.service;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary encoding of {@link HistoricalSeries} for the StockDataCache BLOB column.
+ *
+ * Layout (format version 1):
+ * <pre>
+ *   [0]    format version byte
+ *   [1..]  deflate( varint count, then per row: zigzag varint deltas of
+ *                   epochDay, open, high, low, close against the previous row )
+ * </pre>
+ * Prices are the series' fixed-point longs, so encoding is lossless. Adjacent daily bars differ by
+ * a few cents, which keeps most deltas to one or two bytes before compression.
+ * A payload that cannot be decoded raises {@link CorruptPayloadException}; callers treat the row as a cache miss.
+ */
+final class HistoricalSeriesCodec {
+
+    static final byte FORMAT_VERSION = 1;
+    /** Far above any series the fetcher keeps; a larger count can only come from a corrupt payload. */
+    static final int MAX_ROWS = 100_000;
+    // Every row is five varints of at least one byte each
+    private static final int MIN_ROW_BYTES = 5;
+    private static final int MAX_RAW_BYTES = 10 + MAX_ROWS * MIN_ROW_BYTES * 10;
+
+    private HistoricalSeriesCodec() {}
+
+    static byte[] encode(HistoricalSeries series) {
+        int rows = series.size();
+        ByteSink raw = new ByteSink(8 + rows * 12);
+        raw.writeVarLong(rows);
+
+        long prevDay = 0, prevOpen = 0, prevHigh = 0, prevLow = 0, prevClose = 0;
+        for (int i = 0; i < rows; i++) {
+            long day = series.epochDay(i);
+            long open = series.openScaled(i);
+            long high = series.highScaled(i);
+            long low = series.lowScaled(i);
+            long close = series.closeScaled(i);
+            raw.writeZigZag(day - prevDay);
+            raw.writeZigZag(open - prevOpen);
+            raw.writeZigZag(high - prevHigh);
+            raw.writeZigZag(low - prevLow);
+            raw.writeZigZag(close - prevClose);
+            prevDay = day;
+            prevOpen = open;
+            prevHigh = high;
+            prevLow = low;
+            prevClose = close;
+        }
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw.buffer, 0, raw.size);
+            deflater.finish();
+            ByteSink out = new ByteSink(raw.size / 2 + 16);
+            out.write(FORMAT_VERSION);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static HistoricalSeries decode(byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            return HistoricalSeries.empty();
+        }
+        if (payload[0] != FORMAT_VERSION) {
+            throw new CorruptPayloadException("Unsupported history payload format version: " + payload[0]);
+        }
+
+        byte[] raw = inflate(payload);
+        ByteSource in = new ByteSource(raw);
+        long rows = in.readVarLong();
+        if (rows < 0 || rows > MAX_ROWS || rows > (long) in.remaining() / MIN_ROW_BYTES) {
+            throw new CorruptPayloadException("History payload row count " + rows + " does not fit its "
+                + in.remaining() + " bytes");
+        }
+        HistoricalSeries.Builder builder = HistoricalSeries.builder((int) rows);
+
+        long day = 0, open = 0, high = 0, low = 0, close = 0;
+        for (int i = 0; i < rows; i++) {
+            day += in.readZigZag();
+            open += in.readZigZag();
+            high += in.readZigZag();
+            low += in.readZigZag();
+            close += in.readZigZag();
+            builder.add(day, open, high, low, close);
+        }
+        return builder.build();
+    }
+
+    private static byte[] inflate(byte[] payload) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, 1, payload.length - 1);
+            ByteSink out = new ByteSink(payload.length * 3);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new CorruptPayloadException("Truncated history payload");
+                }
+                if (out.size + n > MAX_RAW_BYTES) {
+                    throw new CorruptPayloadException("History payload inflates past " + MAX_RAW_BYTES + " bytes");
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new CorruptPayloadException("Corrupt history payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class ByteSink {
+        private byte[] buffer;
+        private int size;
+
+        ByteSink(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void write(int b) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class ByteSource {
+        private final byte[] buffer;
+        private int position;
+
+        ByteSource(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= buffer.length || shift > 63) {
+                    throw new CorruptPayloadException("Malformed varint in history payload");
+                }
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+    }
+
+    /**
+     * Payload that is not a valid encoding: unknown version, corrupt or truncated deflate stream,
+     * or a row count or varint that does not fit the data.
+     */
+    static final class CorruptPayloadException extends IllegalArgumentException {
+        CorruptPayloadException(String message) {
+            super(message);
+        }
+
+        CorruptPayloadException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
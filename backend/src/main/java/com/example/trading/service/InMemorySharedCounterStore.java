@@ -0,0 +1,43 @@
+package com.example.trading.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SharedCounterStore} inside this JVM ({@code app.shared-counters.store=memory}): the embedded
+ * stand-in for tests and single-node runs that want to exercise the lease path. Windows older than
+ * the previous one are dropped as new ones are opened.
+ */
+@Service
+@ConditionalOnProperty(name = "app.shared-counters.store", havingValue = "memory")
+public class InMemorySharedCounterStore implements SharedCounterStore {
+
+    private final Map<String, Map<Long, Integer>> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public Grant acquire(String key, long window, long windowMillis, int limit, int requested, double previousWeight) {
+        Map<Long, Integer> windows = counters.computeIfAbsent(key, ignored -> new ConcurrentHashMap<>());
+        synchronized (windows) {
+            windows.keySet().removeIf(stored -> stored < window - 1);
+            double previous = windows.getOrDefault(window - 1, 0) * previousWeight;
+            int used = windows.getOrDefault(window, 0);
+            int granted = Math.max(0, Math.min(requested, (int) Math.floor(limit - previous) - used));
+            windows.put(window, used + granted);
+            return new Grant(granted, (int) Math.ceil(previous) + used + granted);
+        }
+    }
+
+    @Override
+    public int used(String key, long window, double previousWeight) {
+        Map<Long, Integer> windows = counters.get(key);
+        if (windows == null) {
+            return 0;
+        }
+        synchronized (windows) {
+            return (int) Math.ceil(windows.getOrDefault(window - 1, 0) * previousWeight) + windows.getOrDefault(window, 0);
+        }
+    }
+}
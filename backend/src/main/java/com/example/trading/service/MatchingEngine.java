@@ -0,0 +1,847 @@
+package com.example.trading.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory limit order books, one {@link OrderBook} per symbol, spread over
+ * {@code app.matching.shards} shards by symbol hash. Each shard is a sequencer: one thread takes the
+ * shard's commands in arrival order and is the only thread that touches its books, so matching needs
+ * no locks and every book sees one total order of submissions and cancels.
+ *
+ * Every submission and cancel is appended to the {@link OrderJournal} with its outcome before the
+ * caller hears back, and answered once the journal has it on disk. Each shard also snapshots its
+ * books every {@code app.journal.snapshot-every} commands, which lets the journal drop older
+ * segments. On startup the engine loads the snapshots and replays the journal after them, command by
+ * command, into the same books. The database is fed from the journal by {@link OrderProjector}.
+ *
+ * Fills reach the positions table only when projected, so the engine keeps the fills it has not seen
+ * projected yet per user and symbol: a sell is checked against the projected position plus those
+ * fills, minus what the user's resting sells already offer.
+ */
+@Service
+public class MatchingEngine {
+
+    private static final int PRICE_SCALE = 2;
+    private static final int SNAPSHOT_MAGIC = 0x4f425331;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Shard[] shards;
+    private final OrderJournal journal;
+    private final long snapshotEvery;
+    private final AtomicLong lastOrderId = new AtomicLong();
+    private final LongAdder ordersMatched = new LongAdder();
+    private final LongAdder fills = new LongAdder();
+    private final LongAdder houseFills = new LongAdder();
+    private final LongAdder cancels = new LongAdder();
+    private final LongAdder rejectedSells = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final AtomicInteger books = new AtomicInteger();
+    private final boolean recovered;
+    private final long recoveredSeq;
+    private long recoveryMs;
+    private long replayedEvents;
+    private long replayMismatches;
+
+    private volatile Consumer<OrderEvent> listener = event -> {};
+    private volatile long projectedSeq;
+    private volatile long projectionFailingSince;
+    private final AtomicLong pinIds = new AtomicLong();
+    private final Map<Long, Long> pins = new ConcurrentHashMap<>();
+
+    /**
+     * An engine that keeps nothing across restarts.
+     */
+    public MatchingEngine(int shards) {
+        this(shards, OrderJournal.inMemory(), 0);
+    }
+
+    @Autowired
+    public MatchingEngine(@Value("${app.matching.shards:0}") int shards,
+                          @Value("${app.journal.dir:}") String journalDir,
+                          @Value("${app.journal.segment-mb:64}") int segmentMb,
+                          @Value("${app.journal.snapshot-every:100000}") long snapshotEvery,
+                          @Value("${app.journal.fsync:true}") boolean fsync) {
+        this(shards, openJournal(journalDir, segmentMb, fsync), snapshotEvery);
+    }
+
+    MatchingEngine(int shards, OrderJournal journal, long snapshotEvery) {
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.journal = journal;
+        this.snapshotEvery = snapshotEvery;
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard(i);
+        }
+        if (journal.persistent()) {
+            try {
+                this.recovered = recover();
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not recover the order books", e);
+            }
+        } else {
+            this.recovered = false;
+        }
+        this.recoveredSeq = journal.lastSeq();
+        System.out.println("📒 Matching engine started with " + count + " shard(s)"
+            + (journal.persistent() ? ", journal at seq " + recoveredSeq : ", no journal"));
+    }
+
+    private static OrderJournal openJournal(String dir, int segmentMb, boolean fsync) {
+        if (dir == null || dir.isBlank()) {
+            return OrderJournal.inMemory();
+        }
+        try {
+            return OrderJournal.open(Path.of(dir), segmentMb * 1024 * 1024, fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not open the order journal in " + dir, e);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Shard shard : shards) {
+            shard.sequencer.shutdown();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.sequencer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        journal.close();
+    }
+
+    /**
+     * Id for a new order, above every id this engine or the database has seen. Only unique within this
+     * process; the application takes its ids from {@link OrderIdAllocator}.
+     */
+    public long nextOrderId() {
+        return lastOrderId.incrementAndGet();
+    }
+
+    /**
+     * Highest order id this engine has matched, recovered or been seeded with.
+     */
+    public long lastOrderId() {
+        return lastOrderId.get();
+    }
+
+    /**
+     * Make later order ids and journal sequence numbers larger than those the database already holds,
+     * e.g. after the journal directory was wiped.
+     */
+    public void seed(long orderIdFloor, long seqFloor) {
+        lastOrderId.accumulateAndGet(orderIdFloor, Math::max);
+        journal.advanceTo(seqFloor);
+    }
+
+    /**
+     * Whether the books came from a journal or snapshot rather than starting empty.
+     */
+    public boolean recovered() {
+        return recovered;
+    }
+
+    /**
+     * Sequence number of the last journal record that was there at startup.
+     */
+    public long recoveredSeq() {
+        return recoveredSeq;
+    }
+
+    /**
+     * Receive every journaled command once it is durable, in sequence order. Called on the journal's
+     * flusher thread (or the shard thread without fsync), so it must not block.
+     */
+    void onEvent(Consumer<OrderEvent> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * The database reflects every command up to {@code seq}; earlier fills stop counting as pending
+     * and snapshots may drop the journal up to there.
+     */
+    void projected(long seq) {
+        if (seq > projectedSeq) {
+            projectedSeq = seq;
+        }
+    }
+
+    /**
+     * The projection has been failing since {@code sinceMillis} (epoch millis), 0 once it is healthy
+     * again. Pending fills and the journal cannot be trimmed meanwhile, so the stall shows in the stats.
+     */
+    void projectionFailingSince(long sinceMillis) {
+        projectionFailingSince = sinceMillis;
+    }
+
+    /**
+     * Read journaled commands after {@code afterSeq} up to {@code throughSeq}, oldest first.
+     */
+    void readJournal(long afterSeq, long throughSeq, Consumer<OrderEvent> reader) {
+        journal.read(afterSeq, throughSeq, (seq, payload) -> reader.accept(OrderEvent.decode(seq, payload)));
+    }
+
+    /**
+     * Match an order against the symbol's book; a limit order's unfilled rest stays in the book.
+     *
+     * @param limitTicks     limit price in ticks (see {@link #toTicks}), or {@link OrderBook#MARKET}
+     * @param referenceTicks the house's price in ticks, or 0 when there is none
+     */
+    public CompletableFuture<MatchResult> submit(String symbol, long orderId, long userId, boolean buy,
+                                                 long limitTicks, long quantity, long referenceTicks) {
+        return submit(symbol, orderId, userId, buy, limitTicks, quantity, referenceTicks, null);
+    }
+
+    /**
+     * Like {@link #submit(String, long, long, boolean, long, long, long)}, but a sell first has to be
+     * covered by {@code holding}, the seller's projected position, plus the seller's pending fills and
+     * minus the seller's resting sells. Otherwise the future fails with an
+     * {@link IllegalArgumentException} and nothing is journaled. The holding's pin is released once the
+     * future completes.
+     */
+    public CompletableFuture<MatchResult> submit(String symbol, long orderId, long userId, boolean buy,
+                                                 long limitTicks, long quantity, long referenceTicks, Holding holding) {
+        Shard shard = shardOf(symbol);
+        CompletableFuture<MatchResult> result = new CompletableFuture<>();
+        if (holding != null && holding.pin() != 0) {
+            result.whenComplete((match, failure) -> unpin(holding.pin()));
+        }
+        try {
+            shard.execute(symbol, result, book -> submitTo(shard, book, result, symbol, orderId, userId, buy,
+                limitTicks, quantity, referenceTicks, holding));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Keep every fill projected from now on counted as pending until the pin is released, so a
+     * position read after this call and the pending fills add up exactly: a fill is either in the row
+     * read or still pending when the sell is checked. Pass the pin in the {@link Holding}.
+     */
+    public long pinPending() {
+        long pin = pinIds.incrementAndGet();
+        pins.put(pin, projectedSeq);
+        return pin;
+    }
+
+    public void unpin(long pin) {
+        pins.remove(pin);
+    }
+
+    private void submitTo(Shard shard, OrderBook book, CompletableFuture<MatchResult> result, String symbol,
+                          long orderId, long userId, boolean buy, long limitTicks, long quantity,
+                          long referenceTicks, Holding holding) {
+        if (!buy && holding != null) {
+            long available = holding.shares() + shard.pendingQuantity(userId, symbol, holding.asOfSeq())
+                - book.restingSells(userId);
+            if (quantity > available) {
+                rejectedSells.increment();
+                result.completeExceptionally(new IllegalArgumentException(
+                    "insufficient position: " + Math.max(0, available) + " " + symbol + " available to sell"));
+                return;
+            }
+        }
+        OrderBook.Fills scratch = shard.scratch;
+        long remaining = book.submit(orderId, userId, buy, limitTicks, quantity, referenceTicks, scratch);
+        List<Fill> matched = new ArrayList<>(scratch.size);
+        for (int i = 0; i < scratch.size; i++) {
+            matched.add(new Fill(scratch.makerOrderIds[i], scratch.makerUserIds[i], scratch.prices[i], scratch.quantities[i]));
+            if (scratch.makerOrderIds[i] == OrderBook.Fills.HOUSE) {
+                houseFills.increment();
+            }
+        }
+        ordersMatched.increment();
+        fills.add(scratch.size);
+        boolean rests = remaining > 0 && limitTicks != OrderBook.MARKET;
+        MatchResult match = new MatchResult(matched, remaining, rests);
+        OrderEvent event = new OrderEvent(0, OrderEvent.Kind.SUBMIT, orderId, userId, symbol, buy, limitTicks,
+            quantity, referenceTicks, matched, remaining, rests);
+        long seq = shard.journal(event, () -> result.complete(match));
+        shard.addPending(seq, event);
+    }
+
+    /**
+     * @return the quantity taken out of the book, or -1 when the user has no such order resting
+     */
+    public CompletableFuture<Long> cancel(String symbol, long orderId, long userId) {
+        Shard shard = shardOf(symbol);
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        shard.execute(symbol, result, book -> {
+            if (book.userOf(orderId) != userId) {
+                result.complete(-1L);
+                return;
+            }
+            long cancelled = book.cancel(orderId);
+            cancels.increment();
+            shard.journal(OrderEvent.cancel(orderId, userId, symbol, cancelled), () -> result.complete(cancelled));
+        });
+        return result;
+    }
+
+    /**
+     * Put an already accepted order back into its book without matching or journaling it, e.g. when
+     * restoring from the database. Restores are sequenced like any other command, so they land before
+     * later submissions; {@link #snapshot()} makes them part of the journaled state.
+     */
+    public CompletableFuture<Void> restore(String symbol, long orderId, long userId, boolean buy, long priceTicks, long quantity) {
+        lastOrderId.accumulateAndGet(orderId, Math::max);
+        Shard shard = shardOf(symbol);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        shard.execute(symbol, result, book -> {
+            book.rest(orderId, userId, buy, priceTicks, quantity);
+            result.complete(null);
+        });
+        return result;
+    }
+
+    /**
+     * Best price levels of the symbol's book; empty sides when it has no book, which is not created.
+     */
+    public CompletableFuture<BookDepth> depth(String symbol, int levels) {
+        Shard shard = shardOf(symbol);
+        CompletableFuture<BookDepth> result = new CompletableFuture<>();
+        shard.sequencer.execute(() -> {
+            OrderBook book = shard.booksBySymbol.get(symbol);
+            result.complete(book == null
+                ? new BookDepth(symbol, List.of(), List.of())
+                : new BookDepth(symbol, book.depth(true, levels), book.depth(false, levels)));
+        });
+        return result;
+    }
+
+    /**
+     * Snapshot every shard now; completes when all snapshots are written. Does nothing without a
+     * journal.
+     */
+    public CompletableFuture<Void> snapshot() {
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        for (Shard shard : shards) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            shard.sequencer.execute(() -> {
+                try {
+                    shard.writeSnapshot();
+                    done.complete(null);
+                } catch (Exception e) {
+                    done.completeExceptionally(e);
+                }
+            });
+            written.add(done);
+        }
+        return CompletableFuture.allOf(written.toArray(CompletableFuture[]::new));
+    }
+
+    public EngineStats getStats() {
+        long resting = 0;
+        for (Shard shard : shards) {
+            resting += shard.restingOrders;
+        }
+        JournalStats journalStats = journal.getStats(projectedSeq, snapshots.sum(), recoveryMs, replayedEvents, replayMismatches);
+        long failingSince = projectionFailingSince;
+        return new EngineStats(shards.length, books.get(), resting, ordersMatched.sum(), fills.sum(),
+            houseFills.sum(), cancels.sum(), rejectedSells.sum(), pins.size(),
+            failingSince == 0 ? 0 : System.currentTimeMillis() - failingSince, journalStats);
+    }
+
+    /**
+     * Price in ticks; prices finer than a tick are rounded to the nearest one.
+     */
+    public static long toTicks(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toPrice(long ticks) {
+        return BigDecimal.valueOf(ticks, PRICE_SCALE);
+    }
+
+    /**
+     * Whether {@code price} is a whole number of ticks.
+     */
+    public static boolean isTickMultiple(BigDecimal price) {
+        return price.stripTrailingZeros().scale() <= PRICE_SCALE;
+    }
+
+    private Shard shardOf(String symbol) {
+        return shards[Math.floorMod(symbol.hashCode(), shards.length)];
+    }
+
+    /**
+     * Pending fills up to here are in the database and no pinned position read can be missing them.
+     */
+    private long pruneLimit() {
+        long limit = projectedSeq;
+        for (long pinned : pins.values()) {
+            limit = Math.min(limit, pinned);
+        }
+        return limit;
+    }
+
+    private long minCoveredSeq() {
+        long min = Long.MAX_VALUE;
+        for (Shard shard : shards) {
+            min = Math.min(min, shard.coveredSeq);
+        }
+        return min;
+    }
+
+    /**
+     * Load the snapshots, replay the journal after them and hand the books to the shards, then snapshot
+     * every shard so the next start replays only what comes after this one. Runs before any command.
+     *
+     * @return whether there was anything to recover
+     */
+    private boolean recover() throws IOException {
+        long started = System.nanoTime();
+        Map<String, RecoveredBook> recoveredBooks = new HashMap<>();
+        List<Path> files = snapshotFiles();
+        long replayFrom = files.isEmpty() ? 0 : Long.MAX_VALUE;
+        for (Path file : files) {
+            replayFrom = Math.min(replayFrom, loadSnapshot(file, recoveredBooks));
+        }
+
+        OrderBook.Fills scratch = new OrderBook.Fills();
+        long[] replayed = new long[2];
+        journal.read(replayFrom, journal.lastSeq(), (seq, payload) -> {
+            OrderEvent event = OrderEvent.decode(seq, payload);
+            RecoveredBook target = recoveredBooks.computeIfAbsent(event.symbol(), ignored -> new RecoveredBook(0));
+            if (seq > target.coveredSeq) {
+                replayed[1] += replay(target, event, scratch) ? 0 : 1;
+                replayed[0]++;
+            }
+        });
+
+        int restingOrders = 0;
+        Map<Shard, List<Pending>> pendingByShard = new HashMap<>();
+        for (Map.Entry<String, RecoveredBook> entry : recoveredBooks.entrySet()) {
+            Shard shard = shardOf(entry.getKey());
+            shard.booksBySymbol.put(entry.getKey(), entry.getValue().book);
+            shard.restingOrders += entry.getValue().book.restingOrders();
+            restingOrders += entry.getValue().book.restingOrders();
+            books.incrementAndGet();
+            pendingByShard.computeIfAbsent(shard, ignored -> new ArrayList<>()).addAll(entry.getValue().pending);
+        }
+        for (Shard shard : shards) {
+            List<Pending> pending = pendingByShard.getOrDefault(shard, List.of());
+            pending.stream().sorted(Comparator.comparingLong(Pending::seq)).forEach(shard::addPending);
+            shard.writeSnapshotOrThrow();
+        }
+        for (Path file : files) {
+            if (shardIndexOf(file) >= shards.length) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        replayedEvents = replayed[0];
+        replayMismatches = replayed[1];
+        recoveryMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        if (replayMismatches > 0) {
+            System.err.println("⚠️ " + replayMismatches + " journaled orders matched differently on replay");
+        }
+        boolean found = !files.isEmpty() || journal.lastSeq() > 0;
+        if (found) {
+            System.out.println("📒 Recovered " + restingOrders + " resting orders in " + recoveredBooks.size()
+                + " books from " + files.size() + " snapshot(s) and " + replayedEvents + " journal records in " + recoveryMs + " ms");
+        }
+        return found;
+    }
+
+    /**
+     * @return whether the replay produced the journaled outcome
+     */
+    private boolean replay(RecoveredBook target, OrderEvent event, OrderBook.Fills scratch) {
+        lastOrderId.accumulateAndGet(event.orderId(), Math::max);
+        if (event.kind() == OrderEvent.Kind.CANCEL) {
+            return target.book.cancel(event.orderId()) == event.quantity();
+        }
+        long remaining = target.book.submit(event.orderId(), event.userId(), event.buy(), event.limitTicks(),
+            event.quantity(), event.referenceTicks(), scratch);
+        for (Pending pending : pendingFills(event.seq(), event)) {
+            target.pending.add(pending);
+        }
+        boolean same = remaining == event.remaining() && scratch.size == event.fills().size();
+        for (int i = 0; same && i < scratch.size; i++) {
+            Fill fill = event.fills().get(i);
+            same = fill.makerOrderId() == scratch.makerOrderIds[i] && fill.priceTicks() == scratch.prices[i]
+                && fill.quantity() == scratch.quantities[i];
+        }
+        return same;
+    }
+
+    /**
+     * @return the sequence number the snapshot covers
+     */
+    private long loadSnapshot(Path file, Map<String, RecoveredBook> recoveredBooks) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("not an order book snapshot: " + file);
+            }
+            long covered = in.readLong();
+            lastOrderId.accumulateAndGet(in.readLong(), Math::max);
+            Map<String, RecoveredBook> fromFile = new HashMap<>();
+            int bookCount = in.readInt();
+            for (int b = 0; b < bookCount; b++) {
+                RecoveredBook recoveredBook = new RecoveredBook(covered);
+                fromFile.put(in.readUTF(), recoveredBook);
+                int orders = in.readInt();
+                for (int o = 0; o < orders; o++) {
+                    recoveredBook.book.rest(in.readLong(), in.readLong(), in.readBoolean(), in.readLong(), in.readLong());
+                }
+            }
+            int pendingCount = in.readInt();
+            for (int p = 0; p < pendingCount; p++) {
+                long seq = in.readLong();
+                PositionKey key = new PositionKey(in.readLong(), in.readUTF());
+                fromFile.computeIfAbsent(key.symbol(), ignored -> new RecoveredBook(covered)).pending
+                    .add(new Pending(seq, key, in.readLong()));
+            }
+            for (Map.Entry<String, RecoveredBook> entry : fromFile.entrySet()) {
+                recoveredBooks.merge(entry.getKey(), entry.getValue(), (a, b) -> a.coveredSeq >= b.coveredSeq ? a : b);
+            }
+            return covered;
+        }
+    }
+
+    private List<Path> snapshotFiles() throws IOException {
+        try (Stream<Path> listing = Files.list(journal.dir())) {
+            return listing.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static int shardIndexOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Integer.parseInt(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    /**
+     * The position changes a submission's fills make, buyer positive and seller negative; the house
+     * has no position.
+     */
+    private static List<Pending> pendingFills(long seq, OrderEvent event) {
+        List<Pending> changes = new ArrayList<>(event.fills().size() * 2);
+        for (Fill fill : event.fills()) {
+            long taker = event.buy() ? fill.quantity() : -fill.quantity();
+            changes.add(new Pending(seq, new PositionKey(event.userId(), event.symbol()), taker));
+            if (!fill.house()) {
+                changes.add(new Pending(seq, new PositionKey(fill.makerUserId(), event.symbol()), -taker));
+            }
+        }
+        return changes;
+    }
+
+    private interface BookTask {
+        void run(OrderBook book);
+    }
+
+    private static final class RecoveredBook {
+        final long coveredSeq;
+        final OrderBook book = new OrderBook();
+        final List<Pending> pending = new ArrayList<>();
+
+        RecoveredBook(long coveredSeq) {
+            this.coveredSeq = coveredSeq;
+        }
+    }
+
+    private record PositionKey(long userId, String symbol) {}
+
+    /**
+     * A position change that is journaled but not yet projected.
+     */
+    private record Pending(long seq, PositionKey key, long quantity) {}
+
+    /**
+     * A sequencer thread and the books it owns. Fields other than the executor are only touched on
+     * that thread; {@code restingOrders} and {@code coveredSeq} are published for stats and journal
+     * truncation.
+     */
+    private final class Shard {
+        final int index;
+        final ExecutorService sequencer;
+        final Map<String, OrderBook> booksBySymbol = new HashMap<>();
+        final OrderBook.Fills scratch = new OrderBook.Fills();
+        final ArrayDeque<Pending> pendingFills = new ArrayDeque<>();
+        final Map<PositionKey, ArrayDeque<Pending>> pendingByPosition = new HashMap<>();
+        long journaledSinceSnapshot;
+        RuntimeException failure;
+        volatile long restingOrders;
+        volatile long coveredSeq;
+
+        Shard(int index) {
+            this.index = index;
+            this.sequencer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "matching-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Run {@code task} on the sequencer against the symbol's book. The task completes
+         * {@code result}; if it throws, {@code result} fails instead. A symbol's book is only kept
+         * once an order rests in it, so commands for symbols without one leave nothing behind.
+         */
+        void execute(String symbol, CompletableFuture<?> result, BookTask task) {
+            sequencer.execute(() -> {
+                if (failure != null) {
+                    result.completeExceptionally(new IllegalStateException("order book shard stopped after a journal failure", failure));
+                    return;
+                }
+                prunePending(pruneLimit());
+                OrderBook book = booksBySymbol.get(symbol);
+                boolean created = book == null;
+                if (created) {
+                    book = new OrderBook();
+                }
+                int before = book.restingOrders();
+                try {
+                    task.run(book);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+                restingOrders += book.restingOrders() - before;
+                if (created && book.restingOrders() > 0) {
+                    booksBySymbol.put(symbol, book);
+                    books.incrementAndGet();
+                }
+                if (snapshotEvery > 0 && journal.persistent() && journaledSinceSnapshot >= snapshotEvery) {
+                    try {
+                        writeSnapshot();
+                    } catch (Exception e) {
+                        System.err.println("⚠️ Order book snapshot of shard " + index + " failed: " + e.getMessage());
+                    }
+                }
+            });
+        }
+
+        /**
+         * Append {@code event} to the journal; {@code onDurable} runs once it is on disk, after the
+         * event went to the listener. A failed append stops the shard: its books already changed.
+         *
+         * @return the event's sequence number
+         */
+        long journal(OrderEvent event, Runnable onDurable) {
+            try {
+                long seq = journal.append(event.encode(), s -> {
+                    try {
+                        listener.accept(event.withSeq(s));
+                    } catch (RuntimeException e) {
+                        System.err.println("⚠️ Order event listener failed for seq " + s + ": " + e.getMessage());
+                    }
+                    onDurable.run();
+                });
+                journaledSinceSnapshot++;
+                return seq;
+            } catch (RuntimeException e) {
+                failure = e;
+                System.err.println("❌ Order journal append failed; shard " + index + " stops accepting orders: " + e.getMessage());
+                throw e;
+            }
+        }
+
+        void addPending(long seq, OrderEvent event) {
+            for (Pending pending : pendingFills(seq, event)) {
+                addPending(pending);
+            }
+        }
+
+        void addPending(Pending pending) {
+            pendingFills.add(pending);
+            pendingByPosition.computeIfAbsent(pending.key(), ignored -> new ArrayDeque<>()).add(pending);
+        }
+
+        /**
+         * Net shares of the user's pending fills in {@code symbol} journaled after {@code afterSeq}.
+         */
+        long pendingQuantity(long userId, String symbol, long afterSeq) {
+            ArrayDeque<Pending> changes = pendingByPosition.get(new PositionKey(userId, symbol));
+            if (changes == null) {
+                return 0;
+            }
+            long quantity = 0;
+            for (Pending pending : changes) {
+                if (pending.seq() > afterSeq) {
+                    quantity += pending.quantity();
+                }
+            }
+            return quantity;
+        }
+
+        private void prunePending(long projected) {
+            while (!pendingFills.isEmpty() && pendingFills.peekFirst().seq() <= projected) {
+                Pending pending = pendingFills.pollFirst();
+                ArrayDeque<Pending> changes = pendingByPosition.get(pending.key());
+                changes.pollFirst();
+                if (changes.isEmpty()) {
+                    pendingByPosition.remove(pending.key());
+                }
+            }
+        }
+
+        void writeSnapshotOrThrow() throws IOException {
+            try {
+                writeSnapshot();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted writing a snapshot", e);
+            }
+        }
+
+        /**
+         * Write this shard's books and pending fills to its snapshot file (replacing the previous one
+         * atomically), then drop the journal segments no snapshot and no projection still needs. The
+         * journal is forced first, so a snapshot never holds a command the journal could lose.
+         */
+        void writeSnapshot() throws IOException, InterruptedException {
+            if (!journal.persistent()) {
+                return;
+            }
+            long covered = journal.lastSeq();
+            journal.awaitDurable(covered);
+            Path target = journal.dir().resolve(SNAPSHOT_PREFIX + index + SNAPSHOT_SUFFIX);
+            Path temp = journal.dir().resolve(SNAPSHOT_PREFIX + index + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(covered);
+                out.writeLong(lastOrderId.get());
+                out.writeInt(booksBySymbol.size());
+                for (Map.Entry<String, OrderBook> entry : booksBySymbol.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().restingOrders());
+                    entry.getValue().forEachResting((orderId, userId, buy, price, remaining) -> {
+                        out.writeLong(orderId);
+                        out.writeLong(userId);
+                        out.writeBoolean(buy);
+                        out.writeLong(price);
+                        out.writeLong(remaining);
+                    });
+                }
+                out.writeInt(pendingFills.size());
+                for (Pending pending : pendingFills) {
+                    out.writeLong(pending.seq());
+                    out.writeLong(pending.key().userId());
+                    out.writeUTF(pending.key().symbol());
+                    out.writeLong(pending.quantity());
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            coveredSeq = covered;
+            journaledSinceSnapshot = 0;
+            snapshots.increment();
+            journal.deleteThrough(Math.min(minCoveredSeq(), projectedSeq));
+        }
+    }
+
+    /**
+     * A seller's position as last projected: {@code shares} held after every command up to
+     * {@code asOfSeq} (0 and 0 when the user never held the symbol).
+     *
+     * @param pin from {@link #pinPending()}, taken before the position was read; 0 for none
+     */
+    public record Holding(long shares, long asOfSeq, long pin) {}
+
+    /**
+     * @param makerOrderId the resting order, or {@link OrderBook.Fills#HOUSE} for a fill against the house
+     */
+    public record Fill(long makerOrderId, long makerUserId, long priceTicks, long quantity) {
+        public boolean house() {
+            return makerOrderId == OrderBook.Fills.HOUSE;
+        }
+    }
+
+    /**
+     * @param remaining quantity left unfilled
+     * @param resting whether that quantity rests in the book (limit orders) or was dropped (market orders)
+     */
+    public record MatchResult(List<Fill> fills, long remaining, boolean resting) {}
+
+    public record DepthLevel(BigDecimal price, long quantity, int orders) {}
+
+    /**
+     * Best price levels of a book, best first on each side.
+     */
+    public record BookDepth(String symbol, List<DepthLevel> bids, List<DepthLevel> asks) {}
+
+    /**
+     * @param averageGroupCommit journal records made durable per fsync
+     * @param replayMismatches   journaled orders that matched differently when replayed at startup
+     */
+    public record JournalStats(
+        boolean persistent,
+        boolean fsync,
+        long lastSeq,
+        long durableSeq,
+        long projectedSeq,
+        int segments,
+        long appended,
+        long bytesWritten,
+        long groupCommits,
+        double averageGroupCommit,
+        long snapshots,
+        long recoveryMs,
+        long replayedEvents,
+        long replayMismatches
+    ) {}
+
+    /**
+     * @param pinnedReads         sells between reading the seller's position and being checked
+     * @param projectionStalledMs how long the database projection has been failing, 0 when healthy
+     */
+    public record EngineStats(
+        int shards,
+        int books,
+        long restingOrders,
+        long ordersMatched,
+        long fills,
+        long houseFills,
+        long cancels,
+        long rejectedSells,
+        int pinnedReads,
+        long projectionStalledMs,
+        JournalStats journal
+    ) {}
+}
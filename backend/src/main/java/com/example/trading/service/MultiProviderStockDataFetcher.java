@@ -6,20 +6,39 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
  * Multi-provider stock data fetcher with intelligent caching and fallback strategy
  * Cache Tiers:
- * 1. In-Memory Cache (5 minutes) - Fastest
+ * 1. In-Memory Cache (5 minutes) - Fastest; served stale for a grace window while it is refreshed in the background
  * 2. Database Cache (60 minutes) - Persistent
+ * 3. Stored bars (historical_bar) - only bars newer than the last stored date are fetched
  * 
  * API Providers (in fallback order):
  * 1. Alpha Vantage (25 requests/day)
@@ -27,14 +46,20 @@ import java.util.function.Supplier;
  * 3. Twelve Data (800/day)
  * 4. Massive (1000/day)
  * 5. Mock Data (unlimited)
+ *
+ * With hedging enabled, a provider that has not answered within its recent percentile latency gets
+ * the next provider started alongside it; the first usable answer wins and the rest are cancelled.
+ * Every provider call goes through the shared {@link ProviderHttpClient}, bounded by its own
+ * connect/read timeouts.
  */
 @Service
-public class MultiProviderStockDataFetcher {
+public class MultiProviderStockDataFetcher implements EnvironmentAware {
     
-    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     private final StockDataCacheRepository cacheRepository;
     private final ApiUsageTracker apiUsageTracker;
+    private final HistoricalBarStore barStore;
+    private final ProviderHttpClient httpClient;
     
     @Value("${stock.api.key:demo}")
     private String alphaVantageKey;
@@ -53,22 +78,83 @@ public class MultiProviderStockDataFetcher {
 
     @Value("${app.circuit-breaker.provider.open-seconds:60}")
     private int providerOpenSeconds;
+
+    @Value("${app.history-cache.stale-grace-ms:600000}")
+    private long historyStaleGraceMs = 600_000;
+
+    @Value("${app.history.connect-timeout-ms:3000}")
+    private int defaultConnectTimeoutMs = 3_000;
+
+    @Value("${app.history.read-timeout-ms:10000}")
+    private int defaultReadTimeoutMs = 10_000;
+
+    @Value("${app.history.hedge.enabled:true}")
+    private boolean hedgeEnabled = true;
+
+    @Value("${app.history.hedge.percentile:95}")
+    private double hedgePercentile = 95;
+
+    @Value("${app.history.hedge.default-delay-ms:2000}")
+    private long hedgeDefaultDelayMs = 2_000;
+
+    @Value("${app.history.hedge.min-delay-ms:100}")
+    private long hedgeMinDelayMs = 100;
+
+    @Value("${app.history.hedge.max-quota-percent:80}")
+    private double hedgeMaxQuotaPercent = 80;
+
+    private Environment environment;
+    private ProviderQuotaPlanner quotaPlanner;
     
     // In-memory cache: 5 minutes
     private static final Map<String, MemoryCachedData> memoryCache = new ConcurrentHashMap<>();
     private static final long MEMORY_CACHE_DURATION_MS = 300000; // 5 minutes
     private static final int MAX_HISTORY_POINTS = 5000;
     private static final int MOCK_DATA_POINTS = 4000;
+    private static final long INCREMENTAL_MAX_GAP_DAYS = 120; // Alpha Vantage compact output covers ~100 trading days
+    private static final List<String> PROVIDER_ORDER = List.of("ALPHA_VANTAGE", "FINNHUB", "TWELVEDATA", "MASSIVE");
+    private static final String STORED_BARS_PROVIDER = "STORED_BARS"; // cache rows served from the bar store
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 5;
     private final Map<String, CircuitBreakerState> providerCircuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, ProviderHttpClient.Timeouts> providerTimeouts = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> providerLatencies = new ConcurrentHashMap<>();
+
+    // Single-flight loads: one loader per symbol|interval, concurrent callers wait on its future
+    private final Map<String, CompletableFuture<HistoricalSeries>> inFlightLoads = new ConcurrentHashMap<>();
+    // symbol|interval keys whose in-flight load is background work (stale refresh or prefetch)
+    private final Set<String> backgroundLoads = ConcurrentHashMap.newKeySet();
+    private final LongAdder loaderRuns = new LongAdder();
+    private final LongAdder coalescedWaiters = new LongAdder();
+    private final LongAdder loaderNanosTotal = new LongAdder();
+    private final AtomicLong loaderNanosMax = new AtomicLong();
+    private final LongAdder fullRefreshes = new LongAdder();
+    private final LongAdder incrementalRefreshes = new LongAdder();
+    private final LongAdder barsMerged = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final ThreadPoolExecutor refreshExecutor = newRefreshExecutor();
+    private final ThreadPoolExecutor providerExecutor = newProviderExecutor();
     
     @Autowired
     public MultiProviderStockDataFetcher(StockDataCacheRepository cacheRepository, 
-                                         ApiUsageTracker apiUsageTracker) {
+                                         ApiUsageTracker apiUsageTracker,
+                                         HistoricalBarStore barStore,
+                                         ProviderHttpClient httpClient) {
         this.cacheRepository = cacheRepository;
         this.apiUsageTracker = apiUsageTracker;
-        this.restTemplate = new RestTemplate();
+        this.barStore = barStore;
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
+
+    MultiProviderStockDataFetcher(StockDataCacheRepository cacheRepository,
+                                  ApiUsageTracker apiUsageTracker,
+                                  HistoricalBarStore barStore) {
+        this(cacheRepository, apiUsageTracker, barStore, new ProviderHttpClient());
+    }
     
     @PostConstruct
     public void init() {
@@ -76,12 +162,15 @@ public class MultiProviderStockDataFetcher {
         System.out.println("Cache Strategy:");
         System.out.println("  1. In-Memory Cache (5 min)");
         System.out.println("  2. Database Cache (60 min)");
+        System.out.println("  3. Stored Bars (incremental refresh)");
         System.out.println("\nAPI Providers:");
         System.out.println("  1️⃣  Alpha Vantage - " + (alphaVantageKey != null && !alphaVantageKey.isEmpty() ? "✓ Configured" : "✗ Not configured"));
         System.out.println("  2️⃣  Finnhub - " + (finnhubKey != null && !finnhubKey.isEmpty() ? "✓ Configured" : "✗ Not configured"));
         System.out.println("  3️⃣  Twelve Data - " + (twelveDataKey != null && !twelveDataKey.isEmpty() ? "✓ Configured" : "✗ Not configured"));
         System.out.println("  4️⃣  Massive - " + (massiveKey != null && !massiveKey.isEmpty() ? "✓ Configured" : "✗ Not configured"));
         System.out.println("  5️⃣  Mock Data (Fallback) - ✓ Always Available");
+        System.out.println("Hedging: " + (hedgeEnabled ? "p" + (int) hedgePercentile + " latency (default " + hedgeDefaultDelayMs + " ms)" : "off")
+            + ", timeouts " + defaultConnectTimeoutMs + "/" + defaultReadTimeoutMs + " ms connect/read");
         providerCircuitBreakers.put("ALPHA_VANTAGE", new CircuitBreakerState());
         providerCircuitBreakers.put("FINNHUB", new CircuitBreakerState());
         providerCircuitBreakers.put("TWELVEDATA", new CircuitBreakerState());
@@ -89,79 +178,202 @@ public class MultiProviderStockDataFetcher {
         System.out.println("=====================================================\n");
     }
     
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
     /**
-     * Main method to get historical data with intelligent caching
+     * With a planner, providers are called only when today's quota plan admits the request's priority,
+     * in order of planned headroom; without one they are tried in fixed fallback order.
      */
-    public List<HistoricalData> getHistoricalData(String symbol, String interval) {
-        try {
-            String cacheKey = symbol + "|" + interval;
-            
-            // Step 1: Check in-memory cache (5 minutes)
-            MemoryCachedData memCached = memoryCache.get(cacheKey);
-            if (memCached != null && !memCached.isExpired()) {
+    @Autowired(required = false)
+    public void setQuotaPlanner(ProviderQuotaPlanner quotaPlanner) {
+        this.quotaPlanner = quotaPlanner;
+    }
+
+    @PreDestroy
+    void stopExecutors() {
+        refreshExecutor.shutdownNow();
+        providerExecutor.shutdownNow();
+    }
+
+    /**
+     * Main method to get historical data with intelligent caching.
+     * The returned series is immutable and shared with the memory cache; callers must not expect a copy.
+     */
+    public HistoricalSeries getHistoricalData(String symbol, String interval) {
+        return getHistory(symbol, interval).series();
+    }
+
+    /**
+     * Historical data together with how old the served copy is.
+     * A memory entry up to {@code app.history-cache.stale-grace-ms} past its TTL is returned at once and
+     * reloaded on the refresh executor; beyond that the caller loads it. Either way concurrent loads for
+     * the same symbol|interval are coalesced onto a single loader.
+     */
+    public CachedHistory getHistory(String symbol, String interval) {
+        String cacheKey = symbol + "|" + interval;
+
+        // Step 1: Check in-memory cache (5 minutes, then the stale grace window)
+        MemoryCachedData memCached = memoryCache.get(cacheKey);
+        if (memCached != null) {
+            long ageMs = memCached.ageMs();
+            if (ageMs <= MEMORY_CACHE_DURATION_MS) {
                 System.out.println("✓ Cache HIT (Memory | 5min) for " + symbol);
-                return new ArrayList<>(memCached.data());
+                return new CachedHistory(memCached.series(), ageMs, false);
+            }
+            if (ageMs <= MEMORY_CACHE_DURATION_MS + historyStaleGraceMs) {
+                staleServed.increment();
+                System.out.println("↻ Cache STALE (Memory | " + ageMs / 1000 + "s old) for " + symbol + " - refreshing in background");
+                refreshInBackground(symbol, interval, cacheKey, memCached.series());
+                return new CachedHistory(memCached.series(), ageMs, true);
+            }
+        }
+
+        CompletableFuture<HistoricalSeries> load = new CompletableFuture<>();
+        CompletableFuture<HistoricalSeries> inFlight = inFlightLoads.putIfAbsent(cacheKey, load);
+        if (inFlight != null) {
+            coalescedWaiters.increment();
+            System.out.println("⏳ Coalesced onto in-flight load for " + symbol);
+            try {
+                return new CachedHistory(inFlight.join(), 0L, false);
+            } catch (CompletionException e) {
+                System.err.println("Error fetching data for " + symbol + ": " + e.getMessage());
+                return new CachedHistory(getMockData(symbol), 0L, false);
             }
+        }
+
+        // A loader that finished between the memory check and registration may have filled the cache
+        memCached = memoryCache.get(cacheKey);
+        if (memCached != null && !memCached.isExpired()) {
+            inFlightLoads.remove(cacheKey, load);
+            load.complete(memCached.series());
+            return new CachedHistory(memCached.series(), memCached.ageMs(), false);
+        }
+        return new CachedHistory(runLoader(symbol, interval, cacheKey, load), 0L, false);
+    }
+
+    /**
+     * Load history into the memory cache ahead of demand (cache warm-up) on the calling thread. The
+     * quota planner treats it as background work, so it only spends quota the plan has to spare.
+     * Returns true when a current entry is cached afterwards; false when another load was already in
+     * flight or nothing could be loaded.
+     */
+    public boolean prefetchHistory(String symbol, String interval) {
+        String cacheKey = symbol + "|" + interval;
+        MemoryCachedData cached = memoryCache.get(cacheKey);
+        if (cached != null && !cached.isExpired()) {
+            return true;
+        }
+        CompletableFuture<HistoricalSeries> load = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(cacheKey, load) != null) {
+            return false;
+        }
+        backgroundLoads.add(cacheKey);
+        try {
+            runLoader(symbol, interval, cacheKey, load);
+        } catch (RuntimeException e) {
+            System.err.println("❌ History prefetch failed for " + symbol + ": " + e.getMessage());
+        } finally {
+            backgroundLoads.remove(cacheKey);
+        }
+        MemoryCachedData loaded = memoryCache.get(cacheKey);
+        return loaded != null && !loaded.isExpired();
+    }
+
+    /**
+     * Start a background reload unless one is already in flight. When the refresh executor is
+     * saturated the stale series keeps being served and the next hit tries again.
+     */
+    private void refreshInBackground(String symbol, String interval, String cacheKey, HistoricalSeries stale) {
+        CompletableFuture<HistoricalSeries> load = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(cacheKey, load) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                backgroundLoads.add(cacheKey);
+                try {
+                    runLoader(symbol, interval, cacheKey, load);
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Background history refresh failed for " + symbol + ": " + e.getMessage());
+                } finally {
+                    backgroundLoads.remove(cacheKey);
+                }
+            });
+            backgroundRefreshes.increment();
+        } catch (RejectedExecutionException e) {
+            inFlightLoads.remove(cacheKey, load);
+            load.complete(stale);
+        }
+    }
+
+    /**
+     * Run the loader for a load registered in {@code inFlightLoads} and release its waiters.
+     */
+    private HistoricalSeries runLoader(String symbol, String interval, String cacheKey, CompletableFuture<HistoricalSeries> load) {
+        try {
+            long startedAt = System.nanoTime();
+            HistoricalSeries data = loadHistoricalData(symbol, interval);
+            recordLoaderRun(System.nanoTime() - startedAt);
+            load.complete(data);
+            return data;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(cacheKey, load);
+        }
+    }
+
+    /**
+     * Load historical data from the database cache or the provider chain.
+     * Runs at most once at a time per symbol|interval.
+     */
+    protected HistoricalSeries loadHistoricalData(String symbol, String interval) {
+        try {
+            String cacheKey = symbol + "|" + interval;
             
             // Step 2: Check database cache (60 minutes)
             Optional<StockDataCache> dbCached = cacheRepository.findValidCache(symbol, interval);
-            if (dbCached.isPresent()) {
+            HistoricalSeries dbData = dbCached.map(this::readCachedSeries).orElse(null);
+            if (dbData != null) {
                 System.out.println("✓ Cache HIT (Database | 60min) for " + symbol + " from provider: " + dbCached.get().getProvider());
-                List<HistoricalData> data = parseJsonData(dbCached.get().getData());
                 // Update in-memory cache
-                memoryCache.put(cacheKey, new MemoryCachedData(data));
-                return data;
-            }
-            
-            System.out.println("⓪ Cache MISS for " + symbol + " - Fetching from API providers");
-            
-            // Step 3: Try API providers in order
-            List<HistoricalData> data = fetchWithCircuitBreaker(
-                "ALPHA_VANTAGE",
-                interval,
-                () -> tryAlphaVantage(symbol, interval)
-            );
-            if (isUsableData(data, interval)) {
-                cacheData(symbol, interval, data, "ALPHA_VANTAGE");
-                System.out.println("✓ Fetched " + data.size() + " records for " + symbol + " from Alpha Vantage");
-                return data;
+                memoryCache.put(cacheKey, new MemoryCachedData(dbData));
+                return dbData;
             }
             
-            data = fetchWithCircuitBreaker(
-                "FINNHUB",
-                interval,
-                () -> tryFinnhub(symbol, interval)
-            );
-            if (isUsableData(data, interval)) {
-                cacheData(symbol, interval, data, "FINNHUB");
-                System.out.println("✓ Fetched " + data.size() + " records for " + symbol + " from Finnhub");
-                return data;
+            // Step 3: Stored bars are fresh enough - only ask providers for bars after the last stored date
+            Optional<LocalDate> lastBarDate = barStore.latestBarDate(symbol, interval);
+            if (lastBarDate.isPresent() && isIncrementalWindow(lastBarDate.get(), interval)) {
+                System.out.println("⓪ Cache MISS for " + symbol + " - Incremental refresh since " + lastBarDate.get());
+                HistoricalSeries merged = refreshIncrementally(symbol, interval, lastBarDate.get());
+                if (merged != null) {
+                    return merged;
+                }
             }
+
+            System.out.println("⓪ Cache MISS for " + symbol + " - Fetching from API providers");
             
-            data = fetchWithCircuitBreaker(
-                "TWELVEDATA",
-                interval,
-                () -> tryTwelveData(symbol, interval)
-            );
-            if (isUsableData(data, interval)) {
-                cacheData(symbol, interval, data, "TWELVEDATA");
-                System.out.println("✓ Fetched " + data.size() + " records for " + symbol + " from Twelve Data");
-                return data;
+            // Step 4: Try API providers in order for the full series
+            ProviderFetch fetched = fetchFromProviders(symbol, interval, null);
+            if (fetched != null) {
+                fullRefreshes.increment();
+                persistBars(() -> barStore.replaceAll(symbol, interval, fetched.series(), fetched.provider()));
+                cacheData(symbol, interval, fetched.series(), fetched.provider());
+                return fetched.series();
             }
-            
-            data = fetchWithCircuitBreaker(
-                "MASSIVE",
-                interval,
-                () -> tryMassive(symbol, interval)
-            );
-            if (isUsableData(data, interval)) {
-                cacheData(symbol, interval, data, "MASSIVE");
-                System.out.println("✓ Fetched " + data.size() + " records for " + symbol + " from Massive");
-                return data;
+
+            MemoryCachedData served = memoryCache.get(cacheKey);
+            if (served != null && backgroundLoads.contains(cacheKey)) {
+                // A background refresh that got nothing keeps the entry it was refreshing
+                return served.series();
             }
             
             System.out.println("⚠ All API providers exhausted, falling back to mock data for " + symbol);
-            data = getMockData(symbol);
+            HistoricalSeries data = getMockData(symbol);
             // Don't cache mock data to force re-attempt next time
             return data;
             
@@ -171,15 +383,262 @@ public class MultiProviderStockDataFetcher {
         }
     }
     
+    /**
+     * Fetch only bars on or after the last stored bar, merge them into the bar store and
+     * rebuild the served series from it. When no provider answers, the stored bars are served
+     * and cached as-is rather than spending quota on a full download. Returns null only if storage
+     * fails or holds no bars.
+     */
+    private HistoricalSeries refreshIncrementally(String symbol, String interval, LocalDate lastBarDate) {
+        ProviderFetch fetched = fetchFromProviders(symbol, interval, lastBarDate);
+        if (fetched == null) {
+            try {
+                HistoricalSeries stored = barStore.load(symbol, interval, MAX_HISTORY_POINTS);
+                if (stored.isEmpty()) {
+                    return null;
+                }
+                System.out.println("⚠ No provider returned new bars for " + symbol + " - serving " + stored.size() + " stored bars");
+                // Cached with the normal TTL so the next miss does not go back to the providers straight away
+                cacheData(symbol, interval, stored, STORED_BARS_PROVIDER);
+                return stored;
+            } catch (Exception e) {
+                System.err.println("❌ Error reading history bars: " + e.getMessage());
+                return null;
+            }
+        }
+
+        int[] written = new int[1];
+        if (!persistBars(() -> written[0] = barStore.merge(symbol, interval, fetched.series(), fetched.provider()))) {
+            return null;
+        }
+        incrementalRefreshes.increment();
+        barsMerged.add(written[0]);
+
+        HistoricalSeries merged = barStore.load(symbol, interval, MAX_HISTORY_POINTS);
+        System.out.println("✓ Merged " + written[0] + " new/revised bars for " + symbol + " (" + merged.size() + " total)");
+        cacheData(symbol, interval, merged, fetched.provider());
+        return merged;
+    }
+
+    /**
+     * Try each provider in fallback order. With {@code since} set, providers are asked for the
+     * smallest window they support and the result is trimmed to bars on or after that date.
+     */
+    private ProviderFetch fetchFromProviders(String symbol, String interval, LocalDate since) {
+        List<String> candidates = plannedProviders(symbol, interval, since);
+        if (hedgeEnabled) {
+            return fetchHedged(candidates, symbol, interval, since);
+        }
+        for (String provider : candidates) {
+            ProviderFetch fetched = attemptProvider(provider, symbol, interval, since);
+            if (fetched != null) {
+                return fetched;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Configured providers for this request, in the order to try them. With a quota planner the
+     * request's priority comes from what would be served without it: a background refresh keeps
+     * serving the cached entry, an incremental refresh can serve stored bars, and a full load has
+     * nothing but mock data. A background refresh no provider admits is parked with the planner.
+     */
+    private List<String> plannedProviders(String symbol, String interval, LocalDate since) {
+        List<String> configured = PROVIDER_ORDER.stream()
+            .filter(provider -> isProviderConfigured(provider) && supportsInterval(provider, interval))
+            .toList();
+        if (quotaPlanner == null || configured.isEmpty()) {
+            return configured;
+        }
+        String cacheKey = symbol + "|" + interval;
+        boolean background = backgroundLoads.contains(cacheKey);
+        ProviderQuotaPlanner.Need need = background ? ProviderQuotaPlanner.Need.REFRESH
+            : since != null ? ProviderQuotaPlanner.Need.STALE : ProviderQuotaPlanner.Need.MISSING;
+        ProviderQuotaPlanner.Priority priority = quotaPlanner.priorityFor(symbol, need);
+        List<String> planned = quotaPlanner.route(configured, priority);
+        if (planned.isEmpty()) {
+            System.out.println("⏸ No provider budget for " + priority + " " + need + " of " + symbol + " " + interval);
+            if (background) {
+                quotaPlanner.defer(cacheKey, priority, configured, () -> {
+                    MemoryCachedData served = memoryCache.get(cacheKey);
+                    if (served != null) {
+                        refreshInBackground(symbol, interval, cacheKey, served.series());
+                    }
+                });
+            }
+        }
+        return planned;
+    }
+
+    /**
+     * Fallback order with hedging: while the latest provider started is slower than its recent
+     * percentile latency, the next one is started in parallel, unless its daily quota is nearly spent.
+     * When every running provider has failed the next one starts immediately, as in sequential mode.
+     * The first usable answer wins; the others are cancelled and their results discarded.
+     */
+    private ProviderFetch fetchHedged(List<String> candidates, String symbol, String interval, LocalDate since) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        ExecutorCompletionService<ProviderFetch> completion = new ExecutorCompletionService<>(providerExecutor);
+        List<Future<ProviderFetch>> running = new ArrayList<>();
+        Set<String> hedges = new HashSet<>();
+        int next = 0;
+        String lastStarted = candidates.get(next++);
+        running.add(submitAttempt(completion, lastStarted, symbol, interval, since));
+        try {
+            while (!running.isEmpty()) {
+                Future<ProviderFetch> done;
+                if (next < candidates.size() && hasHedgeQuota(candidates.get(next))) {
+                    done = completion.poll(hedgeDelayMs(lastStarted), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        lastStarted = candidates.get(next++);
+                        hedges.add(lastStarted);
+                        hedgedRequests.increment();
+                        System.out.println("⇉ Hedging history request for " + symbol + " with " + lastStarted);
+                        running.add(submitAttempt(completion, lastStarted, symbol, interval, since));
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+
+                running.remove(done);
+                ProviderFetch fetched = attemptResult(done);
+                if (fetched != null) {
+                    if (hedges.contains(fetched.provider())) {
+                        hedgeWins.increment();
+                    }
+                    return fetched;
+                }
+                if (running.isEmpty() && next < candidates.size()) {
+                    lastStarted = candidates.get(next++);
+                    running.add(submitAttempt(completion, lastStarted, symbol, interval, since));
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            running.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    private Future<ProviderFetch> submitAttempt(ExecutorCompletionService<ProviderFetch> completion, String provider,
+                                                String symbol, String interval, LocalDate since) {
+        return completion.submit(() -> attemptProvider(provider, symbol, interval, since));
+    }
+
+    private ProviderFetch attemptResult(Future<ProviderFetch> attempt) {
+        try {
+            return attempt.get();
+        } catch (ExecutionException e) {
+            System.err.println("❌ Provider attempt failed: " + e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * One provider through its circuit breaker; null unless it returned usable data.
+     */
+    private ProviderFetch attemptProvider(String provider, String symbol, String interval, LocalDate since) {
+        HistoricalSeries data = fetchWithCircuitBreaker(
+            provider,
+            interval,
+            () -> fetchFromProvider(provider, symbol, interval, since)
+        );
+        if (since != null) {
+            data = data.onOrAfter(since.toEpochDay());
+        }
+        if (since != null ? !data.isEmpty() : isUsableData(data, interval)) {
+            System.out.println("✓ Fetched " + data.size() + " records for " + symbol + " from " + provider);
+            return new ProviderFetch(provider, data);
+        }
+        return null;
+    }
+
+    protected HistoricalSeries fetchFromProvider(String provider, String symbol, String interval, LocalDate since) {
+        return switch (provider) {
+            case "ALPHA_VANTAGE" -> tryAlphaVantage(symbol, interval, since);
+            case "FINNHUB" -> tryFinnhub(symbol, interval);
+            case "TWELVEDATA" -> tryTwelveData(symbol, interval, since);
+            case "MASSIVE" -> tryMassive(symbol, interval, since);
+            default -> HistoricalSeries.empty();
+        };
+    }
+
+    /**
+     * How long to give {@code provider} before hedging: its recent percentile latency, or the
+     * configured default until enough successful calls have been seen.
+     */
+    private long hedgeDelayMs(String provider) {
+        LatencyWindow window = providerLatencies.get(provider);
+        long delay = window == null ? -1 : window.percentileMs(hedgePercentile, MIN_LATENCY_SAMPLES);
+        return Math.max(hedgeMinDelayMs, delay < 0 ? hedgeDefaultDelayMs : delay);
+    }
+
+    private boolean hasHedgeQuota(String provider) {
+        return apiUsageTracker.getProviderMetrics(provider).dailyUsagePercent() < hedgeMaxQuotaPercent;
+    }
+
+    /**
+     * GET through the shared provider client with this provider's timeouts.
+     */
+    private String fetchBody(String provider, String url) throws IOException {
+        return httpClient.get(provider, url, timeoutsFor(provider));
+    }
+
+    /**
+     * Per-provider connect/read timeouts, from {@code app.history.providers.<provider>.connect-timeout-ms}
+     * / {@code .read-timeout-ms}, falling back to {@code app.history.connect-timeout-ms} /
+     * {@code app.history.read-timeout-ms}.
+     */
+    private ProviderHttpClient.Timeouts timeoutsFor(String provider) {
+        return providerTimeouts.computeIfAbsent(provider, name -> {
+            String prefix = "app.history.providers." + name.toLowerCase(Locale.ROOT).replace('_', '-') + ".";
+            return new ProviderHttpClient.Timeouts(
+                Duration.ofMillis(timeoutProperty(prefix + "connect-timeout-ms", defaultConnectTimeoutMs)),
+                Duration.ofMillis(timeoutProperty(prefix + "read-timeout-ms", defaultReadTimeoutMs))
+            );
+        });
+    }
+
+    private int timeoutProperty(String key, int defaultMs) {
+        return environment == null ? defaultMs : environment.getProperty(key, Integer.class, defaultMs);
+    }
+
+    private boolean isIncrementalWindow(LocalDate lastBarDate, String interval) {
+        if (!"daily".equals(interval)) {
+            return true;
+        }
+        return ChronoUnit.DAYS.between(lastBarDate, LocalDate.now()) <= INCREMENTAL_MAX_GAP_DAYS;
+    }
+
+    private boolean persistBars(Runnable write) {
+        try {
+            write.run();
+            return true;
+        } catch (Exception e) {
+            System.err.println("❌ Error persisting history bars: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Cache data in both database and memory
      */
-    private void cacheData(String symbol, String interval, List<HistoricalData> data, String provider) {
+    private void cacheData(String symbol, String interval, HistoricalSeries data, String provider) {
         try {
-            String jsonData = objectMapper.writeValueAsString(data);
+            byte[] payload = HistoricalSeriesCodec.encode(data);
             
             // Save to database (60-minute TTL handled by StockDataCache entity)
-            StockDataCache cache = new StockDataCache(symbol, interval, jsonData, provider);
+            StockDataCache cache = new StockDataCache(symbol, interval, payload, provider);
             cacheRepository.save(cache);
             
             // Save to memory (5-minute TTL)
@@ -193,33 +652,65 @@ public class MultiProviderStockDataFetcher {
     }
     
     /**
-     * Parse JSON string back to HistoricalData list
+     * Decode a database cache row. Legacy JSON rows are converted to the binary payload on first read.
+     * Returns null for a payload that cannot be decoded; the row is dropped and the read is a cache miss.
+     */
+    HistoricalSeries readCachedSeries(StockDataCache cached) {
+        if (cached.getPayload() != null) {
+            try {
+                return HistoricalSeriesCodec.decode(cached.getPayload());
+            } catch (HistoricalSeriesCodec.CorruptPayloadException e) {
+                System.err.println("❌ Dropping undecodable cached payload for " + cached.getSymbol() + ": " + e.getMessage());
+                try {
+                    cacheRepository.delete(cached);
+                } catch (Exception deleteFailure) {
+                    System.err.println("❌ Error deleting cached payload: " + deleteFailure.getMessage());
+                }
+                return null;
+            }
+        }
+
+        HistoricalSeries series = parseJsonData(cached.getData());
+        if (!series.isEmpty()) {
+            try {
+                cached.setPayload(HistoricalSeriesCodec.encode(series));
+                cached.setData(null);
+                cacheRepository.save(cached);
+            } catch (Exception e) {
+                System.err.println("❌ Error migrating cached JSON to binary: " + e.getMessage());
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Parse legacy JSON string back to a columnar series
      */
-    private List<HistoricalData> parseJsonData(String json) {
+    private HistoricalSeries parseJsonData(String json) {
         try {
-            return Arrays.asList(objectMapper.readValue(json, HistoricalData[].class));
+            return HistoricalSeries.fromList(Arrays.asList(objectMapper.readValue(json, HistoricalData[].class)));
         } catch (Exception e) {
             System.err.println("❌ Error parsing cached JSON: " + e.getMessage());
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
     }
     
     /**
      * Try Alpha Vantage API
      */
-    private List<HistoricalData> tryAlphaVantage(String symbol, String interval) {
+    private HistoricalSeries tryAlphaVantage(String symbol, String interval, LocalDate since) {
         if (alphaVantageKey == null || alphaVantageKey.isEmpty()) {
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         if (!apiUsageTracker.canMakeRequest("ALPHA_VANTAGE")) {
             System.out.println("⚠ Alpha Vantage minute limit reached");
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
 
         if (!apiUsageTracker.recordRequest("ALPHA_VANTAGE")) {
             System.out.println("⚠ Alpha Vantage daily limit reached");
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         try {
@@ -238,44 +729,45 @@ public class MultiProviderStockDataFetcher {
                 function, symbol, alphaVantageKey);
 
             if ("TIME_SERIES_DAILY".equals(function)) {
+                // compact = latest 100 bars, enough to cover an incremental refresh window
                 url = String.format(
-                    "https://www.alphavantage.co/query?function=%s&symbol=%s&outputsize=full&apikey=%s",
-                    function, symbol, alphaVantageKey
+                    "https://www.alphavantage.co/query?function=%s&symbol=%s&outputsize=%s&apikey=%s",
+                    function, symbol, since == null ? "full" : "compact", alphaVantageKey
                 );
             }
             
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+            ProviderSeriesParser.Result parsed = httpClient.get("ALPHA_VANTAGE", url, timeoutsFor("ALPHA_VANTAGE"),
+                body -> ProviderSeriesParser.alphaVantage(body, MAX_HISTORY_POINTS));
             
             // Check for rate limit or errors
-            if (root.has("Information") || root.has("Note") || root.has("Error Message")) {
+            if (parsed.error() != null) {
                 System.out.println("⚠ Alpha Vantage rate limit or error detected");
-                return new ArrayList<>();
+                return HistoricalSeries.empty();
             }
             
-            return parseAlphaVantageData(root);
+            return parsed.series();
             
         } catch (Exception e) {
             System.err.println("❌ Alpha Vantage failed: " + e.getMessage());
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
     }
     
     /**
      * Try Finnhub API
      */
-    private List<HistoricalData> tryFinnhub(String symbol, String interval) {
+    private HistoricalSeries tryFinnhub(String symbol, String interval) {
         if (finnhubKey == null || finnhubKey.isEmpty()) {
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
 
         if (!"daily".equals(interval)) {
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         if (!apiUsageTracker.recordRequest("FINNHUB")) {
             System.out.println("⚠ Finnhub daily limit reached");
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         try {
@@ -284,33 +776,33 @@ public class MultiProviderStockDataFetcher {
                 symbol, finnhubKey
             );
             
-            String response = restTemplate.getForObject(url, String.class);
+            String response = fetchBody("FINNHUB", url);
             JsonNode root = objectMapper.readTree(response);
             
             if (root.has("error")) {
                 System.out.println("❌ Finnhub Error: " + root.get("error").asText());
-                return new ArrayList<>();
+                return HistoricalSeries.empty();
             }
             
             return parseFinnhubData(root, symbol);
             
         } catch (Exception e) {
             System.err.println("❌ Finnhub failed: " + e.getMessage());
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
     }
     
     /**
      * Try Twelve Data API
      */
-    private List<HistoricalData> tryTwelveData(String symbol, String interval) {
+    private HistoricalSeries tryTwelveData(String symbol, String interval, LocalDate since) {
         if (twelveDataKey == null || twelveDataKey.isEmpty()) {
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         if (!apiUsageTracker.recordRequest("TWELVEDATA")) {
             System.out.println("⚠ Twelve Data daily limit reached");
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         try {
@@ -328,34 +820,37 @@ public class MultiProviderStockDataFetcher {
                 "https://api.twelvedata.com/time_series?symbol=%s&interval=%s&outputsize=%d&apikey=%s",
                 symbol, tdInterval, outputSize, twelveDataKey
             );
+            if (since != null) {
+                url += "&start_date=" + since;
+            }
             
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+            ProviderSeriesParser.Result parsed = httpClient.get("TWELVEDATA", url, timeoutsFor("TWELVEDATA"),
+                body -> ProviderSeriesParser.twelveData(body, MAX_HISTORY_POINTS));
             
-            if (root.has("status") && root.get("status").asText().equals("error")) {
-                System.out.println("❌ Twelve Data Error: " + root.get("message").asText());
-                return new ArrayList<>();
+            if (parsed.error() != null) {
+                System.out.println("❌ Twelve Data Error: " + parsed.error());
+                return HistoricalSeries.empty();
             }
             
-            return parseTwelveDataResponse(root);
+            return parsed.series();
             
         } catch (Exception e) {
             System.err.println("❌ Twelve Data failed: " + e.getMessage());
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
     }
     
     /**
      * Try Massive API (new provider)
      */
-    private List<HistoricalData> tryMassive(String symbol, String interval) {
+    private HistoricalSeries tryMassive(String symbol, String interval, LocalDate since) {
         if (massiveKey == null || massiveKey.isEmpty()) {
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         if (!apiUsageTracker.recordRequest("MASSIVE")) {
             System.out.println("⚠ Massive daily limit reached");
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
         
         try {
@@ -364,53 +859,27 @@ public class MultiProviderStockDataFetcher {
                 "https://api.massive.com/v1/historical?symbol=%s&interval=%s&key=%s",
                 symbol, interval, massiveKey
             );
+            if (since != null) {
+                url += "&from=" + since;
+            }
             
-            String response = restTemplate.getForObject(url, String.class);
+            String response = fetchBody("MASSIVE", url);
             JsonNode root = objectMapper.readTree(response);
             
             if (root.has("error")) {
                 System.out.println("❌ Massive Error: " + root.get("error").asText());
-                return new ArrayList<>();
+                return HistoricalSeries.empty();
             }
             
             return parseMassiveResponse(root);
             
         } catch (Exception e) {
             System.err.println("❌ Massive failed: " + e.getMessage());
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
     }
     
-    /**
-     * Parse Alpha Vantage response
-     */
-    private List<HistoricalData> parseAlphaVantageData(JsonNode root) {
-        List<HistoricalData> data = new ArrayList<>();
-        String timeSeriesKey = getTimeSeriesKey(root);
-        if (timeSeriesKey != null && root.has(timeSeriesKey)) {
-            JsonNode timeSeries = root.get(timeSeriesKey);
-            
-            timeSeries.fields().forEachRemaining(entry -> {
-                try {
-                    String timestamp = entry.getKey();
-                    JsonNode ohlc = entry.getValue();
-                    data.add(new HistoricalData(
-                        timestamp,
-                        new BigDecimal(ohlc.get("1. open").asText()),
-                        new BigDecimal(ohlc.get("2. high").asText()),
-                        new BigDecimal(ohlc.get("3. low").asText()),
-                        new BigDecimal(ohlc.get("4. close").asText())
-                    ));
-                } catch (Exception e) {
-                    // Skip malformed entries
-                }
-            });
-        }
-        data.sort((a, b) -> b.timestamp().compareTo(a.timestamp()));
-        return data.subList(0, Math.min(MAX_HISTORY_POINTS, data.size()));
-    }
-
-    private boolean isUsableData(List<HistoricalData> data, String interval) {
+    private boolean isUsableData(HistoricalSeries data, String interval) {
         if (data == null || data.isEmpty()) {
             return false;
         }
@@ -420,9 +889,9 @@ public class MultiProviderStockDataFetcher {
         return data.size() >= 2;
     }
 
-    private List<HistoricalData> fetchWithCircuitBreaker(String provider, String interval, Supplier<List<HistoricalData>> fetcher) {
+    private HistoricalSeries fetchWithCircuitBreaker(String provider, String interval, Supplier<HistoricalSeries> fetcher) {
         if (!isProviderConfigured(provider) || !supportsInterval(provider, interval)) {
-            return new ArrayList<>();
+            return HistoricalSeries.empty();
         }
 
         CircuitBreakerState state = providerCircuitBreakers.computeIfAbsent(provider, ignored -> new CircuitBreakerState());
@@ -431,7 +900,7 @@ public class MultiProviderStockDataFetcher {
         synchronized (state) {
             if (state.open && now < state.openUntilEpochMs) {
                 System.out.println("⚠ Circuit open for " + provider + " until " + new Date(state.openUntilEpochMs));
-                return new ArrayList<>();
+                return HistoricalSeries.empty();
             }
             if (state.open && now >= state.openUntilEpochMs) {
                 state.open = false;
@@ -439,14 +908,21 @@ public class MultiProviderStockDataFetcher {
             }
         }
 
-        List<HistoricalData> data = fetcher.get();
+        long startedAt = System.nanoTime();
+        HistoricalSeries data = fetcher.get();
+        if (Thread.currentThread().isInterrupted()) {
+            // Cancelled because another provider won the hedge; says nothing about this provider's health
+            return HistoricalSeries.empty();
+        }
         if (data != null && !data.isEmpty()) {
+            providerLatencies.computeIfAbsent(provider, ignored -> new LatencyWindow())
+                .record((System.nanoTime() - startedAt) / 1_000_000);
             markProviderSuccess(provider);
             return data;
         }
 
         markProviderFailure(provider, openDurationMs);
-        return new ArrayList<>();
+        return HistoricalSeries.empty();
     }
 
     private void markProviderSuccess(String provider) {
@@ -471,6 +947,13 @@ public class MultiProviderStockDataFetcher {
         }
     }
 
+    /**
+     * Providers with an API key, in fallback order
+     */
+    public List<String> getConfiguredProviders() {
+        return PROVIDER_ORDER.stream().filter(this::isProviderConfigured).toList();
+    }
+
     private boolean isProviderConfigured(String provider) {
         return switch (provider) {
             case "ALPHA_VANTAGE" -> alphaVantageKey != null && !alphaVantageKey.isBlank();
@@ -488,6 +971,50 @@ public class MultiProviderStockDataFetcher {
         return true;
     }
 
+    private void recordLoaderRun(long elapsedNanos) {
+        loaderRuns.increment();
+        loaderNanosTotal.add(elapsedNanos);
+        loaderNanosMax.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    public HistoryLoaderStats getHistoryLoaderStats() {
+        long runs = loaderRuns.sum();
+        double avgLoadMs = runs > 0 ? loaderNanosTotal.sum() / (double) runs / 1_000_000.0 : 0.0;
+        return new HistoryLoaderStats(
+            runs,
+            coalescedWaiters.sum(),
+            inFlightLoads.size(),
+            avgLoadMs,
+            loaderNanosMax.get() / 1_000_000.0,
+            fullRefreshes.sum(),
+            incrementalRefreshes.sum(),
+            barsMerged.sum(),
+            staleServed.sum(),
+            backgroundRefreshes.sum(),
+            hedgedRequests.sum(),
+            hedgeWins.sum()
+        );
+    }
+
+    /**
+     * Per symbol|interval heap footprint of the in-memory history cache, largest first.
+     */
+    public HistoryCacheFootprint getHistoryCacheFootprint() {
+        long now = System.currentTimeMillis();
+        List<HistoryCacheEntry> entries = new ArrayList<>();
+        memoryCache.forEach((key, cached) -> entries.add(new HistoryCacheEntry(
+            key,
+            cached.series().size(),
+            cached.series().estimatedHeapBytes(),
+            Math.max(0L, now - cached.timestamp())
+        )));
+        entries.sort(Comparator.comparingLong(HistoryCacheEntry::estimatedHeapBytes).reversed());
+
+        long totalPoints = entries.stream().mapToLong(HistoryCacheEntry::points).sum();
+        long totalBytes = entries.stream().mapToLong(HistoryCacheEntry::estimatedHeapBytes).sum();
+        return new HistoryCacheFootprint(entries.size(), totalPoints, totalBytes, entries);
+    }
+
     public Map<String, CircuitBreakerStatus> getProviderCircuitBreakerStatus() {
         Map<String, CircuitBreakerStatus> status = new LinkedHashMap<>();
         long now = System.currentTimeMillis();
@@ -504,8 +1031,8 @@ public class MultiProviderStockDataFetcher {
     /**
      * Parse Finnhub response
      */
-    private List<HistoricalData> parseFinnhubData(JsonNode root, String symbol) {
-        List<HistoricalData> data = new ArrayList<>();
+    private HistoricalSeries parseFinnhubData(JsonNode root, String symbol) {
+        HistoricalSeries.Builder data = HistoricalSeries.builder(1);
         try {
             BigDecimal close = new BigDecimal(root.get("c").asDouble());
             BigDecimal high = new BigDecimal(root.get("h").asDouble());
@@ -515,82 +1042,49 @@ public class MultiProviderStockDataFetcher {
             long timestamp = root.get("t").asLong() * 1000;
             String date = new java.text.SimpleDateFormat("yyyy-MM-dd").format(new Date(timestamp));
             
-            data.add(new HistoricalData(date, open, high, low, close));
+            data.add(date, open, high, low, close);
         } catch (Exception e) {
             System.err.println("❌ Error parsing Finnhub data: " + e.getMessage());
         }
         
-        return data;
-    }
-    
-    /**
-     * Parse Twelve Data response
-     */
-    private List<HistoricalData> parseTwelveDataResponse(JsonNode root) {
-        List<HistoricalData> data = new ArrayList<>();
-        try {
-            JsonNode dataArray = null;
-            if (root.has("data")) {
-                dataArray = root.get("data");
-            } else if (root.has("values")) {
-                dataArray = root.get("values");
-            }
-
-            if (dataArray != null && dataArray.isArray()) {
-                for (int i = 0; i < Math.min(MAX_HISTORY_POINTS, dataArray.size()); i++) {
-                    JsonNode item = dataArray.get(i);
-                    data.add(new HistoricalData(
-                        item.get("datetime").asText(),
-                        new BigDecimal(item.get("open").asText()),
-                        new BigDecimal(item.get("high").asText()),
-                        new BigDecimal(item.get("low").asText()),
-                        new BigDecimal(item.get("close").asText())
-                    ));
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Error parsing Twelve Data: " + e.getMessage());
-        }
-        
-        return data;
+        return data.build();
     }
     
     /**
      * Parse Massive API response
      */
-    private List<HistoricalData> parseMassiveResponse(JsonNode root) {
-        List<HistoricalData> data = new ArrayList<>();
+    private HistoricalSeries parseMassiveResponse(JsonNode root) {
+        HistoricalSeries.Builder data = HistoricalSeries.builder(MAX_HISTORY_POINTS);
         try {
             JsonNode dataArray = root.has("data") ? root.get("data") : root;
             
             if (dataArray.isArray()) {
                 for (int i = 0; i < Math.min(MAX_HISTORY_POINTS, dataArray.size()); i++) {
                     JsonNode item = dataArray.get(i);
-                    data.add(new HistoricalData(
+                    data.add(
                         item.get("timestamp").asText(),
                         new BigDecimal(item.get("open").asText()),
                         new BigDecimal(item.get("high").asText()),
                         new BigDecimal(item.get("low").asText()),
                         new BigDecimal(item.get("close").asText())
-                    ));
+                    );
                 }
             }
         } catch (Exception e) {
             System.err.println("❌ Error parsing Massive response: " + e.getMessage());
         }
         
-        return data;
+        return data.build();
     }
     
     /**
      * Generate mock data for stocks when all APIs are exhausted
      */
-    private List<HistoricalData> getMockData(String symbol) {
-        List<HistoricalData> data = new ArrayList<>();
+    private HistoricalSeries getMockData(String symbol) {
+        HistoricalSeries.Builder data = HistoricalSeries.builder(MOCK_DATA_POINTS);
         double basePrice = getSymbolBasePrice(symbol);
         
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd");
-        Calendar cal = Calendar.getInstance();
+        long epochDay = java.time.LocalDate.now().toEpochDay();
         
         for (int i = 0; i < MOCK_DATA_POINTS; i++) {
             double volatility = (Math.random() - 0.5) * basePrice * 0.04;
@@ -601,20 +1095,21 @@ public class MultiProviderStockDataFetcher {
             
             basePrice = close;
             
-            data.add(new HistoricalData(
-                sdf.format(cal.getTime()),
-                new BigDecimal(String.format("%.2f", open)),
-                new BigDecimal(String.format("%.2f", high)),
-                new BigDecimal(String.format("%.2f", low)),
-                new BigDecimal(String.format("%.2f", close))
-            ));
-            
-            cal.add(Calendar.DATE, -1);
+            data.add(
+                epochDay - i,
+                toCentsScaled(open),
+                toCentsScaled(high),
+                toCentsScaled(low),
+                toCentsScaled(close)
+            );
         }
         
-        data.sort((a, b) -> a.timestamp().compareTo(b.timestamp()));
         System.out.println("🎲 Generated mock data for " + symbol);
-        return data;
+        return data.sortByDate(false).build();
+    }
+
+    private long toCentsScaled(double price) {
+        return HistoricalSeries.toScaled(Math.round(price * 100) / 100.0);
     }
     
     private double getSymbolBasePrice(String symbol) {
@@ -631,37 +1126,80 @@ public class MultiProviderStockDataFetcher {
         };
     }
     
-    private String getTimeSeriesKey(JsonNode root) {
-        // Check for different API response formats
-        if (root.has("Time Series (Daily)")) return "Time Series (Daily)";
-        if (root.has("Time Series (Weekly)")) return "Time Series (Weekly)";
-        if (root.has("Time Series (Monthly)")) return "Time Series (Monthly)";
-        if (root.has("Time Series Intraday (5min)")) return "Time Series Intraday (5min)";
-        
-        // Alpha Vantage new format (without parentheses)
-        if (root.has("Daily Time Series")) return "Daily Time Series";
-        if (root.has("Weekly Time Series")) return "Weekly Time Series";
-        if (root.has("Monthly Time Series")) return "Monthly Time Series";
-        
-        // Fallback: search for any key containing "Time Series"
-        List<String> keys = new ArrayList<>();
-        root.fieldNames().forEachRemaining(keys::add);
-        return keys.stream()
-            .filter(k -> k.contains("Time Series") || k.contains("Intraday"))
-            .findFirst()
-            .orElse(null);
+    /**
+     * Put {@code series} in the memory cache as if it had been loaded {@code ageMs} ago (tests).
+     */
+    void cacheInMemory(String symbol, String interval, HistoricalSeries series, long ageMs) {
+        memoryCache.put(symbol + "|" + interval, new MemoryCachedData(System.currentTimeMillis() - ageMs, series));
     }
-    
+
+    /**
+     * Small bounded pool for stale-while-revalidate reloads, separate from request threads.
+     */
+    private static ThreadPoolExecutor newRefreshExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64), runnable -> {
+            Thread thread = new Thread(runnable, "history-refresh-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Provider calls for hedged fan-out. When saturated the caller runs the attempt itself, which
+     * degrades to the sequential fallback chain.
+     */
+    private static ThreadPoolExecutor newProviderExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(8, 8, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(32), runnable -> {
+            Thread thread = new Thread(runnable, "history-provider-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
     /**
-     * In-memory cached data with 5-minute TTL
+     * Latencies of a provider's most recent successful calls, for the hedge delay.
      */
-    private record MemoryCachedData(long timestamp, List<HistoricalData> data) {
-        MemoryCachedData(List<HistoricalData> data) {
-            this(System.currentTimeMillis(), new ArrayList<>(data));
+    private static final class LatencyWindow {
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private int count;
+        private int next;
+
+        synchronized void record(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @return the latency at {@code percentile}, or -1 with fewer than {@code minSamples} samples
+         */
+        synchronized long percentileMs(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, rank))];
+        }
+    }
+
+    /**
+     * In-memory cached series with 5-minute TTL. The series is immutable and shared without copying.
+     */
+    private record MemoryCachedData(long timestamp, HistoricalSeries series) {
+        MemoryCachedData(HistoricalSeries series) {
+            this(System.currentTimeMillis(), series);
+        }
+
+        long ageMs() {
+            return Math.max(0L, System.currentTimeMillis() - timestamp);
         }
 
         boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > MEMORY_CACHE_DURATION_MS;
+            return ageMs() > MEMORY_CACHE_DURATION_MS;
         }
     }
 
@@ -673,5 +1211,32 @@ public class MultiProviderStockDataFetcher {
 
     public record CircuitBreakerStatus(boolean open, int consecutiveFailures, long openForMs) {}
 
+    public record HistoryLoaderStats(
+        long loads,
+        long coalescedWaiters,
+        int inFlight,
+        double avgLoadMs,
+        double maxLoadMs,
+        long fullRefreshes,
+        long incrementalRefreshes,
+        long barsMerged,
+        long staleServed,
+        long backgroundRefreshes,
+        long hedgedRequests,
+        long hedgeWins
+    ) {}
+
+    /**
+     * @param ageMs time since the memory tier last loaded the series; 0 when loaded for this call
+     * @param stale past the memory TTL and being refreshed in the background
+     */
+    public record CachedHistory(HistoricalSeries series, long ageMs, boolean stale) {}
+
+    private record ProviderFetch(String provider, HistoricalSeries series) {}
+
+    public record HistoryCacheEntry(String key, int points, long estimatedHeapBytes, long ageMs) {}
+
+    public record HistoryCacheFootprint(int entries, long totalPoints, long totalEstimatedHeapBytes, List<HistoryCacheEntry> symbols) {}
+
     public record HistoricalData(String timestamp, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close) {}
 }
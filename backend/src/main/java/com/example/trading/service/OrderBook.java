@@ -0,0 +1,355 @@
+package com.example.trading.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limit order book of one symbol with price-time priority. Not thread-safe: every book is owned by one
+ * {@link MatchingEngine} shard thread, its only reader and writer.
+ *
+ * Prices are integer ticks (cents). Each side keeps its price levels in a sorted primitive array with
+ * the best price last, so the best level is read and dropped in O(1) and a new level costs one binary
+ * search and one array shift. A level is a FIFO of resting orders linked through the order nodes
+ * themselves, so queueing, filling and cancelling allocate nothing but the node.
+ *
+ * An incoming order trades against resting orders priced at least as well as the reference price
+ * first, then against the house at the reference price (how every order filled before there was a
+ * book), then against resting orders up to its limit. The rest of a limit order rests; the rest of a
+ * market order is returned unfilled.
+ */
+final class OrderBook {
+
+    /** Limit of a market order */
+    static final long MARKET = 0;
+
+    private final Ladder bids = new Ladder(true);
+    private final Ladder asks = new Ladder(false);
+    private final Map<Long, RestingOrder> resting = new HashMap<>();
+    private final Map<Long, long[]> restingSellsByUser = new HashMap<>();
+
+    /**
+     * Match an incoming order and rest what is left of it if it is a limit order.
+     *
+     * @param limit     limit price in ticks, or {@link #MARKET}
+     * @param reference the house's price in ticks, or 0 when there is none
+     * @param fills     receives one entry per maker, cleared first
+     * @return the quantity left unfilled, resting or not
+     */
+    long submit(long orderId, long userId, boolean buy, long limit, long quantity, long reference, Fills fills) {
+        fills.clear();
+        Ladder contra = buy ? asks : bids;
+        long remaining = quantity;
+        while (remaining > 0) {
+            Level best = contra.best();
+            boolean bookCrosses = best != null && crosses(buy, best.price, limit);
+            boolean houseCrosses = reference > 0 && crosses(buy, reference, limit);
+            if (bookCrosses && !(houseCrosses && better(buy, reference, best.price))) {
+                remaining = fillFrom(contra, best, remaining, fills);
+            } else if (houseCrosses) {
+                fills.add(Fills.HOUSE, Fills.HOUSE, reference, remaining);
+                remaining = 0;
+            } else {
+                break;
+            }
+        }
+        if (remaining > 0 && limit != MARKET) {
+            rest(orderId, userId, buy, limit, remaining);
+        }
+        return remaining;
+    }
+
+    /**
+     * Queue an order without matching it, e.g. one restored from an earlier run.
+     */
+    void rest(long orderId, long userId, boolean buy, long price, long quantity) {
+        RestingOrder order = new RestingOrder(orderId, userId, quantity);
+        (buy ? bids : asks).levelAt(price).append(order);
+        resting.put(orderId, order);
+        if (!buy) {
+            restingSellsByUser.computeIfAbsent(userId, ignored -> new long[1])[0] += quantity;
+        }
+    }
+
+    /**
+     * @return the quantity that was still resting, or -1 when the order is not in the book
+     */
+    long cancel(long orderId) {
+        RestingOrder order = resting.remove(orderId);
+        if (order == null) {
+            return -1;
+        }
+        Level level = order.level;
+        level.unlink(order);
+        if (level.head == null) {
+            (level.bid ? bids : asks).remove(level);
+        }
+        if (!level.bid) {
+            releaseSell(order.userId, order.remaining);
+        }
+        return order.remaining;
+    }
+
+    /**
+     * @return the user who placed a resting order, or -1 when the order is not in the book
+     */
+    long userOf(long orderId) {
+        RestingOrder order = resting.get(orderId);
+        return order == null ? -1 : order.userId;
+    }
+
+    /**
+     * Shares the user's resting sell orders still offer.
+     */
+    long restingSells(long userId) {
+        long[] quantity = restingSellsByUser.get(userId);
+        return quantity == null ? 0 : quantity[0];
+    }
+
+    int restingOrders() {
+        return resting.size();
+    }
+
+    interface RestingVisitor {
+        void visit(long orderId, long userId, boolean buy, long price, long remaining) throws IOException;
+    }
+
+    /**
+     * Visit every resting order, each price level oldest first, so resting them again in the same
+     * order rebuilds the book with the same priorities.
+     */
+    void forEachResting(RestingVisitor visitor) throws IOException {
+        for (Ladder side : new Ladder[]{bids, asks}) {
+            for (int i = side.size - 1; i >= 0; i--) {
+                Level level = side.levels[i];
+                for (RestingOrder order = level.head; order != null; order = order.next) {
+                    visitor.visit(order.orderId, order.userId, side.bid, level.price, order.remaining);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the best bid in ticks, or 0 when there is none
+     */
+    long bestBid() {
+        Level best = bids.best();
+        return best == null ? 0 : best.price;
+    }
+
+    /**
+     * @return the best ask in ticks, or 0 when there is none
+     */
+    long bestAsk() {
+        Level best = asks.best();
+        return best == null ? 0 : best.price;
+    }
+
+    /**
+     * Up to {@code levels} price levels of one side, best first.
+     */
+    List<MatchingEngine.DepthLevel> depth(boolean buy, int levels) {
+        Ladder side = buy ? bids : asks;
+        List<MatchingEngine.DepthLevel> depth = new ArrayList<>(Math.min(levels, side.size));
+        for (int i = side.size - 1; i >= 0 && depth.size() < levels; i--) {
+            Level level = side.levels[i];
+            depth.add(new MatchingEngine.DepthLevel(MatchingEngine.toPrice(level.price), level.quantity, level.orders));
+        }
+        return depth;
+    }
+
+    private long fillFrom(Ladder contra, Level level, long remaining, Fills fills) {
+        while (remaining > 0 && level.head != null) {
+            RestingOrder maker = level.head;
+            long quantity = Math.min(remaining, maker.remaining);
+            fills.add(maker.orderId, maker.userId, level.price, quantity);
+            maker.remaining -= quantity;
+            level.quantity -= quantity;
+            remaining -= quantity;
+            if (!level.bid) {
+                releaseSell(maker.userId, quantity);
+            }
+            if (maker.remaining == 0) {
+                level.unlink(maker);
+                resting.remove(maker.orderId);
+            }
+        }
+        if (level.head == null) {
+            contra.removeBest();
+        }
+        return remaining;
+    }
+
+    private void releaseSell(long userId, long quantity) {
+        long[] offered = restingSellsByUser.get(userId);
+        if (offered != null && (offered[0] -= quantity) <= 0) {
+            restingSellsByUser.remove(userId);
+        }
+    }
+
+    private static boolean crosses(boolean buy, long price, long limit) {
+        return limit == MARKET || (buy ? price <= limit : price >= limit);
+    }
+
+    /**
+     * Whether {@code a} is a strictly better price than {@code b} for the taker.
+     */
+    private static boolean better(boolean buy, long a, long b) {
+        return buy ? a < b : a > b;
+    }
+
+    /**
+     * One side's price levels, sorted so the best price is last. Bids are stored by price and asks by
+     * negated price, so both sides sort ascending.
+     */
+    private static final class Ladder {
+        final boolean bid;
+        long[] keys = new long[16];
+        Level[] levels = new Level[16];
+        int size;
+
+        Ladder(boolean bid) {
+            this.bid = bid;
+        }
+
+        Level best() {
+            return size == 0 ? null : levels[size - 1];
+        }
+
+        void removeBest() {
+            levels[--size] = null;
+        }
+
+        Level levelAt(long price) {
+            long key = bid ? price : -price;
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                return levels[index];
+            }
+            int insertAt = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+            System.arraycopy(levels, insertAt, levels, insertAt + 1, size - insertAt);
+            Level level = new Level(price, bid);
+            keys[insertAt] = key;
+            levels[insertAt] = level;
+            size++;
+            return level;
+        }
+
+        void remove(Level level) {
+            int index = Arrays.binarySearch(keys, 0, size, bid ? level.price : -level.price);
+            if (index < 0 || levels[index] != level) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+            levels[--size] = null;
+        }
+    }
+
+    /**
+     * Orders resting at one price, oldest first.
+     */
+    private static final class Level {
+        final long price;
+        final boolean bid;
+        RestingOrder head;
+        RestingOrder tail;
+        long quantity;
+        int orders;
+
+        Level(long price, boolean bid) {
+            this.price = price;
+            this.bid = bid;
+        }
+
+        void append(RestingOrder order) {
+            order.level = this;
+            order.prev = tail;
+            if (tail == null) {
+                head = order;
+            } else {
+                tail.next = order;
+            }
+            tail = order;
+            quantity += order.remaining;
+            orders++;
+        }
+
+        /**
+         * Take {@code order} out of the queue; its unfilled quantity leaves the level with it.
+         */
+        void unlink(RestingOrder order) {
+            if (order.prev == null) {
+                head = order.next;
+            } else {
+                order.prev.next = order.next;
+            }
+            if (order.next == null) {
+                tail = order.prev;
+            } else {
+                order.next.prev = order.prev;
+            }
+            order.prev = null;
+            order.next = null;
+            quantity -= order.remaining;
+            orders--;
+        }
+    }
+
+    private static final class RestingOrder {
+        final long orderId;
+        final long userId;
+        long remaining;
+        Level level;
+        RestingOrder prev;
+        RestingOrder next;
+
+        RestingOrder(long orderId, long userId, long remaining) {
+            this.orderId = orderId;
+            this.userId = userId;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Reusable buffer of the fills of one incoming order, in matching order.
+     */
+    static final class Fills {
+
+        /** Maker order and user id of a fill against the house */
+        static final long HOUSE = 0;
+
+        long[] makerOrderIds = new long[8];
+        long[] makerUserIds = new long[8];
+        long[] prices = new long[8];
+        long[] quantities = new long[8];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(long makerOrderId, long makerUserId, long price, long quantity) {
+            if (size == prices.length) {
+                int capacity = size * 2;
+                makerOrderIds = Arrays.copyOf(makerOrderIds, capacity);
+                makerUserIds = Arrays.copyOf(makerUserIds, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+            }
+            makerOrderIds[size] = makerOrderId;
+            makerUserIds[size] = makerUserId;
+            prices[size] = price;
+            quantities[size] = quantity;
+            size++;
+        }
+    }
+}
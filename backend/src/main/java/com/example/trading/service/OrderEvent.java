@@ -0,0 +1,99 @@
+package com.example.trading.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One command the matching engine applied to a book, with its outcome: the payload of an
+ * {@link OrderJournal} record and what {@link OrderProjector} writes to the database.
+ *
+ * Payload layout:
+ * <pre>
+ *   byte  kind (1 submit, 2 cancel)
+ *   long  orderId, long userId
+ *   short symbol length, symbol (UTF-8)
+ *   byte  flags (1 buy, 2 rests)
+ *   long  limit ticks, long quantity (submitted, or cancelled), long reference ticks, long remaining
+ *   int   fill count, then per fill: long maker order id, long maker user id, long price ticks, long quantity
+ * </pre>
+ * The command fields are enough to replay it; the fills let a replay check that it matched the same way.
+ *
+ * @param seq journal sequence number, 0 until journaled
+ */
+record OrderEvent(
+    long seq,
+    Kind kind,
+    long orderId,
+    long userId,
+    String symbol,
+    boolean buy,
+    long limitTicks,
+    long quantity,
+    long referenceTicks,
+    List<MatchingEngine.Fill> fills,
+    long remaining,
+    boolean resting
+) {
+
+    enum Kind { SUBMIT, CANCEL }
+
+    private static final int FLAG_BUY = 1;
+    private static final int FLAG_RESTING = 2;
+
+    static OrderEvent cancel(long orderId, long userId, String symbol, long cancelled) {
+        return new OrderEvent(0, Kind.CANCEL, orderId, userId, symbol, false, 0, cancelled, 0, List.of(), 0, false);
+    }
+
+    OrderEvent withSeq(long seq) {
+        return new OrderEvent(seq, kind, orderId, userId, symbol, buy, limitTicks, quantity, referenceTicks, fills, remaining, resting);
+    }
+
+    byte[] encode() {
+        byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(1 + 16 + 2 + symbolBytes.length + 1 + 32 + 4 + fills.size() * 32);
+        out.put((byte) (kind == Kind.SUBMIT ? 1 : 2));
+        out.putLong(orderId);
+        out.putLong(userId);
+        out.putShort((short) symbolBytes.length);
+        out.put(symbolBytes);
+        out.put((byte) ((buy ? FLAG_BUY : 0) | (resting ? FLAG_RESTING : 0)));
+        out.putLong(limitTicks);
+        out.putLong(quantity);
+        out.putLong(referenceTicks);
+        out.putLong(remaining);
+        out.putInt(fills.size());
+        for (MatchingEngine.Fill fill : fills) {
+            out.putLong(fill.makerOrderId());
+            out.putLong(fill.makerUserId());
+            out.putLong(fill.priceTicks());
+            out.putLong(fill.quantity());
+        }
+        return out.array();
+    }
+
+    static OrderEvent decode(long seq, ByteBuffer in) {
+        Kind kind = switch (in.get()) {
+            case 1 -> Kind.SUBMIT;
+            case 2 -> Kind.CANCEL;
+            default -> throw new IllegalArgumentException("unknown order event kind at seq " + seq);
+        };
+        long orderId = in.getLong();
+        long userId = in.getLong();
+        byte[] symbolBytes = new byte[in.getShort()];
+        in.get(symbolBytes);
+        int flags = in.get();
+        long limitTicks = in.getLong();
+        long quantity = in.getLong();
+        long referenceTicks = in.getLong();
+        long remaining = in.getLong();
+        int count = in.getInt();
+        List<MatchingEngine.Fill> fills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            fills.add(new MatchingEngine.Fill(in.getLong(), in.getLong(), in.getLong(), in.getLong()));
+        }
+        return new OrderEvent(seq, kind, orderId, userId, new String(symbolBytes, StandardCharsets.UTF_8),
+            (flags & FLAG_BUY) != 0, limitTicks, quantity, referenceTicks, fills, remaining, (flags & FLAG_RESTING) != 0);
+    }
+}
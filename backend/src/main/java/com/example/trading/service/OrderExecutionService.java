@@ -0,0 +1,204 @@
+package com.example.trading.service;
+
+import com.example.trading.model.Order;
+import com.example.trading.model.Stock;
+import com.example.trading.repository.OrderRepository;
+import com.example.trading.repository.PortfolioRepository;
+import com.example.trading.repository.StockRepository;
+import com.example.trading.security.AuthenticatedUser;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Order lifecycle around the {@link MatchingEngine}:
+ *
+ * 1. The order is validated and given an id from {@link OrderIdAllocator}. A sell carries the seller's position as
+ *    last projected, which the engine tops up with the seller's fills not projected yet and reduces
+ *    by the seller's resting sells, so resting sells cannot promise the same shares twice.
+ * 2. The engine matches it against the book and the house (at the stock's reference price) and
+ *    journals the outcome. The caller gets the order as matched once the journal has it on disk.
+ * 3. {@link OrderProjector} writes the order, the positions it changed and the audit log entry to the
+ *    database shortly after, in batches.
+ */
+@Service
+public class OrderExecutionService {
+
+    private final OrderRepository orders;
+    private final PortfolioRepository portfolios;
+    private final StockRepository stocks;
+    private final MatchingEngine engine;
+    private final OrderProjector projector;
+    private final OrderIdAllocator orderIds;
+
+    @Value("${app.matching.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    public OrderExecutionService(OrderRepository orders, PortfolioRepository portfolios, StockRepository stocks,
+                                 MatchingEngine engine, OrderProjector projector, OrderIdAllocator orderIds) {
+        this.orders = orders;
+        this.portfolios = portfolios;
+        this.stocks = stocks;
+        this.engine = engine;
+        this.projector = projector;
+        this.orderIds = orderIds;
+    }
+
+    /**
+     * Put resting limit orders back into the books from the database, oldest first, when the engine had
+     * no journal to recover them from; a snapshot then makes them part of the journaled state.
+     */
+    @PostConstruct
+    void restoreBooks() {
+        if (engine.recovered()) {
+            return;
+        }
+        List<Order> resting = orders.findResting();
+        for (Order order : resting) {
+            engine.restore(order.getSymbol(), order.getId(), order.getUserId(), order.getSide().equals("BUY"),
+                MatchingEngine.toTicks(order.getLimitPrice()), order.getQuantity() - order.getFilledQuantity());
+        }
+        engine.snapshot().join();
+        if (!resting.isEmpty()) {
+            System.out.println("📒 Restored " + resting.size() + " resting limit orders into the order books");
+        }
+    }
+
+    /**
+     * Market order for {@code quantity} shares of {@code symbol}.
+     */
+    public Order execute(AuthenticatedUser user, String symbol, int quantity, String side) {
+        return submit(user, symbol, quantity, side, "MARKET", null);
+    }
+
+    /**
+     * Place an order and return it as matched: FILLED, PARTIALLY_FILLED or PENDING (a limit order
+     * resting in the book), or CANCELLED (a market order the book and the house could not fill). The
+     * order's row and the positions follow asynchronously.
+     *
+     * @param symbol     a listed stock's symbol, in any case
+     * @param side       BUY or SELL, in any case
+     * @param type       MARKET or LIMIT, in any case
+     * @param limitPrice required for LIMIT orders, in whole cents
+     * @throws IllegalArgumentException when the order is malformed or a sell exceeds the shares held
+     *                                  and not already offered; nothing is journaled then
+     */
+    public Order submit(AuthenticatedUser user, String rawSymbol, int quantity, String side, String type, BigDecimal limitPrice) {
+        String symbol = normalize(rawSymbol);
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        String normalizedSide = normalize(side);
+        if (!normalizedSide.equals("BUY") && !normalizedSide.equals("SELL")) {
+            throw new IllegalArgumentException("side must be BUY or SELL");
+        }
+        String normalizedType = type == null ? "MARKET" : normalize(type);
+        if (!normalizedType.equals("MARKET") && !normalizedType.equals("LIMIT")) {
+            throw new IllegalArgumentException("type must be MARKET or LIMIT");
+        }
+        boolean limit = normalizedType.equals("LIMIT");
+        if (limit && (limitPrice == null || limitPrice.signum() <= 0 || !MatchingEngine.isTickMultiple(limitPrice))) {
+            throw new IllegalArgumentException("limitPrice must be a positive price in whole cents");
+        }
+        // Every symbol the engine sees gets a book that is journaled and snapshotted, so only listed ones get through
+        Stock stock = stocks.findBySymbol(symbol)
+            .orElseThrow(() -> new IllegalArgumentException("unknown symbol: " + symbol));
+        BigDecimal reference = stock.getPrice();
+        long referenceTicks = reference == null || reference.signum() <= 0 ? 0 : MatchingEngine.toTicks(reference);
+        boolean buy = normalizedSide.equals("BUY");
+        long limitTicks = limit ? MatchingEngine.toTicks(limitPrice) : OrderBook.MARKET;
+
+        long orderId = orderIds.next();
+        MatchingEngine.Holding holding = buy ? null : holding(user.id(), symbol);
+        MatchingEngine.MatchResult result =
+            await(engine.submit(symbol, orderId, user.id(), buy, limitTicks, quantity, referenceTicks, holding));
+
+        Order order = new Order(orderId, user.id(), symbol, quantity, normalizedSide, normalizedType, limit ? limitPrice : null);
+        for (MatchingEngine.Fill fill : result.fills()) {
+            order.recordFill(Math.toIntExact(fill.quantity()), MatchingEngine.toPrice(fill.priceTicks()));
+        }
+        if (!result.resting()) {
+            order.close();
+        }
+        return order;
+    }
+
+    /**
+     * Take the user's resting order out of the book.
+     *
+     * @throws NoSuchElementException when the user has no such order
+     * @throws IllegalArgumentException when the order is no longer resting
+     */
+    public Cancellation cancel(AuthenticatedUser user, Long orderId) {
+        projector.awaitUser(user.id());
+        Order order = orders.findByIdAndUserId(orderId, user.id())
+            .orElseThrow(() -> new NoSuchElementException("order not found"));
+        long cancelled = order.isOpen() ? await(engine.cancel(order.getSymbol(), orderId, user.id())) : -1;
+        if (cancelled < 0) {
+            throw new IllegalArgumentException("order is not open");
+        }
+        return new Cancellation(orderId, order.getSymbol(), cancelled);
+    }
+
+    /**
+     * The seller's position row, pinned so that no fill can be missing from both the row and the
+     * engine's pending fills. A sold-out position keeps its row, so a missing row means no fills yet.
+     */
+    private MatchingEngine.Holding holding(long userId, String symbol) {
+        long pin = engine.pinPending();
+        try {
+            return portfolios.findByUserIdAndSymbol(userId, symbol)
+                .map(p -> new MatchingEngine.Holding(p.getQuantity(), p.getJournalSeq(), pin))
+                .orElse(new MatchingEngine.Holding(0, 0, pin));
+        } catch (RuntimeException e) {
+            engine.unpin(pin);
+            throw e;
+        }
+    }
+
+    /**
+     * @param rawSymbol a listed stock's symbol, in any case
+     * @throws NoSuchElementException when no stock has that symbol
+     */
+    public MatchingEngine.BookDepth depth(String rawSymbol, int levels) {
+        String symbol = normalize(rawSymbol);
+        if (stocks.findBySymbol(symbol).isEmpty()) {
+            throw new NoSuchElementException("unknown symbol: " + symbol);
+        }
+        return await(engine.depth(symbol, levels));
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for the matching engine", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException rejected) {
+                throw rejected;
+            }
+            throw new IllegalStateException("matching engine failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("matching engine did not answer", e);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * @param cancelledQuantity shares that were still resting
+     */
+    public record Cancellation(long orderId, String symbol, long cancelledQuantity) {}
+}
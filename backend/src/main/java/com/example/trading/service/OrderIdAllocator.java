@@ -0,0 +1,61 @@
+package com.example.trading.service;
+
+import com.example.trading.model.IdSequence;
+import com.example.trading.repository.IdSequenceRepository;
+import com.example.trading.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Order ids from the {@code id_sequence} table, so that no two replicas ever give out the same one.
+ * Ids are leased in blocks of {@code app.matching.order-id-block}: the database is asked once per
+ * block, under a row lock, rather than once per order. Ids only increase within one replica.
+ */
+@Service
+public class OrderIdAllocator {
+
+    static final String SEQUENCE = "stock_order";
+
+    private final IdSequenceRepository sequences;
+    private final OrderRepository orders;
+    private final MatchingEngine engine;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    // Guarded by this
+    private long next;
+    private long end;
+
+    public OrderIdAllocator(IdSequenceRepository sequences, OrderRepository orders, MatchingEngine engine,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.matching.order-id-block:1000}") int blockSize) {
+        this.sequences = sequences;
+        this.orders = orders;
+        this.engine = engine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public synchronized long next() {
+        if (next >= end) {
+            lease();
+        }
+        return next++;
+    }
+
+    private void lease() {
+        // Skips ids taken before the sequence existed, including ones only this engine's journal has
+        long floor = Math.max(orders.maxId(), engine.lastOrderId()) + 1;
+        Long first = transactionTemplate.execute(status -> {
+            sequences.insertIfAbsent(SEQUENCE, floor);
+            IdSequence sequence = sequences.findForUpdate(SEQUENCE).orElseThrow();
+            long start = Math.max(sequence.getNextValue(), floor);
+            sequence.setNextValue(start + blockSize);
+            return start;
+        });
+        next = first;
+        end = first + blockSize;
+    }
+}
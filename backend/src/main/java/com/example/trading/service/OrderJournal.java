@@ -0,0 +1,447 @@
+package com.example.trading.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of the matching engine's commands, in memory-mapped segment files named after
+ * the sequence number of their first record.
+ *
+ * Record layout:
+ * <pre>
+ *   [0]   int   payload length (0 marks the end of the segment)
+ *   [4]   int   CRC32C of seq and payload
+ *   [8]   long  seq, one more than the previous record's
+ *   [16]  payload
+ * </pre>
+ * An append is a copy into the mapped segment under a short lock, so the engine's shard threads never
+ * wait on the disk. A flusher thread group-commits: it forces everything appended so far with one
+ * {@code msync} and then runs the callbacks of all records it covered, in sequence order. With fsync
+ * off (or without a directory, when the journal only numbers records) callbacks run straight away.
+ *
+ * Opening a journal scans it; the first torn or corrupt record ends it and the space after it is
+ * reused.
+ */
+final class OrderJournal implements AutoCloseable {
+
+    static final int HEADER_BYTES = 16;
+
+    private static final String SUFFIX = ".journal";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final List<Segment> segments = new ArrayList<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private final CRC32C crc = new CRC32C();
+    private final Thread flusher;
+
+    // Guarded by this
+    private Segment active;
+    private long lastSeq;
+    private boolean rollOnNextAppend;
+    private boolean closed;
+    private long appended;
+    private long bytesWritten;
+    private long groupCommits;
+    private long groupedRecords;
+
+    private volatile long durableSeq;
+    private volatile RuntimeException failure;
+
+    private OrderJournal(Path dir, int segmentBytes, boolean fsync) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync && dir != null;
+        if (this.fsync) {
+            flusher = new Thread(this::flushLoop, "order-journal-flusher");
+            flusher.setDaemon(true);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * A journal that only hands out sequence numbers and keeps nothing.
+     */
+    static OrderJournal inMemory() {
+        return new OrderJournal(null, 0, false);
+    }
+
+    static OrderJournal open(Path dir, int segmentBytes, boolean fsync) throws IOException {
+        Files.createDirectories(dir);
+        OrderJournal journal = new OrderJournal(dir, segmentBytes, fsync);
+        journal.recover();
+        if (journal.flusher != null) {
+            journal.flusher.start();
+        }
+        return journal;
+    }
+
+    boolean persistent() {
+        return dir != null;
+    }
+
+    /**
+     * Directory of the segment files, null for an in-memory journal.
+     */
+    Path dir() {
+        return dir;
+    }
+
+    /**
+     * Append one record. {@code onDurable} receives its sequence number once the record is on disk (or
+     * at once when nothing is forced); callbacks run in sequence order, on the flusher thread or inline.
+     *
+     * @return the record's sequence number
+     * @throws IllegalStateException when the journal has failed or is closed; nothing is appended then
+     */
+    synchronized long append(byte[] payload, LongConsumer onDurable) {
+        if (failure != null) {
+            throw new IllegalStateException("order journal failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("order journal is closed");
+        }
+        long seq = lastSeq + 1;
+        if (dir != null) {
+            write(seq, payload);
+        }
+        lastSeq = seq;
+        appended++;
+        if (fsync) {
+            waiters.add(new Waiter(seq, onDurable));
+            notifyAll();
+        } else {
+            durableSeq = seq;
+            onDurable.accept(seq);
+        }
+        return seq;
+    }
+
+    synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    long durableSeq() {
+        return durableSeq;
+    }
+
+    /**
+     * Continue numbering after {@code seq} if the journal is behind it, e.g. when it was wiped but the
+     * database has seen later records. Later records go to a new segment, so no segment has a gap.
+     */
+    synchronized void advanceTo(long seq) {
+        if (seq > lastSeq) {
+            lastSeq = seq;
+            durableSeq = Math.max(durableSeq, seq);
+            rollOnNextAppend = true;
+        }
+    }
+
+    /**
+     * Block until every record up to {@code seq} is on disk.
+     */
+    void awaitDurable(long seq) throws InterruptedException {
+        if (!fsync) {
+            return;
+        }
+        synchronized (this) {
+            while (durableSeq < seq && failure == null && !closed) {
+                wait(100);
+            }
+        }
+    }
+
+    interface RecordReader {
+        void accept(long seq, ByteBuffer payload);
+    }
+
+    /**
+     * Read the records after {@code afterSeq} up to {@code throughSeq}, oldest first. Safe while others
+     * append, as long as {@code throughSeq} was already written.
+     */
+    void read(long afterSeq, long throughSeq, RecordReader reader) {
+        List<Segment> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(segments);
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (i + 1 < snapshot.size() && snapshot.get(i + 1).firstSeq <= afterSeq + 1) {
+                continue;
+            }
+            Segment segment = snapshot.get(i);
+            ByteBuffer buffer = segment.buffer.duplicate();
+            int position = 0;
+            long expected = segment.firstSeq;
+            while (expected <= throughSeq) {
+                int length = validLength(buffer, position, expected);
+                if (length < 0) {
+                    break;
+                }
+                if (expected > afterSeq) {
+                    reader.accept(expected, buffer.slice(position + HEADER_BYTES, length).asReadOnlyBuffer());
+                }
+                position += HEADER_BYTES + length;
+                expected++;
+            }
+        }
+    }
+
+    /**
+     * Delete the segments whose records all have a sequence number up to {@code seq}; the segment being
+     * appended to is kept.
+     */
+    synchronized void deleteThrough(long seq) {
+        while (segments.size() > 1 && segments.get(1).firstSeq <= seq + 1) {
+            Segment segment = segments.remove(0);
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not delete journal segment " + segment.path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Journal counters, with the engine's own figures about it filled in.
+     */
+    synchronized MatchingEngine.JournalStats getStats(long projectedSeq, long snapshots, long recoveryMs,
+                                                      long replayedEvents, long replayMismatches) {
+        return new MatchingEngine.JournalStats(dir != null, fsync, lastSeq, durableSeq, projectedSeq, segments.size(),
+            appended, bytesWritten, groupCommits, groupCommits == 0 ? 0 : (double) groupedRecords / groupCommits,
+            snapshots, recoveryMs, replayedEvents, replayMismatches);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            for (Segment segment : segments) {
+                try {
+                    segment.buffer.force();
+                    segment.channel.close();
+                } catch (IOException | UncheckedIOException e) {
+                    System.err.println("⚠️ Could not close journal segment " + segment.path + ": " + e.getMessage());
+                }
+            }
+            segments.clear();
+            active = null;
+        }
+    }
+
+    private void write(long seq, byte[] payload) {
+        int size = HEADER_BYTES + payload.length;
+        try {
+            if (active == null || rollOnNextAppend || active.buffer.capacity() - active.writePosition < size) {
+                roll(seq, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not start journal segment " + seq, e);
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int position = active.writePosition;
+        buffer.putLong(position + 8, seq);
+        buffer.put(position + HEADER_BYTES, payload);
+        buffer.putInt(position + 4, checksum(buffer, position, payload.length));
+        buffer.putInt(position, payload.length);
+        active.writePosition = position + size;
+        bytesWritten += size;
+    }
+
+    /**
+     * Start a segment at {@code firstSeq}. The one it replaces is forced first: the flusher only forces
+     * the active segment.
+     */
+    private void roll(long firstSeq, int recordBytes) throws IOException {
+        if (active != null && active.forcedPosition < active.writePosition) {
+            active.buffer.force(active.forcedPosition, active.writePosition - active.forcedPosition);
+            active.forcedPosition = active.writePosition;
+        }
+        Path path = dir.resolve(String.format("%020d%s", firstSeq, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentBytes, recordBytes));
+        syncDirectory();
+        active = new Segment(path, firstSeq, channel, buffer);
+        segments.add(active);
+        rollOnNextAppend = false;
+    }
+
+    private void flushLoop() {
+        List<Waiter> batch = new ArrayList<>();
+        while (true) {
+            Segment segment;
+            int from;
+            int to;
+            synchronized (this) {
+                while (waiters.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (waiters.isEmpty()) {
+                    return;
+                }
+                batch.addAll(waiters);
+                waiters.clear();
+                segment = active;
+                from = segment.forcedPosition;
+                to = segment.writePosition;
+            }
+            try {
+                // Outside the lock: records appended meanwhile wait for the next group commit
+                segment.buffer.force(from, to - from);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Order journal fsync failed; no more orders are accepted: " + e.getMessage());
+                failure = e;
+                synchronized (this) {
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                segment.forcedPosition = Math.max(segment.forcedPosition, to);
+                durableSeq = batch.get(batch.size() - 1).seq;
+                groupCommits++;
+                groupedRecords += batch.size();
+                notifyAll();
+            }
+            for (Waiter waiter : batch) {
+                try {
+                    waiter.onDurable.accept(waiter.seq);
+                } catch (RuntimeException e) {
+                    System.err.println("⚠️ Journal callback for record " + waiter.seq + " failed: " + e.getMessage());
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        boolean ended = false;
+        for (Path path : files) {
+            if (ended) {
+                System.err.println("⚠️ Dropping journal segment " + path.getFileName() + " after a corrupt record");
+                Files.delete(path);
+                continue;
+            }
+            String name = path.getFileName().toString();
+            long firstSeq = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            Segment segment = new Segment(path, firstSeq, channel, buffer);
+            long expected = firstSeq;
+            int position = 0;
+            int length;
+            while ((length = validLength(buffer, position, expected)) >= 0) {
+                position += HEADER_BYTES + length;
+                expected++;
+            }
+            if (expected == firstSeq) {
+                // Created but never written; the next append creates it again
+                channel.close();
+                Files.delete(path);
+                ended = true;
+                continue;
+            }
+            if (position + HEADER_BYTES <= buffer.capacity() && buffer.getInt(position) != 0) {
+                // A torn or corrupt record: whatever follows it cannot be trusted
+                ended = true;
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+            }
+            segment.writePosition = position;
+            segment.forcedPosition = position;
+            segments.add(segment);
+            active = segment;
+            lastSeq = expected - 1;
+        }
+        durableSeq = lastSeq;
+    }
+
+    /**
+     * @return the payload length of the record at {@code position} if it is complete, has sequence
+     *         number {@code expected} and a matching checksum, otherwise -1
+     */
+    private int validLength(ByteBuffer buffer, int position, long expected) {
+        if (position + HEADER_BYTES > buffer.capacity()) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() - position - HEADER_BYTES) {
+            return -1;
+        }
+        if (buffer.getLong(position + 8) != expected) {
+            return -1;
+        }
+        CRC32C check = new CRC32C();
+        check.update(buffer.slice(position + 8, 8 + length));
+        return (int) check.getValue() == buffer.getInt(position + 4) ? length : -1;
+    }
+
+    private int checksum(ByteBuffer buffer, int position, int length) {
+        crc.reset();
+        crc.update(buffer.slice(position + 8, 8 + length));
+        return (int) crc.getValue();
+    }
+
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory; the segment itself is still forced
+        }
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long firstSeq;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        int forcedPosition;
+
+        Segment(Path path, long firstSeq, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSeq = firstSeq;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private record Waiter(long seq, LongConsumer onDurable) {}
+}
@@ -0,0 +1,465 @@
+package com.example.trading.service;
+
+import com.example.trading.model.Order;
+import com.example.trading.model.Portfolio;
+import com.example.trading.model.User;
+import com.example.trading.repository.OrderRepository;
+import com.example.trading.repository.PortfolioRepository;
+import com.example.trading.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feeds the database from the matching engine's journal: order rows, positions and the audit log.
+ * One thread takes the journaled commands in sequence order and writes them in batches of up to
+ * {@code app.journal.projection-batch}, each in one transaction, so a request never waits on the
+ * database to place or cancel an order.
+ *
+ * Every row written records the sequence number of the last command applied to it. On startup the
+ * highest one marks how far the database got, and the commands the journal holds beyond it are
+ * projected before new ones. A batch that fails is retried: later batches must not overtake it. While
+ * the database is unreachable that goes on until it is back; any other failure that persists for
+ * {@code app.journal.projection-attempts} attempts gets the offending command quarantined (logged,
+ * counted and listed in the stats) so the commands after it still reach the database.
+ *
+ * Reads of a user's own orders and positions call {@link #awaitUser} first, so they see the user's
+ * last accepted command even though the database trails the engine.
+ */
+@Service
+public class OrderProjector {
+
+    private static final long MAX_RETRY_DELAY_MS = 5000;
+    private static final int MAX_QUARANTINED_KEPT = 100;
+
+    private final MatchingEngine engine;
+    private final OrderRepository orders;
+    private final PortfolioRepository portfolios;
+    private final UserRepository users;
+    private final AuditLogService auditLogService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long readWaitMs;
+    private final int maxAttempts;
+    private final LinkedBlockingQueue<OrderEvent> queue = new LinkedBlockingQueue<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder projectedEvents = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder quarantinedEvents = new LongAdder();
+    private final ArrayDeque<QuarantinedCommand> quarantined = new ArrayDeque<>();
+    private final ConcurrentHashMap<Long, Long> lastSeqByUser = new ConcurrentHashMap<>();
+    private Thread worker;
+    private volatile boolean running = true;
+    private volatile long projectedSeq;
+    private volatile long enqueuedSeq;
+    private volatile long failingSince;
+    private volatile String lastFailure;
+
+    public OrderProjector(MatchingEngine engine, OrderRepository orders, PortfolioRepository portfolios,
+                          UserRepository users, AuditLogService auditLogService,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.journal.projection-batch:500}") int batchSize,
+                          @Value("${app.journal.read-wait-ms:2000}") long readWaitMs,
+                          @Value("${app.journal.projection-attempts:5}") int maxAttempts) {
+        this.engine = engine;
+        this.orders = orders;
+        this.portfolios = portfolios;
+        this.users = users;
+        this.auditLogService = auditLogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.readWaitMs = readWaitMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @PostConstruct
+    void start() {
+        long checkpoint = orders.lastProjectedSeq();
+        long catchUpThrough = engine.recoveredSeq();
+        engine.seed(orders.maxId(), checkpoint);
+        projectedSeq = checkpoint;
+        enqueuedSeq = Math.max(checkpoint, catchUpThrough);
+        engine.projected(checkpoint);
+        engine.onEvent(this::enqueue);
+        worker = new Thread(() -> run(checkpoint, catchUpThrough), "order-projector");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait until every command journaled so far is in the database.
+     *
+     * @return false if that took longer than {@code timeoutMs}
+     */
+    public boolean awaitCaughtUp(long timeoutMs) throws InterruptedException {
+        return awaitProjected(enqueuedSeq, timeoutMs);
+    }
+
+    /**
+     * Wait, up to {@code app.journal.read-wait-ms}, until the commands that placed, filled or cancelled
+     * the user's orders are in the database. On timeout the caller reads what is there.
+     */
+    public void awaitUser(long userId) {
+        Long target = lastSeqByUser.get(userId);
+        if (target == null || target <= projectedSeq) {
+            return;
+        }
+        try {
+            if (!awaitProjected(target, readWaitMs)) {
+                System.err.println("⚠️ Orders of user " + userId + " are still " + (target - projectedSeq)
+                    + " commands behind in the database after " + readWaitMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean awaitProjected(long target, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (this) {
+            while (projectedSeq < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+                wait(left);
+            }
+        }
+        return true;
+    }
+
+    public ProjectionStats getStats() {
+        long since = failingSince;
+        List<QuarantinedCommand> parked;
+        synchronized (quarantined) {
+            parked = List.copyOf(quarantined);
+        }
+        return new ProjectionStats(projectedSeq, enqueuedSeq - projectedSeq, queue.size(), batches.sum(),
+            projectedEvents.sum(), failedBatches.sum(), since == 0 ? 0 : System.currentTimeMillis() - since,
+            since == 0 ? null : lastFailure, quarantinedEvents.sum(), parked);
+    }
+
+    private void enqueue(OrderEvent event) {
+        lastSeqByUser.put(event.userId(), event.seq());
+        for (MatchingEngine.Fill fill : event.fills()) {
+            lastSeqByUser.put(fill.makerUserId(), event.seq());
+        }
+        queue.add(event);
+        enqueuedSeq = event.seq();
+    }
+
+    private void run(long checkpoint, long catchUpThrough) {
+        if (catchUpThrough > checkpoint) {
+            catchUp(checkpoint, catchUpThrough);
+        }
+        List<OrderEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderEvent first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                project(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Project what the journal held at startup beyond the database's checkpoint.
+     */
+    private void catchUp(long checkpoint, long through) {
+        long started = System.nanoTime();
+        List<OrderEvent> batch = new ArrayList<>(batchSize);
+        long[] first = {0};
+        engine.readJournal(checkpoint, through, event -> {
+            if (first[0] == 0) {
+                first[0] = event.seq();
+            }
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                project(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            project(batch);
+        }
+        if (first[0] != checkpoint + 1) {
+            System.err.println("⚠️ The order journal starts after seq " + checkpoint
+                + ", where the database stopped; commands in between are missing from the database");
+        }
+        System.out.println("📒 Projected " + (through - checkpoint) + " journaled order commands into the database in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms");
+    }
+
+    /**
+     * Write the batch in one transaction. If it keeps failing for a reason retrying does not fix, write
+     * its commands one at a time and quarantine those that still fail, so one bad command cannot hold
+     * back every later one.
+     */
+    private void project(List<OrderEvent> batch) {
+        RuntimeException failure = applyWithRetries(batch);
+        if (failure != null && !Thread.currentThread().isInterrupted()) {
+            for (OrderEvent event : batch) {
+                RuntimeException eventFailure = batch.size() == 1 ? failure : applyWithRetries(List.of(event));
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (eventFailure != null) {
+                    quarantine(event, eventFailure);
+                }
+            }
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        failingSince = 0;
+        engine.projectionFailingSince(0);
+        long seq = batch.get(batch.size() - 1).seq();
+        batches.increment();
+        projectedEvents.add(batch.size());
+        engine.projected(seq);
+        synchronized (this) {
+            projectedSeq = seq;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return null once applied, or the last failure after {@code app.journal.projection-attempts}
+     * attempts that failed for a reason other than the database being unreachable, which is retried
+     * until it comes back
+     */
+    private RuntimeException applyWithRetries(List<OrderEvent> batch) {
+        long delayMs = 100;
+        int attempts = 0;
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(batch));
+                return null;
+            } catch (RuntimeException e) {
+                failedBatches.increment();
+                if (failingSince == 0) {
+                    failingSince = System.currentTimeMillis();
+                    engine.projectionFailingSince(failingSince);
+                }
+                lastFailure = e.getMessage();
+                boolean transientFailure = isTransient(e);
+                if (!transientFailure && ++attempts >= maxAttempts) {
+                    return e;
+                }
+                System.err.println("⚠️ Projecting order commands " + batch.get(0).seq() + "-"
+                    + batch.get(batch.size() - 1).seq() + " failed, retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return e;
+                }
+                delayMs = Math.min(delayMs * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                || cause instanceof DataAccessResourceFailureException || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skip a command the database keeps refusing. The order and positions it touches stay as they were;
+     * the command remains in the journal and the log line has what is needed to repair them by hand.
+     */
+    private void quarantine(OrderEvent event, RuntimeException failure) {
+        quarantinedEvents.increment();
+        QuarantinedCommand command = new QuarantinedCommand(event.seq(), event.kind().name(), event.orderId(),
+            event.userId(), event.symbol(), event.quantity(), String.valueOf(failure.getMessage()));
+        synchronized (quarantined) {
+            if (quarantined.size() == MAX_QUARANTINED_KEPT) {
+                quarantined.removeFirst();
+            }
+            quarantined.addLast(command);
+        }
+        System.err.println("❌ Quarantined order command " + command + " after " + maxAttempts
+            + " failed attempts; it is not in the database");
+    }
+
+    private void apply(List<OrderEvent> batch) {
+        Set<Long> orderIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        Map<String, Set<Long>> tradersBySymbol = new HashMap<>();
+        for (OrderEvent event : batch) {
+            orderIds.add(event.orderId());
+            userIds.add(event.userId());
+            for (MatchingEngine.Fill fill : event.fills()) {
+                Set<Long> traders = tradersBySymbol.computeIfAbsent(event.symbol(), ignored -> new HashSet<>());
+                traders.add(event.userId());
+                if (!fill.house()) {
+                    orderIds.add(fill.makerOrderId());
+                    traders.add(fill.makerUserId());
+                }
+            }
+        }
+        Map<Long, Order> ordersById = new HashMap<>();
+        for (Order order : orders.findAllById(orderIds)) {
+            ordersById.put(order.getId(), order);
+        }
+        Map<PositionKey, Portfolio> positions = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : tradersBySymbol.entrySet()) {
+            for (Portfolio position : portfolios.findBySymbolAndUserIdIn(entry.getKey(), entry.getValue())) {
+                positions.put(new PositionKey(position.getUserId(), position.getSymbol()), position);
+            }
+        }
+        Map<Long, String> usernames = new HashMap<>();
+        for (User user : users.findAllById(userIds)) {
+            usernames.put(user.getId(), user.getUsername());
+        }
+
+        List<Order> created = new ArrayList<>();
+        for (OrderEvent event : batch) {
+            String actor = usernames.getOrDefault(event.userId(), String.valueOf(event.userId()));
+            if (event.kind() == OrderEvent.Kind.CANCEL) {
+                Order order = ordersById.get(event.orderId());
+                if (order == null) {
+                    System.err.println("⚠️ Cancelled order " + event.orderId() + " has no row");
+                    continue;
+                }
+                order.close();
+                order.setJournalSeq(event.seq());
+                auditLogService.record(actor, "ORDER_CANCEL", "ORDER", String.valueOf(event.orderId()),
+                    order.getSide() + " " + event.quantity() + " " + order.getSymbol());
+                continue;
+            }
+            Order existing = ordersById.get(event.orderId());
+            if (existing != null) {
+                if (!isSameOrder(existing, event)) {
+                    // Another order was accepted under this id: fail, so the command gets quarantined and reported
+                    throw new IllegalStateException("order id " + event.orderId() + " already belongs to order "
+                        + existing.getSide() + " " + existing.getQuantity() + " " + existing.getSymbol()
+                        + " of user " + existing.getUserId() + "; not projecting seq " + event.seq());
+                }
+                System.err.println("⚠️ Order " + event.orderId() + " was already projected; skipping seq " + event.seq());
+                continue;
+            }
+            boolean limit = event.limitTicks() != OrderBook.MARKET;
+            Order taker = new Order(event.orderId(), event.userId(), event.symbol(), Math.toIntExact(event.quantity()),
+                event.buy() ? "BUY" : "SELL", limit ? "LIMIT" : "MARKET", limit ? MatchingEngine.toPrice(event.limitTicks()) : null);
+            ordersById.put(taker.getId(), taker);
+            created.add(taker);
+            for (MatchingEngine.Fill fill : event.fills()) {
+                applyFill(event, fill, taker, ordersById, positions);
+            }
+            if (!event.resting()) {
+                taker.close();
+            }
+            taker.setJournalSeq(event.seq());
+            String limitText = limit ? " @ " + taker.getLimitPrice() : "";
+            auditLogService.record(actor, "ORDER_CREATE", "ORDER", String.valueOf(event.orderId()),
+                taker.getSide() + " " + taker.getQuantity() + " " + event.symbol() + limitText + ", filled " + taker.getFilledQuantity());
+        }
+        // Sold-out positions keep their row at zero: its journalSeq is what lets a later sell tell which
+        // of its pending fills the position already has
+        orders.saveAll(created);
+    }
+
+    private static boolean isSameOrder(Order order, OrderEvent event) {
+        return order.getUserId() == event.userId() && order.getSymbol().equals(event.symbol())
+            && order.getSide().equals(event.buy() ? "BUY" : "SELL") && order.getQuantity() == event.quantity();
+    }
+
+    private void applyFill(OrderEvent event, MatchingEngine.Fill fill, Order taker, Map<Long, Order> ordersById,
+                           Map<PositionKey, Portfolio> positions) {
+        int quantity = Math.toIntExact(fill.quantity());
+        BigDecimal price = MatchingEngine.toPrice(fill.priceTicks());
+        taker.recordFill(quantity, price);
+        if (!fill.house()) {
+            Order maker = ordersById.get(fill.makerOrderId());
+            if (maker == null) {
+                System.err.println("⚠️ Maker order " + fill.makerOrderId() + " of seq " + event.seq() + " has no row");
+            } else {
+                maker.recordFill(quantity, price);
+                maker.setJournalSeq(event.seq());
+            }
+        }
+        Long buyer = event.buy() ? Long.valueOf(event.userId()) : fill.house() ? null : Long.valueOf(fill.makerUserId());
+        Long seller = event.buy() ? (fill.house() ? null : Long.valueOf(fill.makerUserId())) : Long.valueOf(event.userId());
+        if (buyer != null) {
+            PositionKey key = new PositionKey(buyer, event.symbol());
+            Portfolio position = positions.get(key);
+            if (position == null) {
+                position = portfolios.save(new Portfolio(buyer, event.symbol(), quantity, price));
+                positions.put(key, position);
+            } else {
+                position.buy(quantity, price);
+            }
+            position.setJournalSeq(event.seq());
+        }
+        if (seller != null) {
+            Portfolio position = positions.get(new PositionKey(seller, event.symbol()));
+            if (position == null || position.getQuantity() < quantity) {
+                System.err.println("⚠️ Sell fill of " + quantity + " " + event.symbol() + " exceeds the position of user " + seller);
+            }
+            if (position != null) {
+                position.sell(Math.min(quantity, position.getQuantity()));
+                position.setJournalSeq(event.seq());
+            }
+        }
+    }
+
+    private record PositionKey(long userId, String symbol) {}
+
+    /**
+     * @param lag          journaled commands not in the database yet
+     * @param stalledMs    how long the current batch has been failing, 0 when projection is healthy
+     * @param quarantined  the most recent quarantined commands, oldest first
+     */
+    public record ProjectionStats(long projectedSeq, long lag, int queued, long batches, long projectedEvents,
+                                  long failedBatches, long stalledMs, String lastFailure, long quarantinedEvents,
+                                  List<QuarantinedCommand> quarantined) {}
+
+    public record QuarantinedCommand(long seq, String kind, long orderId, long userId, String symbol, long quantity,
+                                     String reason) {}
+}
@@ -34,12 +34,16 @@ public class PortfolioAnalyticsService {
         BigDecimal marketValue = BigDecimal.ZERO;
         BigDecimal costBasis = BigDecimal.ZERO;
 
+        Map<String, SimpleStockPriceService.StockPrice> quotes = priceService.getCurrentPrices(
+            positions.stream().map(Portfolio::getSymbol).toList()
+        );
+
         for (Portfolio position : positions) {
             BigDecimal avgPrice = defaultNumber(position.getAvgPrice());
             BigDecimal quantity = BigDecimal.valueOf(position.getQuantity());
 
             BigDecimal currentPrice = avgPrice;
-            SimpleStockPriceService.StockPrice quote = priceService.getCurrentPrice(position.getSymbol());
+            SimpleStockPriceService.StockPrice quote = quotes.get(priceService.normalizeSymbol(position.getSymbol()));
             if (quote != null && quote.price() != null) {
                 currentPrice = quote.price();
             }
@@ -101,8 +105,9 @@ public class PortfolioAnalyticsService {
         BigDecimal sellNotional = BigDecimal.ZERO;
 
         for (Order order : userOrders) {
+            // Price is the average fill price, so only the filled part of an order counts
             BigDecimal price = defaultNumber(order.getPrice());
-            BigDecimal qty = BigDecimal.valueOf(order.getQuantity());
+            BigDecimal qty = BigDecimal.valueOf(order.getFilledQuantity());
             BigDecimal notional = price.multiply(qty);
 
             if ("SELL".equalsIgnoreCase(order.getSide())) {
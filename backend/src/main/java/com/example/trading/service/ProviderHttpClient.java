@@ -0,0 +1,425 @@
+package com.example.trading.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP client for the market-data providers (Yahoo, Alpha Vantage, Finnhub, Twelve Data, Massive).
+ *
+ * One JDK {@link HttpClient} per distinct connect timeout, so every provider with the same settings
+ * shares its connection pool (HTTP/2 where the provider offers it, kept-alive HTTP/1.1 otherwise) and
+ * a virtual-thread executor. Requests ask for gzip and are decoded here. Each host gets at most
+ * {@code app.provider-http.max-concurrent-per-host} requests in flight; further requests wait in a
+ * per-host queue without holding a thread. Every call is recorded in a per-provider latency histogram.
+ */
+@Service
+public class ProviderHttpClient {
+
+    /** Upper bounds, in ms, of the latency histogram buckets; the last bucket is unbounded. */
+    private static final long[] BUCKET_BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000};
+
+    private final Duration defaultConnectTimeout;
+    private final Duration defaultRequestTimeout;
+    private final int maxConcurrentPerHost;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, HttpClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, HostLimiter> hosts = new ConcurrentHashMap<>();
+    private final Map<String, ProviderLatency> latencies = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProviderHttpClient(@Value("${app.provider-http.connect-timeout-ms:3000}") long connectTimeoutMs,
+                              @Value("${app.provider-http.request-timeout-ms:10000}") long requestTimeoutMs,
+                              @Value("${app.provider-http.max-concurrent-per-host:16}") int maxConcurrentPerHost) {
+        this.defaultConnectTimeout = Duration.ofMillis(connectTimeoutMs);
+        this.defaultRequestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxConcurrentPerHost = Math.max(1, maxConcurrentPerHost);
+    }
+
+    /**
+     * Defaults, for services constructed outside Spring (tests and benchmarks).
+     */
+    public ProviderHttpClient() {
+        this(3_000, 10_000, 16);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Timeouts defaultTimeouts() {
+        return new Timeouts(defaultConnectTimeout, defaultRequestTimeout);
+    }
+
+    /**
+     * GET {@code url} with the default timeouts and return the body.
+     *
+     * @throws IOException on connect/read failure, timeout or a non-2xx status
+     */
+    public String get(String provider, String url) throws IOException {
+        return get(provider, url, defaultTimeouts());
+    }
+
+    /**
+     * Blocking GET for callers on request or pool threads. Interrupting the caller cancels the
+     * exchange and surfaces as {@link InterruptedIOException} with the interrupt flag kept set.
+     */
+    public String get(String provider, String url, Timeouts timeouts) throws IOException {
+        CompletableFuture<String> response = getAsync(provider, url, timeouts);
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(provider + " request cancelled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(provider + " request failed: " + cause, cause);
+        }
+    }
+
+    /**
+     * Asynchronous GET; the future completes with the decoded body or an {@link IOException}.
+     */
+    public CompletableFuture<String> getAsync(String provider, String url, Timeouts timeouts) {
+        URI uri = URI.create(url);
+        HttpRequest request = newRequest(uri, timeouts);
+        HttpClient client = clientFor(timeouts.connect());
+        HostLimiter limiter = limiterFor(uri);
+        ProviderLatency latency = latencyFor(provider);
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        limiter.submit(() -> {
+            if (result.isDone()) {
+                // Cancelled while queued for a permit
+                limiter.release();
+                return;
+            }
+            long startedAt = System.nanoTime();
+            CompletableFuture<HttpResponse<byte[]>> exchange;
+            try {
+                exchange = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (RuntimeException e) {
+                limiter.release();
+                latency.record(System.nanoTime() - startedAt, false);
+                result.completeExceptionally(asIOException(provider, e));
+                return;
+            }
+            result.whenComplete((ignored, error) -> {
+                if (error instanceof CancellationException) {
+                    exchange.cancel(true);
+                }
+            });
+            exchange.whenComplete((response, error) -> {
+                limiter.release();
+                long elapsed = System.nanoTime() - startedAt;
+                if (error != null) {
+                    latency.record(elapsed, false);
+                    result.completeExceptionally(asIOException(provider, error));
+                    return;
+                }
+                try {
+                    String body = decode(response);
+                    if (response.statusCode() / 100 != 2) {
+                        latency.record(elapsed, false);
+                        result.completeExceptionally(new IOException(provider + " returned HTTP " + response.statusCode()));
+                        return;
+                    }
+                    latency.record(elapsed, true);
+                    result.complete(body);
+                } catch (IOException e) {
+                    latency.record(elapsed, false);
+                    result.completeExceptionally(e);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Blocking GET that hands the decoded body stream to {@code reader} instead of buffering it, for
+     * large responses parsed incrementally. The host permit is held until the reader returns. The
+     * request timeout covers the wait for the response headers; the body is read at the reader's pace.
+     */
+    public <T> T get(String provider, String url, Timeouts timeouts, BodyReader<T> reader) throws IOException {
+        URI uri = URI.create(url);
+        HttpRequest request = newRequest(uri, timeouts);
+        HostLimiter limiter = limiterFor(uri);
+        ProviderLatency latency = latencyFor(provider);
+
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        limiter.submit(() -> {
+            if (!permit.complete(null)) {
+                limiter.release();
+            }
+        });
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false)) {
+                limiter.release();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(provider + " request cancelled");
+        } catch (ExecutionException e) {
+            throw new IOException(provider + " request failed: " + e.getCause(), e.getCause());
+        }
+
+        long startedAt = System.nanoTime();
+        boolean success = false;
+        try {
+            HttpResponse<InputStream> response = clientFor(timeouts.connect()).send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = decodedStream(response)) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new IOException(provider + " returned HTTP " + response.statusCode());
+                }
+                T value = reader.read(body);
+                success = true;
+                return value;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(provider + " request cancelled");
+        } finally {
+            limiter.release();
+            latency.record(System.nanoTime() - startedAt, success);
+        }
+    }
+
+    /**
+     * Per-provider request counts and latency histograms, in provider name order.
+     */
+    public Map<String, LatencyStats> getLatencyStats() {
+        Map<String, LatencyStats> stats = new LinkedHashMap<>();
+        new TreeMap<>(latencies).forEach((provider, latency) -> stats.put(provider, latency.snapshot()));
+        return stats;
+    }
+
+    private HttpClient clientFor(Duration connectTimeout) {
+        return clients.computeIfAbsent(connectTimeout.toMillis(), ignored -> HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(connectTimeout)
+            .executor(executor)
+            .build());
+    }
+
+    private static HttpRequest newRequest(URI uri, Timeouts timeouts) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            // HTTP/2 is negotiated via ALPN on https; a cleartext h2c upgrade attempt only adds a round trip
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        return builder
+            .timeout(timeouts.request())
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", "gzip")
+            .GET()
+            .build();
+    }
+
+    private HostLimiter limiterFor(URI uri) {
+        return hosts.computeIfAbsent(hostKey(uri), ignored -> new HostLimiter(maxConcurrentPerHost));
+    }
+
+    private ProviderLatency latencyFor(String provider) {
+        return latencies.computeIfAbsent(provider.toUpperCase(Locale.ROOT), ProviderLatency::new);
+    }
+
+    private static String hostKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+    private static boolean isGzip(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding")
+            .map(encoding -> encoding.toLowerCase(Locale.ROOT).contains("gzip"))
+            .orElse(false);
+    }
+
+    private static InputStream decodedStream(HttpResponse<InputStream> response) throws IOException {
+        return isGzip(response) ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private static String decode(HttpResponse<byte[]> response) throws IOException {
+        byte[] body = response.body();
+        if (isGzip(response) && body.length > 0) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            }
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static IOException asIOException(String provider, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof IOException io ? io : new IOException(provider + " request failed: " + cause, cause);
+    }
+
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * @param connect TCP/TLS connect timeout; providers with the same value share a connection pool
+     * @param request time allowed from sending the request to receiving the full response
+     */
+    public record Timeouts(Duration connect, Duration request) {}
+
+    /**
+     * Caps in-flight requests to one host. Requests over the cap are queued and started by whichever
+     * request completes next, so waiting costs no thread.
+     */
+    private static final class HostLimiter {
+        private final Semaphore permits;
+        private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+        HostLimiter(int permits) {
+            this.permits = new Semaphore(permits);
+        }
+
+        void submit(Runnable start) {
+            waiting.add(start);
+            drain();
+        }
+
+        void release() {
+            permits.release();
+            drain();
+        }
+
+        private void drain() {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.release();
+                } else {
+                    next.run();
+                }
+            }
+        }
+    }
+
+    private static final class ProviderLatency {
+        private final String provider;
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        ProviderLatency(String provider) {
+            this.provider = provider;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, boolean success) {
+            long ms = nanos / 1_000_000;
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && ms > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            requests.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (!success) {
+                failures.increment();
+            }
+        }
+
+        LatencyStats snapshot() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                histogram.put(i < BUCKET_BOUNDS_MS.length ? "le" + BUCKET_BOUNDS_MS[i] + "ms" : "gt" + BUCKET_BOUNDS_MS[i - 1] + "ms", counts[i]);
+            }
+            long requestCount = requests.sum();
+            double maxMs = maxNanos.get() / 1_000_000.0;
+            return new LatencyStats(
+                provider,
+                requestCount,
+                failures.sum(),
+                requestCount == 0 ? 0.0 : totalNanos.sum() / (double) requestCount / 1_000_000.0,
+                percentileMs(counts, total, 50, maxMs),
+                percentileMs(counts, total, 95, maxMs),
+                percentileMs(counts, total, 99, maxMs),
+                maxMs,
+                histogram
+            );
+        }
+
+        /**
+         * Upper bound of the bucket holding the percentile; the max for the unbounded bucket.
+         */
+        private static double percentileMs(long[] counts, long total, double percentile, double maxMs) {
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], maxMs) : maxMs;
+                }
+            }
+            return maxMs;
+        }
+    }
+
+    /**
+     * @param p50Ms     percentiles are bucket upper bounds (capped at the observed max), not exact values
+     * @param histogram request count per latency bucket, e.g. {@code le250ms}
+     */
+    public record LatencyStats(
+        String provider,
+        long requests,
+        long failures,
+        double avgMs,
+        double p50Ms,
+        double p95Ms,
+        double p99Ms,
+        double maxMs,
+        Map<String, Long> histogram
+    ) {}
+}
@@ -0,0 +1,403 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads each provider's daily quota across the day instead of letting the first cache misses after
+ * the open spend it. {@link ApiUsageTracker} still counts calls and enforces the hard limits; this
+ * planner decides which calls are worth making now.
+ *
+ * The plan allots {@code app.quota.session-share-percent} of every provider's daily limit to the
+ * trading session and spreads the rest over the other hours (weekends are flat). A request's
+ * {@link Priority} comes from what the caller could serve without it and from symbol popularity:
+ * <ul>
+ *   <li>HIGH: nothing to serve; may use any quota left today.</li>
+ *   <li>NORMAL: something older can be served; may run up to {@code app.quota.burst-percent} of the
+ *       limit ahead of the plan.</li>
+ *   <li>LOW: background refresh of a symbol nobody holds, alerts on or watches; only while usage is
+ *       behind the plan and more than {@code app.quota.low-priority-reserve-percent} is left.</li>
+ * </ul>
+ * Admitted providers are tried in order of planned headroom. Background work that no provider
+ * admits is parked with {@link #defer} and retried every {@code app.quota.deferred-retry-seconds}.
+ *
+ * The tracker counts days in 24-hour windows from startup rather than from midnight in the plan's
+ * zone, so early in the day the plan can see some of yesterday's calls; it errs on the
+ * side of spending less.
+ */
+@Service
+public class ProviderQuotaPlanner {
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    /**
+     * What the caller can serve if the provider call is not made.
+     */
+    public enum Need {
+        /** nothing but mock data */
+        MISSING,
+        /** older stored data */
+        STALE,
+        /** the current value, still within its stale grace window; a background refresh */
+        REFRESH
+    }
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final double MIN_SHARE_FOR_PROJECTION = 0.05;
+
+    private final ApiUsageTracker apiUsageTracker;
+    private final Clock clock;
+
+    @Value("${app.quota.zone:America/New_York}")
+    private String zone = "America/New_York";
+
+    @Value("${app.quota.session-start:09:30}")
+    private String sessionStart = "09:30";
+
+    @Value("${app.quota.session-end:16:00}")
+    private String sessionEnd = "16:00";
+
+    @Value("${app.quota.session-share-percent:80}")
+    private double sessionSharePercent = 80;
+
+    @Value("${app.quota.burst-percent:10}")
+    private double burstPercent = 10;
+
+    @Value("${app.quota.low-priority-reserve-percent:20}")
+    private double lowPriorityReservePercent = 20;
+
+    @Value("${app.quota.deferred-retry-seconds:60}")
+    private long deferredRetrySeconds = 60;
+
+    @Value("${app.quota.max-deferred:500}")
+    private int maxDeferred = 500;
+
+    private ZoneId zoneId = ZoneId.of(zone);
+    private int sessionStartMinute = 9 * 60 + 30;
+    private int sessionEndMinute = 16 * 60;
+
+    private volatile Map<String, Long> popularity = Map.of();
+    private final Map<String, Deferred> deferred = new ConcurrentHashMap<>();
+    private final Map<Priority, LongAdder> admitted = counters();
+    private final Map<Priority, LongAdder> denied = counters();
+    private final LongAdder deferredTotal = new LongAdder();
+    private final LongAdder deferredRun = new LongAdder();
+    private final LongAdder deferredDropped = new LongAdder();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "quota-planner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ProviderQuotaPlanner(ApiUsageTracker apiUsageTracker) {
+        this(apiUsageTracker, Clock.systemUTC());
+    }
+
+    ProviderQuotaPlanner(ApiUsageTracker apiUsageTracker, Clock clock) {
+        this.apiUsageTracker = apiUsageTracker;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    void start() {
+        zoneId = ZoneId.of(zone);
+        sessionStartMinute = minuteOfDay(LocalTime.parse(sessionStart));
+        sessionEndMinute = minuteOfDay(LocalTime.parse(sessionEnd));
+        if (sessionEndMinute <= sessionStartMinute) {
+            throw new IllegalArgumentException("app.quota.session-end must be after app.quota.session-start");
+        }
+        scheduler.scheduleWithFixedDelay(this::drainDeferred, deferredRetrySeconds, deferredRetrySeconds, TimeUnit.SECONDS);
+        System.out.println("📅 Provider quota plan: " + (int) sessionSharePercent + "% of each daily limit in "
+            + sessionStart + "-" + sessionEnd + " " + zone + ", burst " + (int) burstPercent
+            + "%, low-priority reserve " + (int) lowPriorityReservePercent + "%");
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Popularity scores from the latest warm-up ranking; a symbol with a positive score is held,
+     * alerted on or watched by someone.
+     */
+    public void updatePopularity(Map<String, Long> scores) {
+        popularity = Map.copyOf(scores);
+    }
+
+    public Priority priorityFor(String symbol, Need need) {
+        return switch (need) {
+            case MISSING -> Priority.HIGH;
+            case STALE -> Priority.NORMAL;
+            case REFRESH -> popularity.getOrDefault(symbol, 0L) > 0 ? Priority.NORMAL : Priority.LOW;
+        };
+    }
+
+    /**
+     * The providers among {@code candidates} that may be called at {@code priority} right now, most
+     * planned headroom first; candidates with equal headroom keep their order. Empty means defer.
+     */
+    public List<String> route(List<String> candidates, Priority priority) {
+        List<ProviderBudget> budgets = new ArrayList<>(candidates.size());
+        for (String provider : candidates) {
+            ProviderBudget budget = budget(provider);
+            if (budget.admits(priority)) {
+                budgets.add(budget);
+            }
+        }
+        (budgets.isEmpty() ? denied : admitted).get(priority).increment();
+        budgets.sort(Comparator.comparingDouble(ProviderBudget::headroomFraction).reversed());
+        return budgets.stream().map(ProviderBudget::provider).toList();
+    }
+
+    /**
+     * Admit one call to {@code provider} at {@code priority} and count it against the daily quota, for
+     * callers that do not otherwise go through {@link ApiUsageTracker}.
+     */
+    public boolean tryAcquire(String provider, Priority priority) {
+        if (route(List.of(provider), priority).isEmpty()) {
+            return false;
+        }
+        return apiUsageTracker.recordRequest(provider);
+    }
+
+    /**
+     * Park a background task until one of {@code providers} admits {@code priority} again. A task
+     * already parked under {@code key} is replaced. Returns false when the queue is full.
+     */
+    public boolean defer(String key, Priority priority, List<String> providers, Runnable task) {
+        if (deferred.size() >= maxDeferred && !deferred.containsKey(key)) {
+            deferredDropped.increment();
+            return false;
+        }
+        String symbol = key.contains("|") ? key.substring(0, key.indexOf('|')) : key;
+        if (deferred.put(key, new Deferred(key, symbol, priority, List.copyOf(providers), task, clock.millis())) == null) {
+            deferredTotal.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Run parked tasks whose priority is admitted again, highest priority and most popular first.
+     */
+    void drainDeferred() {
+        List<Deferred> queued = new ArrayList<>(deferred.values());
+        queued.sort(Comparator.comparing(Deferred::priority)
+            .thenComparing(task -> -popularity.getOrDefault(task.symbol(), 0L))
+            .thenComparingLong(Deferred::enqueuedAtMs));
+        for (Deferred task : queued) {
+            boolean ready = task.providers().stream().anyMatch(provider -> budget(provider).admits(task.priority()));
+            if (ready && deferred.remove(task.key(), task)) {
+                deferredRun.increment();
+                try {
+                    task.task().run();
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Deferred refresh " + task.key() + " failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-provider plan for today: how much the plan allows by now, headroom against it and the
+     * usage projected for the whole day at the current pace.
+     */
+    public Map<String, BudgetForecast> forecast() {
+        Map<String, BudgetForecast> forecast = new LinkedHashMap<>();
+        apiUsageTracker.getAllMetrics().keySet().stream().sorted().forEach(provider -> forecast.put(provider, budget(provider).forecast()));
+        return forecast;
+    }
+
+    /**
+     * Usage counters of every provider with its forecast for today.
+     */
+    public Map<String, ProviderUsage> usageWithForecast() {
+        Map<String, ProviderUsage> usage = new LinkedHashMap<>();
+        forecast().forEach((provider, forecast) ->
+            usage.put(provider, new ProviderUsage(apiUsageTracker.getProviderMetrics(provider), forecast)));
+        return usage;
+    }
+
+    public PlannerStats getStats() {
+        Map<Priority, Long> admittedCounts = new EnumMap<>(Priority.class);
+        Map<Priority, Long> deniedCounts = new EnumMap<>(Priority.class);
+        admitted.forEach((priority, count) -> admittedCounts.put(priority, count.sum()));
+        denied.forEach((priority, count) -> deniedCounts.put(priority, count.sum()));
+        return new PlannerStats(
+            admittedCounts,
+            deniedCounts,
+            deferred.size(),
+            deferredTotal.sum(),
+            deferredRun.sum(),
+            deferredDropped.sum(),
+            Math.round(plannedShare(ZonedDateTime.now(clock.withZone(zoneId))) * 1000) / 10.0
+        );
+    }
+
+    private ProviderBudget budget(String provider) {
+        ApiUsageTracker.ApiUsageDto usage = apiUsageTracker.getProviderMetrics(provider);
+        double share = plannedShare(ZonedDateTime.now(clock.withZone(zoneId)));
+        return new ProviderBudget(provider, usage, share);
+    }
+
+    /**
+     * Fraction of the daily budget the plan allows to have been spent by {@code now}.
+     */
+    double plannedShare(ZonedDateTime now) {
+        double minute = now.toLocalTime().toSecondOfDay() / 60.0;
+        DayOfWeek day = now.getDayOfWeek();
+        if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) {
+            return minute / MINUTES_PER_DAY;
+        }
+        double sessionShare = sessionSharePercent / 100.0;
+        double offShare = 1 - sessionShare;
+        double sessionMinutes = sessionEndMinute - sessionStartMinute;
+        double offMinutes = MINUTES_PER_DAY - sessionMinutes;
+        if (minute < sessionStartMinute) {
+            return offShare * minute / offMinutes;
+        }
+        double beforeSession = offShare * sessionStartMinute / offMinutes;
+        if (minute < sessionEndMinute) {
+            return beforeSession + sessionShare * (minute - sessionStartMinute) / sessionMinutes;
+        }
+        return Math.min(1.0, beforeSession + sessionShare + offShare * (minute - sessionEndMinute) / offMinutes);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static Map<Priority, LongAdder> counters() {
+        Map<Priority, LongAdder> counters = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            counters.put(priority, new LongAdder());
+        }
+        return counters;
+    }
+
+    private final class ProviderBudget {
+        private final String provider;
+        private final ApiUsageTracker.ApiUsageDto usage;
+        private final double share;
+        private final int planned;
+        private final int allowance;
+
+        ProviderBudget(String provider, ApiUsageTracker.ApiUsageDto usage, double share) {
+            this.provider = provider;
+            this.usage = usage;
+            this.share = share;
+            int limit = usage.dailyLimit();
+            this.planned = (int) Math.floor(limit * share);
+            int burst = limit > 0 ? Math.max(1, (int) Math.ceil(limit * burstPercent / 100.0)) : 0;
+            this.allowance = Math.min(limit, planned + burst);
+        }
+
+        String provider() {
+            return provider;
+        }
+
+        boolean admits(Priority priority) {
+            int limit = usage.dailyLimit();
+            int used = usage.dailyRequestCount();
+            if (limit <= 0 || used >= limit || usage.minuteRequestCount() >= usage.minuteLimit()) {
+                return false;
+            }
+            return switch (priority) {
+                case HIGH -> true;
+                case NORMAL -> used < allowance;
+                case LOW -> used < planned && used < limit * (1 - lowPriorityReservePercent / 100.0);
+            };
+        }
+
+        /**
+         * Headroom against the plan as a fraction of the daily limit, so providers with very different
+         * limits compare fairly.
+         */
+        double headroomFraction() {
+            return usage.dailyLimit() <= 0 ? 0 : (allowance - usage.dailyRequestCount()) / (double) usage.dailyLimit();
+        }
+
+        BudgetForecast forecast() {
+            int used = usage.dailyRequestCount();
+            Integer projected = share >= MIN_SHARE_FOR_PROJECTION ? (int) Math.round(used / share) : null;
+            return new BudgetForecast(
+                usage.dailyLimit(),
+                used,
+                Math.max(0, usage.dailyLimit() - used),
+                Math.round(share * 1000) / 10.0,
+                planned,
+                allowance,
+                Math.max(0, allowance - used),
+                projected,
+                projected != null && projected > usage.dailyLimit(),
+                admits(Priority.HIGH),
+                admits(Priority.NORMAL),
+                admits(Priority.LOW)
+            );
+        }
+    }
+
+    private record Deferred(String key, String symbol, Priority priority, List<String> providers, Runnable task, long enqueuedAtMs) {}
+
+    /**
+     * @param plannedSharePercent share of the daily limit the plan allows to be spent by now
+     * @param planned calls the plan allows by now; low-priority work stops here
+     * @param allowance planned plus the burst allowance; normal-priority work stops here
+     * @param projectedDailyUse usage at the end of the day if the day so far is representative
+     *                          (null until {@value #MIN_SHARE_FOR_PROJECTION} of the plan has elapsed)
+     */
+    public record BudgetForecast(
+        int dailyLimit,
+        int used,
+        int remaining,
+        double plannedSharePercent,
+        int planned,
+        int allowance,
+        int headroom,
+        Integer projectedDailyUse,
+        boolean projectedToRunOut,
+        boolean admitsHigh,
+        boolean admitsNormal,
+        boolean admitsLow
+    ) {}
+
+    public record PlannerStats(
+        Map<Priority, Long> admitted,
+        Map<Priority, Long> denied,
+        int deferredQueued,
+        long deferredTotal,
+        long deferredRun,
+        long deferredDropped,
+        double plannedSharePercent
+    ) {}
+
+    /**
+     * Usage counters with today's forecast, as served on /api/metrics/usage.
+     */
+    public record ProviderUsage(
+        @JsonUnwrapped ApiUsageTracker.ApiUsageDto usage,
+        BudgetForecast forecast
+    ) {}
+}
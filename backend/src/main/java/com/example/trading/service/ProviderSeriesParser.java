@@ -0,0 +1,310 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+/**
+ * Streaming parsers for the large provider time-series responses (Alpha Vantage {@code outputsize=full},
+ * Twelve Data {@code outputsize=5000}). Bars are read token by token straight into a
+ * {@link HistoricalSeries.Builder}; prices and dates are decoded from the parser's character buffer, so
+ * neither the response body, a JSON tree nor per-value strings are materialised.
+ */
+final class ProviderSeriesParser {
+
+    private static final int PRICE_DIGITS = HistoricalSeries.PRICE_SCALE;
+    // outputsize=full daily history is ~6,600 bars and grows by ~250 a year; sized to avoid regrowing the columns
+    private static final int ALPHA_VANTAGE_EXPECTED_BARS = 8_192;
+
+    // Alpha Vantage keys every bar by its date, so interning field names only fills the symbol table
+    // with thousands of one-off keys; Twelve Data repeats the same few names and benefits from it
+    private static final JsonFactory ALPHA_VANTAGE_JSON = JsonFactory.builder()
+        .disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+        .build();
+    private static final JsonFactory TWELVE_DATA_JSON = new JsonFactory();
+
+    private ProviderSeriesParser() {}
+
+    static Result alphaVantage(InputStream body, int maxPoints) throws IOException {
+        return alphaVantage(ALPHA_VANTAGE_JSON.createParser(body), maxPoints);
+    }
+
+    static Result twelveData(InputStream body, int maxPoints) throws IOException {
+        return twelveData(TWELVE_DATA_JSON.createParser(body), maxPoints);
+    }
+
+    /**
+     * Alpha Vantage TIME_SERIES_* body: a "... Time Series ..." (or "Intraday") object keyed by
+     * timestamp. Rows are returned newest first, at most {@code maxPoints}; malformed rows are skipped.
+     * A top-level "Information", "Note" or "Error Message" field is reported as the error.
+     */
+    static Result alphaVantage(JsonParser parser, int maxPoints) throws IOException {
+        try (parser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Result.error("response is not a JSON object");
+            }
+            HistoricalSeries.Builder bars = null;
+            String error = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (bars == null && value == JsonToken.START_OBJECT && (field.contains("Time Series") || field.contains("Intraday"))) {
+                    bars = HistoricalSeries.builder(ALPHA_VANTAGE_EXPECTED_BARS);
+                    readAlphaVantageBars(parser, bars);
+                } else if (error == null && ("Information".equals(field) || "Note".equals(field) || "Error Message".equals(field))) {
+                    // Rate-limit notices and errors carry their message as the value
+                    error = parser.getValueAsString(field);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (error != null) {
+                return Result.error(error);
+            }
+            if (bars == null) {
+                return new Result(HistoricalSeries.empty(), null);
+            }
+            return new Result(bars.sortByDate(true).limit(maxPoints).build(), null);
+        }
+    }
+
+    /**
+     * Twelve Data /time_series body: a "values" (or "data") array of
+     * {datetime, open, high, low, close} objects, of which the first {@code maxPoints} are kept.
+     * {@code "status": "error"} is reported with its "message".
+     */
+    static Result twelveData(JsonParser parser, int maxPoints) throws IOException {
+        try (parser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Result.error("response is not a JSON object");
+            }
+            HistoricalSeries.Builder bars = null;
+            boolean failed = false;
+            String message = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (bars == null && value == JsonToken.START_ARRAY && ("values".equals(field) || "data".equals(field))) {
+                    bars = HistoricalSeries.builder(maxPoints);
+                    readTwelveDataBars(parser, bars, maxPoints);
+                } else if ("status".equals(field)) {
+                    failed = "error".equals(parser.getValueAsString());
+                } else if ("message".equals(field)) {
+                    message = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (failed) {
+                return Result.error(message == null ? "status error" : message);
+            }
+            return new Result(bars == null ? HistoricalSeries.empty() : bars.build(), null);
+        }
+    }
+
+    private static void readAlphaVantageBars(JsonParser parser, HistoricalSeries.Builder bars) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            long epochDay = epochDay(parser);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            long open = Long.MIN_VALUE;
+            long high = Long.MIN_VALUE;
+            long low = Long.MIN_VALUE;
+            long close = Long.MIN_VALUE;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                // "1. open", "2. high", "3. low", "4. close", "5. volume"
+                switch (name.isEmpty() ? ' ' : name.charAt(0)) {
+                    case '1' -> open = scaled(parser);
+                    case '2' -> high = scaled(parser);
+                    case '3' -> low = scaled(parser);
+                    case '4' -> close = scaled(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            addIfComplete(bars, epochDay, open, high, low, close);
+        }
+    }
+
+    private static void readTwelveDataBars(JsonParser parser, HistoricalSeries.Builder bars, int maxPoints) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (bars.size() >= maxPoints) {
+                parser.skipChildren();
+                continue;
+            }
+            long epochDay = Long.MIN_VALUE;
+            long open = Long.MIN_VALUE;
+            long high = Long.MIN_VALUE;
+            long low = Long.MIN_VALUE;
+            long close = Long.MIN_VALUE;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "datetime" -> epochDay = epochDay(parser);
+                    case "open" -> open = scaled(parser);
+                    case "high" -> high = scaled(parser);
+                    case "low" -> low = scaled(parser);
+                    case "close" -> close = scaled(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            addIfComplete(bars, epochDay, open, high, low, close);
+        }
+    }
+
+    private static void addIfComplete(HistoricalSeries.Builder bars, long epochDay, long open, long high, long low, long close) {
+        if (epochDay != Long.MIN_VALUE && open != Long.MIN_VALUE && high != Long.MIN_VALUE
+            && low != Long.MIN_VALUE && close != Long.MIN_VALUE) {
+            bars.add(epochDay, open, high, low, close);
+        }
+    }
+
+    /**
+     * Current string or number token as a scaled price, rounded half-up like
+     * {@link HistoricalSeries#toScaled(BigDecimal)}; {@link Long#MIN_VALUE} when it is not a plain decimal.
+     */
+    static long scaled(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            parser.skipChildren();
+            return Long.MIN_VALUE;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        long value = parseScaled(text, offset, parser.getTextLength());
+        if (value == Long.MIN_VALUE) {
+            // Exponent or other unusual formatting: take the slow path
+            try {
+                return HistoricalSeries.toScaled(new BigDecimal(parser.getText().trim()));
+            } catch (NumberFormatException e) {
+                return Long.MIN_VALUE;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Decimal text such as "-123.45678" to a value scaled by 10^{@value #PRICE_DIGITS}, rounding the
+     * dropped digits half-up (away from zero). Returns {@link Long#MIN_VALUE} for anything else.
+     */
+    static long parseScaled(char[] text, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        if (i == end) {
+            return Long.MIN_VALUE;
+        }
+        boolean negative = text[i] == '-';
+        if (negative || text[i] == '+') {
+            i++;
+        }
+        long units = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean inFraction = false;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (!inFraction) {
+                    if (units > (Long.MAX_VALUE / 10) / 10_000) {
+                        return Long.MIN_VALUE;
+                    }
+                    units = units * 10 + (c - '0');
+                } else if (fractionDigits < PRICE_DIGITS) {
+                    units = units * 10 + (c - '0');
+                    fractionDigits++;
+                } else if (fractionDigits == PRICE_DIGITS) {
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return Long.MIN_VALUE;
+            }
+        }
+        if (!seenDigit) {
+            return Long.MIN_VALUE;
+        }
+        for (int pad = Math.min(fractionDigits, PRICE_DIGITS); pad < PRICE_DIGITS; pad++) {
+            units *= 10;
+        }
+        if (roundUp) {
+            units++;
+        }
+        return negative ? -units : units;
+    }
+
+    /**
+     * Epoch day of the current field name (Alpha Vantage keys bars by date) or string/number value.
+     */
+    private static long epochDay(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT) {
+            parser.skipChildren();
+            return Long.MIN_VALUE;
+        }
+        long day = epochDay(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        return day != Long.MIN_VALUE ? day : HistoricalSeries.parseEpochDay(parser.getText());
+    }
+
+    /**
+     * "yyyy-MM-dd" prefix to an epoch day without allocating; {@link Long#MIN_VALUE} for other formats.
+     */
+    static long epochDay(char[] text, int offset, int length) {
+        if (length < 10 || text[offset + 4] != '-' || text[offset + 7] != '-') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+        // Days from civil (proleptic Gregorian), as in java.time.LocalDate#toEpochDay
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * @param error provider-reported error or rate-limit message; null when the body held data
+     */
+    record Result(HistoricalSeries series, String error) {
+        static Result error(String message) {
+            return new Result(HistoricalSeries.empty(), message);
+        }
+    }
+}
@@ -1,45 +1,76 @@
 package com.example.trading.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
+/**
+ * Per-key sliding-window limiter for public routes. Counting is lock-free; keys whose counters have
+ * been idle for two windows are swept out at most once per window (and at most once a second), so
+ * one-off keys such as unique URIs do not accumulate. With a {@link SharedRateLimiter} the limit
+ * applies across all replicas instead.
+ */
 @Service
 public class PublicRateLimiterService {
 
-    private final Map<String, WindowCounter> counters = new ConcurrentHashMap<>();
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
 
-    public boolean allow(String key, int maxRequests, long windowMillis) {
-        long now = System.currentTimeMillis();
-        WindowCounter counter = counters.computeIfAbsent(key, ignored -> new WindowCounter(now, 0));
+    private final Map<String, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextSweepAt;
+    private SharedRateLimiter sharedRateLimiter;
+
+    public PublicRateLimiterService() {
+        this(System::nanoTime);
+    }
 
-        synchronized (counter) {
-            if (now - counter.windowStart >= windowMillis) {
-                counter.windowStart = now;
-                counter.count = 0;
-            }
+    PublicRateLimiterService(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.nextSweepAt = new AtomicLong(nanoClock.getAsLong());
+    }
 
-            if (counter.count >= maxRequests) {
-                return false;
-            }
+    @Autowired(required = false)
+    public void setSharedRateLimiter(SharedRateLimiter sharedRateLimiter) {
+        this.sharedRateLimiter = sharedRateLimiter;
+    }
 
-            counter.count++;
-            return true;
+    public boolean allow(String key, int maxRequests, long windowMillis) {
+        SharedRateLimiter shared = sharedRateLimiter;
+        if (shared != null) {
+            return shared.tryAcquire("public|" + key, maxRequests, windowMillis, true);
         }
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        long now = nanoClock.getAsLong();
+        sweepIfDue(windowNanos, now);
+        SlidingWindowCounter counter = counters.get(key);
+        if (counter == null || counter.windowNanos() != windowNanos) {
+            counter = counters.compute(key, (ignored, existing) -> existing != null && existing.windowNanos() == windowNanos
+                ? existing
+                : new SlidingWindowCounter(windowNanos, nanoClock));
+        }
+        return counter.tryAcquireSliding(maxRequests, now);
     }
 
     public void resetAll() {
         counters.clear();
     }
 
-    private static final class WindowCounter {
-        long windowStart;
-        int count;
+    int trackedKeys() {
+        return counters.size();
+    }
 
-        WindowCounter(long windowStart, int count) {
-            this.windowStart = windowStart;
-            this.count = count;
+    private void sweepIfDue(long windowNanos, long now) {
+        long due = nextSweepAt.get();
+        if (now - due < 0 || !nextSweepAt.compareAndSet(due, now + Math.max(windowNanos, MIN_SWEEP_INTERVAL_NANOS))) {
+            return;
         }
+        // An idle counter has nothing left to count against. A request that fetched it just before
+        // removal is counted on the removed instance, i.e. at most one request per key is forgotten.
+        counters.values().removeIf(counter -> counter.isIdle(now));
     }
 }
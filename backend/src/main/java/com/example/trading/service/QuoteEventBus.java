@@ -0,0 +1,119 @@
+package com.example.trading.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for {@link QuoteUpdated} events.
+ *
+ * Listeners run on a single dispatcher thread, so each sees events in publication order and a price
+ * refresh never waits for WebSocket fan-out or alert evaluation. Listeners should hand heavy work off
+ * rather than block the dispatcher. A failing listener is counted and skipped; it never affects others.
+ */
+@Service
+public class QuoteEventBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService ownedDispatcher;
+    private final Executor dispatcher;
+    private final LongAdder published = new LongAdder();
+
+    public QuoteEventBus() {
+        this(null);
+    }
+
+    /**
+     * @param dispatcher executor that runs listeners; null creates a single daemon dispatcher thread
+     */
+    QuoteEventBus(Executor dispatcher) {
+        this.ownedDispatcher = dispatcher == null
+            ? Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "quote-events");
+                thread.setDaemon(true);
+                return thread;
+            })
+            : null;
+        this.dispatcher = dispatcher == null ? ownedDispatcher : dispatcher;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (ownedDispatcher != null) {
+            ownedDispatcher.shutdownNow();
+        }
+    }
+
+    public void subscribe(String name, Consumer<QuoteUpdated> handler) {
+        listeners.add(new Listener(name, handler));
+    }
+
+    public void publish(QuoteUpdated event) {
+        published.increment();
+        for (Listener listener : listeners) {
+            try {
+                dispatcher.execute(() -> listener.deliver(event));
+            } catch (RuntimeException ex) {
+                listener.failures.increment();
+            }
+        }
+    }
+
+    public QuoteEventStats getStats() {
+        List<ListenerStats> listenerStats = new ArrayList<>();
+        for (Listener listener : listeners) {
+            long delivered = listener.delivered.sum();
+            listenerStats.add(new ListenerStats(
+                listener.name,
+                delivered,
+                listener.failures.sum(),
+                delivered == 0 ? 0.0 : listener.latencyNanosTotal.sum() / (double) delivered / 1_000_000.0,
+                listener.latencyNanosMax.get() / 1_000_000.0
+            ));
+        }
+        return new QuoteEventStats(published.sum(), listenerStats);
+    }
+
+    private static final class Listener {
+        private final String name;
+        private final Consumer<QuoteUpdated> handler;
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder latencyNanosTotal = new LongAdder();
+        private final AtomicLong latencyNanosMax = new AtomicLong();
+
+        Listener(String name, Consumer<QuoteUpdated> handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+
+        void deliver(QuoteUpdated event) {
+            try {
+                handler.accept(event);
+                delivered.increment();
+            } catch (Exception ex) {
+                failures.increment();
+                System.err.println("❌ Quote event listener " + name + " failed for " + event.symbol() + ": " + ex.getMessage());
+            }
+            long latency = System.nanoTime() - event.publishedAtNanos();
+            latencyNanosTotal.add(latency);
+            latencyNanosMax.accumulateAndGet(latency, Math::max);
+        }
+    }
+
+    /**
+     * Latency is measured from publication until the listener returned.
+     */
+    public record ListenerStats(String name, long delivered, long failures, double avgLatencyMs, double maxLatencyMs) {}
+
+    public record QuoteEventStats(long published, List<ListenerStats> listeners) {}
+}
@@ -0,0 +1,104 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-encoded JSON pieces of the {@code {"type":"quotes","quotes":[...]}} frame sent on /ws/quotes.
+ * Each quote object is serialized once per tick; frames are byte concatenations of those fragments.
+ */
+final class QuoteFrames {
+
+    /**
+     * Frame flavours. FULL is the original protocol; delta-mode sessions receive SNAPSHOT and DELTA frames.
+     */
+    enum Kind {
+        FULL("{\"type\":\"quotes\",\"quotes\":["),
+        SNAPSHOT("{\"type\":\"quotes\",\"mode\":\"snapshot\",\"quotes\":["),
+        DELTA("{\"type\":\"quotes\",\"mode\":\"delta\",\"quotes\":[");
+
+        private final byte[] prefix;
+
+        Kind(String prefix) {
+            this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final byte[] SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private QuoteFrames() {}
+
+    static byte[] encodeFragment(ObjectMapper objectMapper, QuoteResolutionService.ResolvedQuote quote, String timestamp) throws IOException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("symbol", quote.symbol());
+        fields.put("price", quote.price());
+        fields.put("high", quote.high());
+        fields.put("low", quote.low());
+        fields.put("date", quote.date());
+        fields.put("source", quote.source());
+        fields.put("timestamp", timestamp);
+        return objectMapper.writeValueAsBytes(fields);
+    }
+
+    /**
+     * Join the fragments of {@code symbols} into one text frame; symbols without a fragment are skipped.
+     */
+    static TextMessage assemble(Iterable<String> symbols, Map<String, byte[]> fragments) {
+        return assemble(Kind.FULL, symbols, fragments);
+    }
+
+    static TextMessage assemble(Kind kind, Iterable<String> symbols, Map<String, byte[]> fragments) {
+        List<byte[]> parts = new ArrayList<>();
+        for (String symbol : symbols) {
+            byte[] fragment = fragments.get(symbol);
+            if (fragment != null) {
+                parts.add(fragment);
+            }
+        }
+
+        byte[] frame = new byte[length(kind, parts)];
+        System.arraycopy(kind.prefix, 0, frame, 0, kind.prefix.length);
+        int position = kind.prefix.length;
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) {
+                frame[position++] = ',';
+            }
+            byte[] part = parts.get(i);
+            System.arraycopy(part, 0, frame, position, part.length);
+            position += part.length;
+        }
+        System.arraycopy(SUFFIX, 0, frame, position, SUFFIX.length);
+        return new TextMessage(frame);
+    }
+
+    /**
+     * Size in bytes of the frame {@link #assemble} would build, without building it.
+     */
+    static int frameLength(Kind kind, Iterable<String> symbols, Map<String, byte[]> fragments) {
+        int length = kind.prefix.length + SUFFIX.length;
+        int count = 0;
+        for (String symbol : symbols) {
+            byte[] fragment = fragments.get(symbol);
+            if (fragment != null) {
+                length += fragment.length;
+                count++;
+            }
+        }
+        return length + Math.max(0, count - 1);
+    }
+
+    private static int length(Kind kind, List<byte[]> parts) {
+        int length = kind.prefix.length + SUFFIX.length + Math.max(0, parts.size() - 1);
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        return length;
+    }
+}
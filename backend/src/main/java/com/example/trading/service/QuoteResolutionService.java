@@ -6,6 +6,13 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class QuoteResolutionService {
@@ -26,38 +33,98 @@ public class QuoteResolutionService {
 
         SimpleStockPriceService.StockPrice live = priceService.getCurrentPrice(normalized);
         if (live != null && live.price() != null) {
-            return new ResolvedQuote(
-                live.symbol(),
-                live.price(),
-                live.high(),
-                live.low(),
-                live.date(),
-                "LIVE"
-            );
+            return liveQuote(live);
         }
 
         Stock stock = stockRepository.findBySymbol(normalized).orElse(null);
+        return referenceQuote(normalized, stock);
+    }
+
+    /**
+     * Resolve many symbols with one batched live lookup and one reference-price query for the misses.
+     * Unresolvable symbols are absent; iteration order follows the input.
+     */
+    public Map<String, ResolvedQuote> resolveAll(Collection<String> symbols) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            String value = priceService.normalizeSymbol(symbol);
+            if (priceService.isValidSymbol(value)) {
+                normalized.add(value);
+            }
+        }
+
+        Map<String, SimpleStockPriceService.StockPrice> live = priceService.getCurrentPrices(normalized);
+        List<String> missing = normalized.stream()
+            .filter(symbol -> live.get(symbol) == null || live.get(symbol).price() == null)
+            .toList();
+        Map<String, Stock> stocks = new HashMap<>();
+        if (!missing.isEmpty()) {
+            for (Stock stock : stockRepository.findBySymbolIn(missing)) {
+                stocks.put(stock.getSymbol(), stock);
+            }
+        }
+
+        Map<String, ResolvedQuote> resolved = new LinkedHashMap<>();
+        for (String symbol : normalized) {
+            SimpleStockPriceService.StockPrice price = live.get(symbol);
+            ResolvedQuote quote = price != null && price.price() != null
+                ? liveQuote(price)
+                : referenceQuote(symbol, stocks.get(symbol));
+            if (quote != null) {
+                resolved.put(symbol, quote);
+            }
+        }
+        return resolved;
+    }
+
+    private ResolvedQuote liveQuote(SimpleStockPriceService.StockPrice live) {
+        return new ResolvedQuote(
+            live.symbol(),
+            live.price(),
+            live.high(),
+            live.low(),
+            live.date(),
+            "LIVE",
+            priceService.ageMs(live),
+            priceService.isStale(live) ? "STALE" : "FRESH"
+        );
+    }
+
+    private ResolvedQuote referenceQuote(String symbol, Stock stock) {
         if (stock == null || stock.getPrice() == null) {
             return null;
         }
 
         BigDecimal referencePrice = stock.getPrice();
         return new ResolvedQuote(
-            normalized,
+            symbol,
             referencePrice,
             referencePrice,
             referencePrice,
             LocalDate.now().toString(),
-            "REFERENCE"
+            "REFERENCE",
+            null,
+            null
         );
     }
 
+    /**
+     * @param ageMs     time since the live quote was fetched; null for reference prices
+     * @param freshness FRESH, or STALE when served past the cache TTL while a refresh runs; null for
+     *                  reference prices
+     */
     public record ResolvedQuote(
         String symbol,
         BigDecimal price,
         BigDecimal high,
         BigDecimal low,
         String date,
-        String source
-    ) {}
+        String source,
+        Long ageMs,
+        String freshness
+    ) {
+        public ResolvedQuote(String symbol, BigDecimal price, BigDecimal high, BigDecimal low, String date, String source) {
+            this(symbol, price, high, low, date, source, "LIVE".equals(source) ? 0L : null, "LIVE".equals(source) ? "FRESH" : null);
+        }
+    }
 }
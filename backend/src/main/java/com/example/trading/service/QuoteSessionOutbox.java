@@ -0,0 +1,279 @@
+package com.example.trading.service;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, non-blocking outbound buffer for one /ws/quotes session.
+ *
+ * Producers (the broadcast tick, subscribe snapshots) only enqueue; a single drain task per session
+ * runs on the shared sender executor, so sends on a session never overlap and a slow client never
+ * stalls the tick. With {@link Conflation#LATEST} a quote still waiting to be sent is replaced by a
+ * newer one for the same symbol. A session whose buffer exceeds the byte limit, or whose current send
+ * has been running longer than the send-time limit, is closed as a slow consumer.
+ */
+final class QuoteSessionOutbox {
+
+    enum Conflation {
+        LATEST,
+        NONE;
+
+        static Conflation parse(String value) {
+            return "none".equals(value == null ? "" : value.trim().toLowerCase(Locale.ROOT)) ? NONE : LATEST;
+        }
+    }
+
+    record Settings(Conflation conflation, int bufferSizeLimit, long sendTimeLimitMs) {}
+
+    /**
+     * Counters shared by all outboxes of one stream service.
+     */
+    static final class Counters {
+        final LongAdder sent = new LongAdder();
+        final LongAdder conflated = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder slowConsumerDisconnects = new LongAdder();
+    }
+
+    private final WebSocketSession session;
+    private final Executor sender;
+    private final Settings settings;
+    private final Counters counters;
+    private final Function<Map<String, byte[]>, WebSocketMessage<?>> frameAssembler;
+    private final Consumer<WebSocketSession> onClosed;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<WebSocketMessage<?>> pendingFrames = new ArrayDeque<>();
+    private LinkedHashMap<String, byte[]> pendingQuotes = new LinkedHashMap<>();
+    private WebSocketMessage<?> pendingShared;
+    private Set<String> pendingSharedSymbols;
+    private Map<String, byte[]> pendingSharedFragments;
+    private int pendingBytes;
+    private boolean draining;
+    private volatile long sendStartedNanos;
+    private volatile boolean closed;
+
+    QuoteSessionOutbox(WebSocketSession session,
+                       Executor sender,
+                       Settings settings,
+                       Counters counters,
+                       Function<Map<String, byte[]>, WebSocketMessage<?>> frameAssembler,
+                       Consumer<WebSocketSession> onClosed) {
+        this.session = session;
+        this.sender = sender;
+        this.settings = settings;
+        this.counters = counters;
+        this.frameAssembler = frameAssembler;
+        this.onClosed = onClosed;
+    }
+
+    /**
+     * Queue quotes for {@code symbols}. {@code sharedFrame} supplies the already-assembled frame for
+     * exactly these symbols; it is sent as-is when nothing else is pending for the session.
+     */
+    void offerQuotes(Set<String> symbols, Map<String, byte[]> fragments, Supplier<WebSocketMessage<?>> sharedFrame) {
+        if (closed) {
+            return;
+        }
+        boolean schedule;
+        synchronized (lock) {
+            if (settings.conflation() == Conflation.NONE) {
+                WebSocketMessage<?> frame = sharedFrame.get();
+                pendingFrames.add(frame);
+                pendingBytes += frame.getPayloadLength();
+            } else if (pendingShared == null && pendingQuotes.isEmpty()) {
+                pendingShared = sharedFrame.get();
+                pendingSharedSymbols = symbols;
+                pendingSharedFragments = fragments;
+                pendingBytes += pendingShared.getPayloadLength();
+            } else {
+                expandPendingShared();
+                for (String symbol : symbols) {
+                    putPendingQuote(symbol, fragments.get(symbol));
+                }
+            }
+            schedule = startDrainIfIdle();
+        }
+        afterOffer(schedule);
+    }
+
+    /**
+     * Queue a non-quote frame (never conflated, sent before pending quotes).
+     */
+    void offerFrame(WebSocketMessage<?> frame) {
+        if (closed) {
+            return;
+        }
+        boolean schedule;
+        synchronized (lock) {
+            pendingFrames.add(frame);
+            pendingBytes += frame.getPayloadLength();
+            schedule = startDrainIfIdle();
+        }
+        afterOffer(schedule);
+    }
+
+    WebSocketSession session() {
+        return session;
+    }
+
+    int queuedMessages() {
+        synchronized (lock) {
+            return pendingFrames.size() + pendingQuotes.size() + (pendingShared != null ? 1 : 0);
+        }
+    }
+
+    int queuedBytes() {
+        synchronized (lock) {
+            return pendingBytes;
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the session as a slow consumer and discard anything still buffered.
+     */
+    void closeSlowConsumer(String reason) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (lock) {
+            counters.dropped.add(pendingFrames.size() + pendingQuotes.size() + (pendingShared != null ? 1 : 0));
+            pendingFrames.clear();
+            pendingQuotes.clear();
+            pendingShared = null;
+            pendingBytes = 0;
+        }
+        counters.slowConsumerDisconnects.increment();
+        System.out.println("⚠ Closing slow /ws/quotes consumer " + session.getId() + ": " + reason);
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+        } catch (Exception ignored) {
+            // connection is already gone
+        }
+        onClosed.accept(session);
+    }
+
+    private void afterOffer(boolean schedule) {
+        long sendStarted = sendStartedNanos;
+        if (sendStarted != 0 && System.nanoTime() - sendStarted > TimeUnit.MILLISECONDS.toNanos(settings.sendTimeLimitMs())) {
+            closeSlowConsumer("send time limit exceeded");
+            return;
+        }
+        if (queuedBytes() > settings.bufferSizeLimit()) {
+            closeSlowConsumer("outbound buffer limit exceeded");
+            return;
+        }
+        if (schedule) {
+            try {
+                sender.execute(this::drain);
+            } catch (RuntimeException ex) {
+                synchronized (lock) {
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    private boolean startDrainIfIdle() {
+        if (draining) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    private void drain() {
+        while (!closed) {
+            WebSocketMessage<?> next;
+            synchronized (lock) {
+                next = pollNext();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+
+            sendStartedNanos = System.nanoTime();
+            try {
+                session.sendMessage(next);
+                counters.sent.increment();
+            } catch (Exception ex) {
+                closed = true;
+                onClosed.accept(session);
+                return;
+            } finally {
+                sendStartedNanos = 0;
+            }
+        }
+    }
+
+    private WebSocketMessage<?> pollNext() {
+        WebSocketMessage<?> frame = pendingFrames.poll();
+        if (frame != null) {
+            pendingBytes -= frame.getPayloadLength();
+            return frame;
+        }
+        if (pendingShared != null) {
+            frame = pendingShared;
+            pendingShared = null;
+            pendingSharedSymbols = null;
+            pendingSharedFragments = null;
+            pendingBytes -= frame.getPayloadLength();
+            return frame;
+        }
+        if (!pendingQuotes.isEmpty()) {
+            Map<String, byte[]> quotes = pendingQuotes;
+            pendingQuotes = new LinkedHashMap<>();
+            for (byte[] fragment : quotes.values()) {
+                pendingBytes -= fragment.length;
+            }
+            return frameAssembler.apply(quotes);
+        }
+        return null;
+    }
+
+    private void expandPendingShared() {
+        if (pendingShared == null) {
+            return;
+        }
+        pendingBytes -= pendingShared.getPayloadLength();
+        Set<String> symbols = pendingSharedSymbols;
+        Map<String, byte[]> fragments = pendingSharedFragments;
+        pendingShared = null;
+        pendingSharedSymbols = null;
+        pendingSharedFragments = null;
+        for (String symbol : symbols) {
+            putPendingQuote(symbol, fragments.get(symbol));
+        }
+    }
+
+    private void putPendingQuote(String symbol, byte[] fragment) {
+        if (fragment == null) {
+            return;
+        }
+        byte[] previous = pendingQuotes.put(symbol, fragment);
+        if (previous != null) {
+            pendingBytes -= previous.length;
+            counters.conflated.increment();
+        }
+        pendingBytes += fragment.length;
+    }
+}
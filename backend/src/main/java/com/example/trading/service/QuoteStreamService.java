@@ -1,42 +1,105 @@
 package com.example.trading.service;
 
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.security.WebSocketTokenAuthenticator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
-public class QuoteStreamService extends TextWebSocketHandler {
+public class QuoteStreamService extends TextWebSocketHandler implements SubProtocolCapable {
 
     private final SimpleStockPriceService priceService;
     private final QuoteResolutionService quoteResolutionService;
     private final ObjectMapper objectMapper;
+    private final WebSocketTokenAuthenticator authenticator;
 
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+    @Value("${app.quote-stream.conflation:latest}")
+    private String conflation = "latest";
+
+    @Value("${app.quote-stream.buffer-size-limit:524288}")
+    private int bufferSizeLimit = 512 * 1024;
+
+    @Value("${app.quote-stream.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs = 10_000;
+
+    @Value("${app.quote-stream.delta-snapshot-ticks:12}")
+    private int deltaSnapshotTicks = 12;
+
+    private final Map<String, QuoteSessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sessionsBySymbol = new ConcurrentHashMap<>();
+    private final Map<String, Long> sessionUsers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, PublishedQuote> published = new ConcurrentHashMap<>();
+    private final AtomicLong publishedVersions = new AtomicLong();
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService ownedSender;
+    private final Executor sender;
+    private final QuoteSessionOutbox.Counters outboundCounters = new QuoteSessionOutbox.Counters();
+    private final BinaryQuoteFrames binaryFrames = new BinaryQuoteFrames();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder eventPushes = new LongAdder();
+    private volatile BroadcastStats lastTick;
 
-    public QuoteStreamService(SimpleStockPriceService priceService, QuoteResolutionService quoteResolutionService, ObjectMapper objectMapper) {
+    @Autowired
+    public QuoteStreamService(SimpleStockPriceService priceService, QuoteResolutionService quoteResolutionService,
+                              ObjectMapper objectMapper, QuoteEventBus quoteEventBus,
+                              WebSocketTokenAuthenticator authenticator) {
+        this(priceService, quoteResolutionService, objectMapper, quoteEventBus, authenticator, null);
+    }
+
+    /**
+     * @param quoteEventBus source of pushed quote changes; null leaves the stream tick-driven only
+     * @param authenticator resolves {@code auth} message tokens; null rejects every auth message
+     * @param sender executor that drains session outboxes; null creates a small daemon pool
+     */
+    QuoteStreamService(SimpleStockPriceService priceService, QuoteResolutionService quoteResolutionService,
+                       ObjectMapper objectMapper, QuoteEventBus quoteEventBus,
+                       WebSocketTokenAuthenticator authenticator, Executor sender) {
         this.priceService = priceService;
         this.quoteResolutionService = quoteResolutionService;
         this.objectMapper = objectMapper;
+        this.authenticator = authenticator;
+        this.ownedSender = sender == null ? newSenderPool() : null;
+        this.sender = sender == null ? ownedSender : sender;
+        if (quoteEventBus != null) {
+            quoteEventBus.subscribe("quote-stream", this::onQuoteUpdated);
+        }
     }
 
     @PostConstruct
@@ -47,23 +110,46 @@ public class QuoteStreamService extends TextWebSocketHandler {
     @PreDestroy
     void stopBroadcastLoop() {
         scheduler.shutdownNow();
+        if (ownedSender != null) {
+            ownedSender.shutdownNow();
+        }
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.put(session.getId(), session);
-        subscriptions.put(session.getId(), ConcurrentHashMap.newKeySet());
+        outboxes.put(session.getId(), new QuoteSessionOutbox(
+            session,
+            sender,
+            new QuoteSessionOutbox.Settings(QuoteSessionOutbox.Conflation.parse(conflation), bufferSizeLimit, sendTimeLimitMs),
+            outboundCounters,
+            quotes -> assembleFrame(isBinary(session), conflatedFrameKind(session.getId()), quotes.keySet(), quotes),
+            this::removeSession
+        ));
+        subscriptions.put(session.getId(), new Subscription(Set.of(), false, isBinary(session)));
+    }
+
+    /**
+     * Clients may request {@value BinaryQuoteFrames#SUBPROTOCOL} in Sec-WebSocket-Protocol to receive
+     * binary frames; everyone else keeps the JSON protocol.
+     */
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(BinaryQuoteFrames.SUBPROTOCOL);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         JsonNode root = objectMapper.readTree(message.getPayload());
         String type = root.path("type").asText("");
+        if ("auth".equalsIgnoreCase(type)) {
+            authenticate(session, root.path("token").asText(null));
+            return;
+        }
         if (!"subscribe".equalsIgnoreCase(type)) {
             return;
         }
 
-        Set<String> nextSymbols = ConcurrentHashMap.newKeySet();
+        Set<String> nextSymbols = new LinkedHashSet<>();
         JsonNode symbolsNode = root.path("symbols");
         if (symbolsNode.isArray()) {
             for (JsonNode symbolNode : symbolsNode) {
@@ -75,76 +161,510 @@ public class QuoteStreamService extends TextWebSocketHandler {
             }
         }
 
-        subscriptions.put(session.getId(), nextSymbols);
-        sendSnapshot(session, nextSymbols);
+        boolean delta = "delta".equalsIgnoreCase(root.path("mode").asText(""));
+        Subscription subscription = new Subscription(Set.copyOf(nextSymbols), delta, isBinary(session));
+        Subscription previous = subscriptions.put(session.getId(), subscription);
+        unindex(session.getId(), previous);
+        for (String symbol : subscription.symbols) {
+            sessionsBySymbol.computeIfAbsent(symbol, key -> ConcurrentHashMap.newKeySet()).add(session.getId());
+        }
+        sendSnapshot(session, subscription);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session.getId());
-        subscriptions.remove(session.getId());
+        removeSession(session);
+    }
+
+    private void removeSession(WebSocketSession session) {
+        removeSession(session.getId());
+    }
+
+    private void removeSession(String sessionId) {
+        outboxes.remove(sessionId);
+        unindex(sessionId, subscriptions.remove(sessionId));
+        unbindUser(sessionId);
+    }
+
+    /**
+     * Binds the session to a user so user-targeted messages (alerts) can reach it. Quotes need no auth;
+     * the reply only tells the client whether user messages will be delivered.
+     */
+    private void authenticate(WebSocketSession session, String token) throws IOException {
+        QuoteSessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox == null) {
+            return;
+        }
+        AuthenticatedUser user = authenticator == null ? null : authenticator.authenticate(token);
+        unbindUser(session.getId());
+        if (user != null) {
+            sessionUsers.put(session.getId(), user.id());
+            sessionsByUser.computeIfAbsent(user.id(), key -> ConcurrentHashMap.newKeySet()).add(session.getId());
+        }
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", "auth");
+        reply.put("authenticated", user != null);
+        outbox.offerFrame(new TextMessage(objectMapper.writeValueAsBytes(reply)));
+    }
+
+    private void unbindUser(String sessionId) {
+        Long userId = sessionUsers.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        sessionsByUser.computeIfPresent(userId, (key, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    /**
+     * Queue a JSON message on every open session authenticated as {@code userId}. User messages are
+     * never conflated and are sent as text frames even on binary-protocol sessions.
+     *
+     * @return number of sessions the message was queued on
+     */
+    public int sendToUser(Long userId, Map<String, Object> message) {
+        Set<String> sessionIds = sessionsByUser.get(userId);
+        if (sessionIds == null || sessionIds.isEmpty()) {
+            return 0;
+        }
+        TextMessage frame;
+        try {
+            frame = new TextMessage(objectMapper.writeValueAsBytes(message));
+        } catch (IOException ex) {
+            System.err.println("❌ Could not encode user message: " + ex.getMessage());
+            return 0;
+        }
+        int queued = 0;
+        for (String sessionId : sessionIds) {
+            QuoteSessionOutbox outbox = outboxes.get(sessionId);
+            if (outbox != null && !outbox.isClosed()) {
+                outbox.offerFrame(frame);
+                queued++;
+            }
+        }
+        return queued;
     }
 
-    private void sendSnapshot(WebSocketSession session, Set<String> symbols) {
-        if (symbols == null || symbols.isEmpty()) {
+    private void unindex(String sessionId, Subscription subscription) {
+        if (subscription == null) {
+            return;
+        }
+        for (String symbol : subscription.symbols) {
+            sessionsBySymbol.computeIfPresent(symbol, (key, sessionIds) -> {
+                sessionIds.remove(sessionId);
+                return sessionIds.isEmpty() ? null : sessionIds;
+            });
+        }
+    }
+
+    private void sendSnapshot(WebSocketSession session, Subscription subscription) {
+        QuoteSessionOutbox outbox = outboxes.get(session.getId());
+        Set<String> symbols = subscription.symbols;
+        if (outbox == null || symbols.isEmpty()) {
             return;
         }
         try {
-            session.sendMessage(buildQuotesMessage(symbols));
+            EncodedQuotes encoded = encodeQuotes(symbols, !subscription.binary, subscription.binary);
+            Map<String, byte[]> fragments = encoded.fragmentsFor(subscription);
+            QuoteFrames.Kind kind = subscription.delta ? QuoteFrames.Kind.SNAPSHOT : QuoteFrames.Kind.FULL;
+            announce(outbox, subscription, symbols, fragments);
+            subscription.markSent(symbols, published);
+            subscription.recordFrame(
+                frameLength(subscription.binary, kind, symbols, fragments),
+                frameLength(subscription.binary, QuoteFrames.Kind.FULL, symbols, fragments)
+            );
+            outbox.offerQuotes(symbols, fragments, () -> assembleFrame(subscription.binary, kind, symbols, fragments));
         } catch (IOException ex) {
-            sessions.remove(session.getId());
-            subscriptions.remove(session.getId());
+            removeSession(session);
+        } catch (RuntimeException ex) {
+            System.err.println("❌ Quote snapshot failed for session " + session.getId() + ": " + ex.getMessage());
         }
     }
 
-    private void broadcastQuotes() {
-        for (Map.Entry<String, WebSocketSession> entry : sessions.entrySet()) {
+    /**
+     * Queue a dictionary frame ahead of quotes whose symbol ids a binary session has not been told yet.
+     */
+    private static void announce(QuoteSessionOutbox outbox, Subscription subscription, Set<String> symbols,
+                                 Map<String, byte[]> fragments) {
+        if (!subscription.binary) {
+            return;
+        }
+        List<String> unannounced = subscription.unannounced(symbols, fragments);
+        if (!unannounced.isEmpty()) {
+            outbox.offerFrame(BinaryQuoteFrames.dictionary(unannounced, fragments));
+        }
+    }
+
+    /**
+     * One broadcast tick: resolve the union of all subscribed symbols once, encode each quote once,
+     * then queue a frame assembled from the shared fragments on every session's outbox. Sessions with
+     * the same subscription set share the same frame instance. Sending happens off this thread.
+     *
+     * Delta-mode sessions only get symbols whose price/high/low changed since their last frame, plus a
+     * full snapshot every {@code app.quote-stream.delta-snapshot-ticks} ticks for resync.
+     */
+    void broadcastQuotes() {
+        long started = System.nanoTime();
+        Map<String, Subscription> targets = new HashMap<>();
+        Set<String> union = new HashSet<>();
+        boolean anyJson = false;
+        boolean anyBinary = false;
+        for (Map.Entry<String, QuoteSessionOutbox> entry : outboxes.entrySet()) {
             String sessionId = entry.getKey();
-            WebSocketSession session = entry.getValue();
-            if (!session.isOpen()) {
-                sessions.remove(sessionId);
-                subscriptions.remove(sessionId);
+            QuoteSessionOutbox outbox = entry.getValue();
+            if (outbox.isClosed() || !outbox.session().isOpen()) {
+                removeSession(sessionId);
                 continue;
             }
 
-            Set<String> symbols = subscriptions.get(sessionId);
-            if (symbols == null || symbols.isEmpty()) {
+            Subscription subscription = subscriptions.get(sessionId);
+            if (subscription == null || subscription.symbols.isEmpty()) {
                 continue;
             }
+            targets.put(sessionId, subscription);
+            union.addAll(subscription.symbols);
+            anyBinary |= subscription.binary;
+            anyJson |= !subscription.binary;
+        }
+        binaryFrames.retainOnly(sessionsBySymbol.keySet());
+        if (targets.isEmpty()) {
+            return;
+        }
 
-            try {
-                session.sendMessage(buildQuotesMessage(symbols));
-            } catch (Exception ex) {
-                sessions.remove(sessionId);
-                subscriptions.remove(sessionId);
+        EncodedQuotes encoded;
+        try {
+            encoded = encodeQuotes(union, anyJson, anyBinary);
+        } catch (Exception ex) {
+            System.err.println("❌ Quote broadcast tick failed: " + ex.getMessage());
+            return;
+        }
+
+        Map<FrameKey, WebSocketMessage<?>> frames = new HashMap<>();
+        for (Map.Entry<String, Subscription> target : targets.entrySet()) {
+            QuoteSessionOutbox outbox = outboxes.get(target.getKey());
+            if (outbox == null) {
+                continue;
+            }
+
+            Subscription subscription = target.getValue();
+            Map<String, byte[]> fragments = encoded.fragmentsFor(subscription);
+            int fullLength = frameLength(subscription.binary, QuoteFrames.Kind.FULL, subscription.symbols, fragments);
+            QuoteFrames.Kind kind = QuoteFrames.Kind.FULL;
+            Set<String> symbols = subscription.symbols;
+            if (subscription.delta) {
+                boolean snapshot = subscription.nextTickIsSnapshot(deltaSnapshotTicks);
+                kind = snapshot ? QuoteFrames.Kind.SNAPSHOT : QuoteFrames.Kind.DELTA;
+                symbols = snapshot ? subscription.symbols : subscription.changedSince(published, fragments);
+                subscription.markSent(symbols, published);
+            }
+            if (symbols.isEmpty()) {
+                subscription.recordFrame(0, fullLength);
+                continue;
             }
+
+            FrameKey key = new FrameKey(subscription.binary, kind, symbols);
+            subscription.recordFrame(frameLength(subscription.binary, kind, symbols, fragments), fullLength);
+            announce(outbox, subscription, symbols, fragments);
+            outbox.offerQuotes(symbols, fragments,
+                () -> frames.computeIfAbsent(key, k -> assembleFrame(k.binary(), k.kind(), k.symbols(), fragments)));
         }
+
+        long elapsed = System.nanoTime() - started;
+        ticks.increment();
+        lastTick = new BroadcastStats(targets.size(), union.size(), frames.size(), elapsed / 1_000_000.0, ticks.sum());
     }
 
-    private TextMessage buildQuotesMessage(Set<String> symbols) throws IOException {
-        List<Map<String, Object>> quotes = new ArrayList<>();
+    /**
+     * Push a refreshed quote to its subscribers as soon as it lands rather than on the next tick.
+     * Runs on the quote event dispatcher. Delta sessions get a one-symbol delta frame; full sessions get
+     * a one-symbol full frame, which clients merge into their last snapshot like any other quotes frame.
+     * The tick loop stays in place as the resync path and for reference-priced symbols.
+     */
+    void onQuoteUpdated(QuoteUpdated event) {
+        String symbol = event.symbol();
+        Set<String> sessionIds = sessionsBySymbol.get(symbol);
+        if (sessionIds == null || sessionIds.isEmpty()) {
+            return;
+        }
+
+        SimpleStockPriceService.StockPrice live = event.quote();
+        QuoteResolutionService.ResolvedQuote quote = new QuoteResolutionService.ResolvedQuote(
+            symbol, live.price(), live.high(), live.low(), live.date(), "LIVE");
+        EncodedQuotes encoded;
+        try {
+            encoded = encodeResolved(List.of(quote), true, true);
+        } catch (IOException ex) {
+            System.err.println("❌ Quote push failed for " + symbol + ": " + ex.getMessage());
+            return;
+        }
 
-        for (String symbol : symbols) {
-            QuoteResolutionService.ResolvedQuote quote = quoteResolutionService.resolve(symbol);
-            if (quote == null) {
+        // Counted first: an outbox may send on this thread, and a receiver of the frame should see the count
+        eventPushes.increment();
+        Set<String> symbols = Set.of(symbol);
+        Map<FrameKey, WebSocketMessage<?>> frames = new HashMap<>();
+        for (String sessionId : sessionIds) {
+            QuoteSessionOutbox outbox = outboxes.get(sessionId);
+            Subscription subscription = subscriptions.get(sessionId);
+            if (outbox == null || subscription == null || !subscription.symbols.contains(symbol)) {
                 continue;
             }
+            Map<String, byte[]> fragments = encoded.fragmentsFor(subscription);
+            QuoteFrames.Kind kind = subscription.delta ? QuoteFrames.Kind.DELTA : QuoteFrames.Kind.FULL;
+            subscription.markSent(symbols, published);
+            subscription.recordFrame(
+                frameLength(subscription.binary, kind, symbols, fragments),
+                frameLength(subscription.binary, QuoteFrames.Kind.FULL, symbols, fragments)
+            );
+            FrameKey key = new FrameKey(subscription.binary, kind, symbols);
+            announce(outbox, subscription, symbols, fragments);
+            outbox.offerQuotes(symbols, fragments,
+                () -> frames.computeIfAbsent(key, k -> assembleFrame(k.binary(), k.kind(), k.symbols(), fragments)));
+        }
+    }
+
+    public BroadcastStats getBroadcastStats() {
+        BroadcastStats stats = lastTick;
+        return stats != null ? stats : new BroadcastStats(0, 0, 0, 0.0, ticks.sum());
+    }
+
+    /**
+     * Number of quote updates pushed between ticks.
+     */
+    public long getEventPushes() {
+        return eventPushes.sum();
+    }
+
+    /**
+     * Per-session mode and bytes offered versus what full snapshots every tick would have cost.
+     */
+    public List<SessionStreamStats> getSessionStats() {
+        List<SessionStreamStats> stats = new ArrayList<>();
+        subscriptions.forEach((sessionId, subscription) -> stats.add(subscription.stats(sessionId)));
+        stats.sort(Comparator.comparing(SessionStreamStats::sessionId));
+        return stats;
+    }
 
-            quotes.add(Map.of(
-                "symbol", quote.symbol(),
-                "price", quote.price(),
-                "high", quote.high(),
-                "low", quote.low(),
-                "date", quote.date(),
-                "source", quote.source(),
-                "timestamp", Instant.now().toString()
-            ));
+    /**
+     * Current outbound buffer depth across sessions plus lifetime send/conflation/drop counters.
+     */
+    public OutboundStats getOutboundStats() {
+        int queued = 0;
+        int maxQueued = 0;
+        long queuedBytes = 0;
+        for (QuoteSessionOutbox outbox : outboxes.values()) {
+            int depth = outbox.queuedMessages();
+            queued += depth;
+            maxQueued = Math.max(maxQueued, depth);
+            queuedBytes += outbox.queuedBytes();
         }
+        return new OutboundStats(
+            outboxes.size(),
+            queued,
+            maxQueued,
+            queuedBytes,
+            outboundCounters.sent.sum(),
+            outboundCounters.conflated.sum(),
+            outboundCounters.dropped.sum(),
+            outboundCounters.slowConsumerDisconnects.sum()
+        );
+    }
 
-        String payload = objectMapper.writeValueAsString(Map.of(
-            "type", "quotes",
-            "quotes", quotes
-        ));
-        return new TextMessage(payload);
+    /**
+     * Resolve {@code symbols} once and encode each quote in the wire formats that are needed.
+     */
+    private EncodedQuotes encodeQuotes(Set<String> symbols, boolean json, boolean binary) throws IOException {
+        return encodeResolved(quoteResolutionService.resolveAll(symbols).values(), json, binary);
+    }
+
+    private EncodedQuotes encodeResolved(Collection<QuoteResolutionService.ResolvedQuote> quotes, boolean json, boolean binary) throws IOException {
+        String timestamp = Instant.now().toString();
+        Map<String, byte[]> jsonFragments = new HashMap<>();
+        Map<String, byte[]> binaryFragments = new HashMap<>();
+        for (QuoteResolutionService.ResolvedQuote quote : quotes) {
+            if (json) {
+                jsonFragments.put(quote.symbol(), QuoteFrames.encodeFragment(objectMapper, quote, timestamp));
+            }
+            if (binary) {
+                // No fragment once the dictionary is full: binary sessions miss the symbol, nobody else notices
+                byte[] fragment = binaryFrames.encodeFragment(quote);
+                if (fragment != null) {
+                    binaryFragments.put(quote.symbol(), fragment);
+                }
+            }
+            published.compute(quote.symbol(), (symbol, previous) ->
+                previous != null && previous.sameValues(quote) ? previous : new PublishedQuote(quote, publishedVersions.incrementAndGet()));
+        }
+        return new EncodedQuotes(jsonFragments, binaryFragments);
+    }
+
+    private static WebSocketMessage<?> assembleFrame(boolean binary, QuoteFrames.Kind kind, Iterable<String> symbols, Map<String, byte[]> fragments) {
+        return binary
+            ? BinaryQuoteFrames.assemble(kind, symbols, fragments)
+            : QuoteFrames.assemble(kind, symbols, fragments);
+    }
+
+    private static int frameLength(boolean binary, QuoteFrames.Kind kind, Iterable<String> symbols, Map<String, byte[]> fragments) {
+        return binary
+            ? BinaryQuoteFrames.frameLength(symbols, fragments)
+            : QuoteFrames.frameLength(kind, symbols, fragments);
+    }
+
+    private static boolean isBinary(WebSocketSession session) {
+        return BinaryQuoteFrames.SUBPROTOCOL.equals(session.getAcceptedProtocol());
+    }
+
+    private QuoteFrames.Kind conflatedFrameKind(String sessionId) {
+        Subscription subscription = subscriptions.get(sessionId);
+        return subscription != null && subscription.delta ? QuoteFrames.Kind.DELTA : QuoteFrames.Kind.FULL;
+    }
+
+    private static ExecutorService newSenderPool() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "quote-stream-sender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Outcome of the most recent broadcast tick.
+     */
+    public record BroadcastStats(int sessions, int symbols, int distinctFrames, double lastTickMs, long ticks) {}
+
+    public record SessionStreamStats(
+        String sessionId,
+        String mode,
+        String protocol,
+        int symbols,
+        long frames,
+        long bytesSent,
+        long fullSnapshotBytes,
+        double bandwidthSavedPercent
+    ) {}
+
+    public record OutboundStats(
+        int sessions,
+        int queuedMessages,
+        int maxSessionQueuedMessages,
+        long queuedBytes,
+        long sent,
+        long conflated,
+        long dropped,
+        long slowConsumerDisconnects
+    ) {}
+
+    private record FrameKey(boolean binary, QuoteFrames.Kind kind, Set<String> symbols) {}
+
+    private record EncodedQuotes(Map<String, byte[]> json, Map<String, byte[]> binary) {
+        Map<String, byte[]> fragmentsFor(Subscription subscription) {
+            return subscription.binary ? binary : json;
+        }
+    }
+
+    /**
+     * Last published price/high/low per symbol; the version increases whenever any of them changes.
+     */
+    private record PublishedQuote(BigDecimal price, BigDecimal high, BigDecimal low, long version) {
+        PublishedQuote(QuoteResolutionService.ResolvedQuote quote, long version) {
+            this(quote.price(), quote.high(), quote.low(), version);
+        }
+
+        boolean sameValues(QuoteResolutionService.ResolvedQuote quote) {
+            return sameNumber(price, quote.price()) && sameNumber(high, quote.high()) && sameNumber(low, quote.low());
+        }
+
+        private static boolean sameNumber(BigDecimal a, BigDecimal b) {
+            return a == null ? b == null : b != null && a.compareTo(b) == 0;
+        }
+    }
+
+    /**
+     * One session's subscription. Replaced wholesale on every subscribe message; the delta bookkeeping
+     * is touched by the subscribe thread and the tick thread, hence synchronized.
+     */
+    private static final class Subscription {
+        final Set<String> symbols;
+        final boolean delta;
+        final boolean binary;
+        private final Map<String, Long> sentVersions = new HashMap<>();
+        private final Map<String, Integer> announcedIds = new HashMap<>();
+        private int ticksSinceSnapshot;
+        private long frames;
+        private long bytesSent;
+        private long fullSnapshotBytes;
+
+        Subscription(Set<String> symbols, boolean delta, boolean binary) {
+            this.symbols = symbols;
+            this.delta = delta;
+            this.binary = binary;
+        }
+
+        synchronized boolean nextTickIsSnapshot(int snapshotEveryTicks) {
+            ticksSinceSnapshot++;
+            if (ticksSinceSnapshot >= Math.max(1, snapshotEveryTicks)) {
+                ticksSinceSnapshot = 0;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized Set<String> changedSince(Map<String, PublishedQuote> published, Map<String, byte[]> fragments) {
+            Set<String> changed = new LinkedHashSet<>();
+            for (String symbol : symbols) {
+                PublishedQuote quote = published.get(symbol);
+                if (quote != null && fragments.containsKey(symbol) && quote.version() != sentVersions.getOrDefault(symbol, -1L)) {
+                    changed.add(symbol);
+                }
+            }
+            return changed;
+        }
+
+        synchronized void markSent(Set<String> sentSymbols, Map<String, PublishedQuote> published) {
+            if (!delta) {
+                return;
+            }
+            for (String symbol : sentSymbols) {
+                PublishedQuote quote = published.get(symbol);
+                if (quote != null) {
+                    sentVersions.put(symbol, quote.version());
+                }
+            }
+        }
+
+        /**
+         * Symbols among {@code sentSymbols} whose binary id was never announced to this session or has
+         * changed since; they count as announced from now on.
+         */
+        synchronized List<String> unannounced(Set<String> sentSymbols, Map<String, byte[]> fragments) {
+            List<String> unannounced = new ArrayList<>();
+            for (String symbol : sentSymbols) {
+                byte[] fragment = fragments.get(symbol);
+                if (fragment != null) {
+                    Integer id = BinaryQuoteFrames.fragmentId(fragment);
+                    if (!id.equals(announcedIds.put(symbol, id))) {
+                        unannounced.add(symbol);
+                    }
+                }
+            }
+            return unannounced;
+        }
+
+        synchronized void recordFrame(int bytes, int fullBytes) {
+            if (bytes > 0) {
+                frames++;
+            }
+            bytesSent += bytes;
+            fullSnapshotBytes += fullBytes;
+        }
+
+        synchronized SessionStreamStats stats(String sessionId) {
+            double saved = fullSnapshotBytes == 0 ? 0.0 : 100.0 * (fullSnapshotBytes - bytesSent) / fullSnapshotBytes;
+            return new SessionStreamStats(sessionId, delta ? "delta" : "full", binary ? "binary" : "json",
+                symbols.size(), frames, bytesSent, fullSnapshotBytes, saved);
+        }
     }
 }
@@ -0,0 +1,8 @@
+package com.example.trading.service;
+
+/**
+ * Published on the {@link QuoteEventBus} whenever a live quote refresh changes a symbol's price, high or low.
+ *
+ * @param publishedAtNanos {@link System#nanoTime()} at publication, for end-to-end latency measurement
+ */
+public record QuoteUpdated(String symbol, SimpleStockPriceService.StockPrice quote, long publishedAtNanos) {}
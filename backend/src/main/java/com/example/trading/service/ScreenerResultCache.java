@@ -0,0 +1,98 @@
+package com.example.trading.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived cache of /api/screener results keyed by query and price range.
+ *
+ * An entry remembers every symbol that matched the text query (before the price filter), and is
+ * evicted as soon as a {@link QuoteUpdated} arrives for any of them, since a price move can change
+ * both the prices shown and which symbols pass the range. The TTL only bounds staleness from
+ * changes to the stock table itself.
+ */
+@Service
+public class ScreenerResultCache {
+
+    private static final int MAX_ENTRIES = 1_000;
+
+    @Value("${app.screener.cache-ttl-seconds:30}")
+    private long ttlSeconds = 30;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ScreenerResultCache(QuoteEventBus quoteEventBus) {
+        if (quoteEventBus != null) {
+            quoteEventBus.subscribe("screener-cache", this::onQuoteUpdated);
+        }
+    }
+
+    public static Key key(String query, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        return new Key(query, normalize(minPrice), normalize(maxPrice), limit);
+    }
+
+    public List<Map<String, Object>> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isExpired(ttlSeconds)) {
+            if (entry != null) {
+                entries.remove(key, entry);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.results;
+    }
+
+    /**
+     * @param matchedSymbols normalized symbols that matched the text query, whether or not they passed the price range
+     */
+    public void put(Key key, Set<String> matchedSymbols, List<Map<String, Object>> results) {
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(entry -> entry.isExpired(ttlSeconds));
+            if (entries.size() >= MAX_ENTRIES) {
+                return;
+            }
+        }
+        entries.put(key, new Entry(Set.copyOf(matchedSymbols), List.copyOf(results), System.currentTimeMillis()));
+    }
+
+    void onQuoteUpdated(QuoteUpdated event) {
+        String symbol = event.symbol();
+        entries.entrySet().removeIf(entry -> {
+            if (entry.getValue().symbols.contains(symbol)) {
+                invalidations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(entries.size(), hits.sum(), misses.sum(), invalidations.sum());
+    }
+
+    private static BigDecimal normalize(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros();
+    }
+
+    public record Key(String query, BigDecimal minPrice, BigDecimal maxPrice, int limit) {}
+
+    public record CacheStats(int entries, long hits, long misses, long invalidations) {}
+
+    private record Entry(Set<String> symbols, List<Map<String, Object>> results, long createdAt) {
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - createdAt > ttlSeconds * 1000;
+        }
+    }
+}
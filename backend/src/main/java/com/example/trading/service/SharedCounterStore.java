@@ -0,0 +1,28 @@
+package com.example.trading.service;
+
+/**
+ * Request counts shared by every backend replica, per key and fixed window. Windows are
+ * {@code windowMillis} long and aligned to the epoch, so every replica agrees on the window index.
+ * Selected with {@code app.shared-counters.store}; without it each replica counts on its own.
+ */
+public interface SharedCounterStore {
+
+    /**
+     * Reserve up to {@code requested} requests of {@code limit} for {@code key} in {@code window}. With
+     * a positive {@code previousWeight} that share of the previous window's count is held against the
+     * limit too (sliding-window estimate).
+     */
+    Grant acquire(String key, long window, long windowMillis, int limit, int requested, double previousWeight);
+
+    /**
+     * Requests reserved for {@code key} in {@code window} by all replicas, plus {@code previousWeight} of
+     * the previous window's count.
+     */
+    int used(String key, long window, double previousWeight);
+
+    /**
+     * @param granted requests reserved by this call, between 0 and the number requested
+     * @param used the key's count after this call, as {@link #used} would report it
+     */
+    record Grant(int granted, int used) {}
+}
@@ -0,0 +1,236 @@
+package com.example.trading.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide limits on top of a {@link SharedCounterStore}, used by {@link ApiUsageTracker} and
+ * {@link PublicRateLimiterService} when {@code app.shared-counters.store} is set.
+ *
+ * Each replica reserves a lease of {@code app.shared-counters.lease-percent} of a key's limit at a
+ * time and spends it locally with a compare-and-set, so only one request per lease reaches the store.
+ * Tokens leased but not spent by the end of a window are lost, so across N replicas up to N leases
+ * fewer than the limit may actually be used. After the store refuses a lease the key is denied
+ * locally for {@code app.shared-counters.denied-recheck-ms}. When the store cannot be reached, each
+ * replica falls back to counting the limit on its own.
+ */
+@Service
+@ConditionalOnProperty(name = "app.shared-counters.store")
+public class SharedRateLimiter {
+
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long WINDOW_MASK = (1L << (64 - TOKEN_BITS)) - 1;
+    private static final long SWEEP_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final SharedCounterStore store;
+    private final LongSupplier clockMillis;
+
+    @Value("${app.shared-counters.lease-percent:5}")
+    private double leasePercent = 5;
+
+    @Value("${app.shared-counters.denied-recheck-ms:1000}")
+    private long deniedRecheckMs = 1000;
+
+    @Value("${app.shared-counters.usage-refresh-ms:5000}")
+    private long usageRefreshMs = 5000;
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt;
+    private final LongAdder localGrants = new LongAdder();
+    private final LongAdder leasesGranted = new LongAdder();
+    private final LongAdder leasesRefused = new LongAdder();
+    private final LongAdder storeErrors = new LongAdder();
+    private final LongAdder fallbackDecisions = new LongAdder();
+
+    @Autowired
+    public SharedRateLimiter(SharedCounterStore store) {
+        this(store, System::currentTimeMillis);
+    }
+
+    SharedRateLimiter(SharedCounterStore store, LongSupplier clockMillis) {
+        this.store = store;
+        this.clockMillis = clockMillis;
+        this.nextSweepAt = new AtomicLong(clockMillis.getAsLong() + SWEEP_INTERVAL_MS);
+    }
+
+    /**
+     * Count one request against the cluster-wide {@code limit} for {@code key} per {@code windowMillis}.
+     * Sliding limits also hold the overlapping share of the previous window against the limit.
+     */
+    public boolean tryAcquire(String key, int limit, long windowMillis, boolean sliding) {
+        long now = clockMillis.getAsLong();
+        long window = now / windowMillis;
+        sweepIfDue(now);
+        Lease lease = leases.computeIfAbsent(key, ignored -> new Lease(windowMillis));
+        if (lease.tryTake(window)) {
+            localGrants.increment();
+            return true;
+        }
+        return refill(key, lease, limit, now, window, sliding);
+    }
+
+    /**
+     * Requests counted for {@code key} in the current window by every replica, as of the last store
+     * read (at most {@code app.shared-counters.usage-refresh-ms} old). Unspent leases of other replicas
+     * count as used.
+     */
+    public int used(String key, int limit, long windowMillis, boolean sliding) {
+        long now = clockMillis.getAsLong();
+        long window = now / windowMillis;
+        Lease lease = leases.computeIfAbsent(key, ignored -> new Lease(windowMillis));
+        if (lease.usedWindow != window || now - lease.usedReadAt >= usageRefreshMs) {
+            try {
+                lease.recordUsed(store.used(key, window, sliding ? previousWeight(now, windowMillis) : 0), window, now);
+            } catch (RuntimeException e) {
+                storeErrors.increment();
+                return lease.usedWindow == window ? lease.used : lease.fallback(clockMillis).fixedCount();
+            }
+        }
+        return Math.max(0, lease.used - lease.tokens(window));
+    }
+
+    public SharedLimiterStats getStats() {
+        return new SharedLimiterStats(
+            store.getClass().getSimpleName(),
+            leases.size(),
+            localGrants.sum(),
+            leasesGranted.sum(),
+            leasesRefused.sum(),
+            storeErrors.sum(),
+            fallbackDecisions.sum()
+        );
+    }
+
+    private boolean refill(String key, Lease lease, int limit, long now, long window, boolean sliding) {
+        synchronized (lease) {
+            if (lease.tryTake(window)) {
+                localGrants.increment();
+                return true;
+            }
+            if (lease.deniedWindow == window && now < lease.deniedUntil) {
+                return false;
+            }
+            SharedCounterStore.Grant grant;
+            try {
+                grant = store.acquire(key, window, lease.windowMillis, limit, leaseSize(limit),
+                    sliding ? previousWeight(now, lease.windowMillis) : 0);
+            } catch (RuntimeException e) {
+                storeErrors.increment();
+                fallbackDecisions.increment();
+                SlidingWindowCounter fallback = lease.fallback(clockMillis);
+                return sliding ? fallback.tryAcquireSliding(limit) : fallback.tryAcquireFixed(limit);
+            }
+            lease.recordUsed(grant.used(), window, now);
+            if (grant.granted() == 0) {
+                leasesRefused.increment();
+                lease.deniedWindow = window;
+                lease.deniedUntil = now + deniedRecheckMs;
+                return false;
+            }
+            leasesGranted.increment();
+            // The first token of the new lease is this request's
+            lease.state.set(pack(window, grant.granted() - 1));
+            return true;
+        }
+    }
+
+    private int leaseSize(int limit) {
+        return (int) Math.min(TOKEN_MASK, Math.max(1, (long) Math.floor(limit * leasePercent / 100.0)));
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweepAt.get();
+        if (now < due || !nextSweepAt.compareAndSet(due, now + SWEEP_INTERVAL_MS)) {
+            return;
+        }
+        leases.values().removeIf(lease -> lease.isIdle(now));
+    }
+
+    private static double previousWeight(long now, long windowMillis) {
+        return (windowMillis - now % windowMillis) / (double) windowMillis;
+    }
+
+    private static long pack(long window, long tokens) {
+        return ((window & WINDOW_MASK) << TOKEN_BITS) | tokens;
+    }
+
+    /**
+     * This replica's unspent tokens for one key, packed with the window they belong to.
+     */
+    private static final class Lease {
+        final long windowMillis;
+        final AtomicLong state = new AtomicLong();
+        long deniedWindow = -1;
+        long deniedUntil;
+        volatile int used;
+        volatile long usedWindow = -1;
+        volatile long usedReadAt;
+        private SlidingWindowCounter fallback;
+
+        Lease(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        boolean tryTake(long window) {
+            while (true) {
+                long seen = state.get();
+                if ((seen >>> TOKEN_BITS) != (window & WINDOW_MASK) || (seen & TOKEN_MASK) == 0) {
+                    return false;
+                }
+                if (state.compareAndSet(seen, seen - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        int tokens(long window) {
+            long seen = state.get();
+            return (seen >>> TOKEN_BITS) == (window & WINDOW_MASK) ? (int) (seen & TOKEN_MASK) : 0;
+        }
+
+        void recordUsed(int used, long window, long now) {
+            this.used = used;
+            this.usedWindow = window;
+            this.usedReadAt = now;
+        }
+
+        boolean isIdle(long now) {
+            long window = now / windowMillis;
+            return ((state.get() >>> TOKEN_BITS) & WINDOW_MASK) < (window & WINDOW_MASK) - 1
+                && usedWindow < window - 1
+                && deniedWindow < window - 1;
+        }
+
+        synchronized SlidingWindowCounter fallback(LongSupplier clockMillis) {
+            if (fallback == null) {
+                fallback = new SlidingWindowCounter(TimeUnit.MILLISECONDS.toNanos(windowMillis),
+                    () -> TimeUnit.MILLISECONDS.toNanos(clockMillis.getAsLong()));
+            }
+            return fallback;
+        }
+    }
+
+    /**
+     * @param localGrants requests admitted from a local lease without touching the store
+     * @param fallbackDecisions requests decided by local counting while the store was unreachable
+     */
+    public record SharedLimiterStats(
+        String store,
+        int trackedKeys,
+        long localGrants,
+        long leasesGranted,
+        long leasesRefused,
+        long storeErrors,
+        long fallbackDecisions
+    ) {}
+}
@@ -2,13 +2,19 @@ package com.example.trading.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.regex.Pattern;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Stock price service using live market quote APIs.
@@ -17,16 +23,78 @@ import java.util.*;
 @Service
 public class SimpleStockPriceService {
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ProviderHttpClient httpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     @Value("${stock.api.key:demo}")
     private String alphaVantageApiKey;
+
+    @Value("${quote.yahoo.base-url:https://query1.finance.yahoo.com}")
+    private String yahooBaseUrl = "https://query1.finance.yahoo.com";
     
-    // Real-time market data cache (per-session, not persistent)
-    private static final Map<String, PriceData> priceCache = new HashMap<>();
-    private static final long CACHE_DURATION_MS = 300000; // 5 minutes
+    @Value("${app.price-cache.max-entries:10000}")
+    private int priceCacheMaxEntries = 10_000;
+
+    @Value("${app.price-cache.ttl-ms:300000}")
+    private long priceCacheTtlMs = 300_000; // 5 minutes
+
+    @Value("${app.price-cache.refresh-ahead-ms:60000}")
+    private long priceCacheRefreshAheadMs = 60_000;
+
+    @Value("${app.price-cache.stale-grace-ms:120000}")
+    private long priceCacheStaleGraceMs = 120_000;
+
+    private static final int YAHOO_BATCH_SIZE = 50; // symbols per /v7/finance/quote request
     private static final Pattern TICKER_PATTERN = Pattern.compile("^[A-Z]{1,5}(\\.[A-Z]{1,2})?$");
+
+    // Real-time market data cache (per-process, not persistent); hot and recently expired symbols are
+    // reloaded in the background while the cached quote is served
+    private final ThreadPoolExecutor refreshExecutor = newRefreshExecutor();
+    private volatile BoundedTtlCache<String, StockPrice> priceCache = newPriceCache();
+
+    private QuoteEventBus quoteEventBus;
+    private ProviderQuotaPlanner quotaPlanner;
+
+    public SimpleStockPriceService() {
+        this(new ProviderHttpClient());
+    }
+
+    @Autowired
+    public SimpleStockPriceService(ProviderHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    SimpleStockPriceService(String yahooBaseUrl) {
+        this();
+        this.yahooBaseUrl = yahooBaseUrl;
+    }
+
+    @PostConstruct
+    void configurePriceCache() {
+        priceCache = newPriceCache();
+    }
+
+    @PreDestroy
+    void stopRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Refreshed quotes whose price, high or low changed are published here as {@link QuoteUpdated}.
+     */
+    @Autowired(required = false)
+    public void setQuoteEventBus(QuoteEventBus quoteEventBus) {
+        this.quoteEventBus = quoteEventBus;
+    }
+
+    /**
+     * When set, the Alpha Vantage fallback shares the history fetcher's daily Alpha Vantage budget and
+     * is only called when the plan admits it; Yahoo has no tracked quota.
+     */
+    @Autowired(required = false)
+    public void setQuotaPlanner(ProviderQuotaPlanner quotaPlanner) {
+        this.quotaPlanner = quotaPlanner;
+    }
     
     /**
      * Get current price for a stock symbol
@@ -39,68 +107,177 @@ public class SimpleStockPriceService {
         }
         
         // Check cache first
-        PriceData cached = priceCache.get(upperSymbol);
-        if (cached != null && !cached.isExpired()) {
-            return cached.price;
+        StockPrice cached = priceCache.get(upperSymbol);
+        if (cached != null) {
+            return cached;
         }
-        
-        StockPrice yahooPrice = tryYahooQuote(upperSymbol);
-        if (yahooPrice != null) {
-            cachePrice(upperSymbol, yahooPrice);
-            return yahooPrice;
+
+        // No synthetic pricing: null when live providers are unavailable.
+        return loadAndCache(upperSymbol, ProviderQuotaPlanner.Need.STALE);
+    }
+
+    /**
+     * Get current prices for many symbols at once.
+     * Cache misses are fetched from Yahoo in chunks of {@value #YAHOO_BATCH_SIZE} symbols per request
+     * and written to the cache together; only symbols Yahoo did not return fall back to Alpha Vantage.
+     * Invalid or unpriced symbols are absent from the result.
+     */
+    public Map<String, StockPrice> getCurrentPrices(Collection<String> symbols) {
+        return lookupPrices(symbols, true);
+    }
+
+    /**
+     * Load quotes for {@code symbols} into the cache ahead of demand: cached symbols are skipped and
+     * misses are fetched in Yahoo batches only, without the per-symbol Alpha Vantage fallback whose
+     * small daily quota is kept for user requests. Returns the quotes now cached.
+     */
+    public Map<String, StockPrice> prefetchPrices(Collection<String> symbols) {
+        return lookupPrices(symbols, false);
+    }
+
+    private Map<String, StockPrice> lookupPrices(Collection<String> symbols, boolean alphaVantageFallback) {
+        Map<String, StockPrice> result = new LinkedHashMap<>();
+        if (symbols == null || symbols.isEmpty()) {
+            return result;
         }
 
-        // Try to fetch from Alpha Vantage - this validates if symbol is real
-        StockPrice price = tryAlphaVantageQuote(upperSymbol);
-        if (price != null) {
-            cachePrice(upperSymbol, price);
-            return price;
+        Set<String> missed = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            String upperSymbol = normalizeSymbol(symbol);
+            if (!isValidSymbol(upperSymbol) || result.containsKey(upperSymbol)) {
+                continue;
+            }
+            StockPrice cached = priceCache.get(upperSymbol);
+            if (cached != null) {
+                result.put(upperSymbol, cached);
+            } else {
+                missed.add(upperSymbol);
+            }
+        }
+
+        List<String> misses = new ArrayList<>(missed);
+        for (int from = 0; from < misses.size(); from += YAHOO_BATCH_SIZE) {
+            List<String> chunk = misses.subList(from, Math.min(from + YAHOO_BATCH_SIZE, misses.size()));
+            long started = System.nanoTime();
+            Map<String, StockPrice> fetched = tryYahooQuotes(chunk);
+            priceCache.recordLoad(System.nanoTime() - started, !fetched.isEmpty());
+            fetched.forEach((symbol, price) -> cachePrice(symbol, price, started));
+            result.putAll(fetched);
+        }
+
+        for (String symbol : misses) {
+            if (!alphaVantageFallback || result.containsKey(symbol)) {
+                continue;
+            }
+            long started = System.nanoTime();
+            StockPrice price = alphaVantageAdmitted(symbol, ProviderQuotaPlanner.Need.STALE) ? tryAlphaVantageQuote(symbol) : null;
+            priceCache.recordLoad(System.nanoTime() - started, price != null);
+            if (price != null) {
+                cachePrice(symbol, price, started);
+                result.put(symbol, price);
+            }
         }
+        return result;
+    }
+
+    /**
+     * Price cache size, hit rate, evictions, refresh-ahead and provider load-time counters.
+     */
+    public BoundedTtlCache.CacheStats getCacheStats() {
+        return priceCache.stats();
+    }
 
-        // No synthetic pricing: return null when live providers are unavailable.
-        return null;
+    /**
+     * Milliseconds since the provider returned {@code quote}.
+     */
+    public long ageMs(StockPrice quote) {
+        return Math.max(0L, System.currentTimeMillis() - quote.fetchedAtMs());
+    }
 
+    /**
+     * True when {@code quote} is past the cache TTL and was served from the stale grace window
+     * while a background refresh runs.
+     */
+    public boolean isStale(StockPrice quote) {
+        return ageMs(quote) > priceCacheTtlMs;
     }
+
+    /**
+     * Yahoo first, then Alpha Vantage (which also validates that the symbol is real).
+     * Runs on request threads for misses and on the refresh executor for refresh-ahead and
+     * stale-while-revalidate. A quote miss is {@code STALE} to the quota planner, since callers fall
+     * back to the reference price; a background refresh is {@code REFRESH}.
+     */
+    private StockPrice loadAndCache(String symbol, ProviderQuotaPlanner.Need need) {
+        long started = System.nanoTime();
+        StockPrice price = tryYahooQuote(symbol);
+        if (price == null && alphaVantageAdmitted(symbol, need)) {
+            price = tryAlphaVantageQuote(symbol);
+        }
+        priceCache.recordLoad(System.nanoTime() - started, price != null);
+        if (price != null) {
+            cachePrice(symbol, price, started);
+        }
+        return price;
+    }
+
+    private boolean alphaVantageAdmitted(String symbol, ProviderQuotaPlanner.Need need) {
+        return quotaPlanner == null || quotaPlanner.tryAcquire("ALPHA_VANTAGE", quotaPlanner.priorityFor(symbol, need));
+    }
+
         /**
          * Try to fetch live quote from Yahoo Finance (no API key required).
          */
         protected StockPrice tryYahooQuote(String symbol) {
+            return tryYahooQuotes(List.of(symbol)).get(symbol);
+        }
+
+        /**
+         * Fetch live quotes for several symbols with one Yahoo request (comma-separated symbols).
+         * Returns an empty map on failure; symbols without a market price are omitted.
+         */
+        protected Map<String, StockPrice> tryYahooQuotes(List<String> symbols) {
+            Map<String, StockPrice> quotes = new HashMap<>();
             try {
                 String url = String.format(
-                    "https://query1.finance.yahoo.com/v7/finance/quote?symbols=%s",
-                    symbol
+                    "%s/v7/finance/quote?symbols=%s",
+                    yahooBaseUrl,
+                    String.join(",", symbols)
                 );
 
-                String response = restTemplate.getForObject(url, String.class);
-                if (response == null) return null;
+                String response = httpClient.get("YAHOO", url);
+                if (response == null) return quotes;
 
                 JsonNode root = objectMapper.readTree(response);
                 JsonNode results = root.path("quoteResponse").path("result");
 
-                if (!results.isArray() || results.isEmpty()) {
-                    return null;
+                if (!results.isArray()) {
+                    return quotes;
                 }
 
-                JsonNode quote = results.get(0);
-                JsonNode marketPrice = quote.get("regularMarketPrice");
-                if (marketPrice == null || marketPrice.isNull()) {
-                    return null;
-                }
+                for (JsonNode quote : results) {
+                    String symbol = normalizeSymbol(quote.path("symbol").asText(""));
+                    JsonNode marketPrice = quote.get("regularMarketPrice");
+                    if (!symbols.contains(symbol) || marketPrice == null || marketPrice.isNull()) {
+                        continue;
+                    }
 
-                double price = marketPrice.asDouble();
-                double high = quote.path("regularMarketDayHigh").asDouble(price);
-                double low = quote.path("regularMarketDayLow").asDouble(price);
+                    double price = marketPrice.asDouble();
+                    double high = quote.path("regularMarketDayHigh").asDouble(price);
+                    double low = quote.path("regularMarketDayLow").asDouble(price);
 
-                return new StockPrice(
-                    symbol,
-                    new BigDecimal(String.format("%.2f", price)),
-                    new BigDecimal(String.format("%.2f", high)),
-                    new BigDecimal(String.format("%.2f", low)),
-                    LocalDate.now().toString()
-                );
+                    quotes.put(symbol, new StockPrice(
+                        symbol,
+                        new BigDecimal(String.format("%.2f", price)),
+                        new BigDecimal(String.format("%.2f", high)),
+                        new BigDecimal(String.format("%.2f", low)),
+                        LocalDate.now().toString()
+                    ));
+                }
+                return quotes;
             } catch (Exception e) {
-                System.out.println("Yahoo quote fetch failed for " + symbol + ": " + e.getMessage());
-                return null;
+                System.out.println("Yahoo quote fetch failed for " + String.join(",", symbols) + ": " + e.getMessage());
+                return quotes;
             }
         }
 
@@ -135,7 +312,7 @@ public class SimpleStockPriceService {
                 alphaVantageApiKey
             );
             
-            String response = restTemplate.getForObject(url, String.class);
+            String response = httpClient.get("ALPHA_VANTAGE", url);
             if (response == null) return null;
             
             JsonNode root = objectMapper.readTree(response);
@@ -170,15 +347,70 @@ public class SimpleStockPriceService {
         }
     }
     
-    private void cachePrice(String symbol, StockPrice price) {
-        priceCache.put(symbol, new PriceData(price, System.currentTimeMillis()));
+    /**
+     * @param loadStarted {@link System#nanoTime()} when the fetch began, so an older response that
+     *                    arrives late cannot replace a newer cached quote
+     */
+    private void cachePrice(String symbol, StockPrice price, long loadStarted) {
+        StockPrice previous = priceCache.put(symbol, price, loadStarted);
+        publishIfChanged(symbol, previous, price);
+    }
+
+    private void publishIfChanged(String symbol, StockPrice previous, StockPrice price) {
+        QuoteEventBus bus = quoteEventBus;
+        if (bus == null || (previous != null && sameValues(previous, price))) {
+            return;
+        }
+        bus.publish(new QuoteUpdated(symbol, price, System.nanoTime()));
+    }
+
+    private static boolean sameValues(StockPrice a, StockPrice b) {
+        return sameNumber(a.price(), b.price()) && sameNumber(a.high(), b.high()) && sameNumber(a.low(), b.low());
+    }
+
+    private static boolean sameNumber(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * Drop all cached quotes (benchmarks and tests).
+     */
+    void clearCache() {
+        priceCache.clear();
+    }
+
+    /**
+     * Age a cached quote past its TTL so the next lookup refetches it (tests).
+     */
+    void expireCachedPrice(String symbol) {
+        priceCache.expire(symbol);
+    }
+
+    private BoundedTtlCache<String, StockPrice> newPriceCache() {
+        return new BoundedTtlCache<>(priceCacheMaxEntries, priceCacheTtlMs, priceCacheRefreshAheadMs,
+            priceCacheStaleGraceMs, refreshExecutor, symbol -> loadAndCache(symbol, ProviderQuotaPlanner.Need.REFRESH),
+            System::currentTimeMillis);
     }
 
-    public record StockPrice(String symbol, BigDecimal price, BigDecimal high, BigDecimal low, String date) {}
+    /**
+     * Small bounded pool for background refreshes; when it is saturated the refresh is skipped and the
+     * entry is retried on a later hit, or expires and reloads on the request thread.
+     */
+    private static ThreadPoolExecutor newRefreshExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256), runnable -> {
+            Thread thread = new Thread(runnable, "price-refresh-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
 
-    private record PriceData(StockPrice price, long timestamp) {
-        boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > CACHE_DURATION_MS;
+    /**
+     * @param fetchedAtMs epoch millis when the provider answered; drives {@link #ageMs} and {@link #isStale}
+     */
+    public record StockPrice(String symbol, BigDecimal price, BigDecimal high, BigDecimal low, String date, long fetchedAtMs) {
+        public StockPrice(String symbol, BigDecimal price, BigDecimal high, BigDecimal low, String date) {
+            this(symbol, price, high, low, date, System.currentTimeMillis());
         }
     }
 }
@@ -0,0 +1,149 @@
+package com.example.trading.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free request counter over consecutive windows of a fixed length, measured on a monotonic
+ * nanosecond clock. The whole state is one {@code long}: the low 24 bits of the window index and the
+ * counts of the previous and current window (20 bits each), updated with compare-and-set.
+ *
+ * {@link #tryAcquireSliding} limits the sliding-window estimate: the current window's count plus the
+ * previous window's count weighted by how much of it still overlaps the last {@code window}. It keeps
+ * the burst across a window boundary at the limit instead of twice the limit. {@link #tryAcquireFixed}
+ * limits the current window's count alone, for quotas that reset at a boundary.
+ *
+ * A counter two or more windows behind the clock holds no information ({@link #isIdle}) and can be
+ * dropped. The window index wraps after 2^24 windows; a counter left idle for exactly a multiple of
+ * that would read its old counts again.
+ */
+final class SlidingWindowCounter {
+
+    static final int MAX_COUNT = (1 << 20) - 1;
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = MAX_COUNT;
+    private static final long WINDOW_MASK = (1L << 24) - 1;
+
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private final AtomicLong state = new AtomicLong();
+
+    SlidingWindowCounter(long windowNanos, LongSupplier nanoClock) {
+        if (windowNanos <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.windowNanos = windowNanos;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    long windowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * Count one request if the sliding-window estimate is below {@code limit}.
+     */
+    boolean tryAcquireSliding(int limit) {
+        return tryAcquire(limit, true, nanoClock.getAsLong());
+    }
+
+    /**
+     * As {@link #tryAcquireSliding(int)} at {@code nowNanos}, a reading the caller already took from
+     * this counter's clock.
+     */
+    boolean tryAcquireSliding(int limit, long nowNanos) {
+        return tryAcquire(limit, true, nowNanos);
+    }
+
+    /**
+     * Count one request if the current window has counted fewer than {@code limit}.
+     */
+    boolean tryAcquireFixed(int limit) {
+        return tryAcquire(limit, false, nanoClock.getAsLong());
+    }
+
+    /**
+     * Requests counted in the current window.
+     */
+    int fixedCount() {
+        long elapsed = elapsed();
+        return current(rolled(state.get(), elapsed / windowNanos));
+    }
+
+    /**
+     * Sliding-window estimate of requests in the last {@code window}, rounded up.
+     */
+    int slidingCount() {
+        long elapsed = elapsed();
+        return (int) Math.ceil(estimate(rolled(state.get(), elapsed / windowNanos), previousWeight(elapsed)));
+    }
+
+    boolean isIdle(long nowNanos) {
+        long window = elapsed(nowNanos) / windowNanos;
+        return ((window - (state.get() >>> (2 * COUNT_BITS))) & WINDOW_MASK) >= 2;
+    }
+
+    void reset() {
+        state.set(pack(elapsed() / windowNanos, 0, 0));
+    }
+
+    private boolean tryAcquire(int limit, boolean sliding, long nowNanos) {
+        int cap = Math.min(limit, MAX_COUNT);
+        long elapsed = elapsed(nowNanos);
+        long window = elapsed / windowNanos;
+        double previousWeight = sliding ? previousWeight(elapsed) : 0;
+        while (true) {
+            long seen = state.get();
+            long rolled = rolled(seen, window);
+            if (estimate(rolled, previousWeight) >= cap) {
+                return false;
+            }
+            if (state.compareAndSet(seen, rolled + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * {@code seen} moved forward to {@code window}: unchanged in the same window, the current count
+     * becomes the previous one a window later, and both are zero after that.
+     */
+    private static long rolled(long seen, long window) {
+        long behind = (window - (seen >>> (2 * COUNT_BITS))) & WINDOW_MASK;
+        if (behind == 0) {
+            return seen;
+        }
+        return pack(window, behind == 1 ? current(seen) : 0, 0);
+    }
+
+    private static double estimate(long state, double previousWeight) {
+        return previous(state) * previousWeight + current(state);
+    }
+
+    private double previousWeight(long elapsed) {
+        return (windowNanos - elapsed % windowNanos) / (double) windowNanos;
+    }
+
+    private long elapsed() {
+        return elapsed(nanoClock.getAsLong());
+    }
+
+    private long elapsed(long nowNanos) {
+        return Math.max(0, nowNanos - origin);
+    }
+
+    private static long pack(long window, int previous, int current) {
+        return ((window & WINDOW_MASK) << (2 * COUNT_BITS)) | ((long) previous << COUNT_BITS) | current;
+    }
+
+    private static int previous(long state) {
+        return (int) ((state >>> COUNT_BITS) & COUNT_MASK);
+    }
+
+    private static int current(long state) {
+        return (int) (state & COUNT_MASK);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.trading.service;
+
+import com.example.trading.model.StockDataCache;
+import com.example.trading.repository.StockDataCacheRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * One-shot startup migration of the history cache from LONGTEXT JSON rows to binary payloads.
+ *
+ * Hibernate's {@code ddl-auto=update} adds the {@code payload} column but never relaxes the legacy
+ * NOT NULL constraint on {@code data}, so that is dropped here before any binary-only row is written.
+ * Valid JSON rows are then re-encoded; expired ones simply age out.
+ *
+ * Runs as an {@link ApplicationRunner}, which Spring Boot completes before publishing
+ * {@code ApplicationReadyEvent}, so the schema change is done before {@link CacheWarmupService}
+ * starts writing binary rows on that event.
+ */
+@Service
+public class StockDataCacheMigration implements ApplicationRunner {
+
+    private static final String TABLE = "stock_data_cache";
+    private static final String LEGACY_COLUMN = "data";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockDataCacheRepository cacheRepository;
+    private final MultiProviderStockDataFetcher stockDataFetcher;
+
+    public StockDataCacheMigration(JdbcTemplate jdbcTemplate,
+                                   StockDataCacheRepository cacheRepository,
+                                   MultiProviderStockDataFetcher stockDataFetcher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheRepository = cacheRepository;
+        this.stockDataFetcher = stockDataFetcher;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            relaxLegacyDataColumn();
+            List<StockDataCache> legacyRows = cacheRepository.findValidLegacyJsonEntries();
+            for (StockDataCache row : legacyRows) {
+                stockDataFetcher.readCachedSeries(row);
+            }
+            if (!legacyRows.isEmpty()) {
+                System.out.println("💾 Migrated " + legacyRows.size() + " history cache rows from JSON to binary");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ History cache migration skipped: " + e.getMessage());
+        }
+    }
+
+    private void relaxLegacyDataColumn() {
+        Boolean notNull = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : List.of(TABLE, TABLE.toUpperCase())) {
+                for (String column : List.of(LEGACY_COLUMN, LEGACY_COLUMN.toUpperCase())) {
+                    try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+                        if (columns.next()) {
+                            return columns.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+
+        if (Boolean.TRUE.equals(notNull)) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " MODIFY COLUMN " + LEGACY_COLUMN + " LONGTEXT NULL");
+            System.out.println("💾 Relaxed NOT NULL on legacy " + TABLE + "." + LEGACY_COLUMN + " column");
+        }
+    }
+}
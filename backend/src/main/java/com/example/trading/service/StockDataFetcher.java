@@ -4,7 +4,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
@@ -13,7 +12,7 @@ import java.util.*;
 @Service
 public class StockDataFetcher {
     
-    private final RestTemplate restTemplate;
+    private final ProviderHttpClient httpClient;
     private final ObjectMapper objectMapper;
     
     @Value("${stock.api.key:demo}")  // Use demo key for free tier
@@ -23,8 +22,8 @@ public class StockDataFetcher {
     private final Map<String, CachedData> cache = new HashMap<>();
     private static final long CACHE_DURATION_MS = 60000; // 1 minute
     
-    public StockDataFetcher() {
-        this.restTemplate = new RestTemplate();
+    public StockDataFetcher(ProviderHttpClient httpClient) {
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
     }
     
@@ -43,7 +42,7 @@ public class StockDataFetcher {
                 symbol, apiKey
             );
             
-            String response = restTemplate.getForObject(url, String.class);
+            String response = httpClient.get("ALPHA_VANTAGE", url);
             JsonNode root = objectMapper.readTree(response);
             JsonNode quote = root.get("Global Quote");
             
@@ -69,7 +68,7 @@ public class StockDataFetcher {
             String url = "https://www.alphavantage.co/query" + params;
             System.out.println("Fetching from: " + url.replaceAll(apiKey, "***"));
             
-            String response = restTemplate.getForObject(url, String.class);
+            String response = httpClient.get("ALPHA_VANTAGE", url);
             System.out.println("Response: " + response.substring(0, Math.min(200, response.length())));
             
             JsonNode root = objectMapper.readTree(response);
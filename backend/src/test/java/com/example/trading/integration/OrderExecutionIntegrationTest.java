@@ -0,0 +1,292 @@
+package com.example.trading.integration;
+
+import com.example.trading.model.Order;
+import com.example.trading.model.Portfolio;
+import com.example.trading.model.Stock;
+import com.example.trading.model.User;
+import com.example.trading.repository.IdSequenceRepository;
+import com.example.trading.repository.OrderRepository;
+import com.example.trading.repository.PortfolioRepository;
+import com.example.trading.repository.StockRepository;
+import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.service.MatchingEngine;
+import com.example.trading.service.OrderExecutionService;
+import com.example.trading.service.OrderIdAllocator;
+import com.example.trading.service.OrderProjector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:orderexecution;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "app.journal.projection-attempts=2"
+})
+@ActiveProfiles("h2")
+class OrderExecutionIntegrationTest {
+
+    @Autowired
+    private OrderExecutionService orderExecution;
+
+    @Autowired
+    private UserRepository users;
+
+    @Autowired
+    private StockRepository stocks;
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Autowired
+    private PortfolioRepository portfolios;
+
+    @Autowired
+    private OrderProjector projector;
+
+    @Autowired
+    private MatchingEngine engine;
+
+    @Autowired
+    private IdSequenceRepository sequences;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentOrdersOfOneUserAreAllApplied() throws Exception {
+        AuthenticatedUser trader = trader("exec_concurrent");
+        stocks.save(new Stock("CONC", "Concurrent Inc", new BigDecimal("50.00")));
+        orderExecution.execute(trader, "CONC", 1_000, "BUY");
+
+        int threads = 8;
+        int ordersPerThread = 50;
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < ordersPerThread; i++) {
+                orderExecution.execute(trader, "CONC", i % 2 == 0 ? 2 : 1, i % 2 == 0 ? "BUY" : "SELL");
+            }
+        });
+
+        awaitProjected();
+        Portfolio position = position(trader, "CONC");
+        assertEquals(1_000 + threads * (ordersPerThread / 2), position.getQuantity());
+        assertEquals(0, new BigDecimal("50.00").compareTo(position.getAvgPrice()));
+        assertEquals(1 + threads * ordersPerThread, orders.findByUserId(trader.id()).size());
+    }
+
+    @Test
+    void racingFirstBuysShareOnePosition() throws Exception {
+        AuthenticatedUser trader = trader("exec_first_buy");
+        stocks.save(new Stock("FRST", "First Buy Corp", new BigDecimal("10.00")));
+
+        runConcurrently(4, thread -> orderExecution.execute(trader, "FRST", 5, "BUY"));
+        awaitProjected();
+
+        List<Portfolio> positions = portfolios.findByUserId(trader.id());
+        assertEquals(1, positions.size());
+        assertEquals(20, positions.get(0).getQuantity());
+    }
+
+    @Test
+    void buysAverageThePriceAndOversellsAreRejected() {
+        AuthenticatedUser trader = trader("exec_average");
+        Stock stock = stocks.save(new Stock("AVGP", "Average Price Ltd", new BigDecimal("100.00")));
+
+        orderExecution.execute(trader, "AVGP", 10, "BUY");
+        stock.setPrice(new BigDecimal("130.00"));
+        stocks.save(stock);
+        orderExecution.execute(trader, " avgp", 20, "BUY");
+
+        awaitProjected();
+        Portfolio position = position(trader, "AVGP");
+        assertEquals(30, position.getQuantity());
+        assertEquals(0, new BigDecimal("120.00").compareTo(position.getAvgPrice()));
+
+        assertThrows(IllegalArgumentException.class, () -> orderExecution.execute(trader, "AVGP", 31, "SELL"));
+        awaitProjected();
+        assertEquals(2, orders.findByUserId(trader.id()).size());
+
+        orderExecution.execute(trader, "AVGP", 30, "sell");
+        awaitProjected();
+        assertTrue(portfolios.findByUserId(trader.id()).isEmpty());
+    }
+
+    @Test
+    void restingLimitOrdersTradeBetweenUsersAndCanBeCancelled() {
+        AuthenticatedUser seller = trader("exec_limit_seller");
+        AuthenticatedUser buyer = trader("exec_limit_buyer");
+        Stock stock = stocks.save(new Stock("LIMT", "Limit Order plc", new BigDecimal("20.00")));
+        orderExecution.execute(seller, "LIMT", 10, "BUY");
+        stock.setPrice(new BigDecimal("25.00"));
+        stocks.save(stock);
+
+        Order ask = orderExecution.submit(seller, "LIMT", 10, "SELL", "LIMIT", new BigDecimal("26.00"));
+        assertEquals("PENDING", ask.getStatus());
+        // The resting ask already promises every share held
+        assertThrows(IllegalArgumentException.class,
+            () -> orderExecution.submit(seller, "LIMT", 1, "SELL", "LIMIT", new BigDecimal("30.00")));
+
+        // The house fills at the reference price, so a resting ask only trades once the price moves past it
+        stock.setPrice(new BigDecimal("27.00"));
+        stocks.save(stock);
+        Order bid = orderExecution.submit(buyer, "LIMT", 4, "BUY", "LIMIT", new BigDecimal("26.00"));
+        assertEquals("FILLED", bid.getStatus());
+        assertEquals(0, new BigDecimal("26.00").compareTo(bid.getPrice()));
+        awaitProjected();
+        assertEquals(4, position(buyer, "LIMT").getQuantity());
+        assertEquals(6, position(seller, "LIMT").getQuantity());
+
+        OrderExecutionService.Cancellation cancelled = orderExecution.cancel(seller, ask.getId());
+        assertEquals(6, cancelled.cancelledQuantity());
+        awaitProjected();
+        Order stored = orders.findById(ask.getId()).orElseThrow();
+        assertEquals("CANCELLED", stored.getStatus());
+        assertEquals(4, stored.getFilledQuantity());
+        assertThrows(IllegalArgumentException.class, () -> orderExecution.cancel(seller, ask.getId()));
+        assertThrows(NoSuchElementException.class, () -> orderExecution.cancel(buyer, ask.getId()));
+
+        orderExecution.execute(seller, "LIMT", 6, "SELL");
+        awaitProjected();
+        assertTrue(portfolios.findByUserId(seller.id()).isEmpty());
+        assertTrue(orderExecution.depth("limt", 10).asks().isEmpty());
+        assertThrows(NoSuchElementException.class, () -> orderExecution.depth("NOSUCH", 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> orderExecution.submit(buyer, "NOSUCH", 1, "BUY", "LIMIT", new BigDecimal("1.00")));
+    }
+
+    @Test
+    void aSoldOutPositionCanBeBoughtBackAndSoldAgain() {
+        AuthenticatedUser trader = trader("exec_rebuy");
+        stocks.save(new Stock("RBUY", "Rebuy Co", new BigDecimal("15.00")));
+        orderExecution.execute(trader, "RBUY", 10, "BUY");
+        awaitProjected();
+        orderExecution.execute(trader, "RBUY", 10, "SELL");
+        awaitProjected();
+
+        assertThrows(IllegalArgumentException.class, () -> orderExecution.execute(trader, "RBUY", 1, "SELL"));
+        orderExecution.execute(trader, "RBUY", 4, "BUY");
+        orderExecution.execute(trader, "RBUY", 4, "SELL");
+        awaitProjected();
+        orderExecution.execute(trader, "RBUY", 3, "BUY");
+        awaitProjected();
+        orderExecution.execute(trader, "RBUY", 3, "SELL");
+        awaitProjected();
+        assertTrue(portfolios.findByUserId(trader.id()).isEmpty());
+        assertEquals(6, orders.findByUserId(trader.id()).size());
+    }
+
+    @Test
+    void aCommandThatCannotBeProjectedIsQuarantined() {
+        AuthenticatedUser trader = trader("exec_poison");
+        stocks.save(new Stock("PSN", "Poison Pill Inc", new BigDecimal("5.00")));
+        long quarantinedBefore = projector.getStats().quarantinedEvents();
+
+        // No order row can hold this quantity, so applying it fails on every attempt
+        engine.submit("PSN", engine.nextOrderId(), trader.id(), true, 10_000, 3_000_000_000L, 0).join();
+        orderExecution.execute(trader, "PSN", 7, "BUY");
+
+        awaitProjected();
+        assertEquals(7, position(trader, "PSN").getQuantity());
+        assertEquals(1, orders.findByUserId(trader.id()).size());
+        OrderProjector.ProjectionStats stats = projector.getStats();
+        assertEquals(quarantinedBefore + 1, stats.quarantinedEvents());
+        assertEquals(3_000_000_000L, stats.quarantined().get(stats.quarantined().size() - 1).quantity());
+        assertEquals(0, stats.stalledMs());
+    }
+
+    @Test
+    void replicasNeverShareAnOrderId() throws Exception {
+        AuthenticatedUser trader = trader("exec_ids");
+        stocks.save(new Stock("IDS", "Unique Ids Ltd", new BigDecimal("3.00")));
+        OrderIdAllocator otherReplica = new OrderIdAllocator(sequences, orders, new MatchingEngine(1), transactionManager, 3);
+
+        Set<Long> ids = new HashSet<>();
+        runConcurrently(2, thread -> {
+            for (int i = 0; i < 20; i++) {
+                long id = thread == 0 ? orderExecution.execute(trader, "IDS", 1, "BUY").getId() : otherReplica.next();
+                synchronized (ids) {
+                    assertTrue(ids.add(id), "order id " + id + " handed out twice");
+                }
+            }
+        });
+    }
+
+    @Test
+    void anOrderIdTakenByAnotherOrderIsReportedNotSkipped() {
+        AuthenticatedUser first = trader("exec_collision_a");
+        AuthenticatedUser second = trader("exec_collision_b");
+        stocks.save(new Stock("COLL", "Collision Corp", new BigDecimal("8.00")));
+        Order accepted = orderExecution.execute(first, "COLL", 2, "BUY");
+        awaitProjected();
+        long quarantinedBefore = projector.getStats().quarantinedEvents();
+
+        engine.submit("COLL", accepted.getId(), second.id(), true, 1_000, 5, 800).join();
+        awaitProjected();
+
+        assertEquals(quarantinedBefore + 1, projector.getStats().quarantinedEvents());
+        assertEquals(first.id(), orders.findById(accepted.getId()).orElseThrow().getUserId());
+        assertTrue(portfolios.findByUserId(second.id()).isEmpty());
+    }
+
+    /** Orders and positions reach the database from the order journal, after the engine has answered. */
+    private void awaitProjected() {
+        try {
+            assertTrue(projector.awaitCaughtUp(10_000), "projection did not catch up");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+    }
+
+    private AuthenticatedUser trader(String username) {
+        return AuthenticatedUser.from(users.save(new User(username, "hash")));
+    }
+
+    private Portfolio position(AuthenticatedUser trader, String symbol) {
+        return portfolios.findByUserId(trader.id()).stream()
+            .filter(p -> p.getSymbol().equals(symbol))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.trading.integration;
+
+import com.example.trading.repository.SharedCounterRepository;
+import com.example.trading.service.ApiUsageTracker;
+import com.example.trading.service.DatabaseSharedCounterStore;
+import com.example.trading.service.PublicRateLimiterService;
+import com.example.trading.service.SharedCounterStore;
+import com.example.trading.service.SharedRateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "app.shared-counters.store=database",
+    "spring.datasource.url=jdbc:h2:mem:sharedcounters;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@ActiveProfiles("h2")
+class SharedCountersIntegrationTest {
+
+    @Autowired
+    private SharedCounterStore store;
+
+    @Autowired
+    private SharedCounterRepository counters;
+
+    @Autowired
+    private ApiUsageTracker apiUsageTracker;
+
+    @Autowired
+    private PublicRateLimiterService publicRateLimiterService;
+
+    @Test
+    void databaseStoreGrantsUpToTheLimitAcrossCalls() {
+        assertInstanceOf(DatabaseSharedCounterStore.class, store);
+
+        assertEquals(new SharedCounterStore.Grant(6, 6), store.acquire("test|grants", 42, 60_000, 10, 6, 0));
+        assertEquals(new SharedCounterStore.Grant(4, 10), store.acquire("test|grants", 42, 60_000, 10, 6, 0));
+        assertEquals(new SharedCounterStore.Grant(0, 10), store.acquire("test|grants", 42, 60_000, 10, 6, 0));
+        // Half of the previous window's 10 still count a window later
+        assertEquals(new SharedCounterStore.Grant(5, 10), store.acquire("test|grants", 43, 60_000, 10, 6, 0.5));
+        assertEquals(7, store.used("test|grants", 43, 0.2));
+        assertEquals(10, counters.findById("test|grants@42").orElseThrow().getUsed());
+    }
+
+    @Test
+    void providerQuotaIsSharedWithAnotherReplica() {
+        SharedRateLimiter otherReplica = new SharedRateLimiter(store);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(apiUsageTracker.recordRequest("ALPHA_VANTAGE"));
+        }
+        int admittedElsewhere = 0;
+        for (int i = 0; i < 10; i++) {
+            if (otherReplica.tryAcquire("provider|ALPHA_VANTAGE|daily", 25, 86_400_000, false)) {
+                admittedElsewhere++;
+            }
+        }
+
+        assertEquals(5, admittedElsewhere);
+        assertFalse(apiUsageTracker.recordRequest("ALPHA_VANTAGE"));
+        assertEquals(25, apiUsageTracker.getProviderMetrics("ALPHA_VANTAGE").dailyRequestCount());
+    }
+
+    @Test
+    void publicRateLimitIsCountedInTheSharedStore() {
+        // The h2 profile allows 8 public requests per minute
+        for (int i = 0; i < 8; i++) {
+            assertTrue(publicRateLimiterService.allow("10.0.0.9|GET|/api/stocks", 8, 60_000));
+        }
+        assertFalse(publicRateLimiterService.allow("10.0.0.9|GET|/api/stocks", 8, 60_000));
+        assertTrue(store.used("public|10.0.0.9|GET|/api/stocks", System.currentTimeMillis() / 60_000, 1.0) >= 8);
+    }
+}
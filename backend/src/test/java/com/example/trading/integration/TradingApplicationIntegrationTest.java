@@ -6,7 +6,12 @@ import com.example.trading.model.User;
 import com.example.trading.repository.ApiKeyRepository;
 import com.example.trading.repository.UserRepository;
 import com.example.trading.repository.StockRepository;
+import com.example.trading.service.HistoricalBarStore;
+import com.example.trading.service.HistoricalSeries;
 import com.example.trading.service.PublicRateLimiterService;
+import com.example.trading.service.QuoteEventBus;
+import com.example.trading.service.QuoteUpdated;
+import com.example.trading.service.SimpleStockPriceService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,8 +24,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -51,6 +58,12 @@ class TradingApplicationIntegrationTest {
     @Autowired
     private PublicRateLimiterService publicRateLimiterService;
 
+    @Autowired
+    private QuoteEventBus quoteEventBus;
+
+    @Autowired
+    private HistoricalBarStore historicalBarStore;
+
     @BeforeEach
     void setup() {
         stockRepository.deleteAll();
@@ -261,6 +274,38 @@ class TradingApplicationIntegrationTest {
             .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    void crossingQuoteFiresAlertOnceAndAuditsIt() throws Exception {
+        String token = registerAndLogin("alert_fire_user", "Pass123!");
+
+        mockMvc.perform(post("/api/alerts")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"symbol\":\"AMD\",\"conditionType\":\"BELOW\",\"targetPrice\":90}"))
+            .andExpect(status().isOk());
+
+        BigDecimal price = new BigDecimal("88.10");
+        quoteEventBus.publish(new QuoteUpdated("AMD",
+            new SimpleStockPriceService.StockPrice("AMD", price, price, price, "2026-02-14"), System.nanoTime()));
+
+        boolean deactivated = false;
+        for (int attempt = 0; attempt < 50 && !deactivated; attempt++) {
+            String alerts = mockMvc.perform(get("/api/alerts").param("symbol", "AMD")
+                    .header("Authorization", "Bearer " + token))
+                .andReturn().getResponse().getContentAsString();
+            deactivated = !objectMapper.readTree(alerts).path(0).path("active").asBoolean(true);
+            if (!deactivated) {
+                Thread.sleep(100);
+            }
+        }
+        org.junit.jupiter.api.Assertions.assertTrue(deactivated, "alert should be deactivated after firing");
+
+        mockMvc.perform(get("/api/audit")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.action == 'ALERT_TRIGGERED')]", hasSize(1)));
+    }
+
     @Test
     void analyticsEndpointsReturnPortfolioSummaryAndPerformance() throws Exception {
         String token = registerAndLogin("analytics_user", "Pass123!");
@@ -547,6 +592,33 @@ class TradingApplicationIntegrationTest {
             .andExpect(status().isTooManyRequests());
     }
 
+    @Test
+    void fullHistoryReplacesStoredBarsAndIncrementalRefreshesMergeIntoThem() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        HistoricalSeries.Builder full = HistoricalSeries.builder(1201);
+        for (int i = 0; i < 1200; i++) {
+            full.add(start.plusDays(i).toString(), BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN);
+        }
+        // A repeated date keeps its last row
+        full.add(start.toString(), BigDecimal.TWO, BigDecimal.TEN, BigDecimal.ONE, new BigDecimal("2.5000"));
+        historicalBarStore.replaceAll("BARS", "daily", full.build(), "TWELVEDATA");
+        historicalBarStore.replaceAll("BARS", "daily", full.build(), "TWELVEDATA");
+
+        HistoricalSeries stored = historicalBarStore.load("BARS", "daily", 5000);
+        assertEquals(1200, stored.size());
+        assertEquals(start.plusDays(1199), historicalBarStore.latestBarDate("BARS", "daily").orElseThrow());
+        int first = stored.size() - 1;
+        assertEquals(start.toEpochDay(), stored.epochDay(first));
+        assertEquals(HistoricalSeries.toScaled(new BigDecimal("2.5")), stored.closeScaled(first));
+
+        HistoricalSeries incremental = HistoricalSeries.builder(2)
+            .add(start.plusDays(1199).toString(), BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TWO)
+            .add(start.plusDays(1200).toString(), BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN)
+            .build();
+        assertEquals(2, historicalBarStore.merge("BARS", "daily", incremental, "FINNHUB"));
+        assertEquals(1201, historicalBarStore.load("BARS", "daily", 5000).size());
+    }
+
     private String registerAndLogin(String username, String password) throws Exception {
         mockMvc.perform(post("/api/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,131 @@
+package com.example.trading.service;
+
+import com.example.trading.model.AlertRule;
+import com.example.trading.model.User;
+import com.example.trading.repository.AlertRuleRepository;
+import com.example.trading.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AlertEvaluationServiceTest {
+
+    private AlertRuleRepository alertRules;
+    private AuditLogService auditLogService;
+    private QuoteStreamService quoteStream;
+    private QuoteEventBus bus;
+    private AlertEvaluationService engine;
+
+    @BeforeEach
+    void setUp() {
+        alertRules = mock(AlertRuleRepository.class);
+        UserRepository users = mock(UserRepository.class);
+        auditLogService = mock(AuditLogService.class);
+        quoteStream = mock(QuoteStreamService.class);
+        bus = new QuoteEventBus(Runnable::run);
+
+        User alice = new User("alice", "hash");
+        ReflectionTestUtils.setField(alice, "id", 7L);
+        when(users.findAllById(any())).thenReturn(List.of(alice));
+        when(alertRules.findByActiveTrue()).thenReturn(List.of(
+            rule(1L, "AAPL", "ABOVE", "110"),
+            rule(2L, "AAPL", "ABOVE", "120"),
+            rule(3L, "AAPL", "BELOW", "90"),
+            rule(4L, "AAPL", "BELOW", "80"),
+            rule(5L, "MSFT", "ABOVE", "50")
+        ));
+
+        engine = new AlertEvaluationService(alertRules, users, auditLogService, quoteStream, bus, Runnable::run, 1);
+        engine.loadActiveRules();
+    }
+
+    @Test
+    void quoteFiresOnlyTheRulesItCrossesAndEachRuleOnce() {
+        publish("AAPL", "100");
+        verifyNoInteractions(quoteStream);
+
+        publish("AAPL", "115.5");
+        assertEquals(List.of(1L), deactivatedIds());
+        verify(auditLogService).record(eq("alice"), eq("ALERT_TRIGGERED"), eq("ALERT_RULE"), eq("1"), eq("AAPL ABOVE 110 at 115.5"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> message = ArgumentCaptor.forClass(Map.class);
+        verify(quoteStream).sendToUser(eq(7L), message.capture());
+        assertEquals("alert", message.getValue().get("type"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> alert = (Map<String, Object>) message.getValue().get("alert");
+        assertEquals(1L, alert.get("id"));
+        assertEquals("ABOVE", alert.get("conditionType"));
+
+        publish("AAPL", "116");
+        publish("AAPL", "80");
+        assertEquals(List.of(3L, 4L), deactivatedIds().stream().sorted().toList());
+
+        AlertEvaluationService.AlertEngineStats stats = engine.getStats();
+        assertEquals(2, stats.indexedRules(), "rules 2 and 5 remain armed");
+        assertEquals(3, stats.triggered());
+        assertEquals(4, stats.quotesEvaluated());
+    }
+
+    @Test
+    void unregisteredRulesNeverFire() {
+        engine.unregister(rule(2L, "AAPL", "ABOVE", "120"));
+        AlertRule added = rule(6L, "AAPL", "ABOVE", "125");
+        engine.register(added);
+
+        publish("AAPL", "130");
+
+        assertEquals(List.of(1L, 6L), deactivatedIds().stream().sorted().toList());
+        verify(auditLogService, times(2)).record(anyString(), eq("ALERT_TRIGGERED"), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void firedRulesAreDeliveredAndPersistedOffTheDispatcher() {
+        List<Runnable> handedOff = new ArrayList<>();
+        bus = new QuoteEventBus(Runnable::run);
+        engine = new AlertEvaluationService(alertRules, mock(UserRepository.class), auditLogService, quoteStream, bus, handedOff::add, 1);
+        engine.loadActiveRules();
+
+        publish("MSFT", "55");
+        verifyNoInteractions(quoteStream, auditLogService);
+        verify(alertRules, never()).deactivateAll(any());
+        assertEquals(1, handedOff.size());
+
+        handedOff.get(0).run();
+        assertEquals(List.of(5L), deactivatedIds());
+        verify(quoteStream).sendToUser(eq(7L), any());
+    }
+
+    private void publish(String symbol, String price) {
+        BigDecimal value = new BigDecimal(price);
+        bus.publish(new QuoteUpdated(symbol, new SimpleStockPriceService.StockPrice(symbol, value, value, value, "2026-02-14"), System.nanoTime()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> deactivatedIds() {
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(alertRules, atLeastOnce()).deactivateAll(ids.capture());
+        List<Long> last = List.copyOf(ids.getValue());
+        clearInvocations(alertRules);
+        return last;
+    }
+
+    private static AlertRule rule(long id, String symbol, String condition, String target) {
+        AlertRule rule = new AlertRule(7L, symbol, condition, new BigDecimal(target));
+        ReflectionTestUtils.setField(rule, "id", id);
+        return rule;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.trading.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alert evaluation cost per quote update with 1M active rules across 5k symbols (200 per symbol,
+ * thresholds within ±10% of the price). Each op moves one symbol's price by a small random step and
+ * fires the crossed rules; fired rules are re-armed on the far side of the new price so the rule count
+ * stays constant. {@code scanSymbolRules} is the same workload checking every rule of the symbol,
+ * which is what evaluating straight from the rule table amounts to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AlertThresholdIndexBenchmark {
+
+    private static final int SYMBOLS = 5_000;
+    private static final int RULES = 1_000_000;
+    private static final long BASE_PRICE = HistoricalSeries.toScaled(100.0);
+
+    @State(Scope.Thread)
+    public static class Indexed {
+        final AlertThresholdIndex index = new AlertThresholdIndex();
+        final String[] symbols = symbols();
+        final long[] prices = new long[SYMBOLS];
+        final Random random = new Random(11);
+        long nextRuleId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Arrays.fill(prices, BASE_PRICE);
+            long started = System.nanoTime();
+            for (int i = 0; i < RULES; i++) {
+                int symbol = i % SYMBOLS;
+                index.add(arm(random, nextRuleId++, symbols[symbol], prices[symbol]));
+            }
+            System.out.printf("%nindexed %d rules across %d symbols in %d ms%n",
+                index.size(), index.symbols(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Scanned {
+        final String[] symbols = symbols();
+        final long[] prices = new long[SYMBOLS];
+        final List<List<AlertThresholdIndex.IndexedRule>> rules = new ArrayList<>(SYMBOLS);
+        final Random random = new Random(11);
+        long nextRuleId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Arrays.fill(prices, BASE_PRICE);
+            for (int s = 0; s < SYMBOLS; s++) {
+                rules.add(new ArrayList<>(RULES / SYMBOLS));
+            }
+            for (int i = 0; i < RULES; i++) {
+                int symbol = i % SYMBOLS;
+                rules.get(symbol).add(arm(random, nextRuleId++, symbols[symbol], prices[symbol]));
+            }
+        }
+    }
+
+    @Benchmark
+    public int indexedEvaluate(Indexed state) {
+        int symbol = state.random.nextInt(SYMBOLS);
+        long price = step(state.random, state.prices, symbol);
+        List<AlertThresholdIndex.IndexedRule> fired = state.index.fire(state.symbols[symbol], price);
+        for (AlertThresholdIndex.IndexedRule rule : fired) {
+            state.index.add(arm(state.random, state.nextRuleId++, rule.symbol(), price));
+        }
+        return fired.size();
+    }
+
+    @Benchmark
+    public int scanSymbolRules(Scanned state) {
+        int symbol = state.random.nextInt(SYMBOLS);
+        long price = step(state.random, state.prices, symbol);
+        List<AlertThresholdIndex.IndexedRule> symbolRules = state.rules.get(symbol);
+        int fired = 0;
+        for (int i = 0; i < symbolRules.size(); i++) {
+            AlertThresholdIndex.IndexedRule rule = symbolRules.get(i);
+            boolean crossed = rule.above() ? price >= rule.threshold() : price <= rule.threshold();
+            if (crossed) {
+                symbolRules.set(i, arm(state.random, state.nextRuleId++, rule.symbol(), price));
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private static long step(Random random, long[] prices, int symbol) {
+        long delta = HistoricalSeries.toScaled((random.nextDouble() - 0.5) * 0.5);
+        prices[symbol] = Math.max(HistoricalSeries.toScaled(1.0), prices[symbol] + delta);
+        return prices[symbol];
+    }
+
+    /**
+     * A new rule on the not-yet-crossed side of {@code price}, up to 10% away.
+     */
+    private static AlertThresholdIndex.IndexedRule arm(Random random, long ruleId, String symbol, long price) {
+        boolean above = random.nextBoolean();
+        long distance = 1 + (long) (random.nextDouble() * price * 0.10);
+        return new AlertThresholdIndex.IndexedRule(ruleId, ruleId % 50_000, symbol, above,
+            above ? price + distance : price - distance);
+    }
+
+    private static String[] symbols() {
+        String[] symbols = new String[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            StringBuilder ticker = new StringBuilder();
+            int value = i;
+            for (int c = 0; c < 4; c++) {
+                ticker.append((char) ('A' + value % 26));
+                value /= 26;
+            }
+            symbols[i] = ticker.toString();
+        }
+        return symbols;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AlertThresholdIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
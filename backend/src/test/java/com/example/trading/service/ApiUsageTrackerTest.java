@@ -2,6 +2,9 @@ package com.example.trading.service;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ApiUsageTrackerTest {
@@ -31,4 +34,58 @@ class ApiUsageTrackerTest {
         assertTrue(metrics.rateLimited());
         assertEquals(0, metrics.dailyRequestCount());
     }
+
+    @Test
+    void dailyQuotaResetsAfterADayAndMinuteLimitSlides() {
+        AtomicLong nanos = new AtomicLong(1_000);
+        ApiUsageTracker tracker = new ApiUsageTracker(nanos::get);
+
+        for (int i = 0; i < 25; i++) {
+            assertTrue(tracker.recordRequest("ALPHA_VANTAGE"));
+        }
+        assertFalse(tracker.recordRequest("ALPHA_VANTAGE"));
+        assertTrue(tracker.getProviderMetrics("ALPHA_VANTAGE").rateLimited());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(tracker.canMakeRequest("ALPHA_VANTAGE"));
+        }
+        assertFalse(tracker.canMakeRequest("ALPHA_VANTAGE"));
+        // 80% into the next minute, 20% of the previous minute's 5 calls still count
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(108));
+        assertEquals(1, tracker.getProviderMetrics("ALPHA_VANTAGE").minuteRequestCount());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(tracker.canMakeRequest("ALPHA_VANTAGE"));
+        }
+        assertFalse(tracker.canMakeRequest("ALPHA_VANTAGE"));
+
+        nanos.addAndGet(TimeUnit.DAYS.toNanos(1));
+        ApiUsageTracker.ApiUsageDto metrics = tracker.getProviderMetrics("ALPHA_VANTAGE");
+        assertEquals(0, metrics.dailyRequestCount());
+        assertEquals(0, metrics.minuteRequestCount());
+        assertFalse(metrics.rateLimited());
+        assertTrue(tracker.recordRequest("ALPHA_VANTAGE"));
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheDailyLimit() throws InterruptedException {
+        ApiUsageTracker tracker = new ApiUsageTracker();
+        AtomicLong admitted = new AtomicLong();
+        Thread[] threads = new Thread[16];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (tracker.recordRequest("MASSIVE")) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, admitted.get());
+        assertEquals(1000, tracker.getProviderMetrics("MASSIVE").dailyRequestCount());
+    }
 }
@@ -0,0 +1,137 @@
+package com.example.trading.service;
+
+import com.example.trading.model.User;
+import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-request bearer authentication: the previous filter (three signature checks per token, each
+ * building its own parser, plus a user lookup) against {@link AuthSessionCache}. The repository is an
+ * in-memory map, so the legacy numbers leave out the database round trip it used to cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthSessionCacheBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hmac-sha256";
+
+    @Param({"1", "1000"})
+    int users;
+
+    private String[] tokens;
+    private Map<String, User> usersByName;
+    private LegacyAuthenticator legacy;
+    private AuthSessionCache cache;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET);
+        usersByName = new HashMap<>();
+        tokens = new String[users];
+        for (int i = 0; i < users; i++) {
+            User user = new User("user" + i, "hash");
+            ReflectionTestUtils.setField(user, "id", (long) i + 1);
+            usersByName.put(user.getUsername(), user);
+            tokens[i] = jwtUtil.generateToken(user.getUsername(), 0, user.getId());
+        }
+        UserRepository repository = mock(UserRepository.class);
+        when(repository.findByUsername(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(usersByName.get(invocation.<String>getArgument(0))));
+        legacy = new LegacyAuthenticator(SECRET, usersByName);
+        cache = new AuthSessionCache(jwtUtil, repository, 10_000, TimeUnit.MINUTES.toMillis(5),
+            10_000, TimeUnit.SECONDS.toMillis(30), System::currentTimeMillis);
+    }
+
+    @Benchmark
+    public String legacyFilter() {
+        return legacy.authenticate(nextToken());
+    }
+
+    @Benchmark
+    public AuthenticatedUser cachedFilter() {
+        return cache.authenticate(nextToken());
+    }
+
+    private String nextToken() {
+        return users == 1 ? tokens[0] : tokens[ThreadLocalRandom.current().nextInt(users)];
+    }
+
+    /**
+     * JwtFilter and JwtUtil before claims were parsed once and cached.
+     */
+    private static final class LegacyAuthenticator {
+        private final SecretKey key;
+        private final Map<String, User> users;
+
+        LegacyAuthenticator(String secret, Map<String, User> users) {
+            this.key = Keys.hmacShaKeyFor(secret.getBytes());
+            this.users = users;
+        }
+
+        String authenticate(String token) {
+            if (!validate(token)) {
+                return null;
+            }
+            String username = claims(token).getSubject();
+            Integer version = claims(token).get("tv", Integer.class);
+            User user = users.get(username);
+            if (user == null || user.getTokenVersion() != (version == null ? 0 : version)) {
+                return null;
+            }
+            return username;
+        }
+
+        private boolean validate(String token) {
+            try {
+                claims(token);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        private Claims claims(String token) {
+            JwtParser parser = Jwts.parser().verifyWith(key).build();
+            return parser.parseSignedClaims(token).getPayload();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AuthSessionCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
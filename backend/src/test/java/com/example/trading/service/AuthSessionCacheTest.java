@@ -0,0 +1,100 @@
+package com.example.trading.service;
+
+import com.example.trading.model.PlanTier;
+import com.example.trading.model.User;
+import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.security.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AuthSessionCacheTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hmac-sha256";
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private JwtUtil jwtUtil;
+    private UserRepository users;
+    private AuthSessionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil(SECRET));
+        users = mock(UserRepository.class);
+        cache = new AuthSessionCache(jwtUtil, users, 100, TimeUnit.DAYS.toMillis(30),
+            100, TimeUnit.SECONDS.toMillis(30), clock::get);
+    }
+
+    @Test
+    void repeatedRequestsParseAndQueryOnce() {
+        User alice = user(7L, "alice", 0);
+        when(users.findByUsername("alice")).thenReturn(Optional.of(alice));
+        String token = jwtUtil.generateToken("alice", 0, 7L);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(new AuthenticatedUser(7L, "alice", PlanTier.FREE, 0), cache.authenticate(token));
+        }
+
+        verify(jwtUtil, times(1)).parse(token);
+        verify(users, times(1)).findByUsername("alice");
+        assertEquals(49, cache.getStats().get("tokens").hits());
+    }
+
+    @Test
+    void revokedSessionIsRejectedOnceInvalidated() {
+        User alice = user(7L, "alice", 0);
+        when(users.findByUsername("alice")).thenReturn(Optional.of(alice));
+        String token = jwtUtil.generateToken("alice", 0, 7L);
+        assertNotNull(cache.authenticate(token));
+
+        alice.setTokenVersion(1);
+        cache.invalidateUser("alice");
+
+        assertNull(cache.authenticate(token));
+        assertNotNull(cache.authenticate(jwtUtil.generateToken("alice", 1, 7L)));
+    }
+
+    @Test
+    void cachedTokenIsRejectedAfterItsExpiry() {
+        when(users.findByUsername("alice")).thenReturn(Optional.of(user(7L, "alice", 0)));
+        String token = jwtUtil.generateToken("alice", 0, 7L);
+        assertNotNull(cache.authenticate(token));
+
+        clock.addAndGet(TimeUnit.DAYS.toMillis(8));
+
+        assertNull(cache.authenticate(token));
+        verify(jwtUtil, times(1)).parse(token);
+    }
+
+    @Test
+    void tokenOfAnEarlierAccountWithTheSameNameIsRejected() {
+        when(users.findByUsername("alice")).thenReturn(Optional.of(user(7L, "alice", 0)));
+        String oldToken = jwtUtil.generateToken("alice", 0, 7L);
+        assertNotNull(cache.authenticate(oldToken));
+
+        // alice is deleted and the name registered again; the stale snapshot is still cached
+        when(users.findByUsername("alice")).thenReturn(Optional.of(user(8L, "alice", 0)));
+        String newToken = jwtUtil.generateToken("alice", 0, 8L);
+
+        assertEquals(8L, cache.authenticate(newToken).id());
+        assertNull(cache.authenticate(oldToken));
+        assertNull(cache.authenticate("not-a-jwt"));
+        verify(users, atLeast(2)).findByUsername(anyString());
+    }
+
+    private static User user(long id, String username, int tokenVersion) {
+        User user = new User(username, "hash");
+        ReflectionTestUtils.setField(user, "id", id);
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+}
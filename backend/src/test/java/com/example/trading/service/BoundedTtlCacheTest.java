@@ -0,0 +1,201 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedTtlCacheTest {
+
+    private static final int THREADS = 16;
+
+    /**
+     * Writers race on a small set of shared keys with out-of-order versions while readers hammer the
+     * same keys; afterwards every key must hold the highest version anyone wrote and the counters must
+     * account for every lookup.
+     */
+    @Test
+    void concurrentWritesNeverLoseTheNewestVersion() throws Exception {
+        BoundedTtlCache<String, Long> cache = new BoundedTtlCache<>(1_000, 60_000, 0, null, null, System::currentTimeMillis);
+        int keys = 64;
+        int opsPerThread = 20_000;
+        AtomicLong versions = new AtomicLong();
+        AtomicLongArray newest = new AtomicLongArray(keys);
+        AtomicLong lookups = new AtomicLong();
+
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int op = 0; op < opsPerThread; op++) {
+                int key = random.nextInt(keys);
+                if (op % 3 == 0) {
+                    cache.get("K" + key);
+                    lookups.incrementAndGet();
+                    continue;
+                }
+                // Take the version before "loading", as a real fetch would, then yield so loads overlap
+                long version = versions.incrementAndGet();
+                if (random.nextInt(4) == 0) {
+                    Thread.yield();
+                }
+                cache.put("K" + key, version, version);
+                newest.accumulateAndGet(key, version, Math::max);
+            }
+        });
+
+        for (int key = 0; key < keys; key++) {
+            if (newest.get(key) > 0) {
+                assertEquals(newest.get(key), cache.get("K" + key), "key K" + key + " lost its newest write");
+            }
+        }
+        BoundedTtlCache.CacheStats stats = cache.stats();
+        assertEquals(lookups.get() + keys, stats.hits() + stats.misses());
+        assertEquals(0, stats.evictions());
+    }
+
+    @Test
+    void sizeStaysBoundedUnderConcurrentInsertsAndEvictsLeastRecentlyUsed() throws Exception {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(256, 60_000, 0, null, null, System::currentTimeMillis);
+        int perThread = 2_000;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                cache.put("T" + thread + "-" + i, i);
+            }
+        });
+
+        assertTrue(cache.size() <= 256, "size " + cache.size() + " exceeds the bound");
+        assertEquals(THREADS * perThread - cache.size(), cache.stats().evictions());
+
+        BoundedTtlCache<String, Integer> lru = new BoundedTtlCache<>(32, 60_000, 0, null, null, System::currentTimeMillis);
+        List<String> sameStripe = keysInOneStripe(3);
+        lru.put(sameStripe.get(0), 0);
+        lru.put(sameStripe.get(1), 1);
+        lru.get(sameStripe.get(0));
+        lru.put(sameStripe.get(2), 2);
+        assertEquals(0, lru.get(sameStripe.get(0)), "recently read entry survives");
+        assertNull(lru.get(sameStripe.get(1)), "least recently used entry is evicted");
+    }
+
+    @Test
+    void expiresAfterTtlAndRefreshesAheadOncePerEntry() {
+        AtomicLong now = new AtomicLong(1_000);
+        AtomicInteger refreshes = new AtomicInteger();
+        List<Runnable> queued = new ArrayList<>();
+        AtomicReference<BoundedTtlCache<String, String>> holder = new AtomicReference<>();
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(100, 10_000, 2_000, queued::add, key -> {
+            refreshes.incrementAndGet();
+            holder.get().put(key, "fresh");
+        }, now::get);
+        holder.set(cache);
+
+        cache.put("AAPL", "v1");
+        now.addAndGet(7_000);
+        assertEquals("v1", cache.get("AAPL"));
+        assertTrue(queued.isEmpty(), "no refresh before the refresh-ahead window");
+
+        now.addAndGet(2_000);
+        assertEquals("v1", cache.get("AAPL"));
+        assertEquals("v1", cache.get("AAPL"));
+        assertEquals(1, queued.size(), "one refresh per entry however many hits land in the window");
+        queued.get(0).run();
+        assertEquals(1, refreshes.get());
+        assertEquals("fresh", cache.get("AAPL"));
+
+        now.addAndGet(10_001);
+        assertNull(cache.get("AAPL"));
+        BoundedTtlCache.CacheStats stats = cache.stats();
+        assertEquals(1, stats.expirations());
+        assertEquals(1, stats.refreshAheads());
+    }
+
+    @Test
+    void servesExpiredEntryWithinGraceWindowWhileOneRefreshRuns() {
+        AtomicLong now = new AtomicLong(1_000);
+        List<Runnable> queued = new ArrayList<>();
+        AtomicReference<BoundedTtlCache<String, String>> holder = new AtomicReference<>();
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(100, 10_000, 0, 5_000, queued::add,
+            key -> holder.get().put(key, "fresh"), now::get);
+        holder.set(cache);
+
+        cache.put("AAPL", "v1");
+        now.addAndGet(12_000);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("v1", cache.get("AAPL"), "stale value is served without waiting for the load");
+        }
+        assertEquals(1, queued.size(), "a single refresh however many callers see the stale entry");
+        queued.get(0).run();
+        assertEquals("fresh", cache.get("AAPL"));
+
+        now.addAndGet(15_001);
+        assertNull(cache.get("AAPL"), "beyond the grace window the caller loads it");
+        BoundedTtlCache.CacheStats stats = cache.stats();
+        assertEquals(5, stats.staleHits());
+        assertEquals(1, stats.staleRefreshes());
+        assertEquals(1, stats.expirations());
+    }
+
+    @Test
+    void olderLoadArrivingLateDoesNotReplaceNewerValue() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(100, 60_000, 0, null, null, System::currentTimeMillis);
+        assertNull(cache.put("MSFT", "newer", 200));
+        assertEquals("older", cache.put("MSFT", "older", 100), "a dropped write reports its own value");
+        assertEquals("newer", cache.get("MSFT"));
+        assertEquals(1, cache.stats().staleWritesRejected());
+    }
+
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                body.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Keys that hash to the same stripe, whose capacity is two when the cache holds 32 entries.
+     */
+    private static List<String> keysInOneStripe(int count) {
+        List<String> keys = new ArrayList<>();
+        int targetStripe = -1;
+        for (int i = 0; keys.size() < count; i++) {
+            String key = "S" + i;
+            int hash = key.hashCode();
+            int stripe = (hash ^ (hash >>> 16)) & 15;
+            if (targetStripe < 0) {
+                targetStripe = stripe;
+            }
+            if (stripe == targetStripe) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.trading.service;
+
+import com.example.trading.repository.AlertRuleRepository;
+import com.example.trading.repository.PortfolioRepository;
+import com.example.trading.repository.StockRepository;
+import com.example.trading.repository.SymbolCount;
+import com.example.trading.repository.WatchlistRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CacheWarmupServiceTest {
+
+    private final List<List<String>> quoteBatches = new ArrayList<>();
+    private final List<String> historyLoads = new ArrayList<>();
+    private ApiUsageTracker tracker;
+    private ProviderQuotaPlanner quotaPlanner;
+    private CacheWarmupService warmup;
+
+    @BeforeEach
+    void setUp() {
+        PortfolioRepository portfolios = mock(PortfolioRepository.class);
+        AlertRuleRepository alertRules = mock(AlertRuleRepository.class);
+        WatchlistRepository watchlists = mock(WatchlistRepository.class);
+        StockRepository stocks = mock(StockRepository.class);
+        when(portfolios.countHoldersBySymbol()).thenReturn(List.of(count("msft", 2)));
+        when(alertRules.countActiveRulesBySymbol()).thenReturn(List.of(count("TSLA", 2), count("NVDA", 1)));
+        when(watchlists.countWatchlistsBySymbol()).thenReturn(List.of(count("NVDA", 5), count("MSFT", 1), count("bad symbol!", 9)));
+        when(stocks.findAllSymbols()).thenReturn(List.of("AAPL", "TSLA", "AMZN"));
+
+        SimpleStockPriceService priceService = new SimpleStockPriceService() {
+            @Override
+            public Map<String, StockPrice> prefetchPrices(Collection<String> symbols) {
+                quoteBatches.add(List.copyOf(symbols));
+                Map<String, StockPrice> quotes = new LinkedHashMap<>();
+                symbols.stream().filter(symbol -> !symbol.equals("AMZN"))
+                    .forEach(symbol -> quotes.put(symbol, new StockPrice(symbol, BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN, "2026-02-13")));
+                return quotes;
+            }
+        };
+
+        tracker = new ApiUsageTracker();
+        MultiProviderStockDataFetcher fetcher = mock(MultiProviderStockDataFetcher.class);
+        when(fetcher.getConfiguredProviders()).thenReturn(List.of("TWELVEDATA"));
+        when(fetcher.prefetchHistory(anyString(), anyString())).thenAnswer(invocation -> {
+            historyLoads.add(invocation.getArgument(0));
+            // A full load that needed two provider calls (e.g. a hedge)
+            tracker.recordRequest("TWELVEDATA");
+            tracker.recordRequest("TWELVEDATA");
+            return true;
+        });
+        quotaPlanner = new ProviderQuotaPlanner(tracker);
+
+        warmup = new CacheWarmupService(watchlists, portfolios, alertRules, stocks, priceService, fetcher, tracker, quotaPlanner);
+    }
+
+    @Test
+    void ranksHeldAlertedAndWatchedSymbolsAheadOfPlainStockRows() {
+        List<CacheWarmupService.RankedSymbol> ranked = warmup.rankSymbols();
+
+        // NVDA 2 + 5, MSFT 6 + 1, TSLA 4, then the Stock-only rows alphabetically
+        assertEquals(List.of("MSFT", "NVDA", "TSLA", "AAPL", "AMZN"), ranked.stream().map(CacheWarmupService.RankedSymbol::symbol).toList());
+        assertEquals(7, ranked.get(0).score());
+        assertEquals(0, ranked.get(4).score());
+    }
+
+    @Test
+    void handsPopularityToTheQuotaPlanner() {
+        warmup.warmUp("startup");
+
+        assertEquals(ProviderQuotaPlanner.Priority.NORMAL, quotaPlanner.priorityFor("NVDA", ProviderQuotaPlanner.Need.REFRESH));
+        assertEquals(ProviderQuotaPlanner.Priority.LOW, quotaPlanner.priorityFor("AMZN", ProviderQuotaPlanner.Need.REFRESH));
+    }
+
+    @Test
+    void warmsQuotesForRankedSymbolsAndStopsHistoryAtTheQuotaBudget() {
+        // 790 of 800 Twelve Data requests already used today: half of the remaining 10 may go to warm-up
+        for (int i = 0; i < 790; i++) {
+            tracker.recordRequest("TWELVEDATA");
+        }
+        ReflectionTestUtils.setField(warmup, "historyQuotaPercent", 50.0);
+
+        assertTrue(warmup.warmUp("startup"));
+
+        assertEquals(List.of(List.of("MSFT", "NVDA", "TSLA", "AAPL", "AMZN")), quoteBatches);
+        assertEquals(List.of("MSFT", "NVDA", "TSLA"), historyLoads, "three loads spend 6 >= 5 budgeted requests");
+        CacheWarmupService.WarmupProgress progress = warmup.getProgress();
+        assertEquals("DONE", progress.status());
+        assertEquals("startup", progress.trigger());
+        assertEquals(5, progress.rankedSymbols());
+        assertEquals(4, progress.quotesWarmed());
+        assertEquals(5, progress.historyPlanned());
+        assertEquals(3, progress.historyWarmed());
+        assertEquals(2, progress.historySkipped());
+        assertEquals(5, progress.providerRequestBudget());
+        assertEquals(6, progress.providerRequestsUsed());
+        assertNotNull(progress.finishedAt());
+    }
+
+    private static SymbolCount count(String symbol, long total) {
+        return new SymbolCount() {
+            @Override
+            public String getSymbol() {
+                return symbol;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the StockDataCache row codecs: legacy Jackson JSON (LONGTEXT) against the binary payload (LONGBLOB).
+ * Row sizes for both encodings are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoricalSeriesCodecBenchmark {
+
+    @Param({"5000"})
+    int points;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HistoricalSeries series;
+    private String json;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        HistoricalSeries.Builder builder = HistoricalSeries.builder(points);
+        long day = LocalDate.of(2026, 2, 13).toEpochDay();
+        double close = 195.0;
+        for (int i = 0; i < points; i++) {
+            double open = close + (random.nextDouble() - 0.5) * 2;
+            double high = Math.max(open, close) + random.nextDouble();
+            double low = Math.min(open, close) - random.nextDouble();
+            builder.add(day - i, HistoricalSeries.toScaled(open), HistoricalSeries.toScaled(high),
+                HistoricalSeries.toScaled(low), HistoricalSeries.toScaled(close));
+            close = open;
+        }
+        series = builder.build();
+        json = objectMapper.writeValueAsString(series.toList());
+        payload = HistoricalSeriesCodec.encode(series);
+        System.out.printf("%nrow size for %d points: json=%d bytes, binary=%d bytes (%.1fx smaller)%n",
+            points, json.getBytes(StandardCharsets.UTF_8).length, payload.length,
+            json.getBytes(StandardCharsets.UTF_8).length / (double) payload.length);
+    }
+
+    @Benchmark
+    public String jacksonEncode() throws Exception {
+        return objectMapper.writeValueAsString(series);
+    }
+
+    @Benchmark
+    public HistoricalSeries jacksonDecode() throws Exception {
+        return HistoricalSeries.fromList(Arrays.asList(
+            objectMapper.readValue(json, MultiProviderStockDataFetcher.HistoricalData[].class)));
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return HistoricalSeriesCodec.encode(series);
+    }
+
+    @Benchmark
+    public HistoricalSeries binaryDecode() {
+        return HistoricalSeriesCodec.decode(payload);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HistoricalSeriesCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricalSeriesCodecTest {
+
+    @Test
+    void roundTripsSeriesLosslessly() {
+        HistoricalSeries.Builder builder = HistoricalSeries.builder(300);
+        for (int i = 0; i < 300; i++) {
+            builder.add(20_000 - i, 1_950_000 + i * 37L, 1_960_000 + i * 41L, 1_940_000 - i * 13L, 1_955_500 - i * 7L);
+        }
+        HistoricalSeries series = builder.build();
+
+        byte[] payload = HistoricalSeriesCodec.encode(series);
+        HistoricalSeries decoded = HistoricalSeriesCodec.decode(payload);
+
+        assertEquals(HistoricalSeriesCodec.FORMAT_VERSION, payload[0]);
+        assertEquals(series.size(), decoded.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(series.epochDay(i), decoded.epochDay(i));
+            assertEquals(series.openScaled(i), decoded.openScaled(i));
+            assertEquals(series.highScaled(i), decoded.highScaled(i));
+            assertEquals(series.lowScaled(i), decoded.lowScaled(i));
+            assertEquals(series.closeScaled(i), decoded.closeScaled(i));
+        }
+    }
+
+    @Test
+    void rejectsUnknownFormatVersion() {
+        byte[] payload = HistoricalSeriesCodec.encode(HistoricalSeries.empty());
+        payload[0] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> HistoricalSeriesCodec.decode(payload));
+    }
+
+    @Test
+    void rejectsRowCountsThePayloadCannotHold() throws Exception {
+        // 2^31 would have wrapped to a negative int; 10 rows cannot fit in 5 bytes
+        byte[] overflowing = payload(0x80, 0x80, 0x80, 0x80, 0x08);
+        byte[] overstated = payload(10, 0, 0, 0, 0, 0);
+
+        assertThrows(HistoricalSeriesCodec.CorruptPayloadException.class, () -> HistoricalSeriesCodec.decode(overflowing));
+        assertThrows(HistoricalSeriesCodec.CorruptPayloadException.class, () -> HistoricalSeriesCodec.decode(overstated));
+        assertEquals(1, HistoricalSeriesCodec.decode(payload(1, 0, 0, 0, 0, 0)).size());
+    }
+
+    private static byte[] payload(int... raw) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(HistoricalSeriesCodec.FORMAT_VERSION);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            for (int b : raw) {
+                deflate.write(b);
+            }
+        }
+        return out.toByteArray();
+    }
+}
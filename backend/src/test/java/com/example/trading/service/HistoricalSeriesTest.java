@@ -0,0 +1,44 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricalSeriesTest {
+
+    @Test
+    void serializesToLegacyRowShape() throws Exception {
+        HistoricalSeries series = HistoricalSeries.builder(2)
+            .add("2026-02-12", new BigDecimal("190.10"), new BigDecimal("196.5"), new BigDecimal("189.0001"), new BigDecimal("195.23"))
+            .add("2026-02-13", new BigDecimal("195.23"), new BigDecimal("197.00"), new BigDecimal("194.00"), new BigDecimal("196.80"))
+            .sortByDate(true)
+            .build();
+
+        JsonNode json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(series));
+
+        assertTrue(json.isArray());
+        assertEquals(2, json.size());
+        assertEquals("2026-02-13", json.get(0).path("timestamp").asText());
+        assertEquals(196.80, json.get(0).path("close").asDouble(), 1e-9);
+        assertEquals(189.0001, json.get(1).path("low").asDouble(), 1e-9);
+    }
+
+    @Test
+    void roundTripsThroughRowRecordsAndSkipsMalformedRows() {
+        List<MultiProviderStockDataFetcher.HistoricalData> rows = List.of(
+            new MultiProviderStockDataFetcher.HistoricalData("2026-02-13", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN),
+            new MultiProviderStockDataFetcher.HistoricalData("not-a-date", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN)
+        );
+
+        HistoricalSeries series = HistoricalSeries.fromList(rows);
+
+        assertEquals(1, series.size());
+        assertEquals(0, series.toList().get(0).close().compareTo(BigDecimal.TEN));
+        assertTrue(series.estimatedHeapBytes() > 0);
+    }
+}
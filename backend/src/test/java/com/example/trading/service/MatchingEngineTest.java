@@ -0,0 +1,147 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineTest {
+
+    private static final String SYMBOL = "RCVR";
+
+    @TempDir
+    Path dir;
+
+    private MatchingEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void booksAreRebuiltFromTheJournal() throws IOException {
+        engine = open(0);
+        assertFalse(engine.recovered());
+        engine.submit(SYMBOL, 1, 100, false, 10_100, 5, 0).join();
+        engine.submit(SYMBOL, 2, 101, false, 10_050, 5, 0).join();
+        engine.submit(SYMBOL, 3, 102, true, 9_900, 8, 0).join();
+        engine.submit(SYMBOL, 4, 103, true, 10_050, 7, 0).join();
+        assertEquals(8, engine.cancel(SYMBOL, 3, 102).join());
+        MatchingEngine.BookDepth before = engine.depth(SYMBOL, 10).join();
+        engine.stop();
+
+        // Nothing but the empty startup snapshot: every command is replayed
+        engine = open(0);
+        assertTrue(engine.recovered());
+        assertEquals(before, engine.depth(SYMBOL, 10).join());
+        MatchingEngine.JournalStats journal = engine.getStats().journal();
+        assertEquals(5, journal.replayedEvents());
+        assertEquals(0, journal.replayMismatches());
+        assertTrue(engine.nextOrderId() > 4);
+        assertEquals(-1, engine.cancel(SYMBOL, 3, 102).join());
+    }
+
+    @Test
+    void snapshotsLeaveOnlyTheTailToReplay() throws IOException {
+        engine = open(5);
+        for (long id = 1; id <= 12; id++) {
+            engine.submit(SYMBOL, id, 100 + id, id % 2 == 0, id % 2 == 0 ? 9_000 + id : 11_000 + id, 3, 0).join();
+        }
+        MatchingEngine.BookDepth before = engine.depth(SYMBOL, 20).join();
+        engine.stop();
+
+        engine = open(5);
+        assertEquals(before, engine.depth(SYMBOL, 20).join());
+        assertEquals(2, engine.getStats().journal().replayedEvents());
+        assertEquals(12, engine.getStats().restingOrders());
+    }
+
+    @Test
+    void unprojectedFillsStillCoverSellsAfterARestart() throws IOException {
+        engine = open(0);
+        // 10 shares bought from the house, not in the database yet
+        engine.submit(SYMBOL, 1, 7, true, OrderBook.MARKET, 10, 10_000).join();
+        MatchingEngine.Holding none = new MatchingEngine.Holding(0, 0, 0);
+        engine.submit(SYMBOL, 2, 7, false, 12_000, 6, 10_000, none).join();
+        engine.snapshot().join();
+        engine.stop();
+
+        engine = open(0);
+        CompletionException rejected = assertThrows(CompletionException.class,
+            () -> engine.submit(SYMBOL, 3, 7, false, 12_000, 5, 10_000, none).join());
+        assertInstanceOf(IllegalArgumentException.class, rejected.getCause());
+        assertTrue(engine.submit(SYMBOL, 4, 7, false, 12_000, 4, 10_000, none).join().resting());
+    }
+
+    @Test
+    void aSoldOutPositionStaysSoldOut() {
+        engine = new MatchingEngine(1);
+        long[] seq = new long[1];
+        engine.onEvent(event -> seq[0] = event.seq());
+        engine.submit(SYMBOL, 1, 7, true, OrderBook.MARKET, 10, 10_000).join();
+        engine.projected(seq[0]);
+        engine.submit(SYMBOL, 2, 7, false, OrderBook.MARKET, 10, 10_000, new MatchingEngine.Holding(10, seq[0], 0)).join();
+        engine.projected(seq[0]);
+
+        // The projector keeps the row at zero, as of the sell
+        CompletionException rejected = assertThrows(CompletionException.class,
+            () -> engine.submit(SYMBOL, 3, 7, false, OrderBook.MARKET, 1, 10_000, new MatchingEngine.Holding(0, seq[0], 0)).join());
+        assertInstanceOf(IllegalArgumentException.class, rejected.getCause());
+    }
+
+    @Test
+    void sharesBoughtBackCanBeSoldBeforeTheyAreProjected() {
+        engine = new MatchingEngine(1);
+        long[] seq = new long[1];
+        engine.onEvent(event -> seq[0] = event.seq());
+        engine.submit(SYMBOL, 1, 7, true, OrderBook.MARKET, 10, 10_000).join();
+        engine.submit(SYMBOL, 2, 7, false, OrderBook.MARKET, 10, 10_000, new MatchingEngine.Holding(0, 0, 0)).join();
+        engine.projected(seq[0]);
+        long soldOut = seq[0];
+        engine.submit(SYMBOL, 3, 7, true, OrderBook.MARKET, 5, 10_000).join();
+
+        MatchingEngine.MatchResult sold =
+            engine.submit(SYMBOL, 4, 7, false, OrderBook.MARKET, 5, 10_000, new MatchingEngine.Holding(0, soldOut, 0)).join();
+        assertEquals(0, sold.remaining());
+    }
+
+    @Test
+    void aPinnedReadStillCountsFillsProjectedAfterIt() {
+        engine = new MatchingEngine(1);
+        long[] seq = new long[1];
+        engine.onEvent(event -> seq[0] = event.seq());
+        engine.submit(SYMBOL, 1, 7, true, OrderBook.MARKET, 10, 10_000).join();
+
+        // The position is read before the buy reaches the database, which then happens before the sell
+        MatchingEngine.Holding read = new MatchingEngine.Holding(0, 0, engine.pinPending());
+        engine.projected(seq[0]);
+        assertEquals(1, engine.getStats().pinnedReads());
+
+        MatchingEngine.MatchResult sold = engine.submit(SYMBOL, 2, 7, false, OrderBook.MARKET, 10, 10_000, read).join();
+        assertEquals(0, sold.remaining());
+    }
+
+    @Test
+    void onlyRestingOrdersKeepABook() {
+        engine = new MatchingEngine(1);
+        assertTrue(engine.depth("NOPE", 10).join().bids().isEmpty());
+        engine.submit("MKT", 1, 7, true, OrderBook.MARKET, 10, 0).join();
+        assertEquals(0, engine.getStats().books());
+
+        engine.submit("LMT", 2, 7, true, 9_900, 10, 0).join();
+        assertEquals(10, engine.cancel("LMT", 2, 7).join());
+        assertEquals(1, engine.getStats().books());
+    }
+
+    private MatchingEngine open(long snapshotEvery) throws IOException {
+        return new MatchingEngine(1, OrderJournal.open(dir, 1 << 16, true), snapshotEvery);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.trading.service;
+
+import com.example.trading.model.StockDataCache;
+import com.example.trading.repository.StockDataCacheRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MultiProviderStockDataFetcherTest {
+
+    private static class BlockingLoaderFetcher extends MultiProviderStockDataFetcher {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loaderStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        BlockingLoaderFetcher() {
+            super(mock(StockDataCacheRepository.class), new ApiUsageTracker(), mock(HistoricalBarStore.class));
+        }
+
+        @Override
+        protected HistoricalSeries loadHistoricalData(String symbol, String interval) {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            try {
+                releaseLoader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return HistoricalSeries.builder(1)
+                .add("2026-02-13", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN)
+                .build();
+        }
+    }
+
+    /**
+     * Loader that writes through to the memory cache like the real one, so a background refresh
+     * replaces the stale entry.
+     */
+    private static class RefreshingFetcher extends BlockingLoaderFetcher {
+        @Override
+        protected HistoricalSeries loadHistoricalData(String symbol, String interval) {
+            HistoricalSeries series = super.loadHistoricalData(symbol, interval);
+            cacheInMemory(symbol, interval, series, 0);
+            return series;
+        }
+    }
+
+    @Test
+    void expiredEntryWithinGraceIsServedWhileASingleBackgroundRefreshRuns() throws Exception {
+        RefreshingFetcher fetcher = new RefreshingFetcher();
+        HistoricalSeries stale = HistoricalSeries.builder(2)
+            .add("2026-02-12", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.ONE)
+            .add("2026-02-13", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN)
+            .build();
+        fetcher.cacheInMemory("SWRH", "daily", stale, 6 * 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            MultiProviderStockDataFetcher.CachedHistory served = fetcher.getHistory("SWRH", "daily");
+            assertSame(stale, served.series(), "stale series is returned without waiting for the loader");
+            assertTrue(served.stale());
+            assertTrue(served.ageMs() >= 6 * 60_000);
+        }
+        assertTrue(fetcher.loaderStarted.await(5, TimeUnit.SECONDS));
+        fetcher.releaseLoader.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (fetcher.getHistoryLoaderStats().inFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        MultiProviderStockDataFetcher.CachedHistory refreshed = fetcher.getHistory("SWRH", "daily");
+        assertFalse(refreshed.stale());
+        assertEquals(1, refreshed.series().size());
+
+        MultiProviderStockDataFetcher.HistoryLoaderStats stats = fetcher.getHistoryLoaderStats();
+        assertEquals(1, fetcher.loads.get());
+        assertEquals(5, stats.staleServed());
+        assertEquals(1, stats.backgroundRefreshes());
+    }
+
+    @Test
+    void entryPastGraceWindowIsLoadedByTheCaller() {
+        RefreshingFetcher fetcher = new RefreshingFetcher();
+        fetcher.releaseLoader.countDown();
+        fetcher.cacheInMemory("SWRX", "daily", HistoricalSeries.empty(), 60 * 60_000);
+
+        MultiProviderStockDataFetcher.CachedHistory loaded = fetcher.getHistory("SWRX", "daily");
+
+        assertFalse(loaded.stale());
+        assertEquals(1, loaded.series().size());
+        assertEquals(0, fetcher.getHistoryLoaderStats().backgroundRefreshes());
+    }
+
+    /**
+     * Alpha Vantage hangs until cancelled, Finnhub answers with a single (unusable) bar and Twelve Data
+     * answers with a usable series after a short delay.
+     */
+    private static class HedgingFetcher extends MultiProviderStockDataFetcher {
+        final CountDownLatch alphaCancelled = new CountDownLatch(1);
+        final List<String> started = new CopyOnWriteArrayList<>();
+        final long alphaLatencyMs;
+
+        HedgingFetcher(long alphaLatencyMs) {
+            super(mock(StockDataCacheRepository.class), new ApiUsageTracker(), mock(HistoricalBarStore.class));
+            this.alphaLatencyMs = alphaLatencyMs;
+            ReflectionTestUtils.setField(this, "alphaVantageKey", "key");
+            ReflectionTestUtils.setField(this, "finnhubKey", "key");
+            ReflectionTestUtils.setField(this, "twelveDataKey", "key");
+            ReflectionTestUtils.setField(this, "providerFailureThreshold", 3);
+            ReflectionTestUtils.setField(this, "hedgeDefaultDelayMs", 50L);
+        }
+
+        @Override
+        protected HistoricalSeries fetchFromProvider(String provider, String symbol, String interval, LocalDate since) {
+            started.add(provider);
+            try {
+                switch (provider) {
+                    case "ALPHA_VANTAGE" -> {
+                        Thread.sleep(alphaLatencyMs);
+                        return HistoricalSeries.empty();
+                    }
+                    case "FINNHUB" -> {
+                        return bars(1);
+                    }
+                    case "TWELVEDATA" -> {
+                        Thread.sleep(20);
+                        return bars(40);
+                    }
+                    default -> {
+                        return HistoricalSeries.empty();
+                    }
+                }
+            } catch (InterruptedException e) {
+                alphaCancelled.countDown();
+                Thread.currentThread().interrupt();
+                return HistoricalSeries.empty();
+            }
+        }
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndFirstUsableAnswerWins() throws Exception {
+        HedgingFetcher fetcher = new HedgingFetcher(30_000);
+
+        long startedAt = System.nanoTime();
+        HistoricalSeries series = fetcher.getHistoricalData("HDGA", "daily");
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertEquals(40, series.size());
+        assertTrue(elapsedMs < 5_000, "hedged load took " + elapsedMs + " ms");
+        assertEquals(List.of("ALPHA_VANTAGE", "FINNHUB", "TWELVEDATA"), fetcher.started);
+        assertTrue(fetcher.alphaCancelled.await(5, TimeUnit.SECONDS), "losing primary is cancelled");
+
+        MultiProviderStockDataFetcher.HistoryLoaderStats stats = fetcher.getHistoryLoaderStats();
+        assertEquals(2, stats.hedgedRequests());
+        assertEquals(1, stats.hedgeWins());
+        assertEquals(0, fetcher.getProviderCircuitBreakerStatus().get("ALPHA_VANTAGE").consecutiveFailures(),
+            "a cancelled hedge loser is not counted as a provider failure");
+    }
+
+    @Test
+    void providersWithoutQuotaHeadroomAreNotHedgedButStillServeAsFallback() {
+        HedgingFetcher fetcher = new HedgingFetcher(300);
+        ReflectionTestUtils.setField(fetcher, "hedgeMaxQuotaPercent", 0.0);
+
+        HistoricalSeries series = fetcher.getHistoricalData("HDGB", "daily");
+
+        assertEquals(40, series.size());
+        assertEquals(List.of("ALPHA_VANTAGE", "FINNHUB", "TWELVEDATA"), fetcher.started);
+        assertEquals(0, fetcher.getHistoryLoaderStats().hedgedRequests());
+    }
+
+    private static HistoricalSeries bars(int count) {
+        HistoricalSeries.Builder builder = HistoricalSeries.builder(count);
+        LocalDate day = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < count; i++) {
+            builder.add(day.plusDays(i).toString(), BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void storedBarsServedWhenNoProviderAnswersAreCachedLikeAFetch() {
+        StockDataCacheRepository cacheRepository = mock(StockDataCacheRepository.class);
+        HistoricalBarStore barStore = mock(HistoricalBarStore.class);
+        when(cacheRepository.findValidCache("STRD", "daily")).thenReturn(Optional.empty());
+        when(barStore.latestBarDate("STRD", "daily")).thenReturn(Optional.of(LocalDate.now().minusDays(1)));
+        when(barStore.load(any(), any(), anyInt())).thenReturn(bars(30));
+        MultiProviderStockDataFetcher fetcher = new MultiProviderStockDataFetcher(cacheRepository, new ApiUsageTracker(), barStore);
+
+        assertEquals(30, fetcher.getHistoricalData("STRD", "daily").size());
+        assertEquals(30, fetcher.getHistoricalData("STRD", "daily").size());
+
+        verify(cacheRepository).save(any(StockDataCache.class));
+        verify(barStore, times(1)).load(any(), any(), anyInt());
+    }
+
+    @Test
+    void undecodableDatabaseCacheRowIsDroppedAndTreatedAsAMiss() {
+        StockDataCacheRepository cacheRepository = mock(StockDataCacheRepository.class);
+        HistoricalBarStore barStore = mock(HistoricalBarStore.class);
+        StockDataCache corrupt = new StockDataCache("CRPT", "daily", new byte[] {HistoricalSeriesCodec.FORMAT_VERSION, 1, 2, 3}, "FINNHUB");
+        when(cacheRepository.findValidCache("CRPT", "daily")).thenReturn(Optional.of(corrupt));
+        when(barStore.latestBarDate("CRPT", "daily")).thenReturn(Optional.of(LocalDate.now().minusDays(1)));
+        when(barStore.load(any(), any(), anyInt())).thenReturn(bars(12));
+        MultiProviderStockDataFetcher fetcher = new MultiProviderStockDataFetcher(cacheRepository, new ApiUsageTracker(), barStore);
+
+        assertEquals(12, fetcher.getHistoricalData("CRPT", "daily").size());
+        verify(cacheRepository).delete(corrupt);
+    }
+
+    @Test
+    void concurrentMissesForSameKeyRunASingleLoader() throws Exception {
+        BlockingLoaderFetcher fetcher = new BlockingLoaderFetcher();
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<HistoricalSeries>> results = new ArrayList<>();
+            results.add(pool.submit(() -> fetcher.getHistoricalData("SFLT", "daily")));
+            assertTrue(fetcher.loaderStarted.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i < callers; i++) {
+                results.add(pool.submit(() -> fetcher.getHistoricalData("SFLT", "daily")));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (fetcher.getHistoryLoaderStats().coalescedWaiters() < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            fetcher.releaseLoader.countDown();
+
+            HistoricalSeries first = results.get(0).get(5, TimeUnit.SECONDS);
+            assertEquals(1, first.size());
+            for (Future<HistoricalSeries> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        MultiProviderStockDataFetcher.HistoryLoaderStats stats = fetcher.getHistoryLoaderStats();
+        assertEquals(1, fetcher.loads.get());
+        assertEquals(1, stats.loads());
+        assertEquals(callers - 1, stats.coalescedWaiters());
+        assertEquals(0, stats.inFlight());
+    }
+}
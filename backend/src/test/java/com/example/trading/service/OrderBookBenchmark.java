@@ -0,0 +1,134 @@
+package com.example.trading.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching against a book holding 1M resting orders: 500k bids and 500k asks of 10 shares, 500 per
+ * price over 1,000 prices on each side. Throughput is orders per microsecond (x 1e6 for orders/s);
+ * the sample-time run reports the latency percentiles, p0.99 included.
+ *
+ * {@code matchAndReplenish} sends a market order that takes the oldest order at the best price and
+ * rests a new one at a random price on the same side, so the book keeps its size. {@code addAndCancel}
+ * rests a passive order and cancels it. {@code engineSubmit} is a match through {@link MatchingEngine},
+ * including the hand-off to the shard's sequencer thread and back.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class OrderBookBenchmark {
+
+    static final int PRICES_PER_SIDE = 1_000;
+    static final int ORDERS_PER_PRICE = 500;
+    static final long MID = 100_000;
+    static final long QUANTITY = 10;
+
+    @State(Scope.Benchmark)
+    public static class BookState {
+        OrderBook book;
+        final OrderBook.Fills fills = new OrderBook.Fills();
+        final SplittableRandom random = new SplittableRandom(7);
+        long nextOrderId;
+        long sequence;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            book = new OrderBook();
+            long id = 1;
+            for (int order = 0; order < ORDERS_PER_PRICE; order++) {
+                for (int price = 1; price <= PRICES_PER_SIDE; price++) {
+                    book.rest(id, id, true, MID - price, QUANTITY);
+                    id++;
+                    book.rest(id, id, false, MID + price, QUANTITY);
+                    id++;
+                }
+            }
+            nextOrderId = id;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EngineState {
+        MatchingEngine engine;
+        final SplittableRandom random = new SplittableRandom(7);
+        long nextOrderId;
+        long sequence;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            engine = new MatchingEngine(1);
+            long id = 1;
+            for (int order = 0; order < ORDERS_PER_PRICE; order++) {
+                for (int price = 1; price <= PRICES_PER_SIDE; price++) {
+                    engine.restore("BENCH", id, id, true, MID - price, QUANTITY);
+                    id++;
+                    engine.restore("BENCH", id, id, false, MID + price, QUANTITY);
+                    id++;
+                }
+            }
+            engine.depth("BENCH", 1).join();
+            nextOrderId = id;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            engine.stop();
+        }
+    }
+
+    @Benchmark
+    public long matchAndReplenish(BookState state) {
+        boolean buy = (state.sequence++ & 1) == 0;
+        long taker = state.nextOrderId++;
+        long remaining = state.book.submit(taker, taker, buy, OrderBook.MARKET, QUANTITY, 0, state.fills);
+        long maker = state.nextOrderId++;
+        state.book.rest(maker, maker, !buy, restingPrice(!buy, state.random), QUANTITY);
+        return remaining;
+    }
+
+    @Benchmark
+    public long addAndCancel(BookState state) {
+        boolean buy = (state.sequence++ & 1) == 0;
+        long id = state.nextOrderId++;
+        state.book.submit(id, id, buy, restingPrice(buy, state.random), QUANTITY, 0, state.fills);
+        return state.book.cancel(id);
+    }
+
+    @Benchmark
+    public MatchingEngine.MatchResult engineSubmit(EngineState state) {
+        boolean buy = (state.sequence++ & 1) == 0;
+        long taker = state.nextOrderId++;
+        MatchingEngine.MatchResult result =
+            state.engine.submit("BENCH", taker, taker, buy, OrderBook.MARKET, QUANTITY, 0).join();
+        long maker = state.nextOrderId++;
+        state.engine.restore("BENCH", maker, maker, !buy, restingPrice(!buy, state.random), QUANTITY);
+        return result;
+    }
+
+    private static long restingPrice(boolean buy, SplittableRandom random) {
+        long offset = 1 + random.nextInt(PRICES_PER_SIDE);
+        return buy ? MID - offset : MID + offset;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderBookBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private final OrderBook book = new OrderBook();
+    private final OrderBook.Fills fills = new OrderBook.Fills();
+
+    @Test
+    void fillsBestPriceFirstAndOldestFirstWithinAPrice() {
+        book.rest(1, 100, false, 10_100, 5);
+        book.rest(2, 101, false, 10_050, 5);
+        book.rest(3, 102, false, 10_050, 5);
+        book.rest(4, 103, false, 10_200, 5);
+
+        long remaining = book.submit(9, 200, true, 10_100, 12, 0, fills);
+
+        assertEquals(0, remaining);
+        assertEquals(3, fills.size);
+        assertFill(0, 2, 10_050, 5);
+        assertFill(1, 3, 10_050, 5);
+        assertFill(2, 1, 10_100, 2);
+        assertEquals(10_100, book.bestAsk());
+        assertEquals(3, book.depth(false, 10).get(0).quantity());
+        assertEquals(2, book.restingOrders());
+    }
+
+    @Test
+    void unfilledLimitRestsAndMarketRemainderDoesNot() {
+        book.rest(1, 100, false, 10_000, 4);
+
+        assertEquals(6, book.submit(2, 200, true, 10_000, 10, 0, fills));
+        assertEquals(10_000, book.bestBid());
+        assertEquals(0, book.bestAsk());
+        assertEquals(1, book.restingOrders());
+
+        assertEquals(4, book.submit(3, 300, false, OrderBook.MARKET, 10, 0, fills));
+        assertEquals(0, book.bestBid());
+        assertEquals(0, book.restingOrders());
+    }
+
+    @Test
+    void houseFillsAtTheReferencePriceWhenTheBookIsWorse() {
+        book.rest(1, 100, false, 10_000, 5);
+        book.rest(2, 100, false, 10_300, 5);
+
+        // The resting ask at 100.00 beats the 101.00 reference; the house fills the rest before 103.00
+        assertEquals(0, book.submit(3, 200, true, OrderBook.MARKET, 20, 10_100, fills));
+        assertEquals(2, fills.size);
+        assertFill(0, 1, 10_000, 5);
+        assertFill(1, OrderBook.Fills.HOUSE, 10_100, 15);
+        assertEquals(10_300, book.bestAsk());
+
+        // Below the reference the house does not sell; the limit rests
+        assertEquals(5, book.submit(4, 200, true, 10_050, 5, 10_100, fills));
+        assertEquals(0, fills.size);
+        assertEquals(10_050, book.bestBid());
+    }
+
+    @Test
+    void cancelRemovesTheOrderAndEmptyLevels() {
+        book.rest(1, 100, true, 9_900, 5);
+        book.rest(2, 100, true, 9_900, 7);
+        book.rest(3, 100, true, 9_800, 1);
+
+        assertEquals(5, book.cancel(1));
+        assertEquals(-1, book.cancel(1));
+        assertEquals(7, book.depth(true, 10).get(0).quantity());
+        assertEquals(7, book.cancel(2));
+        assertEquals(9_800, book.bestBid());
+
+        assertEquals(0, book.submit(4, 200, false, 9_800, 1, 0, fills));
+        assertFill(0, 3, 9_800, 1);
+        assertEquals(0, book.bestBid());
+    }
+
+    /**
+     * Random limit orders against the book must trade exactly like a naive model: the best price and,
+     * within it, the lowest sequence number first.
+     */
+    @Test
+    void matchesLikeANaiveModelOnRandomFlow() {
+        Random random = new Random(42);
+        PriorityQueue<long[]> modelBids = new PriorityQueue<>((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]));
+        PriorityQueue<long[]> modelAsks = new PriorityQueue<>((a, b) -> a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(a[0], b[0]));
+
+        for (long id = 1; id <= 20_000; id++) {
+            boolean buy = random.nextBoolean();
+            long price = 10_000 + random.nextInt(41) - 20;
+            long quantity = 1 + random.nextInt(20);
+
+            long remaining = book.submit(id, id, buy, price, quantity, 0, fills);
+
+            PriorityQueue<long[]> contra = buy ? modelAsks : modelBids;
+            long expectedRemaining = quantity;
+            int fill = 0;
+            while (expectedRemaining > 0 && !contra.isEmpty()
+                && (buy ? contra.peek()[1] <= price : contra.peek()[1] >= price)) {
+                long[] maker = contra.peek();
+                long traded = Math.min(expectedRemaining, maker[2]);
+                assertFill(fill++, maker[0], maker[1], traded);
+                maker[2] -= traded;
+                expectedRemaining -= traded;
+                if (maker[2] == 0) {
+                    contra.poll();
+                }
+            }
+            assertEquals(fill, fills.size);
+            assertEquals(expectedRemaining, remaining);
+            if (expectedRemaining > 0) {
+                (buy ? modelBids : modelAsks).add(new long[]{id, price, expectedRemaining});
+            }
+        }
+        assertEquals(modelBids.size() + modelAsks.size(), book.restingOrders());
+        assertEquals(modelBids.isEmpty() ? 0 : modelBids.peek()[1], book.bestBid());
+        assertEquals(modelAsks.isEmpty() ? 0 : modelAsks.peek()[1], book.bestAsk());
+    }
+
+    private void assertFill(int index, long makerOrderId, long price, long quantity) {
+        assertEquals(makerOrderId, fills.makerOrderIds[index], "maker of fill " + index);
+        assertEquals(price, fills.prices[index], "price of fill " + index);
+        assertEquals(quantity, fills.quantities[index], "quantity of fill " + index);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.trading.service;
+
+import com.example.trading.TradingApplication;
+import com.example.trading.model.Stock;
+import com.example.trading.model.User;
+import com.example.trading.repository.StockRepository;
+import com.example.trading.repository.UserRepository;
+import com.example.trading.security.AuthenticatedUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order placement under concurrent load from one user: 8 threads placing one-share market orders
+ * for the same user and symbol through {@link OrderExecutionService}, alternating buys and sells, on
+ * the application running against in-memory H2. Operations per millisecond x 1000 gives orders/s.
+ * An order counts once the engine has matched and journaled it; each iteration then waits for the
+ * projection to reach the database, so its backlog does not carry into the next one.
+ * {@code journal} is {@code none} (books in memory only) or {@code fsync} (journal on disk, one
+ * fsync per group commit).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class OrderExecutionBenchmark {
+
+    static final String SYMBOL = "BNCH";
+
+    @State(Scope.Benchmark)
+    public static class AppState {
+        @Param({"none", "fsync"})
+        public String journal;
+
+        Path journalDir;
+        ConfigurableApplicationContext context;
+        OrderExecutionService orderExecution;
+        OrderProjector projector;
+        AuthenticatedUser trader;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            journalDir = Files.createTempDirectory("order-execution-bench");
+            context = new SpringApplicationBuilder(TradingApplication.class)
+                .profiles("h2")
+                .properties(
+                    "server.port=0",
+                    "spring.datasource.url=jdbc:h2:mem:orderbench;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                    "logging.level.com.example.trading=WARN",
+                    "app.journal.dir=" + (journal.equals("fsync") ? journalDir.toString() : ""))
+                .run();
+            orderExecution = context.getBean(OrderExecutionService.class);
+            projector = context.getBean(OrderProjector.class);
+            context.getBean(StockRepository.class).save(new Stock(SYMBOL, "Benchmark Corp", new BigDecimal("25.00")));
+            trader = AuthenticatedUser.from(context.getBean(UserRepository.class).save(new User("bench_trader", "hash")));
+            // Enough shares that the sells never run out, whatever the interleaving
+            orderExecution.execute(trader, SYMBOL, 1_000_000, "BUY");
+        }
+
+        @TearDown(Level.Iteration)
+        public void awaitProjection() throws InterruptedException {
+            if (!projector.awaitCaughtUp(60_000)) {
+                throw new IllegalStateException("projection did not catch up");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            context.close();
+            OrderJournalBenchmark.delete(journalDir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Side {
+        boolean buy;
+    }
+
+    @Benchmark
+    public Object sameUserMarketOrders(AppState app, Side side) {
+        side.buy = !side.buy;
+        return app.orderExecution.execute(app.trader, SYMBOL, 1, side.buy ? "BUY" : "SELL");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderExecutionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
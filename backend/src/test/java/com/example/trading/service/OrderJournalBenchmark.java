@@ -0,0 +1,183 @@
+package com.example.trading.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The order journal's cost. {@code append} is 8 threads each journaling a one-fill order and waiting
+ * until it is durable, so with fsync every thread waits for a group commit; operations per millisecond
+ * x 1000 gives orders/s. {@code recover} is one engine start (single shot, in milliseconds) over a
+ * journal of 1M commands from a realistic order flow (resting limits, crossing limits, cancels), either
+ * replayed in full or with a snapshot covering all of it.
+ */
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class OrderJournalBenchmark {
+
+    static final int RECOVERY_COMMANDS = 1_000_000;
+    static final String SYMBOL = "BENCH";
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+        @Param({"true", "false"})
+        public boolean fsync;
+
+        Path dir;
+        OrderJournal journal;
+        byte[] payload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("journal-append");
+            journal = OrderJournal.open(dir, 64 * 1024 * 1024, fsync);
+            payload = new OrderEvent(0, OrderEvent.Kind.SUBMIT, 1_000_001, 42, SYMBOL, true, 100_000, 10, 99_950,
+                List.of(new MatchingEngine.Fill(999_999, 7, 99_990, 10)), 0, false).encode();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            delete(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+        @Param({"journal", "snapshot"})
+        public String from;
+
+        Path template;
+        Path dir;
+        MatchingEngine engine;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            template = Files.createTempDirectory("journal-recovery");
+            try (OrderJournal journal = OrderJournal.open(template, 64 * 1024 * 1024, false)) {
+                writeOrderFlow(journal);
+            }
+            if (from.equals("snapshot")) {
+                // Recovering once leaves a snapshot covering the whole journal
+                new MatchingEngine(1, OrderJournal.open(template, 64 * 1024 * 1024, false), 0).stop();
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void copy() throws IOException {
+            // Every start writes a new snapshot, so each one gets the files as they were
+            dir = Files.createTempDirectory("journal-recovery-run");
+            try (Stream<Path> files = Files.list(template)) {
+                for (Path file : files.toList()) {
+                    Files.copy(file, dir.resolve(file.getFileName()));
+                }
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() throws IOException {
+            if (engine != null) {
+                engine.stop();
+                engine = null;
+            }
+            delete(dir);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(template);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Threads(8)
+    public long append(AppendState state) throws InterruptedException {
+        long seq = state.journal.append(state.payload, ignored -> {});
+        state.journal.awaitDurable(seq);
+        return seq;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public MatchingEngine.EngineStats recover(RecoveryState state) throws IOException {
+        state.engine = new MatchingEngine(1, OrderJournal.open(state.dir, 64 * 1024 * 1024, false), 0);
+        return state.engine.getStats();
+    }
+
+    /**
+     * 1M commands as the engine would journal them: 60% passive limit orders, 25% limit orders crossing
+     * the spread, 15% cancels of a random earlier order.
+     */
+    static void writeOrderFlow(OrderJournal journal) {
+        OrderBook book = new OrderBook();
+        OrderBook.Fills scratch = new OrderBook.Fills();
+        SplittableRandom random = new SplittableRandom(11);
+        long mid = 100_000;
+        for (long orderId = 1; orderId <= RECOVERY_COMMANDS; orderId++) {
+            int roll = random.nextInt(100);
+            if (roll < 15 && orderId > 1) {
+                long target = 1 + random.nextLong(orderId - 1);
+                long userId = book.userOf(target);
+                if (userId >= 0) {
+                    long cancelled = book.cancel(target);
+                    journal.append(OrderEvent.cancel(target, userId, SYMBOL, cancelled).encode(), ignored -> {});
+                    continue;
+                }
+            }
+            boolean buy = random.nextBoolean();
+            long offset = roll < 40 ? -(1 + random.nextInt(20)) : 1 + random.nextInt(500);
+            long limit = buy ? mid - offset : mid + offset;
+            long quantity = 1 + random.nextInt(50);
+            long userId = orderId % 1_000;
+            long remaining = book.submit(orderId, userId, buy, limit, quantity, 0, scratch);
+            List<MatchingEngine.Fill> fills = new ArrayList<>(scratch.size);
+            for (int i = 0; i < scratch.size; i++) {
+                fills.add(new MatchingEngine.Fill(scratch.makerOrderIds[i], scratch.makerUserIds[i], scratch.prices[i], scratch.quantities[i]));
+            }
+            journal.append(new OrderEvent(0, OrderEvent.Kind.SUBMIT, orderId, userId, SYMBOL, buy, limit, quantity, 0,
+                fills, remaining, remaining > 0).encode(), ignored -> {});
+        }
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderJournalBenchmark.class.getSimpleName()).build()).run();
+    }
+}
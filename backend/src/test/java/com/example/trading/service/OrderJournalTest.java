@@ -0,0 +1,157 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    private static final int PAYLOAD_BYTES = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedRecordsAreReadBackAfterReopening() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(dir, 1 << 16, true)) {
+            for (long i = 1; i <= 100; i++) {
+                assertEquals(i, journal.append(payload(i), seq -> {}));
+            }
+            journal.awaitDurable(100);
+            assertEquals(100, journal.durableSeq());
+        }
+
+        try (OrderJournal journal = OrderJournal.open(dir, 1 << 16, true)) {
+            assertEquals(100, journal.lastSeq());
+            List<Long> values = readAll(journal, 0, 100);
+            assertEquals(100, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(i + 1, values.get(i));
+            }
+            assertEquals(List.of(41L, 42L), readAll(journal, 40, 42));
+            assertEquals(101, journal.append(payload(101), seq -> {}));
+        }
+    }
+
+    @Test
+    void aCorruptRecordEndsTheJournal() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(dir, 1 << 16, false)) {
+            for (long i = 1; i <= 10; i++) {
+                journal.append(payload(i), seq -> {});
+            }
+        }
+        // Flip a payload byte of record 8: records 8 to 10 are lost, as if the write had been torn there
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            long offset = 7L * (OrderJournal.HEADER_BYTES + PAYLOAD_BYTES) + OrderJournal.HEADER_BYTES + 3;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xff);
+        }
+
+        try (OrderJournal journal = OrderJournal.open(dir, 1 << 16, false)) {
+            assertEquals(7, journal.lastSeq());
+            assertEquals(8, journal.append(payload(80), seq -> {}));
+        }
+        try (OrderJournal journal = OrderJournal.open(dir, 1 << 16, false)) {
+            assertEquals(8, journal.lastSeq());
+            assertEquals(List.of(7L, 80L), readAll(journal, 6, 8));
+        }
+    }
+
+    @Test
+    void fullSegmentsRollAndCanBeDeleted() throws Exception {
+        int recordsPerSegment = 4;
+        try (OrderJournal journal = OrderJournal.open(dir, recordsPerSegment * (OrderJournal.HEADER_BYTES + PAYLOAD_BYTES), false)) {
+            for (long i = 1; i <= 10; i++) {
+                journal.append(payload(i), seq -> {});
+            }
+            assertEquals(3, segments().size());
+
+            // Records 1-4 are all covered; the segment holding 5-8 still has 7 and 8
+            journal.deleteThrough(6);
+            assertEquals(2, segments().size());
+            assertEquals(List.of(7L, 8L, 9L, 10L), readAll(journal, 6, 10));
+
+            // The segment being appended to stays, whatever it covers
+            journal.deleteThrough(10);
+            assertEquals(1, segments().size());
+        }
+        try (OrderJournal journal = OrderJournal.open(dir, recordsPerSegment * (OrderJournal.HEADER_BYTES + PAYLOAD_BYTES), false)) {
+            assertEquals(10, journal.lastSeq());
+            assertEquals(List.of(9L, 10L), readAll(journal, 8, 10));
+        }
+    }
+
+    @Test
+    void groupCommitsAnswerConcurrentAppendsInSequenceOrder() throws Exception {
+        int threads = 4;
+        int appendsPerThread = 500;
+        List<Long> durable = Collections.synchronizedList(new ArrayList<>());
+        OrderJournal journal = OrderJournal.open(dir, 1 << 20, true);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < appendsPerThread; i++) {
+                    journal.append(payload(i), durable::add);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        journal.awaitDurable(threads * appendsPerThread);
+        MatchingEngine.JournalStats stats = journal.getStats(0, 0, 0, 0, 0);
+        journal.close();
+
+        assertEquals(threads * appendsPerThread, durable.size());
+        for (int i = 0; i < durable.size(); i++) {
+            assertEquals(i + 1, durable.get(i));
+        }
+        assertEquals(threads * appendsPerThread, stats.durableSeq());
+        assertTrue(stats.groupCommits() >= 1 && stats.groupCommits() <= threads * appendsPerThread);
+    }
+
+    @Test
+    void advancingLeavesNoGapInsideASegment() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(dir, 1 << 16, false)) {
+            journal.append(payload(1), seq -> {});
+            journal.advanceTo(50);
+            assertEquals(51, journal.append(payload(51), seq -> {}));
+            assertEquals(2, segments().size());
+        }
+        try (OrderJournal journal = OrderJournal.open(dir, 1 << 16, false)) {
+            assertEquals(51, journal.lastSeq());
+            assertEquals(List.of(1L, 51L), readAll(journal, 0, 51));
+        }
+    }
+
+    private static byte[] payload(long value) {
+        return ByteBuffer.allocate(PAYLOAD_BYTES).putLong(value).array();
+    }
+
+    private static List<Long> readAll(OrderJournal journal, long afterSeq, long throughSeq) {
+        List<Long> values = new ArrayList<>();
+        journal.read(afterSeq, throughSeq, (seq, payload) -> values.add(payload.getLong()));
+        return values;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> listing = Files.list(dir)) {
+            return listing.filter(p -> p.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.trading.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderHttpClientTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/gzip", exchange -> {
+            assertEquals("gzip", exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("{\"price\":101.5}".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            respond(exchange, 200, compressed.toByteArray());
+        });
+        server.createContext("/missing", exchange -> respond(exchange, 404, "{}".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/slow", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(100);
+            inFlight.decrementAndGet();
+            respond(exchange, 200, "ok".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/hang", exchange -> {
+            sleep(2_000);
+            respond(exchange, 200, "late".getBytes(StandardCharsets.UTF_8));
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void decodesGzipAndRecordsPerProviderLatency() throws Exception {
+        ProviderHttpClient client = new ProviderHttpClient();
+
+        assertEquals("{\"price\":101.5}", client.get("YAHOO", baseUrl + "/gzip"));
+        IOException notFound = assertThrows(IOException.class, () -> client.get("yahoo", baseUrl + "/missing"));
+        assertTrue(notFound.getMessage().contains("404"));
+
+        ProviderHttpClient.LatencyStats yahoo = client.getLatencyStats().get("YAHOO");
+        assertEquals(2, yahoo.requests());
+        assertEquals(1, yahoo.failures());
+        assertEquals(2, yahoo.histogram().values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(yahoo.p95Ms() <= yahoo.maxMs());
+    }
+
+    @Test
+    void capsConcurrentRequestsPerHostWithoutBlockingCallers() throws Exception {
+        ProviderHttpClient client = new ProviderHttpClient(3_000, 5_000, 3);
+        ProviderHttpClient.Timeouts timeouts = client.defaultTimeouts();
+
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            responses.add(client.getAsync("TWELVEDATA", baseUrl + "/slow?i=" + i, timeouts));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        for (CompletableFuture<String> response : responses) {
+            assertEquals("ok", response.join());
+        }
+        assertEquals(3, maxInFlight.get(), "never more than the per-host limit in flight");
+        assertEquals(12, client.getLatencyStats().get("TWELVEDATA").requests());
+    }
+
+    @Test
+    void requestTimeoutFailsTheCallAndFreesTheHostPermit() throws Exception {
+        ProviderHttpClient client = new ProviderHttpClient(3_000, 5_000, 1);
+        ProviderHttpClient.Timeouts shortTimeout = new ProviderHttpClient.Timeouts(Duration.ofSeconds(3), Duration.ofMillis(150));
+
+        IOException timedOut = assertThrows(IOException.class, () -> client.get("MASSIVE", baseUrl + "/hang", shortTimeout));
+        assertInstanceOf(HttpTimeoutException.class, timedOut);
+
+        assertEquals("ok", client.get("MASSIVE", baseUrl + "/slow"), "the only permit was released");
+        assertEquals(1, client.getLatencyStats().get("MASSIVE").failures());
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
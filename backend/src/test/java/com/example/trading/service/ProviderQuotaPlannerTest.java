@@ -0,0 +1,127 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderQuotaPlannerTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private final MovableClock clock = new MovableClock();
+    private ApiUsageTracker tracker;
+    private ProviderQuotaPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        // Tuesday, five minutes after the open
+        clock.set(ZonedDateTime.of(2026, 2, 17, 9, 35, 0, 0, NEW_YORK));
+        tracker = new ApiUsageTracker();
+        planner = new ProviderQuotaPlanner(tracker, clock);
+    }
+
+    @Test
+    void plansMostOfTheDailyQuotaForTheTradingSession() {
+        // 20% over the 1050 off-session minutes, 80% over the 390 session minutes
+        assertEquals(0.2 * 570 / 1050, planner.plannedShare(ZonedDateTime.of(2026, 2, 17, 9, 30, 0, 0, NEW_YORK)), 1e-9);
+        assertEquals(0.2 * 570 / 1050 + 0.8, planner.plannedShare(ZonedDateTime.of(2026, 2, 17, 16, 0, 0, 0, NEW_YORK)), 1e-9);
+        assertEquals(1.0, planner.plannedShare(ZonedDateTime.of(2026, 2, 17, 23, 59, 59, 0, NEW_YORK)), 1e-3);
+        assertEquals(0.5, planner.plannedShare(ZonedDateTime.of(2026, 2, 21, 12, 0, 0, 0, NEW_YORK)), 1e-9, "weekends are flat");
+    }
+
+    @Test
+    void admitsEachPriorityAgainstItsShareOfTheAlphaVantageQuota() {
+        // 25/day at 09:35: 2 planned so far, plus a burst of 3 for stale-data requests
+        record(2);
+        assertTrue(planner.tryAcquire("ALPHA_VANTAGE", ProviderQuotaPlanner.Priority.NORMAL));
+        assertFalse(planner.tryAcquire("ALPHA_VANTAGE", ProviderQuotaPlanner.Priority.LOW));
+        record(2);
+        assertFalse(planner.tryAcquire("ALPHA_VANTAGE", ProviderQuotaPlanner.Priority.NORMAL));
+        assertTrue(planner.tryAcquire("ALPHA_VANTAGE", ProviderQuotaPlanner.Priority.HIGH), "a cache miss may use the rest of the day");
+
+        ProviderQuotaPlanner.BudgetForecast forecast = planner.forecast().get("ALPHA_VANTAGE");
+        assertEquals(6, forecast.used());
+        assertEquals(2, forecast.planned());
+        assertEquals(5, forecast.allowance());
+        assertEquals(0, forecast.headroom());
+        assertEquals(50, forecast.projectedDailyUse());
+        assertTrue(forecast.projectedToRunOut());
+        assertEquals(Map.of(ProviderQuotaPlanner.Priority.HIGH, 1L, ProviderQuotaPlanner.Priority.NORMAL, 1L, ProviderQuotaPlanner.Priority.LOW, 0L),
+            planner.getStats().admitted());
+    }
+
+    @Test
+    void routesToTheProviderWithTheMostPlannedHeadroom() {
+        List<String> providers = List.of("ALPHA_VANTAGE", "TWELVEDATA");
+
+        // Alpha Vantage 5/25 headroom vs Twelve Data 175/800
+        assertEquals(List.of("TWELVEDATA", "ALPHA_VANTAGE"), planner.route(providers, ProviderQuotaPlanner.Priority.NORMAL));
+        record(5);
+        assertEquals(List.of("TWELVEDATA"), planner.route(providers, ProviderQuotaPlanner.Priority.NORMAL));
+    }
+
+    @Test
+    void runsDeferredRefreshesOnceThePlanCatchesUp() {
+        planner.updatePopularity(Map.of("MSFT", 4L));
+        assertEquals(ProviderQuotaPlanner.Priority.LOW, planner.priorityFor("IBM", ProviderQuotaPlanner.Need.REFRESH));
+        assertEquals(ProviderQuotaPlanner.Priority.NORMAL, planner.priorityFor("MSFT", ProviderQuotaPlanner.Need.REFRESH));
+
+        record(2);
+        List<String> providers = List.of("ALPHA_VANTAGE");
+        assertTrue(planner.route(providers, ProviderQuotaPlanner.Priority.LOW).isEmpty());
+        AtomicInteger runs = new AtomicInteger();
+        assertTrue(planner.defer("IBM|daily", ProviderQuotaPlanner.Priority.LOW, providers, runs::incrementAndGet));
+        assertTrue(planner.defer("IBM|daily", ProviderQuotaPlanner.Priority.LOW, providers, runs::incrementAndGet));
+
+        planner.drainDeferred();
+        assertEquals(0, runs.get());
+
+        // By noon the plan allows 10 calls
+        clock.set(ZonedDateTime.of(2026, 2, 17, 12, 0, 0, 0, NEW_YORK));
+        planner.drainDeferred();
+        planner.drainDeferred();
+        assertEquals(1, runs.get());
+        ProviderQuotaPlanner.PlannerStats stats = planner.getStats();
+        assertEquals(0, stats.deferredQueued());
+        assertEquals(1, stats.deferredTotal());
+        assertEquals(1, stats.deferredRun());
+    }
+
+    private void record(int requests) {
+        for (int i = 0; i < requests; i++) {
+            tracker.recordRequest("ALPHA_VANTAGE");
+        }
+    }
+
+    private static final class MovableClock extends Clock {
+        private volatile Instant now = Instant.EPOCH;
+
+        void set(ZonedDateTime time) {
+            now = time.toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse cost of full-size provider history responses: the previous String + readTree path against the
+ * streaming {@link ProviderSeriesParser}. Payloads mirror Alpha Vantage TIME_SERIES_DAILY
+ * {@code outputsize=full} (~26 years of bars) and Twelve Data {@code outputsize=5000}. Run with
+ * {@code -prof gc} to see the allocation rate per parse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProviderSeriesParserBenchmark {
+
+    private static final int ALPHA_VANTAGE_BARS = 6_600;
+    private static final int TWELVE_DATA_BARS = 5_000;
+    private static final int MAX_POINTS = 5_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] alphaVantageBody;
+    private byte[] twelveDataBody;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        alphaVantageBody = alphaVantagePayload(ALPHA_VANTAGE_BARS).getBytes(StandardCharsets.UTF_8);
+        twelveDataBody = twelveDataPayload(TWELVE_DATA_BARS).getBytes(StandardCharsets.UTF_8);
+        System.out.printf("%npayload sizes: alpha vantage=%d bytes (%d bars), twelve data=%d bytes (%d bars)%n",
+            alphaVantageBody.length, ALPHA_VANTAGE_BARS, twelveDataBody.length, TWELVE_DATA_BARS);
+    }
+
+    @Benchmark
+    public HistoricalSeries treeAlphaVantage() throws Exception {
+        // As the fetcher did before: whole body as a String, then a JsonNode tree, then BigDecimal per value
+        JsonNode root = objectMapper.readTree(new String(alphaVantageBody, StandardCharsets.UTF_8));
+        JsonNode timeSeries = root.get("Time Series (Daily)");
+        HistoricalSeries.Builder data = HistoricalSeries.builder(timeSeries.size());
+        for (Iterator<Map.Entry<String, JsonNode>> it = timeSeries.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            JsonNode ohlc = entry.getValue();
+            data.add(entry.getKey(),
+                new BigDecimal(ohlc.get("1. open").asText()),
+                new BigDecimal(ohlc.get("2. high").asText()),
+                new BigDecimal(ohlc.get("3. low").asText()),
+                new BigDecimal(ohlc.get("4. close").asText()));
+        }
+        return data.sortByDate(true).limit(MAX_POINTS).build();
+    }
+
+    @Benchmark
+    public HistoricalSeries streamingAlphaVantage() throws Exception {
+        return ProviderSeriesParser.alphaVantage(new ByteArrayInputStream(alphaVantageBody), MAX_POINTS).series();
+    }
+
+    @Benchmark
+    public HistoricalSeries treeTwelveData() throws Exception {
+        JsonNode root = objectMapper.readTree(new String(twelveDataBody, StandardCharsets.UTF_8));
+        JsonNode values = root.get("values");
+        HistoricalSeries.Builder data = HistoricalSeries.builder(values.size());
+        for (JsonNode value : values) {
+            data.add(value.get("datetime").asText(),
+                new BigDecimal(value.get("open").asText()),
+                new BigDecimal(value.get("high").asText()),
+                new BigDecimal(value.get("low").asText()),
+                new BigDecimal(value.get("close").asText()));
+        }
+        return data.limit(MAX_POINTS).build();
+    }
+
+    @Benchmark
+    public HistoricalSeries streamingTwelveData() throws Exception {
+        return ProviderSeriesParser.twelveData(new ByteArrayInputStream(twelveDataBody), MAX_POINTS).series();
+    }
+
+    private static String alphaVantagePayload(int bars) {
+        StringBuilder json = new StringBuilder(bars * 160);
+        json.append("{\n    \"Meta Data\": {\n        \"1. Information\": \"Daily Prices (open, high, low, close) and Volumes\",\n")
+            .append("        \"2. Symbol\": \"AAPL\",\n        \"3. Last Refreshed\": \"2026-02-13\",\n")
+            .append("        \"4. Output Size\": \"Full size\",\n        \"5. Time Zone\": \"US/Eastern\"\n    },\n")
+            .append("    \"Time Series (Daily)\": {\n");
+        Random random = new Random(42);
+        LocalDate day = LocalDate.of(2026, 2, 13);
+        double close = 195.0;
+        for (int i = 0; i < bars; i++) {
+            double open = Math.max(1, close + (random.nextDouble() - 0.5) * 4);
+            json.append(i == 0 ? "" : ",\n").append("        \"").append(day).append("\": {\n")
+                .append("            \"1. open\": \"").append(price(open)).append("\",\n")
+                .append("            \"2. high\": \"").append(price(Math.max(open, close) + random.nextDouble())).append("\",\n")
+                .append("            \"3. low\": \"").append(price(Math.min(open, close) - random.nextDouble() * 0.9)).append("\",\n")
+                .append("            \"4. close\": \"").append(price(close)).append("\",\n")
+                .append("            \"5. volume\": \"").append(20_000_000 + random.nextInt(80_000_000)).append("\"\n        }");
+            close = open;
+            day = day.minusDays(1);
+        }
+        return json.append("\n    }\n}").toString();
+    }
+
+    private static String twelveDataPayload(int bars) {
+        StringBuilder json = new StringBuilder(bars * 130);
+        json.append("{\"meta\":{\"symbol\":\"AAPL\",\"interval\":\"1day\",\"currency\":\"USD\",\"exchange_timezone\":\"America/New_York\",")
+            .append("\"exchange\":\"NASDAQ\",\"mic_code\":\"XNGS\",\"type\":\"Common Stock\"},\"values\":[");
+        Random random = new Random(7);
+        LocalDate day = LocalDate.of(2026, 2, 13);
+        double close = 195.0;
+        for (int i = 0; i < bars; i++) {
+            double open = Math.max(1, close + (random.nextDouble() - 0.5) * 4);
+            json.append(i == 0 ? "" : ",")
+                .append("{\"datetime\":\"").append(day)
+                .append("\",\"open\":\"").append(price(open))
+                .append("\",\"high\":\"").append(price(Math.max(open, close) + random.nextDouble()))
+                .append("\",\"low\":\"").append(price(Math.min(open, close) - random.nextDouble() * 0.9))
+                .append("\",\"close\":\"").append(price(close))
+                .append("\",\"volume\":\"").append(20_000_000 + random.nextInt(80_000_000)).append("\"}");
+            close = open;
+            day = day.minusDays(1);
+        }
+        return json.append("],\"status\":\"ok\"}").toString();
+    }
+
+    private static String price(double value) {
+        return String.format(Locale.ROOT, "%.5f", Math.max(0.01, value));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProviderSeriesParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderSeriesParserTest {
+
+    @Test
+    void readsAlphaVantageBarsNewestFirstAndSkipsMalformedRows() throws IOException {
+        String json = """
+            {
+              "Meta Data": {"1. Information": "Daily Prices", "2. Symbol": "AAPL"},
+              "Time Series (Daily)": {
+                "2026-02-11": {"1. open": "190.1000", "2. high": "192.5", "3. low": "189.00005", "4. close": "191.25", "5. volume": "1000"},
+                "2026-02-13": {"1. open": "193.0", "2. high": "195.75", "3. low": "192.1", "4. close": "195.5", "5. volume": "1200"},
+                "2026-02-12": {"1. open": "n/a", "2. high": "1", "3. low": "1", "4. close": "1"},
+                "2026-02-10": {"1. open": "188.0", "2. high": "189.0", "3. low": "187.0"}
+              }
+            }
+            """;
+
+        ProviderSeriesParser.Result result = ProviderSeriesParser.alphaVantage(body(json), 5_000);
+
+        assertNull(result.error());
+        HistoricalSeries series = result.series();
+        assertEquals(2, series.size());
+        assertEquals("2026-02-13", series.timestamp(0));
+        assertEquals(195.5, series.close(0));
+        assertEquals("2026-02-11", series.timestamp(1));
+        assertEquals(HistoricalSeries.toScaled(new BigDecimal("189.00005")), series.lowScaled(1));
+        assertEquals(1, ProviderSeriesParser.alphaVantage(body(json), 1).series().size());
+    }
+
+    @Test
+    void reportsAlphaVantageRateLimitNotesAndTwelveDataErrors() throws IOException {
+        ProviderSeriesParser.Result note = ProviderSeriesParser.alphaVantage(
+            body("{\"Note\": \"Thank you for using Alpha Vantage! Our standard API call frequency is 5 calls per minute.\"}"), 100);
+        assertTrue(note.error().startsWith("Thank you"));
+        assertTrue(note.series().isEmpty());
+
+        ProviderSeriesParser.Result error = ProviderSeriesParser.twelveData(
+            body("{\"code\": 429, \"message\": \"You have run out of API credits\", \"status\": \"error\"}"), 100);
+        assertEquals("You have run out of API credits", error.error());
+        assertTrue(error.series().isEmpty());
+    }
+
+    @Test
+    void readsTwelveDataValuesUpToTheLimit() throws IOException {
+        String json = """
+            {
+              "meta": {"symbol": "MSFT", "interval": "1day"},
+              "values": [
+                {"datetime": "2026-02-13", "open": "370.5", "high": "372", "low": "369.25", "close": "371.75", "volume": "900"},
+                {"datetime": "2026-02-12", "open": 368.0, "high": 371.0, "low": 367.5, "close": 370.5},
+                {"datetime": "2026-02-11", "open": "365", "high": "368", "low": "364", "close": "367"}
+              ],
+              "status": "ok"
+            }
+            """;
+
+        ProviderSeriesParser.Result result = ProviderSeriesParser.twelveData(body(json), 2);
+
+        assertNull(result.error());
+        assertEquals(2, result.series().size());
+        assertEquals("2026-02-13", result.series().timestamp(0));
+        assertEquals(370.5, result.series().close(1));
+    }
+
+    @Test
+    void decimalAndDateDecodingMatchesBigDecimalAndLocalDate() {
+        String[] prices = {"0", "1", "195.5", "189.00005", "189.00004", "-12.34565", "0.99995", "12345678.123456789", ".5"};
+        for (String price : prices) {
+            char[] text = ("x" + price + "x").toCharArray();
+            assertEquals(HistoricalSeries.toScaled(new BigDecimal(price)),
+                ProviderSeriesParser.parseScaled(text, 1, price.length()), price);
+        }
+        for (String bad : new String[] {"", "-", "1.2.3", "1e5", "abc"}) {
+            assertEquals(Long.MIN_VALUE, ProviderSeriesParser.parseScaled(bad.toCharArray(), 0, bad.length()), bad);
+        }
+
+        for (LocalDate date = LocalDate.of(1899, 12, 25); date.isBefore(LocalDate.of(2101, 1, 10)); date = date.plusDays(17)) {
+            String text = date + " 16:00:00";
+            assertEquals(date.toEpochDay(), ProviderSeriesParser.epochDay(text.toCharArray(), 0, text.length()), text);
+        }
+        assertEquals(Long.MIN_VALUE, ProviderSeriesParser.epochDay("2026-02-30".toCharArray(), 0, 10));
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublicRateLimiterServiceTest {
+
+    private final AtomicLong nanos = new AtomicLong(5_000);
+    private final PublicRateLimiterService limiter = new PublicRateLimiterService(nanos::get);
+
+    @Test
+    void limitsTheBurstAcrossAWindowBoundary() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000));
+        }
+        assertFalse(limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000));
+        assertTrue(limiter.allow("5.6.7.8|GET|/api/stocks", 10, 60_000), "keys are limited separately");
+
+        // A second past the boundary 59/60 of the previous window still counts; halfway, half of it
+        advanceSeconds(61);
+        assertTrue(limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000));
+        assertFalse(limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000));
+        advanceSeconds(29);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000));
+        }
+        assertFalse(limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000));
+    }
+
+    @Test
+    void sweepsKeysIdleForTwoWindows() {
+        for (int i = 0; i < 100; i++) {
+            limiter.allow("1.2.3.4|GET|/api/stocks/S" + i, 10, 60_000);
+        }
+        assertEquals(100, limiter.trackedKeys());
+
+        advanceSeconds(60);
+        limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000);
+        assertEquals(101, limiter.trackedKeys(), "one window later the old counts still matter");
+
+        advanceSeconds(90);
+        limiter.allow("1.2.3.4|GET|/api/stocks", 10, 60_000);
+        assertEquals(1, limiter.trackedKeys());
+    }
+
+    private void advanceSeconds(long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteEventBusTest {
+
+    /**
+     * Live provider stand-in: Yahoo batch lookups answer from a mutable price table.
+     */
+    private static class StubPriceService extends SimpleStockPriceService {
+        private final Map<String, BigDecimal> prices = new HashMap<>();
+
+        @Override
+        protected Map<String, StockPrice> tryYahooQuotes(List<String> symbols) {
+            Map<String, StockPrice> quotes = new HashMap<>();
+            for (String symbol : symbols) {
+                BigDecimal price = prices.getOrDefault(symbol, new BigDecimal("100.00"));
+                quotes.put(symbol, new StockPrice(symbol, price, price, price, "2026-02-14"));
+            }
+            return quotes;
+        }
+
+        void refresh(String symbol, BigDecimal price) {
+            prices.put(symbol, price);
+            expireCachedPrice(symbol);
+            getCurrentPrices(List.of(symbol));
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void changedRefreshReachesSubscribersWithoutWaitingForTick() throws Exception {
+        QuoteEventBus bus = new QuoteEventBus(Runnable::run);
+        StubPriceService priceService = new StubPriceService();
+        priceService.setQuoteEventBus(bus);
+        QuoteStreamService stream = new QuoteStreamService(priceService,
+            new QuoteResolutionService(priceService, null), objectMapper, bus, null, Runnable::run);
+        ScreenerResultCache screenerCache = new ScreenerResultCache(bus);
+
+        StubWebSocketSession delta = new StubWebSocketSession("delta");
+        StubWebSocketSession full = new StubWebSocketSession("full");
+        StubWebSocketSession other = new StubWebSocketSession("other");
+        stream.afterConnectionEstablished(delta);
+        stream.afterConnectionEstablished(full);
+        stream.afterConnectionEstablished(other);
+        priceService.getCurrentPrices(List.of("AAPL", "MSFT"));
+        stream.handleTextMessage(delta, new TextMessage("{\"type\":\"subscribe\",\"mode\":\"delta\",\"symbols\":[\"AAPL\",\"MSFT\"]}"));
+        stream.handleTextMessage(full, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"AAPL\",\"MSFT\"]}"));
+        stream.handleTextMessage(other, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"MSFT\"]}"));
+        ScreenerResultCache.Key key = ScreenerResultCache.key("AA", null, null, 50);
+        screenerCache.put(key, Set.of("AAPL"), List.of(Map.of("symbol", "AAPL")));
+
+        priceService.refresh("AAPL", new BigDecimal("101.25"));
+
+        JsonNode pushed = payload(delta, 1);
+        assertEquals("delta", pushed.path("mode").asText());
+        assertEquals(1, pushed.path("quotes").size());
+        assertEquals(101.25, pushed.path("quotes").get(0).path("price").asDouble());
+        assertEquals("AAPL", payload(full, 1).path("quotes").get(0).path("symbol").asText());
+        assertEquals(1, other.sent.size(), "sessions not subscribed to AAPL get nothing");
+        assertNull(screenerCache.get(key));
+        assertEquals(1, stream.getEventPushes());
+
+        stream.broadcastQuotes();
+        assertEquals(2, delta.sent.size(), "the tick does not resend a quote already pushed");
+
+        priceService.refresh("AAPL", new BigDecimal("101.25"));
+        assertEquals(1, stream.getEventPushes(), "unchanged refresh publishes nothing");
+    }
+
+    @Test
+    void failingListenerDoesNotBlockOthers() {
+        QuoteEventBus bus = new QuoteEventBus(Runnable::run);
+        int[] delivered = new int[1];
+        bus.subscribe("broken", event -> {
+            throw new IllegalStateException("boom");
+        });
+        bus.subscribe("counter", event -> delivered[0]++);
+
+        bus.publish(new QuoteUpdated("AAPL", null, System.nanoTime()));
+
+        assertEquals(1, delivered[0]);
+        QuoteEventBus.QuoteEventStats stats = bus.getStats();
+        assertEquals(1, stats.published());
+        assertEquals(1, stats.listeners().get(0).failures());
+        assertEquals(1, stats.listeners().get(1).delivered());
+    }
+
+    /**
+     * Deterministic end-to-end harness: a seeded random walk of refreshes goes through the real price
+     * cache, the asynchronous bus and the stream subscriber to an in-memory WebSocket session, one
+     * update at a time, and the latency from publication to sendMessage is recorded for each.
+     */
+    @Test
+    void endToEndUpdateLatencyHarness() throws Exception {
+        int updates = 2_000;
+        QuoteEventBus bus = new QuoteEventBus();
+        try {
+            StubPriceService priceService = new StubPriceService();
+            priceService.setQuoteEventBus(bus);
+            QuoteStreamService stream = new QuoteStreamService(priceService,
+                new QuoteResolutionService(priceService, null), objectMapper, bus, null, Runnable::run);
+            new ScreenerResultCache(bus);
+
+            long[] latencies = new long[updates];
+            Semaphore received = new Semaphore(0);
+            long[] lastPublished = new long[1];
+            int[] index = new int[1];
+            StubWebSocketSession session = new StubWebSocketSession("latency", false) {
+                @Override
+                public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                    super.sendMessage(message);
+                    if (index[0] < updates) {
+                        latencies[index[0]++] = System.nanoTime() - lastPublished[0];
+                    }
+                    received.release();
+                }
+            };
+            stream.afterConnectionEstablished(session);
+            stream.handleTextMessage(session, new TextMessage("{\"type\":\"subscribe\",\"mode\":\"delta\",\"symbols\":[\"AAPL\"]}"));
+            // The snapshot's cold lookup is itself a fresh quote, so the snapshot is followed by one push
+            assertTrue(received.tryAcquire(2, 5, TimeUnit.SECONDS));
+            index[0] = 0;
+
+            Random random = new Random(42);
+            BigDecimal price = new BigDecimal("100.00");
+            for (int i = 0; i < updates; i++) {
+                BigDecimal step = BigDecimal.valueOf(random.nextInt(10) + 1, 2);
+                price = random.nextBoolean() || price.compareTo(BigDecimal.ONE) < 0 ? price.add(step) : price.subtract(step);
+                lastPublished[0] = System.nanoTime();
+                priceService.refresh("AAPL", price);
+                assertTrue(received.tryAcquire(5, TimeUnit.SECONDS), "update " + i + " was not delivered");
+            }
+
+            Arrays.sort(latencies);
+            double p50 = latencies[updates / 2] / 1_000.0;
+            double p99 = latencies[updates * 99 / 100] / 1_000.0;
+            double max = latencies[updates - 1] / 1_000.0;
+            System.out.printf("quote update latency over %d updates: p50=%.1f µs p99=%.1f µs max=%.1f µs%n", updates, p50, p99, max);
+
+            assertEquals(updates + 1, stream.getEventPushes());
+            assertTrue(p99 < 50_000, "p99 publish-to-send latency should stay well under 50 ms, was " + p99 + " µs");
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    private JsonNode payload(StubWebSocketSession session, int index) throws Exception {
+        return objectMapper.readTree(((TextMessage) session.sent.get(index)).getPayload());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode cost and frame size of one /ws/quotes quote frame: JSON text protocol against the
+ * {@value BinaryQuoteFrames#SUBPROTOCOL} binary protocol. Each op encodes every quote and assembles the frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuoteFramesBenchmark {
+
+    @Param({"20"})
+    int quotes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinaryQuoteFrames binaryFrames = new BinaryQuoteFrames();
+    private List<QuoteResolutionService.ResolvedQuote> resolved;
+    private List<String> symbols;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        resolved = new ArrayList<>();
+        symbols = new ArrayList<>();
+        for (int i = 0; i < quotes; i++) {
+            String symbol = "S" + (char) ('A' + i % 26) + (char) ('A' + i / 26 % 26);
+            BigDecimal price = new BigDecimal("100.00").add(BigDecimal.valueOf(i * 137L, 2));
+            resolved.add(new QuoteResolutionService.ResolvedQuote(symbol, price, price.add(BigDecimal.ONE),
+                price.subtract(BigDecimal.ONE), "2026-02-14", "LIVE"));
+            symbols.add(symbol);
+        }
+        System.out.printf("%nframe size for %d quotes: json=%d bytes, binary=%d bytes (+%d byte dictionary once)%n",
+            quotes, jsonFrame().getPayloadLength(), binaryFrame().getPayloadLength(),
+            BinaryQuoteFrames.dictionary(symbols, binaryFragments()).getPayloadLength());
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> jsonFrame() throws Exception {
+        String timestamp = Instant.now().toString();
+        Map<String, byte[]> fragments = new HashMap<>();
+        for (QuoteResolutionService.ResolvedQuote quote : resolved) {
+            fragments.put(quote.symbol(), QuoteFrames.encodeFragment(objectMapper, quote, timestamp));
+        }
+        return QuoteFrames.assemble(symbols, fragments);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> binaryFrame() {
+        return BinaryQuoteFrames.assemble(QuoteFrames.Kind.FULL, symbols, binaryFragments());
+    }
+
+    private Map<String, byte[]> binaryFragments() {
+        Map<String, byte[]> fragments = new HashMap<>();
+        for (QuoteResolutionService.ResolvedQuote quote : resolved) {
+            fragments.put(quote.symbol(), binaryFrames.encodeFragment(quote));
+        }
+        return fragments;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QuoteFramesBenchmark.class.getSimpleName()).build()).run();
+    }
+}
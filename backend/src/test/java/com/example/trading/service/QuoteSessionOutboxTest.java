@@ -0,0 +1,123 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteSessionOutboxTest {
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        sender.shutdownNow();
+    }
+
+    @Test
+    void conflatesQuotesWhileSendIsBlocked() throws Exception {
+        StubWebSocketSession session = new StubWebSocketSession("slow");
+        CountDownLatch gate = new CountDownLatch(1);
+        session.sendGate = gate;
+        QuoteSessionOutbox.Counters counters = new QuoteSessionOutbox.Counters();
+        QuoteSessionOutbox outbox = outbox(session, QuoteSessionOutbox.Conflation.LATEST, 1 << 20, 60_000, counters, new AtomicBoolean());
+
+        Set<String> symbols = new LinkedHashSet<>(Set.of("AAPL", "MSFT"));
+        offer(outbox, symbols, 0);
+        waitUntil(() -> outbox.queuedMessages() == 0);
+        for (int tick = 1; tick < 10; tick++) {
+            offer(outbox, symbols, tick);
+        }
+
+        // First frame is in flight; the remaining nine ticks collapse into one pending quote per symbol
+        waitUntil(() -> outbox.queuedMessages() == 2);
+        assertEquals(16, counters.conflated.sum());
+
+        gate.countDown();
+        waitUntil(() -> counters.sent.sum() == 2);
+        assertEquals(0, outbox.queuedMessages());
+        String last = ((TextMessage) session.sent.get(1)).getPayload();
+        assertTrue(last.contains("\"p\":9"));
+        assertFalse(last.contains("\"p\":8"));
+    }
+
+    @Test
+    void disconnectsWhenBufferLimitExceeded() {
+        StubWebSocketSession session = new StubWebSocketSession("overflow");
+        session.sendGate = new CountDownLatch(1);
+        QuoteSessionOutbox.Counters counters = new QuoteSessionOutbox.Counters();
+        AtomicBoolean removed = new AtomicBoolean();
+        QuoteSessionOutbox outbox = outbox(session, QuoteSessionOutbox.Conflation.NONE, 200, 60_000, counters, removed);
+
+        Set<String> symbols = Set.of("AAPL", "MSFT", "NVDA");
+        for (int tick = 0; tick < 20 && !outbox.isClosed(); tick++) {
+            offer(outbox, symbols, tick);
+        }
+
+        assertTrue(outbox.isClosed());
+        assertTrue(removed.get());
+        assertFalse(session.isOpen());
+        assertEquals(1, counters.slowConsumerDisconnects.sum());
+        assertTrue(counters.dropped.sum() > 0);
+        assertEquals(0, outbox.queuedMessages());
+        session.sendGate.countDown();
+    }
+
+    @Test
+    void disconnectsWhenSendTimeLimitExceeded() throws Exception {
+        StubWebSocketSession session = new StubWebSocketSession("stuck");
+        session.sendGate = new CountDownLatch(1);
+        QuoteSessionOutbox.Counters counters = new QuoteSessionOutbox.Counters();
+        QuoteSessionOutbox outbox = outbox(session, QuoteSessionOutbox.Conflation.LATEST, 1 << 20, 50, counters, new AtomicBoolean());
+
+        offer(outbox, Set.of("AAPL"), 0);
+        Thread.sleep(120);
+        offer(outbox, Set.of("AAPL"), 1);
+
+        assertTrue(outbox.isClosed());
+        assertEquals(1, counters.slowConsumerDisconnects.sum());
+        session.sendGate.countDown();
+    }
+
+    private QuoteSessionOutbox outbox(StubWebSocketSession session, QuoteSessionOutbox.Conflation conflation,
+                                      int bufferLimit, long sendTimeLimitMs,
+                                      QuoteSessionOutbox.Counters counters, AtomicBoolean removed) {
+        return new QuoteSessionOutbox(
+            session,
+            sender,
+            new QuoteSessionOutbox.Settings(conflation, bufferLimit, sendTimeLimitMs),
+            counters,
+            quotes -> QuoteFrames.assemble(quotes.keySet(), quotes),
+            closed -> removed.set(true)
+        );
+    }
+
+    private void offer(QuoteSessionOutbox outbox, Set<String> symbols, int tick) {
+        Map<String, byte[]> fragments = new java.util.HashMap<>();
+        for (String symbol : symbols) {
+            fragments.put(symbol, ("{\"s\":\"" + symbol + "\",\"p\":" + tick + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        outbox.offerQuotes(symbols, fragments, () -> QuoteFrames.assemble(symbols, fragments));
+    }
+
+    private void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not reached");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.trading.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.socket.TextMessage;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for one /ws/quotes broadcast tick: simulated sessions each subscribe to a handful of
+ * symbols drawn from a popularity-skewed universe, and the score is the tick duration.
+ * Quote resolution is stubbed so the numbers isolate fan-out and serialization cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuoteStreamServiceBenchmark {
+
+    private static final int UNIVERSE = 500;
+    private static final int SYMBOLS_PER_SESSION = 8;
+
+    @Param({"1000", "10000"})
+    int sessions;
+
+    private QuoteStreamService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        QuoteResolutionService resolver = new QuoteResolutionService(new SimpleStockPriceService(), null) {
+            @Override
+            public Map<String, ResolvedQuote> resolveAll(Collection<String> symbols) {
+                Map<String, ResolvedQuote> quotes = new LinkedHashMap<>();
+                for (String symbol : symbols) {
+                    BigDecimal price = BigDecimal.valueOf(50 + (symbol.hashCode() & 0xFF), 0).setScale(2);
+                    quotes.put(symbol, new ResolvedQuote(symbol, price, price.add(BigDecimal.ONE), price.subtract(BigDecimal.ONE), "2026-02-14", "LIVE"));
+                }
+                return quotes;
+            }
+        };
+        service = new QuoteStreamService(new SimpleStockPriceService(), resolver, new ObjectMapper(), null, null, Runnable::run);
+
+        Random random = new Random(7);
+        for (int i = 0; i < sessions; i++) {
+            StubWebSocketSession session = new StubWebSocketSession("session-" + i, false);
+            service.afterConnectionEstablished(session);
+            StringBuilder symbols = new StringBuilder("[");
+            for (int s = 0; s < SYMBOLS_PER_SESSION; s++) {
+                // Squared uniform draw skews subscriptions towards a small set of popular tickers
+                double u = random.nextDouble();
+                int rank = (int) (u * u * UNIVERSE);
+                if (s > 0) symbols.append(',');
+                symbols.append('"').append(ticker(rank)).append('"');
+            }
+            symbols.append(']');
+            service.handleTextMessage(session, new TextMessage("{\"type\":\"subscribe\",\"symbols\":" + symbols + "}"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        QuoteStreamService.BroadcastStats stats = service.getBroadcastStats();
+        System.out.printf("%nlast tick: sessions=%d symbols=%d distinctFrames=%d tick=%.2f ms%n",
+            stats.sessions(), stats.symbols(), stats.distinctFrames(), stats.lastTickMs());
+    }
+
+    @Benchmark
+    public QuoteStreamService.BroadcastStats broadcastTick() {
+        service.broadcastQuotes();
+        return service.getBroadcastStats();
+    }
+
+    private static String ticker(int rank) {
+        StringBuilder ticker = new StringBuilder();
+        int value = rank;
+        for (int i = 0; i < 3; i++) {
+            ticker.append((char) ('A' + value % 26));
+            value /= 26;
+        }
+        return ticker.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QuoteStreamServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.trading.service;
+
+import com.example.trading.model.PlanTier;
+import com.example.trading.security.AuthenticatedUser;
+import com.example.trading.security.WebSocketTokenAuthenticator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteStreamServiceTest {
+
+    private static class CountingQuoteResolutionService extends QuoteResolutionService {
+        private final List<Collection<String>> calls = new ArrayList<>();
+        private final Map<String, BigDecimal> prices = new HashMap<>();
+        private final Set<String> unknown = new HashSet<>();
+
+        CountingQuoteResolutionService() {
+            super(new SimpleStockPriceService(), null);
+        }
+
+        @Override
+        public Map<String, ResolvedQuote> resolveAll(Collection<String> symbols) {
+            calls.add(List.copyOf(symbols));
+            Map<String, ResolvedQuote> quotes = new LinkedHashMap<>();
+            for (String symbol : symbols) {
+                if (unknown.contains(symbol)) {
+                    continue;
+                }
+                BigDecimal price = prices.getOrDefault(symbol, new BigDecimal("100.00"));
+                quotes.put(symbol, new ResolvedQuote(symbol, price, price, price, "2026-02-14", "LIVE"));
+            }
+            return quotes;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void broadcastResolvesUnionOnceAndSharesFrames() throws Exception {
+        CountingQuoteResolutionService resolver = new CountingQuoteResolutionService();
+        QuoteStreamService service = new QuoteStreamService(new SimpleStockPriceService(), resolver, objectMapper, null, null, Runnable::run);
+
+        List<StubWebSocketSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            StubWebSocketSession session = new StubWebSocketSession("s" + i);
+            service.afterConnectionEstablished(session);
+            String symbols = i % 2 == 0 ? "[\"AAPL\",\"MSFT\"]" : "[\"AAPL\",\"NVDA\"]";
+            service.handleTextMessage(session, new TextMessage("{\"type\":\"subscribe\",\"symbols\":" + symbols + "}"));
+            sessions.add(session);
+        }
+        resolver.calls.clear();
+        sessions.forEach(session -> session.sent.clear());
+
+        service.broadcastQuotes();
+
+        assertEquals(1, resolver.calls.size());
+        assertEquals(3, resolver.calls.get(0).size());
+
+        QuoteStreamService.BroadcastStats stats = service.getBroadcastStats();
+        assertEquals(20, stats.sessions());
+        assertEquals(3, stats.symbols());
+        assertEquals(2, stats.distinctFrames());
+
+        assertSame(sessions.get(0).sent.get(0), sessions.get(2).sent.get(0));
+        JsonNode frame = objectMapper.readTree(((TextMessage) sessions.get(1).sent.get(0)).getPayload());
+        assertEquals("quotes", frame.path("type").asText());
+        assertEquals(2, frame.path("quotes").size());
+        List<String> symbols = new ArrayList<>();
+        frame.path("quotes").forEach(quote -> symbols.add(quote.path("symbol").asText()));
+        assertTrue(symbols.containsAll(List.of("AAPL", "NVDA")));
+        assertEquals(100.0, frame.path("quotes").get(0).path("price").asDouble());
+    }
+
+    @Test
+    void deltaModeSendsOnlyChangedSymbolsWithPeriodicSnapshot() throws Exception {
+        CountingQuoteResolutionService resolver = new CountingQuoteResolutionService();
+        QuoteStreamService service = new QuoteStreamService(new SimpleStockPriceService(), resolver, objectMapper, null, null, Runnable::run);
+
+        StubWebSocketSession delta = new StubWebSocketSession("delta");
+        StubWebSocketSession full = new StubWebSocketSession("full");
+        service.afterConnectionEstablished(delta);
+        service.afterConnectionEstablished(full);
+        service.handleTextMessage(delta, new TextMessage("{\"type\":\"subscribe\",\"mode\":\"delta\",\"symbols\":[\"AAPL\",\"MSFT\",\"NVDA\"]}"));
+        service.handleTextMessage(full, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"AAPL\",\"MSFT\",\"NVDA\"]}"));
+        assertEquals("snapshot", payload(delta, 0).path("mode").asText());
+        assertTrue(payload(full, 0).path("mode").isMissingNode());
+
+        service.broadcastQuotes();
+        assertEquals(1, delta.sent.size(), "unchanged quotes produce no delta frame");
+        assertEquals(2, full.sent.size());
+
+        resolver.prices.put("MSFT", new BigDecimal("101.50"));
+        service.broadcastQuotes();
+        JsonNode deltaFrame = payload(delta, 1);
+        assertEquals("delta", deltaFrame.path("mode").asText());
+        assertEquals(1, deltaFrame.path("quotes").size());
+        assertEquals("MSFT", deltaFrame.path("quotes").get(0).path("symbol").asText());
+        assertEquals(3, payload(full, 2).path("quotes").size());
+
+        for (int tick = 0; tick < 10; tick++) {
+            service.broadcastQuotes();
+        }
+        JsonNode resync = payload(delta, delta.sent.size() - 1);
+        assertEquals("snapshot", resync.path("mode").asText());
+        assertEquals(3, resync.path("quotes").size());
+
+        QuoteStreamService.SessionStreamStats deltaStats = service.getSessionStats().stream()
+            .filter(stats -> stats.sessionId().equals("delta")).findFirst().orElseThrow();
+        assertEquals("delta", deltaStats.mode());
+        assertEquals(3, deltaStats.frames());
+        assertTrue(deltaStats.bandwidthSavedPercent() > 50.0);
+    }
+
+    @Test
+    void pushedQuotesAreMeasuredAgainstAFullFrame() throws Exception {
+        QuoteStreamService service = new QuoteStreamService(new SimpleStockPriceService(),
+            new CountingQuoteResolutionService(), objectMapper, null, null, Runnable::run);
+        StubWebSocketSession delta = new StubWebSocketSession("delta");
+        StubWebSocketSession full = new StubWebSocketSession("full");
+        service.afterConnectionEstablished(delta);
+        service.afterConnectionEstablished(full);
+        service.handleTextMessage(delta, new TextMessage("{\"type\":\"subscribe\",\"mode\":\"delta\",\"symbols\":[\"AAPL\"]}"));
+        service.handleTextMessage(full, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"AAPL\"]}"));
+        QuoteStreamService.SessionStreamStats deltaBefore = sessionStats(service, "delta");
+        QuoteStreamService.SessionStreamStats fullBefore = sessionStats(service, "full");
+
+        BigDecimal price = new BigDecimal("101.25");
+        service.onQuoteUpdated(new QuoteUpdated("AAPL",
+            new SimpleStockPriceService.StockPrice("AAPL", price, price, price, "2026-02-14"), System.nanoTime()));
+
+        QuoteStreamService.SessionStreamStats deltaAfter = sessionStats(service, "delta");
+        QuoteStreamService.SessionStreamStats fullAfter = sessionStats(service, "full");
+        long fullFrame = fullAfter.bytesSent() - fullBefore.bytesSent();
+        assertEquals(fullFrame, fullAfter.fullSnapshotBytes() - fullBefore.fullSnapshotBytes());
+        assertEquals(fullFrame, deltaAfter.fullSnapshotBytes() - deltaBefore.fullSnapshotBytes());
+        assertNotEquals(fullFrame, deltaAfter.bytesSent() - deltaBefore.bytesSent(), "the delta frame is tagged as one");
+    }
+
+    @Test
+    void binarySubprotocolSessionsGetDictionaryThenFixedPointFrames() throws Exception {
+        CountingQuoteResolutionService resolver = new CountingQuoteResolutionService();
+        resolver.prices.put("AAPL", new BigDecimal("187.4321"));
+        QuoteStreamService service = new QuoteStreamService(new SimpleStockPriceService(), resolver, objectMapper, null, null, Runnable::run);
+        assertEquals(List.of(BinaryQuoteFrames.SUBPROTOCOL), service.getSubProtocols());
+
+        StubWebSocketSession binary = new StubWebSocketSession("bin");
+        binary.acceptedProtocol = BinaryQuoteFrames.SUBPROTOCOL;
+        StubWebSocketSession json = new StubWebSocketSession("json");
+        service.afterConnectionEstablished(binary);
+        service.afterConnectionEstablished(json);
+        service.handleTextMessage(binary, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"AAPL\"]}"));
+        service.handleTextMessage(json, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"AAPL\"]}"));
+        service.broadcastQuotes();
+
+        ByteBuffer dictionary = ((BinaryMessage) binary.sent.get(0)).getPayload();
+        assertEquals(BinaryQuoteFrames.TYPE_DICTIONARY, dictionary.get());
+        assertEquals(1, dictionary.getShort());
+        int symbolId = dictionary.getShort();
+        byte[] symbol = new byte[dictionary.get()];
+        dictionary.get(symbol);
+        assertEquals("AAPL", new String(symbol, StandardCharsets.US_ASCII));
+
+        ByteBuffer frame = ((BinaryMessage) binary.sent.get(2)).getPayload();
+        assertEquals(0x02, frame.get());
+        frame.getLong();
+        assertEquals(1, frame.getShort());
+        assertEquals(symbolId, frame.getShort());
+        assertEquals(0, frame.get());
+        assertEquals(1_874_321L, frame.getLong());
+        assertEquals(16, frame.remaining());
+
+        assertEquals(187.4321, payload(json, 1).path("quotes").get(0).path("price").asDouble());
+    }
+
+    @Test
+    void binarySymbolIdsGoOnlyToResolvedSymbolsAndAreReclaimed() throws Exception {
+        CountingQuoteResolutionService resolver = new CountingQuoteResolutionService();
+        resolver.unknown.add("ZZZZ");
+        QuoteStreamService service = new QuoteStreamService(new SimpleStockPriceService(), resolver, objectMapper, null, null, Runnable::run);
+        StubWebSocketSession binary = new StubWebSocketSession("bin");
+        binary.acceptedProtocol = BinaryQuoteFrames.SUBPROTOCOL;
+        service.afterConnectionEstablished(binary);
+
+        service.handleTextMessage(binary, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"AAPL\",\"ZZZZ\"]}"));
+        assertEquals(Map.of("AAPL", 0), dictionary(binary, 0));
+
+        // AAPL's id is free once nobody subscribes to it, and goes to the next new symbol
+        service.handleTextMessage(binary, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"NVDA\"]}"));
+        assertEquals(Map.of("NVDA", 1), dictionary(binary, 2));
+        service.broadcastQuotes();
+        service.handleTextMessage(binary, new TextMessage("{\"type\":\"subscribe\",\"symbols\":[\"MSFT\"]}"));
+        assertEquals(Map.of("MSFT", 0), dictionary(binary, 5));
+    }
+
+    @Test
+    void userMessagesReachOnlyThatUsersAuthenticatedSessions() throws Exception {
+        AuthenticatedUser alice = new AuthenticatedUser(7L, "alice", PlanTier.FREE, 0);
+        WebSocketTokenAuthenticator authenticator = new WebSocketTokenAuthenticator(null) {
+            @Override
+            public AuthenticatedUser authenticate(String token) {
+                return "alice-token".equals(token) ? alice : null;
+            }
+        };
+        QuoteStreamService service = new QuoteStreamService(new SimpleStockPriceService(),
+            new CountingQuoteResolutionService(), objectMapper, null, authenticator, Runnable::run);
+
+        StubWebSocketSession first = new StubWebSocketSession("a1");
+        StubWebSocketSession second = new StubWebSocketSession("a2");
+        StubWebSocketSession stranger = new StubWebSocketSession("x");
+        for (StubWebSocketSession session : List.of(first, second, stranger)) {
+            service.afterConnectionEstablished(session);
+        }
+        service.handleTextMessage(first, new TextMessage("{\"type\":\"auth\",\"token\":\"alice-token\"}"));
+        service.handleTextMessage(second, new TextMessage("{\"type\":\"auth\",\"token\":\"alice-token\"}"));
+        service.handleTextMessage(stranger, new TextMessage("{\"type\":\"auth\",\"token\":\"forged\"}"));
+        assertTrue(payload(first, 0).path("authenticated").asBoolean());
+        assertFalse(payload(stranger, 0).path("authenticated").asBoolean());
+
+        service.afterConnectionClosed(second, CloseStatus.NORMAL);
+        int queued = service.sendToUser(7L, Map.of("type", "alert", "alert", Map.of("id", 1)));
+
+        assertEquals(1, queued);
+        assertEquals("alert", payload(first, 1).path("type").asText());
+        assertEquals(1, stranger.sent.size());
+    }
+
+    private static Map<String, Integer> dictionary(StubWebSocketSession session, int index) {
+        ByteBuffer frame = ((BinaryMessage) session.sent.get(index)).getPayload();
+        assertEquals(BinaryQuoteFrames.TYPE_DICTIONARY, frame.get());
+        Map<String, Integer> ids = new HashMap<>();
+        for (int count = frame.getShort(); count > 0; count--) {
+            int id = frame.getShort();
+            byte[] symbol = new byte[frame.get()];
+            frame.get(symbol);
+            ids.put(new String(symbol, StandardCharsets.US_ASCII), id);
+        }
+        return ids;
+    }
+
+    private static QuoteStreamService.SessionStreamStats sessionStats(QuoteStreamService service, String sessionId) {
+        return service.getSessionStats().stream()
+            .filter(stats -> stats.sessionId().equals(sessionId)).findFirst().orElseThrow();
+    }
+
+    private JsonNode payload(StubWebSocketSession session, int index) throws Exception {
+        return objectMapper.readTree(((TextMessage) session.sent.get(index)).getPayload());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.trading.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter hot paths at 32 threads: the previous synchronized fixed-window counters (with
+ * LocalDateTime arithmetic per call) against the lock-free {@link SlidingWindowCounter} versions.
+ * {@code keys=1} puts every thread on one public-route key; {@code windowMillis=1} rolls the window
+ * continuously so admissions and rollovers are exercised, not only the denied path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "4096"})
+    int keys;
+
+    @Param({"60000", "1"})
+    long windowMillis;
+
+    private String[] keyNames;
+    private LegacyPublicRateLimiter legacyLimiter;
+    private PublicRateLimiterService limiter;
+    private LegacyProviderMetrics legacyTracker;
+    private ApiUsageTracker tracker;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "10.0." + (i / 256) + "." + (i % 256) + "|GET|/api/stocks/AAPL/price";
+        }
+        legacyLimiter = new LegacyPublicRateLimiter();
+        limiter = new PublicRateLimiterService();
+        legacyTracker = new LegacyProviderMetrics(1000, 100);
+        tracker = new ApiUsageTracker();
+    }
+
+    @Benchmark
+    public boolean legacyPublicLimiter() {
+        return legacyLimiter.allow(nextKey(), 120, windowMillis);
+    }
+
+    @Benchmark
+    public boolean publicLimiter() {
+        return limiter.allow(nextKey(), 120, windowMillis);
+    }
+
+    @Benchmark
+    public boolean legacyProviderTracker() {
+        return legacyTracker.canMakeMinuteRequest() && legacyTracker.incrementDaily();
+    }
+
+    @Benchmark
+    public boolean providerTracker() {
+        return tracker.canMakeRequest("MASSIVE") && tracker.recordRequest("MASSIVE");
+    }
+
+    private String nextKey() {
+        return keys == 1 ? keyNames[0] : keyNames[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    /**
+     * PublicRateLimiterService before the lock-free rewrite.
+     */
+    private static final class LegacyPublicRateLimiter {
+        private final Map<String, WindowCounter> counters = new ConcurrentHashMap<>();
+
+        boolean allow(String key, int maxRequests, long windowMillis) {
+            long now = System.currentTimeMillis();
+            WindowCounter counter = counters.computeIfAbsent(key, ignored -> new WindowCounter(now));
+            synchronized (counter) {
+                if (now - counter.windowStart >= windowMillis) {
+                    counter.windowStart = now;
+                    counter.count = 0;
+                }
+                if (counter.count >= maxRequests) {
+                    return false;
+                }
+                counter.count++;
+                return true;
+            }
+        }
+
+        private static final class WindowCounter {
+            long windowStart;
+            int count;
+
+            WindowCounter(long windowStart) {
+                this.windowStart = windowStart;
+            }
+        }
+    }
+
+    /**
+     * ApiUsageTracker.ProviderMetrics before the lock-free rewrite.
+     */
+    private static final class LegacyProviderMetrics {
+        int dailyRequestCount;
+        final int dailyLimit;
+        LocalDateTime lastResetTime = LocalDateTime.now();
+        long minuteRequestCount;
+        final int minuteLimit;
+        LocalDateTime lastMinuteResetTime = LocalDateTime.now();
+
+        LegacyProviderMetrics(int dailyLimit, int minuteLimit) {
+            this.dailyLimit = dailyLimit;
+            this.minuteLimit = minuteLimit;
+        }
+
+        synchronized boolean incrementDaily() {
+            if (ChronoUnit.DAYS.between(lastResetTime, LocalDateTime.now()) >= 1) {
+                dailyRequestCount = 0;
+                lastResetTime = LocalDateTime.now();
+            }
+            if (dailyRequestCount >= dailyLimit) {
+                return false;
+            }
+            dailyRequestCount++;
+            return true;
+        }
+
+        synchronized boolean canMakeMinuteRequest() {
+            if (ChronoUnit.MINUTES.between(lastMinuteResetTime, LocalDateTime.now()) >= 1) {
+                minuteRequestCount = 0;
+                lastMinuteResetTime = LocalDateTime.now();
+            }
+            if (minuteRequestCount >= minuteLimit) {
+                return false;
+            }
+            minuteRequestCount++;
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.trading.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedRateLimiterTest {
+
+    private final AtomicLong millis = new AtomicLong(1_700_000_040_000L);
+    private final CountingStore store = new CountingStore();
+
+    @Test
+    void replicasShareOneLimitAndReachTheStoreOncePerLease() {
+        List<SharedRateLimiter> replicas = List.of(replica(), replica(), replica());
+
+        int admitted = 0;
+        for (int i = 0; i < 300; i++) {
+            if (replicas.get(i % 3).tryAcquire("public|1.2.3.4|GET|/api/stocks", 100, 60_000, false)) {
+                admitted++;
+            }
+        }
+
+        // 5% leases of 100: 20 leases cover the limit, then each replica is refused once and rechecks later
+        assertEquals(100, admitted);
+        assertEquals(23, store.calls.get());
+        assertEquals(100, replicas.get(0).used("public|1.2.3.4|GET|/api/stocks", 100, 60_000, false));
+        assertEquals(80, replicas.stream().mapToLong(replica -> replica.getStats().localGrants()).sum());
+
+        millis.addAndGet(60_000);
+        assertTrue(replicas.get(1).tryAcquire("public|1.2.3.4|GET|/api/stocks", 100, 60_000, false), "fixed windows start over");
+    }
+
+    @Test
+    void slidingLimitsHoldThePreviousWindowAgainstTheNextOne() {
+        SharedRateLimiter limiter = replica();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire("provider|FINNHUB|minute", 100, 60_000, true));
+        }
+
+        // A quarter into the next minute three quarters of the previous one still count
+        millis.addAndGet(75_000);
+        int admitted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire("provider|FINNHUB|minute", 100, 60_000, true)) {
+                admitted++;
+            }
+        }
+        assertEquals(25, admitted);
+    }
+
+    @Test
+    void countsLocallyWhileTheStoreIsUnreachable() {
+        SharedRateLimiter limiter = replica();
+        store.failing = true;
+
+        int admitted = 0;
+        for (int i = 0; i < 30; i++) {
+            if (limiter.tryAcquire("provider|ALPHA_VANTAGE|daily", 25, 86_400_000, false)) {
+                admitted++;
+            }
+        }
+
+        assertEquals(25, admitted);
+        assertEquals(30, limiter.getStats().fallbackDecisions());
+    }
+
+    private SharedRateLimiter replica() {
+        return new SharedRateLimiter(store, millis::get);
+    }
+
+    private static final class CountingStore extends InMemorySharedCounterStore {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean failing;
+
+        @Override
+        public Grant acquire(String key, long window, long windowMillis, int limit, int requested, double previousWeight) {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return super.acquire(key, window, windowMillis, limit, requested, previousWeight);
+        }
+    }
+}
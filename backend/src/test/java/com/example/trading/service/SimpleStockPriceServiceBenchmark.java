@@ -0,0 +1,144 @@
+package com.example.trading.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-cache quote throughput for a screener-sized symbol list: one Yahoo request per symbol
+ * against chunked batch requests. Runs against a local stub of /v7/finance/quote that adds a
+ * fixed per-request delay standing in for the provider round trip.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimpleStockPriceServiceBenchmark {
+
+    @Param({"200"})
+    int symbolCount;
+
+    @Param({"2"})
+    int roundTripMs;
+
+    private HttpServer server;
+    private SimpleStockPriceService service;
+    private List<String> symbols;
+
+    @Setup(Level.Trial)
+    public void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/v7/finance/quote", exchange -> {
+            String query = exchange.getRequestURI().getRawQuery();
+            byte[] body = quoteResponse(query).getBytes(StandardCharsets.UTF_8);
+            sleep(roundTripMs);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        service = new SimpleStockPriceService("http://127.0.0.1:" + server.getAddress().getPort()) {
+            @Override
+            protected StockPrice tryAlphaVantageQuote(String symbol) {
+                return null;
+            }
+        };
+
+        symbols = new ArrayList<>(symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            symbols.add(ticker(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Setup(Level.Invocation)
+    public void coldCache() {
+        service.clearCache();
+    }
+
+    @Benchmark
+    public Map<String, SimpleStockPriceService.StockPrice> perSymbol() {
+        Map<String, SimpleStockPriceService.StockPrice> prices = new HashMap<>();
+        for (String symbol : symbols) {
+            prices.put(symbol, service.getCurrentPrice(symbol));
+        }
+        return prices;
+    }
+
+    @Benchmark
+    public Map<String, SimpleStockPriceService.StockPrice> batched() {
+        return service.getCurrentPrices(symbols);
+    }
+
+    private static String quoteResponse(String query) {
+        String symbolList = URI.create("http://stub/?" + query).getQuery().replace("symbols=", "");
+        StringBuilder json = new StringBuilder("{\"quoteResponse\":{\"result\":[");
+        String[] requested = symbolList.split(",");
+        for (int i = 0; i < requested.length; i++) {
+            if (i > 0) json.append(',');
+            double price = 50 + (requested[i].hashCode() & 0xFF);
+            json.append("{\"symbol\":\"").append(requested[i])
+                .append("\",\"regularMarketPrice\":").append(price)
+                .append(",\"regularMarketDayHigh\":").append(price + 1)
+                .append(",\"regularMarketDayLow\":").append(price - 1).append('}');
+        }
+        return json.append("],\"error\":null}}").toString();
+    }
+
+    private static String ticker(int index) {
+        StringBuilder ticker = new StringBuilder();
+        int value = index;
+        for (int i = 0; i < 4; i++) {
+            ticker.append((char) ('A' + value % 26));
+            value /= 26;
+        }
+        return ticker.toString();
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SimpleStockPriceServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
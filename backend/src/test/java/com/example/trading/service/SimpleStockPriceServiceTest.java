@@ -3,6 +3,10 @@ package com.example.trading.service;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,6 +32,63 @@ class SimpleStockPriceServiceTest {
         }
     }
 
+    private static class BatchStubSimpleStockPriceService extends SimpleStockPriceService {
+        private final List<List<String>> yahooBatches = new ArrayList<>();
+        private final List<String> alphaCalls = new ArrayList<>();
+
+        @Override
+        protected Map<String, StockPrice> tryYahooQuotes(List<String> symbols) {
+            yahooBatches.add(List.copyOf(symbols));
+            Map<String, StockPrice> quotes = new HashMap<>();
+            for (String symbol : symbols) {
+                if (!symbol.startsWith("X")) {
+                    quotes.put(symbol, price(symbol));
+                }
+            }
+            return quotes;
+        }
+
+        @Override
+        protected StockPrice tryAlphaVantageQuote(String symbol) {
+            alphaCalls.add(symbol);
+            return null;
+        }
+    }
+
+    private static SimpleStockPriceService.StockPrice price(String symbol) {
+        return new SimpleStockPriceService.StockPrice(
+            symbol,
+            new BigDecimal("10.00"),
+            new BigDecimal("11.00"),
+            new BigDecimal("9.00"),
+            "2026-02-14"
+        );
+    }
+
+    @Test
+    void batchLookupChunksMissesAndFillsCache() {
+        BatchStubSimpleStockPriceService service = new BatchStubSimpleStockPriceService();
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            symbols.add("B" + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26));
+        }
+        symbols.add("xqq");
+        symbols.add("bad$");
+        symbols.add("BAA");
+
+        Map<String, SimpleStockPriceService.StockPrice> prices = service.getCurrentPrices(symbols);
+
+        assertEquals(120, prices.size());
+        assertEquals(List.of(50, 50, 21), service.yahooBatches.stream().map(List::size).toList());
+        assertEquals(List.of("XQQ"), service.alphaCalls);
+
+        service.yahooBatches.clear();
+        Map<String, SimpleStockPriceService.StockPrice> cached = service.getCurrentPrices(List.of("BAA", "BAB"));
+
+        assertEquals(2, cached.size());
+        assertTrue(service.yahooBatches.isEmpty());
+    }
+
     @Test
     void returnsNullWhenProvidersUnavailable() {
         SimpleStockPriceService service = new StubSimpleStockPriceService(null, null);
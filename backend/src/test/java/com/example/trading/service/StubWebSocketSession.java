@@ -0,0 +1,140 @@
+package com.example.trading.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory WebSocketSession for driving QuoteStreamService without a server.
+ * Sent messages are recorded unless {@code recordMessages} is false (load tests); setting
+ * {@code sendGate} blocks sends until the latch opens, simulating a slow client.
+ */
+class StubWebSocketSession implements WebSocketSession {
+
+    private final String id;
+    private final boolean recordMessages;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    final List<WebSocketMessage<?>> sent = new CopyOnWriteArrayList<>();
+    volatile long sentCount;
+    volatile long sentBytes;
+    volatile boolean open = true;
+    volatile CountDownLatch sendGate;
+    volatile String acceptedProtocol;
+
+    StubWebSocketSession(String id) {
+        this(id, true);
+    }
+
+    StubWebSocketSession(String id, boolean recordMessages) {
+        this.id = id;
+        this.recordMessages = recordMessages;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return URI.create("ws://localhost/ws/quotes");
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return new HttpHeaders();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return acceptedProtocol;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return 0;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return 0;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        CountDownLatch gate = sendGate;
+        if (gate != null) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted", e);
+            }
+        }
+        sentCount++;
+        sentBytes += message.getPayloadLength();
+        if (recordMessages) {
+            sent.add(message);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        open = false;
+    }
+}
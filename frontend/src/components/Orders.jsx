@@ -5,6 +5,8 @@ export default function Orders() {
   const [symbol, setSymbol] = useState('AAPL')
   const [quantity, setQuantity] = useState(1)
   const [side, setSide] = useState('BUY')
+  const [type, setType] = useState('MARKET')
+  const [limitPrice, setLimitPrice] = useState('')
 
   const username = localStorage.getItem('username')
   const token = localStorage.getItem('token')
@@ -19,14 +21,33 @@ export default function Orders() {
 
   useEffect(() => { load() }, [])
 
+  // The order list is written from the order journal a moment after the order is accepted,
+  // so keep what the server answered rather than only reloading
+  function merge(order) {
+    setOrders(prev => [order, ...prev.filter(o => o.id !== order.id)])
+  }
+
   function place(e) {
     e.preventDefault()
     if (!username || !token) return alert('login first')
     fetch('/api/orders', {
       method: 'POST',
       headers: { 'Content-Type': 'application/json', 'Authorization': 'Bearer ' + token },
-      body: JSON.stringify({ symbol, quantity, side })
-    }).then(r => r.json()).then(() => load())
+      body: JSON.stringify(type === 'LIMIT'
+        ? { symbol, quantity, side, type, limitPrice: parseFloat(limitPrice) }
+        : { symbol, quantity, side, type })
+    }).then(async r => {
+      if (!r.ok) return alert(await r.text())
+      merge(await r.json())
+    })
+  }
+
+  function cancel(id) {
+    fetch('/api/orders/' + id, { method: 'DELETE', headers: { 'Authorization': 'Bearer ' + token } })
+      .then(async r => {
+        if (!r.ok) return alert(await r.text())
+        setOrders(prev => prev.map(o => o.id === id ? { ...o, status: 'CANCELLED', open: false } : o))
+      })
   }
 
   return (
@@ -43,16 +64,28 @@ export default function Orders() {
           <option>BUY</option>
           <option>SELL</option>
         </select>
+        <select value={type} onChange={e => setType(e.target.value)} style={{ marginLeft: 8 }}>
+          <option>MARKET</option>
+          <option>LIMIT</option>
+        </select>
+        {type === 'LIMIT' && (
+          <input type="number" step="0.01" min="0.01" placeholder="Limit price" value={limitPrice} onChange={e => setLimitPrice(e.target.value)} style={{ width: 100, marginLeft: 8 }} />
+        )}
         <button style={{ marginLeft: 8 }} type="submit">Place</button>
       </form>
 
       <table style={{ width: '100%', borderCollapse: 'collapse' }}>
         <thead>
-          <tr><th>Symbol</th><th>Qty</th><th>Price</th><th>Side</th><th>Status</th></tr>
+          <tr><th>Symbol</th><th>Qty</th><th>Filled</th><th>Price</th><th>Side</th><th>Type</th><th>Status</th><th></th></tr>
         </thead>
         <tbody>
           {orders.map(o => (
-            <tr key={o.id}><td>{o.symbol}</td><td>{o.quantity}</td><td>{o.price}</td><td>{o.side}</td><td>{o.status}</td></tr>
+            <tr key={o.id}>
+              <td>{o.symbol}</td><td>{o.quantity}</td><td>{o.filledQuantity}</td>
+              <td>{o.price ?? (o.limitPrice != null ? '@ ' + o.limitPrice : '')}</td>
+              <td>{o.side}</td><td>{o.type}</td><td>{o.status}</td>
+              <td>{o.open && <button onClick={() => cancel(o.id)}>Cancel</button>}</td>
+            </tr>
           ))}
         </tbody>
       </table>
@@ -1,4 +1,4 @@
-export function subscribeToQuoteStream(symbols, onQuotes) {
+export function subscribeToQuoteStream(symbols, onQuotes, onAlert) {
   if (typeof window === 'undefined' || typeof window.WebSocket === 'undefined') {
     return () => {}
   }
@@ -19,6 +19,11 @@ export function subscribeToQuoteStream(symbols, onQuotes) {
   const socket = new window.WebSocket(`${protocol}://${window.location.host}/ws/quotes`)
 
   socket.onopen = () => {
+    // Authenticating is optional for quotes; it lets the server push this user's price alerts
+    const token = window.localStorage?.getItem('token')
+    if (token) {
+      socket.send(JSON.stringify({ type: 'auth', token }))
+    }
     socket.send(JSON.stringify({
       type: 'subscribe',
       symbols: uniqueSymbols
@@ -28,6 +33,12 @@ export function subscribeToQuoteStream(symbols, onQuotes) {
   socket.onmessage = (event) => {
     try {
       const payload = JSON.parse(event.data)
+      if (payload?.type === 'alert') {
+        if (typeof onAlert === 'function' && payload.alert) {
+          onAlert(payload.alert)
+        }
+        return
+      }
       if (payload?.type !== 'quotes' || !Array.isArray(payload?.quotes)) {
         return
       }